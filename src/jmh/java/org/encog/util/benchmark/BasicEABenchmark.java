@@ -0,0 +1,126 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.CalculateScore;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.PrgCODEC;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.generator.RampedHalfAndHalf;
+import org.encog.ml.prg.opp.ConstMutation;
+import org.encog.ml.prg.opp.SubtreeCrossover;
+import org.encog.ml.prg.opp.SubtreeMutation;
+import org.encog.ml.prg.species.PrgSpeciation;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.ml.prg.train.rewrite.RewriteAlgebraic;
+import org.encog.ml.prg.train.rewrite.RewriteConstants;
+import org.encog.neural.neat.NEATPopulation;
+import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one generation of BasicEA, for both NEAT and Encog programs
+ * (PRG). A thread count of zero lets Encog pick the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BasicEABenchmark {
+
+	@Param({ "NEAT", "PRG" })
+	public String method;
+
+	@Param({ "100", "1000" })
+	public int populationSize;
+
+	@Param({ "100", "1000" })
+	public int records;
+
+	@Param({ "1", "4", "0" })
+	public int threads;
+
+	private TrainEA train;
+
+	@Setup
+	public void setup() {
+		MLDataSet data = RandomTrainingFactory.generate(1000, this.records, 2,
+				1, -1, 1);
+		CalculateScore score = new TrainingSetScore(data);
+
+		if ("NEAT".equals(this.method)) {
+			NEATPopulation pop = new NEATPopulation(2, 1, this.populationSize);
+			pop.setInitialConnectionDensity(1.0);
+			pop.reset();
+			this.train = NEATUtil.constructNEATTrainer(pop, score);
+		} else {
+			EncogProgramContext context = new EncogProgramContext();
+			context.defineVariable("x");
+			context.defineVariable("y");
+			StandardExtensions.createNumericOperators(context);
+			PrgPopulation pop = new PrgPopulation(context, this.populationSize);
+			(new RampedHalfAndHalf(context, 2, 6)).generate(new Random(1000),
+					pop);
+			this.train = new TrainEA(pop, score);
+			pop.getRules().addRewriteRule(new RewriteConstants());
+			pop.getRules().addRewriteRule(new RewriteAlgebraic());
+			this.train.setCODEC(new PrgCODEC());
+			this.train.addOperation(0.8, new SubtreeCrossover());
+			this.train.addOperation(0.1, new SubtreeMutation(context, 4));
+			this.train.addOperation(0.1, new ConstMutation(context, 0.5, 1.0));
+			this.train.setSpeciation(new PrgSpeciation());
+		}
+		this.train.setThreadCount(this.threads);
+	}
+
+	@Benchmark
+	public double iteration() {
+		this.train.iteration();
+		return this.train.getError();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.train.finishTraining();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading every record of an EGB file through BufferedMLDataSet,
+ * both in order and in a shuffled order, as a stochastic trainer would. Both
+ * the channel based and the memory mapped modes are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BufferedMLDataSetBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int records;
+
+	@Param({ "10", "100" })
+	public int inputCount;
+
+	@Param({ "false", "true" })
+	public boolean memoryMapped;
+
+	public static final int IDEAL_COUNT = 2;
+
+	private File file;
+	private BufferedMLDataSet buffer;
+	private MLDataPair pair;
+	private int[] order;
+
+	@Setup
+	public void setup() throws IOException {
+		this.file = File.createTempFile("encog-benchmark", ".egb");
+		// BufferedMLDataSet would try to open an existing, empty, file
+		this.file.delete();
+		this.buffer = new BufferedMLDataSet(this.file);
+		this.buffer.load(RandomTrainingFactory.generate(1000, this.records,
+				this.inputCount, IDEAL_COUNT, -1, 1));
+		this.buffer.setMemoryMapped(this.memoryMapped);
+		this.pair = BasicMLDataPair.createPair(this.inputCount, IDEAL_COUNT);
+
+		this.order = new int[this.records];
+		for (int i = 0; i < this.records; i++) {
+			this.order[i] = (int) ((i * 7919L) % this.records);
+		}
+	}
+
+	@Benchmark
+	public double readSequential() {
+		double sum = 0;
+		for (int i = 0; i < this.records; i++) {
+			this.buffer.getRecord(i, this.pair);
+			sum += this.pair.getInputArray()[0];
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double readRandom() {
+		double sum = 0;
+		for (int i = 0; i < this.records; i++) {
+			this.buffer.getRecord(this.order[i], this.pair);
+			sum += this.pair.getInputArray()[0];
+		}
+		return sum;
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.buffer.close();
+		this.file.delete();
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.FlatNetworkBatch;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.util.simple.EncogUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks inference with FlatNetwork, one record at a time and as a block
+ * of records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlatNetworkBenchmark {
+
+	@Param({ "10", "100", "500" })
+	public int hidden;
+
+	@Param({ "100", "1000" })
+	public int records;
+
+	public static final int INPUT_COUNT = 50;
+	public static final int OUTPUT_COUNT = 10;
+
+	private FlatNetwork flat;
+	private FlatNetworkBatch batch;
+	private double[] input;
+	private double[] output;
+
+	@Setup
+	public void setup() {
+		BasicNetwork network = EncogUtility.simpleFeedForward(INPUT_COUNT,
+				this.hidden, 0, OUTPUT_COUNT, true);
+		network.reset(1000);
+		this.flat = network.getFlat();
+		this.batch = new FlatNetworkBatch(this.flat, 64);
+
+		MLDataSet data = RandomTrainingFactory.generate(1000, this.records,
+				INPUT_COUNT, OUTPUT_COUNT, -1, 1);
+		this.input = new double[this.records * INPUT_COUNT];
+		for (int i = 0; i < this.records; i++) {
+			System.arraycopy(data.get(i).getInputArray(), 0, this.input, i
+					* INPUT_COUNT, INPUT_COUNT);
+		}
+		this.output = new double[this.records * OUTPUT_COUNT];
+	}
+
+	@Benchmark
+	public double[] compute() {
+		final double[] in = new double[INPUT_COUNT];
+		final double[] out = new double[OUTPUT_COUNT];
+		for (int i = 0; i < this.records; i++) {
+			System.arraycopy(this.input, i * INPUT_COUNT, in, 0, INPUT_COUNT);
+			this.flat.compute(in, out);
+			System.arraycopy(out, 0, this.output, i * OUTPUT_COUNT,
+					OUTPUT_COUNT);
+		}
+		return this.output;
+	}
+
+	@Benchmark
+	public double[] computeBlock() {
+		this.batch.compute(this.input, this.output, this.records);
+		return this.output;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.MLCluster;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.kmeans.KMeansClustering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks k-means clustering, including the initial cluster assignment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KMeansBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int records;
+
+	@Param({ "2", "20" })
+	public int dimensions;
+
+	@Param({ "4", "16" })
+	public int k;
+
+	public static final int ITERATIONS = 10;
+
+	private MLDataSet data;
+
+	@Setup
+	public void setup() {
+		this.data = RandomTrainingFactory.generate(1000, this.records,
+				this.dimensions, 0, -1, 1);
+	}
+
+	@Benchmark
+	public MLCluster[] cluster() {
+		KMeansClustering kmeans = new KMeansClustering(this.k, this.data);
+		kmeans.iteration(ITERATIONS);
+		return kmeans.getClusters();
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.Propagation;
+import org.encog.neural.networks.training.propagation.back.Backpropagation;
+import org.encog.neural.networks.training.propagation.manhattan.ManhattanPropagation;
+import org.encog.neural.networks.training.propagation.quick.QuickPropagation;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.neural.networks.training.propagation.scg.ScaledConjugateGradient;
+import org.encog.util.simple.EncogUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a single training iteration of each of the propagation trainers.
+ * A thread count of zero lets Encog pick the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PropagationBenchmark {
+
+	@Param({ "RPROP", "Backprop", "QuickProp", "Manhattan", "SCG" })
+	public String trainer;
+
+	@Param({ "10", "100" })
+	public int hidden;
+
+	@Param({ "1000", "10000" })
+	public int records;
+
+	@Param({ "1", "4", "0" })
+	public int threads;
+
+	public static final int INPUT_COUNT = 20;
+	public static final int OUTPUT_COUNT = 5;
+
+	private Propagation train;
+
+	@Setup
+	public void setup() {
+		BasicNetwork network = EncogUtility.simpleFeedForward(INPUT_COUNT,
+				this.hidden, 0, OUTPUT_COUNT, true);
+		network.reset(1000);
+		MLDataSet data = RandomTrainingFactory.generate(1000, this.records,
+				INPUT_COUNT, OUTPUT_COUNT, -1, 1);
+
+		if ("RPROP".equals(this.trainer)) {
+			this.train = new ResilientPropagation(network, data);
+		} else if ("Backprop".equals(this.trainer)) {
+			this.train = new Backpropagation(network, data, 0.0001, 0.9);
+		} else if ("QuickProp".equals(this.trainer)) {
+			this.train = new QuickPropagation(network, data);
+		} else if ("Manhattan".equals(this.trainer)) {
+			this.train = new ManhattanPropagation(network, data, 0.0001);
+		} else {
+			this.train = new ScaledConjugateGradient(network, data);
+		}
+		this.train.setThreadCount(this.threads);
+	}
+
+	@Benchmark
+	public double iteration() {
+		this.train.iteration();
+		return this.train.getError();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.train.finishTraining();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.util.csv.CSVFormat;
+import org.encog.util.csv.ReadCSV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing a numeric CSV file with ReadCSV.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadCSVBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int rows;
+
+	@Param({ "5", "50" })
+	public int columns;
+
+	private byte[] csv;
+
+	@Setup
+	public void setup() {
+		StringBuilder result = new StringBuilder();
+		for (int j = 0; j < this.columns; j++) {
+			if (j > 0) {
+				result.append(',');
+			}
+			result.append("c").append(j);
+		}
+		result.append('\n');
+
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				if (j > 0) {
+					result.append(',');
+				}
+				result.append(CSVFormat.EG_FORMAT.format(Math.sin(i + j), 10));
+			}
+			result.append('\n');
+		}
+		this.csv = result.toString().getBytes();
+	}
+
+	@Benchmark
+	public double parse() {
+		ReadCSV read = new ReadCSV(new ByteArrayInputStream(this.csv), true,
+				CSVFormat.EG_FORMAT);
+		double sum = 0;
+		while (read.next()) {
+			for (int j = 0; j < this.columns; j++) {
+				sum += read.getDouble(j);
+			}
+		}
+		read.close();
+		return sum;
+	}
+}
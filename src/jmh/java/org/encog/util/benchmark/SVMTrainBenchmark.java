@@ -0,0 +1,85 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.mathutil.libsvm.svm_parameter;
+import org.encog.mathutil.libsvm.svm_problem;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.svm.KernelType;
+import org.encog.ml.svm.SVM;
+import org.encog.ml.svm.SVMType;
+import org.encog.ml.svm.training.EncodeSVMProblem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks training an RBF support vector regression with the embedded
+ * copy of libsvm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SVMTrainBenchmark {
+
+	@Param({ "100", "1000", "5000" })
+	public int records;
+
+	@Param({ "2", "20" })
+	public int inputCount;
+
+	private svm_problem problem;
+	private svm_parameter params;
+
+	@Setup
+	public void setup() {
+		MLDataSet data = RandomTrainingFactory.generate(1000, this.records,
+				this.inputCount, 1, -1, 1);
+		SVM method = new SVM(this.inputCount,
+				SVMType.EpsilonSupportVectorRegression,
+				KernelType.RadialBasisFunction);
+		this.problem = EncodeSVMProblem.encode(data, 0);
+		this.params = method.getParams();
+	}
+
+	@Benchmark
+	public svm_model train() {
+		return svm.svm_train(this.problem, this.params);
+	}
+}
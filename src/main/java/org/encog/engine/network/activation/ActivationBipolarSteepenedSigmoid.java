@@ -23,6 +23,7 @@
  */
 package org.encog.engine.network.activation;
 
+import java.util.Arrays;
 
 /**
  * The bipolar sigmoid activation function is like the regular sigmoid activation function,
@@ -60,6 +61,16 @@ public double derivativeFunction(double b, double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		Arrays.fill(dest, start, start + size, 1.0);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
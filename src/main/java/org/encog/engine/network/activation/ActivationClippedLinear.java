@@ -23,6 +23,8 @@
  */
 package org.encog.engine.network.activation;
 
+import java.util.Arrays;
+
 
 /**
  * Linear activation function that bounds the output to [-1,+1].  This
@@ -63,6 +65,16 @@ public double derivativeFunction(double b, double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		Arrays.fill(dest, start, start + size, 1.0);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
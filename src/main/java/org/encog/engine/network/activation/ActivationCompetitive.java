@@ -128,6 +128,17 @@ public final double derivativeFunction(final double b, final double a) {
 
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		throw new EncogError("Can't use the competitive activation function "
+				+ "where a derivative is required.");
+	}
+
 	/**
 	 * @return The maximum number of winners this function supports.
 	 */
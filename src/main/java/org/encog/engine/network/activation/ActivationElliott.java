@@ -83,6 +83,21 @@ public final double derivativeFunction(final double b, final double a) {
     	return s/(2.0*(1.0+Math.abs(b*s))*(1+Math.abs(b*s)));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void derivativeFunction(final double[] sums,
+            final double[] outputs, final double[] dest, final int start,
+            final int size) {
+        final double s = params[0];
+        final int end = start + size;
+        for (int i = start; i < end; i++) {
+            final double d = 1.0 + Math.abs(sums[i] * s);
+            dest[i] = s / (2.0 * d * d);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
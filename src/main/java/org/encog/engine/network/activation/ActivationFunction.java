@@ -82,6 +82,30 @@ public interface ActivationFunction extends Serializable, Cloneable {
 	 */
 	double derivativeFunction(double b, double a);
 
+	/**
+	 * Calculate the derivative for a range of neurons. This produces the same
+	 * values as calling derivativeFunction(b, a) for each neuron, but lets the
+	 * activation function process the entire range in one tight loop, which
+	 * the JIT is able to vectorize for the common activation functions.
+	 * 
+	 * The same index is used for all three arrays, so dest[i] receives the
+	 * derivative of sums[i] and outputs[i].
+	 * 
+	 * @param sums
+	 *            The numbers to calculate the derivative of, the numbers
+	 *            "before" the activation function was applied.
+	 * @param outputs
+	 *            The numbers "after" the activation function has been applied.
+	 * @param dest
+	 *            The array that the derivatives are placed in.
+	 * @param start
+	 *            The starting index.
+	 * @param size
+	 *            The number of values to calculate.
+	 */
+	void derivativeFunction(double[] sums, double[] outputs, double[] dest,
+			int start, int size);
+
 	/**
 	 * @return Return true if this function has a derivative.
 	 */
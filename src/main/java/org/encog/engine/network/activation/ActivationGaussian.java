@@ -96,6 +96,19 @@ public final double derivativeFunction(final double b, final double a) {
 		return Math.exp( Math.pow(2.5 * b,2.0) * 12.5 * b);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		final int end = start + size;
+		for (int i = start; i < end; i++) {
+			dest[i] = derivativeFunction(sums[i], outputs[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
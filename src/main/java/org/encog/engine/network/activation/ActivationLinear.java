@@ -23,6 +23,8 @@
  */
 package org.encog.engine.network.activation;
 
+import java.util.Arrays;
+
 import org.encog.ml.factory.MLActivationFactory;
 import org.encog.util.obj.ActivationUtil;
 
@@ -85,6 +87,16 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		Arrays.fill(dest, start, start + size, 1.0);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
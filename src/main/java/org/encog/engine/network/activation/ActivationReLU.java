@@ -114,6 +114,20 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1.0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		final double threshold = this.params[ActivationReLU.PARAM_RELU_LOW_THRESHOLD];
+		final int end = start + size;
+		for (int i = start; i < end; i++) {
+			dest[i] = sums[i] <= threshold ? 0 : 1.0;
+		}
+	}
+
 	/**
 	 * @return the low
 	 */
@@ -24,6 +24,7 @@
 package org.encog.engine.network.activation;
 
 import org.encog.mathutil.BoundMath;
+import org.encog.mathutil.FastMath;
 import org.encog.ml.factory.MLActivationFactory;
 import org.encog.util.obj.ActivationUtil;
 
@@ -44,6 +45,12 @@ public class ActivationSigmoid implements ActivationFunction {
 	 */
 	private final double[] params;
 
+	/**
+	 * True if the activation function should use FastMath, see
+	 * setApproximate.
+	 */
+	private boolean approximate;
+
 	/**
 	 * Construct a basic sigmoid function, with a slope of 1.
 	 */
@@ -57,8 +64,14 @@ public ActivationSigmoid() {
 	@Override
 	public final void activationFunction(final double[] x, final int start,
 			final int size) {
-		for (int i = start; i < start + size; i++) {
-			x[i] = 1.0 / (1.0 + BoundMath.exp(-1 * x[i]));
+		if (this.approximate) {
+			for (int i = start; i < start + size; i++) {
+				x[i] = 1.0 / (1.0 + FastMath.exp(-1 * x[i]));
+			}
+		} else {
+			for (int i = start; i < start + size; i++) {
+				x[i] = 1.0 / (1.0 + BoundMath.exp(-1 * x[i]));
+			}
 		}
 	}
 
@@ -67,7 +80,9 @@ public final void activationFunction(final double[] x, final int start,
 	 */
 	@Override
 	public final ActivationFunction clone() {
-		return new ActivationSigmoid();
+		final ActivationSigmoid result = new ActivationSigmoid();
+		result.setApproximate(this.approximate);
+		return result;
 	}
 
 	/**
@@ -78,6 +93,19 @@ public final double derivativeFunction(final double b, final double a) {
 		return a * (1.0 - a);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] sums,
+			final double[] outputs, final double[] dest, final int start,
+			final int size) {
+		final int end = start + size;
+		for (int i = start; i < end; i++) {
+			dest[i] = outputs[i] * (1.0 - outputs[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -119,6 +147,26 @@ public String getFactoryCode() {
 		return ActivationUtil.generateActivationFactory(MLActivationFactory.AF_SIGMOID, this);
 	}
 
+	/**
+	 * Determine if the sigmoid should be approximated. When true, the
+	 * activation function is calculated with FastMath.exp, which is faster
+	 * but has an error of up to 2E-7. The derivative is calculated from the
+	 * output, so it is not affected. The default is false.
+	 * 
+	 * @param theApproximate
+	 *            True to approximate the activation function.
+	 */
+	public final void setApproximate(final boolean theApproximate) {
+		this.approximate = theApproximate;
+	}
+
+	/**
+	 * @return True if the activation function is approximated.
+	 */
+	public final boolean isApproximate() {
+		return this.approximate;
+	}
+
 	@Override
 	public String getLabel() {
 		return "sigmoid";
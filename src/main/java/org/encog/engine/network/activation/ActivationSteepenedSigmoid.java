@@ -80,6 +80,19 @@ public final double derivativeFunction(final double b, final double a) {
     	return Math.pow(s * 4.9/(1 + s),2);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void derivativeFunction(final double[] sums,
+            final double[] outputs, final double[] dest, final int start,
+            final int size) {
+        final int end = start + size;
+        for (int i = start; i < end; i++) {
+            dest[i] = derivativeFunction(sums[i], outputs[i]);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
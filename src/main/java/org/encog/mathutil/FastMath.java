@@ -0,0 +1,114 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil;
+
+/**
+ * Fast approximations of some of the functions that are used by the
+ * activation functions. These trade a small amount of accuracy for speed, and
+ * are only used when an activation function is placed into approximate mode.
+ * 
+ * The exp function uses range reduction, x = k*ln(2) + r with |r| <= ln(2)/2,
+ * followed by a degree 6 polynomial for e^r. The power of two is built
+ * directly from the bits of the double. The relative error of exp is below
+ * 2E-7 over the entire range of doubles.
+ * 
+ * The tanh function is calculated from exp, and has an absolute error below
+ * 2E-7.
+ */
+public final class FastMath {
+
+	/**
+	 * 1/ln(2).
+	 */
+	private static final double LOG2E = 1.4426950408889634;
+
+	/**
+	 * ln(2).
+	 */
+	private static final double LN2 = 0.6931471805599453;
+
+	/**
+	 * Above this value exp is left to Math.exp, which will overflow.
+	 */
+	private static final double EXP_HIGH = 709.0;
+
+	/**
+	 * Below this value exp is treated as zero.
+	 */
+	private static final double EXP_LOW = -708.0;
+
+	/**
+	 * Beyond this value tanh is +/-1 at double precision.
+	 */
+	private static final double TANH_LIMIT = 19.1;
+
+	/**
+	 * Calculate an approximation of e raised to the specified power. The
+	 * relative error is below 2E-7.
+	 * 
+	 * @param x
+	 *            The power.
+	 * @return The approximate value of e^x.
+	 */
+	public static double exp(final double x) {
+		if (!(x <= EXP_HIGH)) {
+			// overflow or NaN
+			return Math.exp(x);
+		}
+		if (x < EXP_LOW) {
+			return 0;
+		}
+		final double k = Math.floor(x * LOG2E + 0.5);
+		final double r = x - k * LN2;
+		final double p = 1.0 + r * (1.0 + r * (1.0 / 2 + r * (1.0 / 6
+				+ r * (1.0 / 24 + r * (1.0 / 120 + r * (1.0 / 720))))));
+		return p * Double.longBitsToDouble(((long) k + 1023) << 52);
+	}
+
+	/**
+	 * Calculate an approximation of the hyperbolic tangent. The absolute error
+	 * is below 2E-7.
+	 * 
+	 * @param x
+	 *            The value to calculate the hyperbolic tangent of.
+	 * @return The approximate hyperbolic tangent.
+	 */
+	public static double tanh(final double x) {
+		if (x > TANH_LIMIT) {
+			return 1.0;
+		} else if (x < -TANH_LIMIT) {
+			return -1.0;
+		}
+		final double e = exp(2.0 * Math.abs(x));
+		final double t = 1.0 - 2.0 / (e + 1.0);
+		return x < 0 ? -t : t;
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private FastMath() {
+
+	}
+}
@@ -32,6 +32,8 @@
 import java.util.StringTokenizer;
 
 import org.encog.util.arrayutil.Array;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.RangeTask;
 import org.encog.util.csv.CSVFormat;
 
 /**
@@ -89,11 +91,13 @@ class Cache {
 	}
 	private final head_t[] head;
 	private head_t lru_head;
+	private final svm_cache_stats stats;
 
-	Cache(int l_, long size_)
+	Cache(int l_, long size_, svm_cache_stats stats_)
 	{
 		l = l_;
 		size = size_;
+		stats = stats_;
 		head = new head_t[l];
 		for(int i=0;i<l;i++) head[i] = new head_t();
 		size /= 4;
@@ -129,6 +133,12 @@ int get_data(int index, float[][] data, int len)
 		if(h.len > 0) lru_delete(h);
 		int more = len - h.len;
 
+		if(stats != null)
+		{
+			if(more > 0) stats.miss();
+			else stats.hit();
+		}
+
 		if(more > 0)
 		{
 			// free old space
@@ -199,8 +209,16 @@ abstract class QMatrix {
 };
 
 abstract class Kernel extends QMatrix {
+	// Encog: the smallest part of a kernel row that is computed on its own
+	// thread, smaller rows are computed by the calling thread
+	static final int ROW_CHUNK = 512;
+
 	private svm_node[][] x;
 	private final double[] x_square;
+	// Encog: the values of x, if every row has the indexes 1..n with no
+	// gaps, so that dot products do not need to match indexes
+	private double[][] dense;
+	private final EngineConcurrency concurrency;
 
 	// svm_parameter
 	private final int kernel_type;
@@ -214,6 +232,9 @@ abstract class Kernel extends QMatrix {
 	void swap_index(int i, int j)
 	{
 		Array.swap(x, i, j);;
+		if(dense != null) {
+			Array.swap(dense, i, j);
+		}
 		if(x_square != null) {
 			Array.swap(x_square, i, j);
 		}
@@ -236,13 +257,13 @@ private static double powi(double base, int times)
 		switch(kernel_type)
 		{
 			case svm_parameter.LINEAR:
-				return dot(x[i],x[j]);
+				return dot(i,j);
 			case svm_parameter.POLY:
-				return powi(gamma*dot(x[i],x[j])+coef0,degree);
+				return powi(gamma*dot(i,j)+coef0,degree);
 			case svm_parameter.RBF:
-				return Math.exp(-gamma*(x_square[i]+x_square[j]-2*dot(x[i],x[j])));
+				return Math.exp(-gamma*(x_square[i]+x_square[j]-2*dot(i,j)));
 			case svm_parameter.SIGMOID:
-				return Math.tanh(gamma*dot(x[i],x[j])+coef0);
+				return Math.tanh(gamma*dot(i,j)+coef0);
 			case svm_parameter.PRECOMPUTED:
 				return x[i][(int)(x[j][0].value)].value;
 			default:
@@ -257,17 +278,94 @@ private static double powi(double base, int times)
 		this.gamma = param.gamma;
 		this.coef0 = param.coef0;
 
+		this.concurrency = param.concurrency;
+
 		x = (svm_node[][])x_.clone();
 
+		if(kernel_type != svm_parameter.PRECOMPUTED)
+			dense = to_dense(x);
+
 		if(kernel_type == svm_parameter.RBF)
 		{
 			x_square = new double[l];
 			for(int i=0;i<l;i++)
-				x_square[i] = dot(x[i],x[i]);
+				x_square[i] = dot(i,i);
 		}
 		else x_square = null;
 	}
 
+	// Encog: copy the values into primitive arrays, or return null if
+	// any row has indexes other than 1..n
+	private static double[][] to_dense(svm_node[][] x)
+	{
+		double[][] result = new double[x.length][];
+		for(int i=0;i<x.length;i++)
+		{
+			svm_node[] row = x[i];
+			double[] values = new double[row.length];
+			for(int k=0;k<row.length;k++)
+			{
+				if(row[k].index != k+1)
+					return null;
+				values[k] = row[k].value;
+			}
+			result[i] = values;
+		}
+		return result;
+	}
+
+	// Encog: the dot product of rows i and j. The dense rows hold the same
+	// values at the same indexes, so the sum is the same as the sparse one.
+	private double dot(int i, int j)
+	{
+		if(dense == null)
+			return dot(x[i],x[j]);
+
+		double[] a = dense[i];
+		double[] b = dense[j];
+		int len = Math.min(a.length, b.length);
+		double sum = 0;
+		for(int k=0;k<len;k++)
+			sum += a[k] * b[k];
+		return sum;
+	}
+
+	// Encog: fill data[start,len) with the kernel values of row i, each
+	// times y[i]*y[j] if y is not null. Large rows are split into chunks
+	// that are computed by the thread pool.
+	void kernel_row(final int i, final float[] data, final int start,
+			final int len, final byte[] y)
+	{
+		if(concurrency == null || len - start < 2 * ROW_CHUNK)
+		{
+			kernel_row_range(i, data, start, len - 1, y);
+			return;
+		}
+
+		concurrency.processRange(start, len - 1, ROW_CHUNK, new RangeTask() {
+			@Override
+			public void run(int low, int high)
+			{
+				kernel_row_range(i, data, low, high, y);
+			}
+		});
+	}
+
+	private void kernel_row_range(int i, float[] data, int low, int high,
+			byte[] y)
+	{
+		if(y == null)
+		{
+			for(int j=low;j<=high;j++)
+				data[j] = (float)kernel_function(i,j);
+		}
+		else
+		{
+			for(int j=low;j<=high;j++)
+				data[j] = (float)(y[i]*y[j]*kernel_function(i,j));
+		}
+	}
+
 	static double dot(svm_node[] x, svm_node[] y)
 	{
 		double sum = 0;
@@ -1222,7 +1320,7 @@ class SVC_Q extends Kernel
 	{
 		super(prob.l, prob.x, param);
 		y = (byte[])y_.clone();
-		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)));
+		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)),param.cache_stats);
 		QD = new double[prob.l];
 		for(int i=0;i<prob.l;i++)
 			QD[i] = kernel_function(i,i);
@@ -1231,11 +1329,10 @@ class SVC_Q extends Kernel
 	float[] get_Q(int i, int len)
 	{
 		float[][] data = new float[1][];
-		int start, j;
+		int start;
 		if((start = cache.get_data(i,data,len)) < len)
 		{
-			for(j=start;j<len;j++)
-				data[0][j] = (float)(y[i]*y[j]*kernel_function(i,j));
+			kernel_row(i,data[0],start,len,y);
 		}
 		return data[0];
 	}
@@ -1262,7 +1359,7 @@ class ONE_CLASS_Q extends Kernel
 	ONE_CLASS_Q(svm_problem prob, svm_parameter param)
 	{
 		super(prob.l, prob.x, param);
-		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)));
+		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)),param.cache_stats);
 		QD = new double[prob.l];
 		for(int i=0;i<prob.l;i++)
 			QD[i] = kernel_function(i,i);
@@ -1271,11 +1368,10 @@ class ONE_CLASS_Q extends Kernel
 	float[] get_Q(int i, int len)
 	{
 		float[][] data = new float[1][];
-		int start, j;
+		int start;
 		if((start = cache.get_data(i,data,len)) < len)
 		{
-			for(j=start;j<len;j++)
-				data[0][j] = (float)kernel_function(i,j);
+			kernel_row(i,data[0],start,len,null);
 		}
 		return data[0];
 	}
@@ -1307,7 +1403,7 @@ class SVR_Q extends Kernel
 	{
 		super(prob.l, prob.x, param);
 		l = prob.l;
-		cache = new Cache(l,(long)(param.cache_size*(1<<20)));
+		cache = new Cache(l,(long)(param.cache_size*(1<<20)),param.cache_stats);
 		QD = new double[2*l];
 		sign = new byte[2*l];
 		index = new int[2*l];
@@ -1337,8 +1433,7 @@ float[] get_Q(int i, int len)
 		int j, real_i = index[i];
 		if(cache.get_data(real_i,data,l) < l)
 		{
-			for(j=0;j<l;j++)
-				data[0][j] = (float)kernel_function(real_i,j);
+			kernel_row(real_i,data[0],0,l,null);
 		}
 
 		// reorder and copy
@@ -0,0 +1,93 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.libsvm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests made of the kernel cache. This is not part of libsvm,
+ * it was added for Encog, so that the cache can be sized. A request is a hit
+ * when the whole kernel row is already cached, otherwise it is a miss, and
+ * at least part of the row is computed. One instance may be shared by
+ * several trainings at once.
+ */
+public class svm_cache_stats implements java.io.Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	void hit()
+	{
+		hits.incrementAndGet();
+	}
+
+	void miss()
+	{
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * @return The number of requests that were answered by the cache.
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of requests that computed kernel values.
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return The fraction of the requests that were answered by the cache,
+	 *         or zero if there were no requests.
+	 */
+	public double getHitRate()
+	{
+		final long h = hits.get();
+		final long total = h + misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * Reset the counts to zero.
+	 */
+	public void clear()
+	{
+		hits.set(0);
+		misses.set(0);
+	}
+
+	public String toString()
+	{
+		return "[svm_cache_stats: hits=" + getHits() + ", misses="
+				+ getMisses() + "]";
+	}
+}
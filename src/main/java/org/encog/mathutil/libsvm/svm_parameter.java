@@ -23,6 +23,8 @@
  */
 package org.encog.mathutil.libsvm;
 
+import org.encog.util.concurrency.EngineConcurrency;
+
 /**
  * This class was taken from the libsvm package.  We have made some
  * modifications for use in Encog.
@@ -63,6 +65,9 @@
  */
 public class svm_parameter implements Cloneable,java.io.Serializable
 {
+	// kept the same as before the Encog training fields were added
+	private static final long serialVersionUID = -2354609803008345435L;
+
 	/* svm_type */
 	public static final int C_SVC = 0;
 	public static final int NU_SVC = 1;
@@ -95,6 +100,10 @@ public class svm_parameter implements Cloneable,java.io.Serializable
 	public int shrinking;	// use the shrinking heuristics
 	public int probability; // do probability estimates
 
+	// Encog additions, for training only, and not saved
+	public transient EngineConcurrency concurrency; // computes kernel rows, null for one thread
+	public transient svm_cache_stats cache_stats; // counts kernel cache requests, may be null
+
 	public Object clone() 
 	{
 		try 
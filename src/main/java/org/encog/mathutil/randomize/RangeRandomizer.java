@@ -44,6 +44,17 @@ public static int randomInt(final int min, final int max) {
 		return (int) RangeRandomizer.randomize(min, max + 1);
 	}
 
+	/**
+	 * Returns a random number in the range between min and max.
+	 * @param r The random number generator.
+	 * @param min The minimum desired random number.
+	 * @param max The maximum desired random number.
+	 * @return The random number.
+	 */
+	public static int randomInt(final Random r, final int min, final int max) {
+		return (int) RangeRandomizer.randomize(r, min, max + 1);
+	}
+
 	/**
 	 * Generate a random number in the specified range.
 	 * 
@@ -0,0 +1,43 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml;
+
+/**
+ * A score function that can score several methods at once. A score function
+ * based on a training set can then read each block of the training set once
+ * for the whole batch, rather than once for each method. The scores must be
+ * the same as calling calculateScore for each method.
+ */
+public interface BatchCalculateScore extends CalculateScore {
+
+	/**
+	 * Calculate the scores of several methods.
+	 * 
+	 * @param methods
+	 *            The methods to score.
+	 * @param scores
+	 *            The scores, one for each method.
+	 */
+	void calculateScores(MLMethod[] methods, double[] scores);
+}
@@ -28,6 +28,9 @@
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataError;
@@ -56,6 +59,18 @@
  * The binary files produced by this class are in the Encog binary training
  * format, and can be used with any Encog platform. Encog binary files are
  * stored using "little endian" numbers.
+ * 
+ * For large files that are read many times, such as during training, call
+ * setMemoryMapped(true). The file is then memory mapped, and records are read
+ * straight from the mapping. In this mode the dataset, and any additional
+ * datasets opened from it, share one mapping and can be read by several
+ * threads at once without locking.
+ * 
+ * Files that are not memory mapped are read with positional reads, so any
+ * number of threads can read one file handle at once. Additional datasets
+ * share the file handle of the dataset that opened them. For sequential scans
+ * call setReadAhead, each thread then reads blocks of records, and reads the
+ * next block in the background while the current one is used.
  */
 public class BufferedMLDataSet implements MLDataSet, Serializable {
 
@@ -99,6 +114,37 @@ public class BufferedMLDataSet implements MLDataSet, Serializable {
 	 */
 	private transient BufferedMLDataSet owner;
 
+	/**
+	 * True, if the file should be memory mapped for reading.
+	 */
+	private boolean memoryMapped;
+
+	/**
+	 * The memory mapped file, or null if the file is not mapped.
+	 */
+	private transient MappedEGBFile mapped;
+
+	/**
+	 * The number of records to read ahead, or zero for no read-ahead.
+	 */
+	private int readAhead;
+
+	/**
+	 * The reader for each thread, created when first needed.
+	 */
+	private transient ThreadLocal<EGBRecordReader> readers;
+
+	/**
+	 * The executor that reads ahead, or null if none has been created.
+	 */
+	private transient ExecutorService readAheadExecutor;
+
+	/**
+	 * If this dataset was created by openAdditional, the dataset whose file
+	 * handle it shares, otherwise null.
+	 */
+	private transient BufferedMLDataSet source;
+
 	/**
 	 * Construct the dataset using the specified binary file.
 	 * 
@@ -113,11 +159,118 @@ public BufferedMLDataSet(final File binaryFile) {
 		}
 	}
 
+	/**
+	 * Construct an additional dataset that shares the file handle of another.
+	 * 
+	 * @param theSource
+	 *            The dataset to share.
+	 */
+	private BufferedMLDataSet(final BufferedMLDataSet theSource) {
+		this.file = theSource.file;
+		this.egb = theSource.egb;
+		this.memoryMapped = theSource.memoryMapped;
+		this.mapped = theSource.mapped;
+		this.readAhead = theSource.readAhead;
+		this.source = theSource;
+	}
+
 	/**
 	 * Open the binary file for reading.
 	 */
 	public void open() {
+		resetReaders();
 		this.egb.open();
+		if (this.memoryMapped) {
+			this.mapped = new MappedEGBFile(this.file);
+		}
+	}
+
+	/**
+	 * @return True, if the file is memory mapped for reading.
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
+	/**
+	 * Determine if the file should be memory mapped for reading. If the file
+	 * is already open it is mapped, or unmapped, right away. Otherwise it is
+	 * mapped when it is opened, or when endLoad is called.
+	 * 
+	 * @param theMemoryMapped
+	 *            True to memory map the file.
+	 */
+	public void setMemoryMapped(final boolean theMemoryMapped) {
+		this.memoryMapped = theMemoryMapped;
+		if (!theMemoryMapped) {
+			this.mapped = null;
+		} else if (this.egb != null && this.egb.getFc() != null
+				&& !this.loading) {
+			this.mapped = new MappedEGBFile(this.file);
+		}
+	}
+
+	/**
+	 * @return The number of records each thread reads ahead, or zero if
+	 *         read-ahead is disabled.
+	 */
+	public int getReadAhead() {
+		return this.readAhead;
+	}
+
+	/**
+	 * Set the number of records each thread reads ahead, when it reads the
+	 * file sequentially. Zero, the default, disables read-ahead. This has no
+	 * effect if the file is memory mapped.
+	 * 
+	 * @param theReadAhead
+	 *            The number of records to read ahead.
+	 */
+	public void setReadAhead(final int theReadAhead) {
+		this.readAhead = theReadAhead;
+		resetReaders();
+	}
+
+	/**
+	 * Discard the reader of each thread, and stop reading ahead. New readers
+	 * are created the next time a record is read.
+	 */
+	private synchronized void resetReaders() {
+		this.readers = null;
+		if (this.readAheadExecutor != null) {
+			this.readAheadExecutor.shutdown();
+			this.readAheadExecutor = null;
+		}
+	}
+
+	/**
+	 * @return The reader for each thread, created if needed.
+	 */
+	private synchronized ThreadLocal<EGBRecordReader> createReaders() {
+		if (this.readers == null) {
+			final EncogEGBFile file = this.egb;
+			final int count = this.readAhead;
+			if (count > 0) {
+				this.readAheadExecutor = Executors
+						.newCachedThreadPool(new ThreadFactory() {
+							@Override
+							public Thread newThread(final Runnable r) {
+								final Thread thread = new Thread(r,
+										"EGB read-ahead");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+			}
+			final ExecutorService executor = this.readAheadExecutor;
+			this.readers = new ThreadLocal<EGBRecordReader>() {
+				@Override
+				protected EGBRecordReader initialValue() {
+					return new EGBRecordReader(file, count, executor);
+				}
+			};
+		}
+		return this.readers;
 	}
 
 	/**
@@ -151,18 +304,23 @@ public long getRecordCount() {
 	 */
 	@Override
 	public void getRecord(final long index, final MLDataPair pair) {
-		synchronized (this) {
-			this.egb.setLocation((int) index);
-			double[] inputTarget = pair.getInputArray();
-			this.egb.read(inputTarget);
+		if (this.source != null) {
+			this.source.getRecord(index, pair);
+			return;
+		}
 
-			if (pair.getIdealArray() != null) {
-				double[] idealTarget = pair.getIdealArray();
-				this.egb.read(idealTarget);
-			}
+		// the significance is not used
+		final MappedEGBFile map = this.mapped;
+		if (map != null) {
+			map.read(index, pair.getInputArray(), pair.getIdealArray());
+			return;
+		}
 
-			this.egb.read();
+		ThreadLocal<EGBRecordReader> local = this.readers;
+		if (local == null) {
+			local = createReaders();
 		}
+		local.get().read(index, pair.getInputArray(), pair.getIdealArray());
 	}
 
 	/**
@@ -170,7 +328,10 @@ public void getRecord(final long index, final MLDataPair pair) {
 	 */
 	@Override
 	public BufferedMLDataSet openAdditional() {
-		BufferedMLDataSet result = new BufferedMLDataSet(this.file);
+		// share the file handle, and any mapping, rather than opening the
+		// file again
+		final BufferedMLDataSet result = new BufferedMLDataSet(
+				this.source != null ? this.source : this);
 		result.setOwner(this);
 		this.additional.add(result);
 		return result;
@@ -246,8 +407,13 @@ public void close() {
 			this.owner.removeAdditional(this);
 		}
 
-		this.egb.close();
+		if (this.source == null) {
+			resetReaders();
+			this.egb.close();
+		}
+		this.source = null;
 		this.egb = null;
+		this.mapped = null;
 	}
 
 	/**
@@ -326,6 +492,8 @@ public void removeAdditional(final BufferedMLDataSet child) {
 	 *            The ideal size.
 	 */
 	public void beginLoad(final int inputSize, final int idealSize) {
+		this.mapped = null;
+		resetReaders();
 		this.egb.create(inputSize, idealSize);
 		this.loading = true;
 	}
@@ -341,6 +509,7 @@ public void endLoad() {
 		}
 
 		this.egb.close();
+		this.loading = false;
 
 		open();
 
@@ -0,0 +1,261 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads records from an EGB file with positional reads, for a single thread.
+ * Several readers, one per thread, can share one EncogEGBFile, as positional
+ * reads do not use the position of the file.
+ * 
+ * If read-ahead is enabled, the reader detects sequential scans. While a
+ * thread reads records in order, the reader reads a block of records at a
+ * time, and reads the following block on a background thread, so that it is
+ * usually ready by the time it is needed. Random access reads a single
+ * record, so it does not pay for the read-ahead.
+ */
+public class EGBRecordReader {
+
+	/**
+	 * The file to read from.
+	 */
+	private final EncogEGBFile egb;
+
+	/**
+	 * The executor that reads the next block, or null for no read-ahead.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The number of values in a record.
+	 */
+	private final int recordCount;
+
+	/**
+	 * Holds a single record, for random access.
+	 */
+	private final ByteBuffer single;
+
+	/**
+	 * The block currently being read from, or null for no read-ahead.
+	 */
+	private ByteBuffer current;
+
+	/**
+	 * The first record in the current block.
+	 */
+	private long currentStart;
+
+	/**
+	 * The number of records in the current block.
+	 */
+	private int currentCount;
+
+	/**
+	 * The block being read ahead.
+	 */
+	private ByteBuffer next;
+
+	/**
+	 * The first record in the block being read ahead.
+	 */
+	private long nextStart;
+
+	/**
+	 * The read of the next block, or null if none is pending.
+	 */
+	private Future<Integer> nextRead;
+
+	/**
+	 * The last record that was read.
+	 */
+	private long lastIndex = -2;
+
+	/**
+	 * Construct a reader.
+	 * 
+	 * @param theEGB
+	 *            The file to read from.
+	 * @param readAhead
+	 *            The number of records to read ahead, or zero to disable
+	 *            read-ahead.
+	 * @param theExecutor
+	 *            The executor to read ahead with, only used if readAhead is
+	 *            more than zero.
+	 */
+	public EGBRecordReader(final EncogEGBFile theEGB, final int readAhead,
+			final ExecutorService theExecutor) {
+		this.egb = theEGB;
+		this.recordCount = theEGB.getRecordCount();
+		this.single = ByteBuffer.allocate(theEGB.getRecordSize());
+		if (readAhead > 0) {
+			this.executor = theExecutor;
+			this.current = ByteBuffer.allocate(theEGB.getRecordSize()
+					* readAhead);
+			this.next = ByteBuffer.allocate(theEGB.getRecordSize()
+					* readAhead);
+		} else {
+			this.executor = null;
+		}
+		this.currentStart = -1;
+	}
+
+	/**
+	 * Read a record.
+	 * 
+	 * @param index
+	 *            The record to read.
+	 * @param input
+	 *            The array to read the input values into.
+	 * @param ideal
+	 *            The array to read the ideal values into, or null to skip
+	 *            them.
+	 * @return The significance of the record.
+	 */
+	public double read(final long index, final double[] input,
+			final double[] ideal) {
+		final boolean sequential = index == this.lastIndex + 1;
+		this.lastIndex = index;
+
+		if (this.current != null) {
+			if (index >= this.currentStart
+					&& index < this.currentStart + this.currentCount) {
+				return decode(this.current,
+						(int) (index - this.currentStart), input, ideal);
+			}
+
+			if (sequential) {
+				nextBlock(index);
+				if (this.currentCount > 0) {
+					return decode(this.current, 0, input, ideal);
+				}
+			}
+		}
+
+		if (this.egb.readRecords(index, this.single) == 0) {
+			throw new BufferedDataError("Record out of range: " + index);
+		}
+		return decode(this.single, 0, input, ideal);
+	}
+
+	/**
+	 * Move to the block that starts at the specified record, and start
+	 * reading the block after it.
+	 * 
+	 * @param index
+	 *            The first record of the block.
+	 */
+	private void nextBlock(final long index) {
+		if (this.nextRead != null && this.nextStart == index) {
+			// the block was read ahead
+			final int count = waitForNext();
+			final ByteBuffer t = this.current;
+			this.current = this.next;
+			this.next = t;
+			this.currentCount = count;
+		} else {
+			// wrong block, or none pending
+			waitForNext();
+			this.currentCount = this.egb.readRecords(index, this.current);
+		}
+		this.currentStart = index;
+
+		// read ahead the block after this one
+		if (this.currentCount > 0) {
+			final long start = index + this.currentCount;
+			if (start < this.egb.getNumberOfRecords()) {
+				final ByteBuffer target = this.next;
+				this.nextStart = start;
+				this.nextRead = this.executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() {
+						return egb.readRecords(start, target);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Wait for any pending read-ahead to complete.
+	 * 
+	 * @return The number of records that were read ahead.
+	 */
+	private int waitForNext() {
+		if (this.nextRead == null) {
+			return 0;
+		}
+		try {
+			return this.nextRead.get();
+		} catch (final InterruptedException ex) {
+			throw new BufferedDataError(ex);
+		} catch (final ExecutionException ex) {
+			throw new BufferedDataError(ex.getCause());
+		} finally {
+			this.nextRead = null;
+		}
+	}
+
+	/**
+	 * Decode a record from a buffer.
+	 * 
+	 * @param buffer
+	 *            The buffer, in little endian order.
+	 * @param record
+	 *            The record within the buffer.
+	 * @param input
+	 *            The array to read the input values into.
+	 * @param ideal
+	 *            The array to read the ideal values into, or null.
+	 * @return The significance of the record.
+	 */
+	private double decode(final ByteBuffer buffer, final int record,
+			final double[] input, final double[] ideal) {
+		int offset = record * this.recordCount * EncogEGBFile.DOUBLE_SIZE;
+		for (int i = 0; i < input.length; i++) {
+			input[i] = buffer.getDouble(offset);
+			offset += EncogEGBFile.DOUBLE_SIZE;
+		}
+		final int idealCount = this.egb.getIdealCount();
+		if (ideal != null) {
+			for (int i = 0; i < idealCount; i++) {
+				ideal[i] = buffer.getDouble(offset + i
+						* EncogEGBFile.DOUBLE_SIZE);
+			}
+		}
+		return buffer.getDouble(offset + idealCount * EncogEGBFile.DOUBLE_SIZE);
+	}
+
+	/**
+	 * Stop any read-ahead that is in progress.
+	 */
+	public void close() {
+		waitForNext();
+	}
+}
@@ -711,6 +711,44 @@ public double read(final int row, final int col) {
 
 	}
 
+	/**
+	 * Read whole records, starting at the specified record, into a buffer.
+	 * This uses a positional read, which neither uses nor changes the
+	 * position of the file, so any number of threads may call it at the same
+	 * time, each with its own buffer. As many records as fit in the buffer
+	 * are read, or fewer if the end of the file is reached.
+	 * 
+	 * @param row
+	 *            The first record to read.
+	 * @param buffer
+	 *            The buffer to read into. The buffer is cleared first, and is
+	 *            ready to be read from, in little endian order, afterwards.
+	 * @return The number of records read.
+	 */
+	public int readRecords(final long row, final ByteBuffer buffer) {
+		try {
+			buffer.clear();
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			final long available = this.numberOfRecords - row;
+			final int records = (int) Math.max(0, Math.min(available,
+					buffer.capacity() / this.recordSize));
+			buffer.limit(records * this.recordSize);
+
+			long position = calculateIndex(row);
+			while (buffer.hasRemaining()) {
+				final int count = this.fc.read(buffer, position);
+				if (count < 0) {
+					break;
+				}
+				position += count;
+			}
+			buffer.flip();
+			return buffer.limit() / this.recordSize;
+		} catch (final IOException ex) {
+			throw new BufferedDataError(ex);
+		}
+	}
+
 	/**
 	 * Set the current location to the specified row.
 	 * 
@@ -0,0 +1,235 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides read-only, memory-mapped access to the records of an Encog Binary
+ * Training file (*.EGB). The records are read straight from the mapping, so
+ * reading a record does not require a seek or a system call, and the
+ * operating system's page cache is the only buffer.
+ * 
+ * A single mapping is limited to 2GB, so larger files are mapped as several
+ * segments. Each segment holds a whole number of records, so a record never
+ * spans two segments.
+ * 
+ * Records are read with absolute gets, which do not change the state of the
+ * mapping. Any number of threads can therefore read from one MappedEGBFile at
+ * the same time, without locks.
+ */
+public class MappedEGBFile {
+
+	/**
+	 * The default maximum size of a segment, in bytes.
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * The file that is mapped.
+	 */
+	private final File file;
+
+	/**
+	 * The number of input values per record.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of ideal values per record.
+	 */
+	private final int idealCount;
+
+	/**
+	 * The number of values in a record, this is the input, ideal and
+	 * significance combined.
+	 */
+	private final int recordCount;
+
+	/**
+	 * The number of records in the file.
+	 */
+	private final long numberOfRecords;
+
+	/**
+	 * The number of records in each segment.
+	 */
+	private final int recordsPerSegment;
+
+	/**
+	 * The mapped segments.
+	 */
+	private final DoubleBuffer[] segments;
+
+	/**
+	 * Map an EGB file, using the default segment size.
+	 * 
+	 * @param theFile
+	 *            The file to map.
+	 */
+	public MappedEGBFile(final File theFile) {
+		this(theFile, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Map an EGB file.
+	 * 
+	 * @param theFile
+	 *            The file to map.
+	 * @param segmentSize
+	 *            The maximum size of a segment, in bytes. This is rounded
+	 *            down to a whole number of records, and may not be more than
+	 *            DEFAULT_SEGMENT_SIZE.
+	 */
+	public MappedEGBFile(final File theFile, final long segmentSize) {
+		this.file = theFile;
+
+		// read the header with the existing EGB code, so it is validated
+		final EncogEGBFile egb = new EncogEGBFile(theFile);
+		egb.open();
+		this.inputCount = egb.getInputCount();
+		this.idealCount = egb.getIdealCount();
+		this.recordCount = egb.getRecordCount();
+		egb.close();
+
+		final long recordSize = (long) this.recordCount
+				* EncogEGBFile.DOUBLE_SIZE;
+		this.numberOfRecords = (theFile.length() - EncogEGBFile.HEADER_SIZE)
+				/ recordSize;
+		this.recordsPerSegment = (int) Math.max(1,
+				Math.min(segmentSize, DEFAULT_SEGMENT_SIZE) / recordSize);
+
+		final int segmentCount = (int) ((this.numberOfRecords
+				+ this.recordsPerSegment - 1) / this.recordsPerSegment);
+		this.segments = new DoubleBuffer[segmentCount];
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(theFile, "r");
+			final FileChannel fc = raf.getChannel();
+			for (int i = 0; i < segmentCount; i++) {
+				final long first = (long) i * this.recordsPerSegment;
+				final long records = Math.min(this.recordsPerSegment,
+						this.numberOfRecords - first);
+				final MappedByteBuffer buffer = fc.map(
+						FileChannel.MapMode.READ_ONLY,
+						EncogEGBFile.HEADER_SIZE + (first * recordSize),
+						records * recordSize);
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				this.segments[i] = buffer.asDoubleBuffer();
+			}
+		} catch (final IOException ex) {
+			throw new BufferedDataError(ex);
+		} finally {
+			// the mappings remain valid after the file is closed
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (final IOException ex) {
+					throw new BufferedDataError(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read a record. This is thread safe.
+	 * 
+	 * @param index
+	 *            The record to read.
+	 * @param input
+	 *            The array to read the input values into.
+	 * @param ideal
+	 *            The array to read the ideal values into, or null to skip
+	 *            them.
+	 * @return The significance of the record.
+	 */
+	public double read(final long index, final double[] input,
+			final double[] ideal) {
+		if (index < 0 || index >= this.numberOfRecords) {
+			throw new BufferedDataError("Record out of range: " + index);
+		}
+
+		final DoubleBuffer segment = this.segments[(int) (index / this.recordsPerSegment)];
+		int offset = (int) (index % this.recordsPerSegment) * this.recordCount;
+
+		for (int i = 0; i < this.inputCount; i++) {
+			input[i] = segment.get(offset++);
+		}
+		if (ideal != null) {
+			for (int i = 0; i < this.idealCount; i++) {
+				ideal[i] = segment.get(offset + i);
+			}
+		}
+		return segment.get(offset + this.idealCount);
+	}
+
+	/**
+	 * @return The file that is mapped.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * @return The number of input values per record.
+	 */
+	public int getInputCount() {
+		return this.inputCount;
+	}
+
+	/**
+	 * @return The number of ideal values per record.
+	 */
+	public int getIdealCount() {
+		return this.idealCount;
+	}
+
+	/**
+	 * @return The number of records in the file.
+	 */
+	public long getNumberOfRecords() {
+		return this.numberOfRecords;
+	}
+
+	/**
+	 * @return The number of records in each segment.
+	 */
+	public int getRecordsPerSegment() {
+		return this.recordsPerSegment;
+	}
+
+	/**
+	 * @return The number of segments the file is mapped in.
+	 */
+	public int getSegmentCount() {
+		return this.segments.length;
+	}
+}
@@ -27,6 +27,7 @@
 import java.util.List;
 
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.prg.EncogProgram;
 
 /**
  * Basic implementation of a rule holder.
@@ -51,7 +52,8 @@ public void addRewriteRule(final RewriteRule rule) {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * {@inheritDoc} The rules change the nodes of a program in place, so a
+	 * program that is rewritten has its compiled form discarded.
 	 */
 	@Override
 	public void rewrite(final Genome prg) {
@@ -64,6 +66,9 @@ public void rewrite(final Genome prg) {
 			for (final RewriteRule rule : this.rewriteRules) {
 				if (rule.rewrite(prg)) {
 					done = false;
+					if (prg instanceof EncogProgram) {
+						((EncogProgram) prg).clearCompiled();
+					}
 				}
 			}
 		}
@@ -0,0 +1,221 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.score;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of genome scores, keyed by the structural key of the genome.
+ * Crossover, elitism and rewrite rules often produce genomes that are
+ * identical to ones that were already scored. When the score function is
+ * deterministic the cache allows these to be scored without decoding them
+ * again.
+ * 
+ * The cache holds at most the specified number of scores, once full the least
+ * recently used score is evicted. The cache is safe to use from several
+ * threads. The number of hits and misses is tracked.
+ */
+public class ScoreCache {
+
+	/**
+	 * The default number of scores to hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/**
+	 * A linked hash map, in access order, that removes its eldest entry once
+	 * it grows past the capacity.
+	 */
+	private static class LRUMap extends LinkedHashMap<String, Double> {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The maximum number of entries.
+		 */
+		private final int capacity;
+
+		/**
+		 * Construct the map.
+		 * 
+		 * @param theCapacity
+		 *            The maximum number of entries.
+		 */
+		public LRUMap(final int theCapacity) {
+			super(16, 0.75f, true);
+			this.capacity = theCapacity;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, Double> eldest) {
+			return size() > this.capacity;
+		}
+	}
+
+	/**
+	 * The maximum number of scores to hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * The cached scores.
+	 */
+	private final Map<String, Double> scores;
+
+	/**
+	 * The number of lookups that found a score.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of lookups that did not find a score.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct a cache with the default capacity.
+	 */
+	public ScoreCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct a cache.
+	 * 
+	 * @param theCapacity
+	 *            The maximum number of scores to hold.
+	 */
+	public ScoreCache(final int theCapacity) {
+		if (theCapacity < 1) {
+			throw new IllegalArgumentException(
+					"The score cache capacity must be at least 1.");
+		}
+		this.capacity = theCapacity;
+		this.scores = Collections.synchronizedMap(new LRUMap(theCapacity));
+	}
+
+	/**
+	 * Look up a score. The lookup is counted as a hit or a miss.
+	 * 
+	 * @param key
+	 *            The structural key of the genome.
+	 * @return The score, or null if it is not cached.
+	 */
+	public Double get(final String key) {
+		final Double result = this.scores.get(key);
+		if (result == null) {
+			this.misses.incrementAndGet();
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Store a score.
+	 * 
+	 * @param key
+	 *            The structural key of the genome.
+	 * @param score
+	 *            The score.
+	 */
+	public void put(final String key, final double score) {
+		this.scores.put(key, score);
+	}
+
+	/**
+	 * Remove all scores and reset the counters.
+	 */
+	public void clear() {
+		this.scores.clear();
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	/**
+	 * @return The maximum number of scores to hold.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return The number of scores currently held.
+	 */
+	public int size() {
+		return this.scores.size();
+	}
+
+	/**
+	 * @return The number of lookups that found a score.
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return The number of lookups that did not find a score.
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return The fraction of lookups that found a score, or zero if there
+	 *         have been no lookups.
+	 */
+	public double getHitRate() {
+		final long h = this.hits.get();
+		final long total = h + this.misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder result = new StringBuilder();
+		result.append("[ScoreCache: size=");
+		result.append(size());
+		result.append(", capacity=");
+		result.append(this.capacity);
+		result.append(", hits=");
+		result.append(getHits());
+		result.append(", misses=");
+		result.append(getMisses());
+		result.append("]");
+		return result.toString();
+	}
+}
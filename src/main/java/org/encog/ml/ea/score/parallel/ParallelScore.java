@@ -23,25 +23,41 @@
  */
 package org.encog.ml.ea.score.parallel;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
+import org.encog.ml.BatchCalculateScore;
 import org.encog.ml.CalculateScore;
+import org.encog.ml.MLMethod;
 import org.encog.ml.ea.codec.GeneticCODEC;
+import org.encog.ml.ea.exception.EARuntimeError;
 import org.encog.ml.ea.genome.Genome;
 import org.encog.ml.ea.population.Population;
 import org.encog.ml.ea.score.AdjustScore;
 import org.encog.ml.ea.species.Species;
+import org.encog.ml.ea.train.basic.BasicEA;
 import org.encog.ml.genetic.GeneticError;
+import org.encog.util.concurrency.EngineConcurrency;
 import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
 
 /**
  * This class is used to calculate the scores for an entire population. This is
  * typically done when a new population must be scored for the first time.
+ * 
+ * The genomes are scored in batches. If the score function is a
+ * BatchCalculateScore, each batch of phenotypes is scored with one call, so a
+ * training set based score reads the training set once per batch, rather than
+ * once per genome. The threads are kept between calls to process, and are
+ * released by shutdown.
  */
 public class ParallelScore implements MultiThreadable {
+
+	/**
+	 * The default number of genomes to score in a batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 16;
+
 	/**
 	 * The population to score.
 	 */
@@ -77,6 +93,17 @@ public class ParallelScore implements MultiThreadable {
 	 */
 	private Exception reportedError;
 
+	/**
+	 * The number of genomes to score in a batch.
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The threads used to score, kept between calls to process. Null until
+	 * first needed, or if scoring is single threaded.
+	 */
+	private EngineConcurrency concurrency;
+
 	/**
 	 * Construct the parallel score calculation object.
 	 * @param thePopulation The population to score.
@@ -92,6 +119,7 @@ public ParallelScore(Population thePopulation, GeneticCODEC theCODEC,
 		this.population = thePopulation;
 		this.scoreFunction = theScoreFunction;
 		this.adjusters = theAdjusters;
+		this.threads = theThreadCount;
 		this.actualThreads = 0;
 	}
 
@@ -120,6 +148,20 @@ public GeneticCODEC getCodec() {
 	 * Calculate the scores.
 	 */
 	public void process() {
+		final List<Genome> genomes = new ArrayList<Genome>();
+		for (Species species : this.population.getSpecies()) {
+			genomes.addAll(species.getMembers());
+		}
+		process(genomes);
+	}
+
+	/**
+	 * Calculate the scores of the specified genomes.
+	 * 
+	 * @param genomes
+	 *            The genomes to score.
+	 */
+	public void process(final List<Genome> genomes) {
 		// determine thread usage
 		if (this.scoreFunction.requireSingleThreaded()) {
 			this.actualThreads = 1;
@@ -129,33 +171,170 @@ public void process() {
 			this.actualThreads = threads;
 		}
 
-		// start up
-		ExecutorService taskExecutor = null;
+		this.reportedError = null;
 
-		if (this.threads == 1) {
-			taskExecutor = Executors.newSingleThreadScheduledExecutor();
+		if (this.actualThreads == 1) {
+			scoreRange(genomes, 0, genomes.size() - 1);
 		} else {
-			taskExecutor = Executors.newFixedThreadPool(this.actualThreads);
+			// keep the pool, unless the number of threads has changed
+			if (this.concurrency == null
+					|| this.concurrency.getParallelism() != this.actualThreads) {
+				shutdown();
+				this.concurrency = new EngineConcurrency(this.actualThreads);
+			}
+
+			this.concurrency.processRange(0, genomes.size() - 1,
+					this.batchSize, new RangeTask() {
+						@Override
+						public void run(final int low, final int high) {
+							scoreRange(genomes, low, high);
+						}
+					});
 		}
 
-		for (Species species : this.population.getSpecies()) {
-			for (Genome genome : species.getMembers()) {
-				taskExecutor.execute(new ParallelScoreTask(genome, this));
+		if( this.reportedError!=null ) {
+			throw new GeneticError(this.reportedError);
+		}
+	}
+
+	/**
+	 * Score a range of genomes, a batch at a time.
+	 * 
+	 * @param genomes
+	 *            The genomes.
+	 * @param low
+	 *            The first genome to score.
+	 * @param high
+	 *            The last genome to score, inclusive.
+	 */
+	private void scoreRange(final List<Genome> genomes, final int low,
+			final int high) {
+		for (int start = low; start <= high; start += this.batchSize) {
+			final int end = Math.min(high, start + this.batchSize - 1);
+			try {
+				scoreBatch(genomes, start, end);
+			} catch (Exception ex) {
+				reportError(ex);
+			}
+		}
+	}
+
+	/**
+	 * Decode and score a batch of genomes.
+	 * 
+	 * @param genomes
+	 *            The genomes.
+	 * @param start
+	 *            The first genome to score.
+	 * @param end
+	 *            The last genome to score, inclusive.
+	 */
+	private void scoreBatch(final List<Genome> genomes, final int start,
+			final int end) {
+		final Genome[] batch = new Genome[end - start + 1];
+		final MLMethod[] phenotypes = new MLMethod[batch.length];
+		int count = 0;
+
+		for (int i = start; i <= end; i++) {
+			final Genome genome = genomes.get(i);
+			final MLMethod phenotype = this.codec.decode(genome);
+			if (phenotype == null) {
+				// invalid decode
+				setScore(genome,
+						this.scoreFunction.shouldMinimize() ? Double.POSITIVE_INFINITY
+								: Double.NEGATIVE_INFINITY);
+			} else {
+				batch[count] = genome;
+				phenotypes[count] = phenotype;
+				count++;
 			}
 		}
 
-		taskExecutor.shutdown();
-		try {
-			taskExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
-		} catch (InterruptedException e) {
-			throw new GeneticError(e);
+		final double[] scores = new double[count];
+		if (this.scoreFunction instanceof BatchCalculateScore) {
+			final MLMethod[] methods = new MLMethod[count];
+			System.arraycopy(phenotypes, 0, methods, 0, count);
+			try {
+				((BatchCalculateScore) this.scoreFunction).calculateScores(
+						methods, scores);
+			} catch (EARuntimeError e) {
+				// score them one at a time, to find the one that failed
+				scoreEach(phenotypes, scores, count);
+			}
+		} else {
+			scoreEach(phenotypes, scores, count);
 		}
 
-		if( this.reportedError!=null ) {
-			throw new GeneticError(this.reportedError);
+		for (int i = 0; i < count; i++) {
+			setScore(batch[i], scores[i]);
+		}
+	}
+
+	/**
+	 * Score phenotypes one at a time.
+	 * 
+	 * @param phenotypes
+	 *            The phenotypes.
+	 * @param scores
+	 *            The scores.
+	 * @param count
+	 *            The number of phenotypes to score.
+	 */
+	private void scoreEach(final MLMethod[] phenotypes, final double[] scores,
+			final int count) {
+		for (int i = 0; i < count; i++) {
+			try {
+				scores[i] = this.scoreFunction.calculateScore(phenotypes[i]);
+			} catch (EARuntimeError e) {
+				scores[i] = Double.NaN;
+			}
 		}
 	}
 
+	/**
+	 * Set the score of a genome, and adjust it.
+	 * 
+	 * @param genome
+	 *            The genome.
+	 * @param score
+	 *            The score.
+	 */
+	private void setScore(final Genome genome, final double score) {
+		genome.setScore(score);
+		genome.setAdjustedScore(score);
+		BasicEA.calculateScoreAdjustment(genome, this.adjusters);
+	}
+
+	/**
+	 * Release the threads used to score. They are created again if process
+	 * is called after this.
+	 */
+	public void shutdown() {
+		if (this.concurrency != null) {
+			this.concurrency.shutdown(Long.MAX_VALUE);
+			this.concurrency = null;
+		}
+	}
+
+	/**
+	 * @return The number of genomes to score in a batch.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the number of genomes to score in a batch. Larger batches read the
+	 * training set less often, smaller batches spread the work more evenly
+	 * over the threads.
+	 * 
+	 * @param theBatchSize
+	 *            The number of genomes to score in a batch.
+	 */
+	public void setBatchSize(final int theBatchSize) {
+		this.batchSize = theBatchSize;
+	}
+
 	/**
 	 * @return The score adjusters.
 	 */
@@ -179,7 +358,11 @@ public void setThreadCount(int numThreads) {
 		this.threads = numThreads;
 	}
 
-	public void reportError(Exception ex) {
+	/**
+	 * Report an error from one of the threads.
+	 * @param ex The error.
+	 */
+	public synchronized void reportError(Exception ex) {
 		this.reportedError = ex;
 	}
 }
@@ -26,7 +26,9 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.encog.Encog;
 import org.encog.EncogError;
@@ -36,10 +38,25 @@
 import org.encog.ml.ea.sort.SpeciesComparator;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
 import org.encog.ml.genetic.GeneticError;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
 
 /**
  * Speciate based on threshold. Any genomes with a compatibility score below a
  * level will be in the same species.
+ * 
+ * Each genome is placed in the first species whose leader it is compatible
+ * with. Comparing the genomes against the leaders of the existing species is
+ * the bulk of the work, so this is done in parallel, on the
+ * EngineConcurrency pool, for populations of at least PARALLEL_THRESHOLD
+ * genomes, unless the owner is limited to one thread. The genomes are then
+ * placed in order, so the result is the same as comparing them one by one.
+ * getCompatibilityScore must be thread safe.
+ * 
+ * In incremental mode only genomes that are new to the population are
+ * compared. Genomes that were already members of a species that survives
+ * stay in it.
  */
 public abstract class ThresholdSpeciation implements Speciation, Serializable {
 	/**
@@ -47,6 +64,12 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The smallest number of genomes that are compared against the species
+	 * leaders in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 256;
+
 	/**
 	 * The training being used.
 	 */
@@ -84,6 +107,11 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 	 */
 	private Population population;
 
+	/**
+	 * True if genomes that are already in a species should stay there.
+	 */
+	private boolean incremental;
+
 	/**
 	 * Add a genome.
 	 * 
@@ -252,6 +280,14 @@ public EvolutionaryAlgorithm getOwner() {
 		return this.owner;
 	}
 
+	/**
+	 * @return True if only genomes that are new to the population are
+	 *         placed, see setIncremental.
+	 */
+	public boolean isIncremental() {
+		return this.incremental;
+	}
+
 	/**
 	 * @return the sortGenomes
 	 */
@@ -324,8 +360,17 @@ private void levelOff() {
 	 */
 	@Override
 	public void performSpeciation(List<Genome> genomeList) {
+		Map<Genome, Species> previous = null;
+		if (this.incremental) {
+			previous = new IdentityHashMap<Genome, Species>();
+			for (final Species species : this.population.getSpecies()) {
+				for (final Genome genome : species.getMembers()) {
+					previous.put(genome, species);
+				}
+			}
+		}
 		final List<Genome> newGenomeList = resetSpecies(genomeList);
-		speciateAndCalculateSpawnLevels(newGenomeList);
+		speciateAndCalculateSpawnLevels(newGenomeList, previous);
 	}
 
 	/**
@@ -391,6 +436,19 @@ public void setNumGensAllowedNoImprovement(
 		this.numGensAllowedNoImprovement = numGensAllowedNoImprovement;
 	}
 
+	/**
+	 * Determine if speciation is incremental. When it is, genomes that were
+	 * members of a species in the previous generation stay in that species,
+	 * if it survives, and only new genomes are compared against the species
+	 * leaders. The default is false, every genome is placed again.
+	 * 
+	 * @param theIncremental
+	 *            True to only place new genomes.
+	 */
+	public void setIncremental(final boolean theIncremental) {
+		this.incremental = theIncremental;
+	}
+
 	/**
 	 * @param sortGenomes
 	 *            the sortGenomes to set
@@ -399,13 +457,67 @@ public void setSortGenomes(final SortGenomesForSpecies sortGenomes) {
 		this.sortGenomes = sortGenomes;
 	}
 
+	/**
+	 * Find, for each genome, the first of the current species whose leader it
+	 * is compatible with.
+	 * 
+	 * @param genomes
+	 *            The genomes to speciate.
+	 * @param leaders
+	 *            The leaders of the current species.
+	 * @param previous
+	 *            The surviving species that genomes were previously in, these
+	 *            genomes are skipped. Null if not incremental.
+	 * @return The index of the first compatible species for each genome, or
+	 *         -1 if none are.
+	 */
+	private int[] findFirstCompatible(final List<Genome> genomes,
+			final Genome[] leaders, final Map<Genome, Species> previous) {
+		final int[] result = new int[genomes.size()];
+		final RangeTask task = new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i <= high; i++) {
+					final Genome genome = genomes.get(i);
+					result[i] = -1;
+					if (previous != null && previous.containsKey(genome)) {
+						continue;
+					}
+					for (int j = 0; j < leaders.length; j++) {
+						if (getCompatibilityScore(genome, leaders[j]) <= ThresholdSpeciation.this.compatibilityThreshold) {
+							result[i] = j;
+							break;
+						}
+					}
+				}
+			}
+		};
+
+		int threads = 0;
+		if (this.owner instanceof MultiThreadable) {
+			threads = ((MultiThreadable) this.owner).getThreadCount();
+		}
+
+		if (threads != 1 && genomes.size() >= PARALLEL_THRESHOLD) {
+			EngineConcurrency.getInstance().processRange(0,
+					genomes.size() - 1, 16, task);
+		} else {
+			task.run(0, genomes.size() - 1);
+		}
+		return result;
+	}
+
 	/**
 	 * Determine the species.
 	 * 
 	 * @param genomes
 	 *            The genomes to speciate.
+	 * @param previous
+	 *            The species that genomes were previously in, null if not
+	 *            incremental.
 	 */
-	private void speciateAndCalculateSpawnLevels(final List<Genome> genomes) {
+	private void speciateAndCalculateSpawnLevels(final List<Genome> genomes,
+			final Map<Genome, Species> previous) {
 		double maxScore = 0;
 
 		if (genomes.size() == 0) {
@@ -421,21 +533,54 @@ private void speciateAndCalculateSpawnLevels(final List<Genome> genomes) {
 		// calculate compatibility between genomes and species
 		adjustCompatibilityThreshold();
 
+		// genomes only stay in their previous species if it survived
+		if (previous != null) {
+			previous.values().retainAll(speciesCollection);
+		}
+
+		// compare the genomes against the current leaders, in parallel
+		final Genome[] leaders = new Genome[speciesCollection.size()];
+		for (int j = 0; j < leaders.length; j++) {
+			leaders[j] = speciesCollection.get(j).getLeader();
+		}
+		final int[] firstCompatible = findFirstCompatible(genomes, leaders,
+				previous);
+
 		// assign genomes to species (if any exist)
-		for (final Genome g : genomes) {
+		for (int i = 0; i < genomes.size(); i++) {
 			Species currentSpecies = null;
-			final Genome genome = g;
+			final Genome genome = genomes.get(i);
 
 			if (!Double.isNaN(genome.getAdjustedScore())
 					&& !Double.isInfinite(genome.getAdjustedScore())) {
 				maxScore = Math.max(genome.getAdjustedScore(), maxScore);
 			}
 
-			for (final Species s : speciesCollection) {
-				final double compatibility = getCompatibilityScore(genome,
-						s.getLeader());
+			// stay in the previous species, if it survived
+			if (previous != null) {
+				final Species s = previous.get(genome);
+				if (s != null) {
+					addSpeciesMember(s, genome);
+					genome.setSpecies(s);
+					continue;
+				}
+			}
+
+			final int first = firstCompatible[i];
+			for (int j = 0; j < speciesCollection.size(); j++) {
+				final Species s = speciesCollection.get(j);
+				final boolean compatible;
+
+				if (j < leaders.length && s.getLeader() == leaders[j]
+						&& (first == -1 || j <= first)) {
+					// already compared against this leader
+					compatible = (j == first);
+				} else {
+					// a new species, or the leader has changed
+					compatible = getCompatibilityScore(genome, s.getLeader()) <= this.compatibilityThreshold;
+				}
 
-				if (compatibility <= this.compatibilityThreshold) {
+				if (compatible) {
 					currentSpecies = s;
 					addSpeciesMember(s, genome);
 					genome.setSpecies(s);
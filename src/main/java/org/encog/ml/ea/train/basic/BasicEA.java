@@ -26,7 +26,6 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +40,7 @@
 import org.encog.ml.ea.codec.GeneticCODEC;
 import org.encog.ml.ea.codec.GenomeAsPhenomeCODEC;
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.genome.StructuralGenome;
 import org.encog.ml.ea.opp.EvolutionaryOperator;
 import org.encog.ml.ea.opp.OperationList;
 import org.encog.ml.ea.opp.selection.SelectionOperator;
@@ -49,6 +49,7 @@
 import org.encog.ml.ea.rules.BasicRuleHolder;
 import org.encog.ml.ea.rules.RuleHolder;
 import org.encog.ml.ea.score.AdjustScore;
+import org.encog.ml.ea.score.ScoreCache;
 import org.encog.ml.ea.score.parallel.ParallelScore;
 import org.encog.ml.ea.sort.GenomeComparator;
 import org.encog.ml.ea.sort.MaximizeAdjustedScoreComp;
@@ -213,10 +214,22 @@ public static void calculateScoreAdjustment(final Genome genome,
 	 */
 	private transient ExecutorService taskExecutor;
 
+	/**
+	 * Scores whole populations in batches, kept so that its threads can be
+	 * reused.
+	 */
+	private transient ParallelScore parallelScore;
+
+	/**
+	 * Optional cache of scores for structurally identical genomes, null if
+	 * scores are not cached.
+	 */
+	private transient ScoreCache scoreCache;
+
 	/**
 	 * Holds the threads used each iteration.
 	 */
-	private final List<Callable<Object>> threadList = new ArrayList<Callable<Object>>();
+	private final List<EAWorker> threadList = new ArrayList<EAWorker>();
 
 	private int maxOperationErrors = 500;
 
@@ -260,7 +273,8 @@ public BasicEA(final Population thePopulation,
 	}
 
 	/**
-	 * Add a child to the next iteration.
+	 * Add a child to the next iteration. During an iteration the children
+	 * produced by the workers are added once all workers have finished.
 	 * 
 	 * @param genome
 	 *            The child.
@@ -324,6 +338,18 @@ public void calculateScore(final Genome g) {
 		// try rewrite
 		this.population.getRules().rewrite(g);
 
+		// reuse the score of an identical genome, if one was scored
+		String key = null;
+		if (this.scoreCache != null && g instanceof StructuralGenome) {
+			key = ((StructuralGenome) g).getStructuralKey();
+			final Double cached = this.scoreCache.get(key);
+			if (cached != null) {
+				g.setScore(cached);
+				g.setAdjustedScore(cached);
+				return;
+			}
+		}
+
 		// decode
 		final MLMethod phenotype = getCODEC().decode(g);
 		double score;
@@ -342,6 +368,10 @@ public void calculateScore(final Genome g) {
 			score = getScoreFunction().calculateScore(phenotype);
 		}
 
+		if (key != null) {
+			this.scoreCache.put(key, score);
+		}
+
 		// now set the scores
 		g.setScore(score);
 		g.setAdjustedScore(score);
@@ -353,6 +383,11 @@ public void calculateScore(final Genome g) {
 	@Override
 	public void finishTraining() {
 
+		if (this.parallelScore != null) {
+			this.parallelScore.shutdown();
+			this.parallelScore = null;
+		}
+
 		// wait for threadpool to shutdown
 		if (this.taskExecutor != null) {
 			this.taskExecutor.shutdown();
@@ -489,6 +524,13 @@ public List<AdjustScore> getScoreAdjusters() {
 		return this.adjusters;
 	}
 
+	/**
+	 * @return The score cache, or null if scores are not cached.
+	 */
+	public ScoreCache getScoreCache() {
+		return this.scoreCache;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -604,6 +646,21 @@ public void iteration() {
 			throw new GeneticError(this.reportedError);
 		}
 
+		// collect the children in worker order, so the new population does
+		// not depend on the order that the threads finished in
+		boolean full = false;
+		for (final EAWorker worker : this.threadList) {
+			for (final Genome child : worker.getOffspring()) {
+				if (!addChild(child)) {
+					full = true;
+					break;
+				}
+			}
+			if (full) {
+				break;
+			}
+		}
+
 		// validate, if requested
 		if (isValidationMode()) {
 			if (this.oldBestGenome != null
@@ -653,12 +710,14 @@ private void preIteration() {
 		}
 
 		// score the initial population
-		final ParallelScore pscore = new ParallelScore(getPopulation(),
-				getCODEC(), new ArrayList<AdjustScore>(), getScoreFunction(),
-				this.actualThreadCount);
-		pscore.setThreadCount(this.actualThreadCount);
-		pscore.process();
-		this.actualThreadCount = pscore.getThreadCount();
+		if (this.parallelScore == null) {
+			this.parallelScore = new ParallelScore(getPopulation(),
+					getCODEC(), new ArrayList<AdjustScore>(),
+					getScoreFunction(), this.actualThreadCount);
+		}
+		this.parallelScore.setThreadCount(this.actualThreadCount);
+		this.parallelScore.process();
+		this.actualThreadCount = this.parallelScore.getThreadCount();
 
 		// start up the thread pool
 		if (this.actualThreadCount == 1) {
@@ -720,6 +779,18 @@ public void setBestComparator(final GenomeComparator theComparator) {
 		this.bestComparator = theComparator;
 	}
 
+	/**
+	 * Set the best genome, for example when a better genome has been added to
+	 * the population from outside of the algorithm.
+	 * 
+	 * @param genome
+	 *            The best genome.
+	 */
+	public void setBestGenome(final Genome genome) {
+		this.bestGenome = genome;
+		getPopulation().setBestGenome(genome);
+	}
+
 	/**
 	 * @param champMutation
 	 *            the champMutation to set
@@ -780,6 +851,19 @@ public void setRandomNumberFactory(final RandomFactory randomNumberFactory) {
 		this.randomNumberFactory = randomNumberFactory;
 	}
 
+	/**
+	 * Set a cache used to reuse the scores of structurally identical genomes.
+	 * Only genomes that implement StructuralGenome are cached. Use a cache
+	 * only when the score function always gives the same score for the same
+	 * genome. The cache is not persisted with the algorithm.
+	 * 
+	 * @param theScoreCache
+	 *            The score cache, or null to not cache scores.
+	 */
+	public void setScoreCache(final ScoreCache theScoreCache) {
+		this.scoreCache = theScoreCache;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
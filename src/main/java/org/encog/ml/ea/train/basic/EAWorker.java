@@ -24,6 +24,8 @@
 package org.encog.ml.ea.train.basic;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Callable;
 
@@ -34,7 +36,12 @@
 import org.encog.ml.ea.species.Species;
 
 /**
- * A worker thread for an Evolutionary Algorithm.
+ * A worker thread for an Evolutionary Algorithm. Each worker produces at least
+ * one scored child into its own buffer, the algorithm collects the buffers in
+ * worker order once all workers have finished. Because each worker has its
+ * own random number generator, created when the worker is, and only reads the
+ * previous generation, the children do not depend on which thread ran the
+ * worker.
  */
 public class EAWorker implements Callable<Object>, Serializable {
 
@@ -53,6 +60,11 @@ public class EAWorker implements Callable<Object>, Serializable {
 	 */
 	private final Genome[] children;
 
+	/**
+	 * The valid children produced by this worker.
+	 */
+	private final List<Genome> offspring = new ArrayList<Genome>();
+
 	/**
 	 * Random number generator.
 	 */
@@ -80,6 +92,13 @@ public EAWorker(final BasicEA theTrain, final Species theSpecies) {
 		this.children = new Genome[this.train.getOperators().maxOffspring()];
 	}
 
+	/**
+	 * @return The valid, scored, children produced by the last call.
+	 */
+	public List<Genome> getOffspring() {
+		return this.offspring;
+	}
+
 	/**
 	 * Choose a parent.
 	 * 
@@ -98,6 +117,7 @@ private Genome chooseParent() {
 	public Object call() {
 		boolean success = false;
 		int tries = this.train.getMaxOperationErrors();
+		this.offspring.clear();
 		do {
 			try {
 				// choose an evolutionary operation (i.e. crossover or a type of
@@ -153,9 +173,7 @@ public Object call() {
 							child.setBirthGeneration(this.train.getIteration());
 
 							this.train.calculateScore(child);
-							if (!this.train.addChild(child)) {
-								return null;
-							}
+							this.offspring.add(child);
 							success = true;
 						}
 					}
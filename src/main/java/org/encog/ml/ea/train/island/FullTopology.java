@@ -0,0 +1,48 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+/**
+ * Every island sends its genomes to every other island.
+ */
+public class FullTopology implements MigrationTopology {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int[] getDestinations(final int island, final int islandCount) {
+		if (islandCount < 2) {
+			return new int[0];
+		}
+		final int[] result = new int[islandCount - 1];
+		int index = 0;
+		for (int i = 0; i < islandCount; i++) {
+			if (i != island) {
+				result[index++] = i;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.Population;
+
+/**
+ * Encodes genomes so that they can be moved to the population of another
+ * island. Decoding creates new genomes that belong to the target population,
+ * so anything that is specific to a population, such as the context of a
+ * program or the innovation numbers of a NEAT genome, must be translated.
+ */
+public interface GenomeTransfer {
+
+	/**
+	 * Write genomes.
+	 * 
+	 * @param genomes
+	 *            The genomes to write.
+	 * @param out
+	 *            The output.
+	 * @throws IOException
+	 *             If the genomes could not be written.
+	 */
+	void write(List<Genome> genomes, DataOutput out) throws IOException;
+
+	/**
+	 * Read genomes.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @param target
+	 *            The population that the genomes will be added to.
+	 * @return The genomes, which are not yet members of the population.
+	 * @throws IOException
+	 *             If the genomes could not be read.
+	 */
+	List<Genome> read(DataInput in, Population target) throws IOException;
+}
@@ -0,0 +1,71 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+/**
+ * One island of an island model. Each island evolves its own population, and
+ * periodically exchanges its best genomes with other islands. Genomes are
+ * exchanged in an encoded form, so an island may be in this process or in
+ * another one.
+ */
+public interface Island {
+
+	/**
+	 * Perform one generation.
+	 */
+	void iteration();
+
+	/**
+	 * Encode copies of the best genomes of this island.
+	 * 
+	 * @param count
+	 *            The number of genomes to send.
+	 * @return The encoded genomes.
+	 */
+	byte[] emigrate(int count);
+
+	/**
+	 * Decode genomes sent by another island, and add them to this island in
+	 * place of its worst genomes.
+	 * 
+	 * @param data
+	 *            The encoded genomes.
+	 */
+	void immigrate(byte[] data);
+
+	/**
+	 * @return The score of the best genome on this island.
+	 */
+	double getError();
+
+	/**
+	 * @return True if lower scores are better.
+	 */
+	boolean shouldMinimize();
+
+	/**
+	 * Called when training is done.
+	 */
+	void finishTraining();
+}
@@ -0,0 +1,282 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.encog.EncogError;
+
+/**
+ * An island model. Several islands each evolve their own population, and
+ * every few generations the best genomes of each island migrate to other
+ * islands, as determined by the migration topology. Keeping the populations
+ * apart preserves diversity, while migration spreads good solutions.
+ * 
+ * The islands perform each generation at the same time, each on its own
+ * thread. Islands may be LocalIslands, in this process, or RemoteIslands,
+ * served by an IslandServer in another process. Since the islands already run
+ * in parallel, local islands with a single thread each are often best.
+ */
+public class IslandModel {
+
+	/**
+	 * The default number of generations between migrations.
+	 */
+	public static final int DEFAULT_MIGRATION_INTERVAL = 10;
+
+	/**
+	 * The default number of genomes that leave each island on a migration.
+	 */
+	public static final int DEFAULT_MIGRATION_SIZE = 2;
+
+	/**
+	 * The islands.
+	 */
+	private final List<Island> islands = new ArrayList<Island>();
+
+	/**
+	 * Determines where migrating genomes go.
+	 */
+	private MigrationTopology topology = new RingTopology();
+
+	/**
+	 * The number of generations between migrations, zero for no migration.
+	 */
+	private int migrationInterval = DEFAULT_MIGRATION_INTERVAL;
+
+	/**
+	 * The number of genomes that leave each island on a migration.
+	 */
+	private int migrationSize = DEFAULT_MIGRATION_SIZE;
+
+	/**
+	 * The current generation.
+	 */
+	private int iteration;
+
+	/**
+	 * Runs the islands, created on the first iteration.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Add an island.
+	 * 
+	 * @param island
+	 *            The island to add.
+	 */
+	public void addIsland(final Island island) {
+		if (this.executor != null) {
+			throw new EncogError(
+					"Islands can't be added once training has started.");
+		}
+		this.islands.add(island);
+	}
+
+	/**
+	 * @return The islands.
+	 */
+	public List<Island> getIslands() {
+		return this.islands;
+	}
+
+	/**
+	 * Perform one generation on every island, then migrate if the migration
+	 * interval has been reached.
+	 */
+	public void iteration() {
+		if (this.islands.size() == 0) {
+			throw new EncogError("The island model has no islands.");
+		}
+
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(this.islands.size());
+		}
+
+		final List<Future<Object>> results = new ArrayList<Future<Object>>();
+		for (final Island island : this.islands) {
+			results.add(this.executor.submit(new Callable<Object>() {
+				@Override
+				public Object call() {
+					island.iteration();
+					return null;
+				}
+			}));
+		}
+
+		// wait for every island, and report the first error
+		Throwable error = null;
+		for (final Future<Object> result : results) {
+			try {
+				result.get();
+			} catch (final ExecutionException e) {
+				if (error == null) {
+					error = e.getCause();
+				}
+			} catch (final InterruptedException e) {
+				throw new EncogError(e);
+			}
+		}
+		if (error instanceof EncogError) {
+			throw (EncogError) error;
+		} else if (error != null) {
+			throw new EncogError(error);
+		}
+
+		this.iteration++;
+
+		if (this.migrationInterval > 0
+				&& (this.iteration % this.migrationInterval) == 0) {
+			migrate();
+		}
+	}
+
+	/**
+	 * Perform the specified number of generations.
+	 * 
+	 * @param count
+	 *            The number of generations.
+	 */
+	public void iteration(final int count) {
+		for (int i = 0; i < count; i++) {
+			iteration();
+		}
+	}
+
+	/**
+	 * Migrate genomes between the islands. The emigrants of every island are
+	 * chosen before any island receives immigrants.
+	 */
+	public void migrate() {
+		final int count = this.islands.size();
+		final byte[][] emigrants = new byte[count][];
+		for (int i = 0; i < count; i++) {
+			emigrants[i] = this.islands.get(i).emigrate(this.migrationSize);
+		}
+
+		for (int i = 0; i < count; i++) {
+			for (final int destination : this.topology.getDestinations(i,
+					count)) {
+				this.islands.get(destination).immigrate(emigrants[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return The index of the island with the best error.
+	 */
+	public int getBestIsland() {
+		int result = 0;
+		for (int i = 1; i < this.islands.size(); i++) {
+			final Island island = this.islands.get(i);
+			final double best = this.islands.get(result).getError();
+			final double error = island.getError();
+			if (Double.isNaN(best)
+					|| (island.shouldMinimize() ? error < best : error > best)) {
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The best error of any island.
+	 */
+	public double getError() {
+		return this.islands.get(getBestIsland()).getError();
+	}
+
+	/**
+	 * @return The number of generations performed.
+	 */
+	public int getIteration() {
+		return this.iteration;
+	}
+
+	/**
+	 * @return The number of generations between migrations.
+	 */
+	public int getMigrationInterval() {
+		return this.migrationInterval;
+	}
+
+	/**
+	 * Set the number of generations between migrations.
+	 * 
+	 * @param theMigrationInterval
+	 *            The number of generations, or zero to never migrate.
+	 */
+	public void setMigrationInterval(final int theMigrationInterval) {
+		this.migrationInterval = theMigrationInterval;
+	}
+
+	/**
+	 * @return The number of genomes that leave each island on a migration.
+	 */
+	public int getMigrationSize() {
+		return this.migrationSize;
+	}
+
+	/**
+	 * @param theMigrationSize
+	 *            The number of genomes that leave each island on a migration.
+	 */
+	public void setMigrationSize(final int theMigrationSize) {
+		this.migrationSize = theMigrationSize;
+	}
+
+	/**
+	 * @return Determines where migrating genomes go.
+	 */
+	public MigrationTopology getTopology() {
+		return this.topology;
+	}
+
+	/**
+	 * @param theTopology
+	 *            Determines where migrating genomes go.
+	 */
+	public void setTopology(final MigrationTopology theTopology) {
+		this.topology = theTopology;
+	}
+
+	/**
+	 * Finish training on every island, and release the threads.
+	 */
+	public void finishTraining() {
+		for (final Island island : this.islands) {
+			island.finishTraining();
+		}
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+}
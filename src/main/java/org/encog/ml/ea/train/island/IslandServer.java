@@ -0,0 +1,280 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.encog.EncogError;
+
+/**
+ * Serves an island to an island model running in another process. The model
+ * connects with a RemoteIsland, and then controls the island over the
+ * connection. This allows the islands of a model to run in several local
+ * processes, or on several machines.
+ * 
+ * Each request is a command byte followed by its arguments. Each response
+ * starts with STATUS_OK, followed by the result, or with STATUS_ERROR,
+ * followed by the error message.
+ * 
+ * The protocol is not authenticated, so by default the server only listens on
+ * the loopback address. Requests larger than MAX_MESSAGE_SIZE, or asking for
+ * more than MAX_GENOME_COUNT genomes, are rejected.
+ */
+public class IslandServer {
+
+	/**
+	 * Perform one generation, responds with the error.
+	 */
+	static final byte CMD_ITERATION = 1;
+
+	/**
+	 * Send the best genomes, takes the count, responds with the genomes.
+	 */
+	static final byte CMD_EMIGRATE = 2;
+
+	/**
+	 * Receive genomes, takes the genomes.
+	 */
+	static final byte CMD_IMMIGRATE = 3;
+
+	/**
+	 * Responds with whether scores are minimized, and the error.
+	 */
+	static final byte CMD_STATUS = 4;
+
+	/**
+	 * Finish training and end the connection.
+	 */
+	static final byte CMD_CLOSE = 5;
+
+	/**
+	 * The request succeeded.
+	 */
+	static final byte STATUS_OK = 0;
+
+	/**
+	 * The request failed.
+	 */
+	static final byte STATUS_ERROR = 1;
+
+	/**
+	 * The largest message, in bytes, that will be read.
+	 */
+	public static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The most genomes that can be requested at once.
+	 */
+	public static final int MAX_GENOME_COUNT = 100000;
+
+	/**
+	 * The island being served.
+	 */
+	private final Island island;
+
+	/**
+	 * The server socket.
+	 */
+	private final ServerSocket serverSocket;
+
+	/**
+	 * Construct a server, and start listening on the loopback address.
+	 * 
+	 * @param theIsland
+	 *            The island to serve.
+	 * @param port
+	 *            The port to listen on, or zero for any free port.
+	 */
+	public IslandServer(final Island theIsland, final int port) {
+		this(theIsland, port, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Construct a server, and start listening.
+	 * 
+	 * @param theIsland
+	 *            The island to serve.
+	 * @param port
+	 *            The port to listen on, or zero for any free port.
+	 * @param bindAddress
+	 *            The address to listen on, or null for all addresses.
+	 */
+	public IslandServer(final Island theIsland, final int port,
+			final InetAddress bindAddress) {
+		this.island = theIsland;
+		try {
+			this.serverSocket = new ServerSocket(port, 0, bindAddress);
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * @return The port being listened on.
+	 */
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return The island being served.
+	 */
+	public Island getIsland() {
+		return this.island;
+	}
+
+	/**
+	 * Accept one connection, and process its requests until the model sends
+	 * CMD_CLOSE or disconnects.
+	 */
+	public void serve() {
+		Socket socket = null;
+		try {
+			socket = this.serverSocket.accept();
+			socket.setTcpNoDelay(true);
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(socket.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream()));
+
+			boolean done = false;
+			while (!done) {
+				final byte command;
+				try {
+					command = in.readByte();
+				} catch (final EOFException e) {
+					break;
+				}
+				done = process(command, in, out);
+				out.flush();
+			}
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		} finally {
+			if (socket != null) {
+				try {
+					socket.close();
+				} catch (final IOException e) {
+					// already closing
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process one request.
+	 * 
+	 * @param command
+	 *            The command.
+	 * @param in
+	 *            The request.
+	 * @param out
+	 *            The response.
+	 * @return True if the connection should be closed.
+	 * @throws IOException
+	 *             If the connection failed.
+	 */
+	private boolean process(final byte command, final DataInputStream in,
+			final DataOutputStream out) throws IOException {
+		// read all of the arguments before doing any work, so that an error
+		// does not leave part of the request unread
+		int count = 0;
+		int length = 0;
+		byte[] data = null;
+		if (command == CMD_EMIGRATE) {
+			count = in.readInt();
+		} else if (command == CMD_IMMIGRATE) {
+			length = in.readInt();
+			if (length >= 0 && length <= MAX_MESSAGE_SIZE) {
+				data = new byte[length];
+				in.readFully(data);
+			}
+		}
+
+		try {
+			if (command == CMD_EMIGRATE
+					&& (count < 0 || count > MAX_GENOME_COUNT)) {
+				throw new EncogError("Invalid genome count: " + count);
+			}
+			if (command == CMD_IMMIGRATE && data == null) {
+				throw new EncogError("Invalid message size: " + length);
+			}
+
+			switch (command) {
+			case CMD_ITERATION:
+				this.island.iteration();
+				out.writeByte(STATUS_OK);
+				out.writeDouble(this.island.getError());
+				return false;
+			case CMD_EMIGRATE:
+				final byte[] genomes = this.island.emigrate(count);
+				out.writeByte(STATUS_OK);
+				out.writeInt(genomes.length);
+				out.write(genomes);
+				return false;
+			case CMD_IMMIGRATE:
+				this.island.immigrate(data);
+				out.writeByte(STATUS_OK);
+				return false;
+			case CMD_STATUS:
+				out.writeByte(STATUS_OK);
+				out.writeBoolean(this.island.shouldMinimize());
+				out.writeDouble(this.island.getError());
+				return false;
+			case CMD_CLOSE:
+				this.island.finishTraining();
+				out.writeByte(STATUS_OK);
+				return true;
+			default:
+				throw new EncogError("Unknown island command: " + command);
+			}
+		} catch (final RuntimeException e) {
+			out.writeByte(STATUS_ERROR);
+			out.writeUTF(String.valueOf(e.getMessage()));
+			// an unknown command, or a message that was not read, means the
+			// connection is out of step
+			return command < CMD_ITERATION || command > CMD_CLOSE
+					|| (command == CMD_IMMIGRATE && data == null);
+		}
+	}
+
+	/**
+	 * Stop listening.
+	 */
+	public void close() {
+		try {
+			this.serverSocket.close();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.encog.EncogError;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.Population;
+import org.encog.ml.ea.species.Species;
+import org.encog.ml.ea.train.basic.BasicEA;
+
+/**
+ * An island that evolves a population in this process, using a BasicEA.
+ * Immigrants are scored by this island's score function, and replace the
+ * worst genomes of the population, so the population size does not change.
+ * The best genome is never replaced, and an immigrant that is better than it
+ * becomes the best genome.
+ */
+public class LocalIsland implements Island {
+
+	/**
+	 * The evolutionary algorithm.
+	 */
+	private final BasicEA train;
+
+	/**
+	 * Used to encode and decode genomes.
+	 */
+	private final GenomeTransfer transfer;
+
+	/**
+	 * Construct a local island.
+	 * 
+	 * @param theTrain
+	 *            The evolutionary algorithm.
+	 * @param theTransfer
+	 *            Used to encode and decode the genomes of the population.
+	 */
+	public LocalIsland(final BasicEA theTrain, final GenomeTransfer theTransfer) {
+		this.train = theTrain;
+		this.transfer = theTransfer;
+	}
+
+	/**
+	 * @return The evolutionary algorithm.
+	 */
+	public BasicEA getTrain() {
+		return this.train;
+	}
+
+	/**
+	 * @return Used to encode and decode genomes.
+	 */
+	public GenomeTransfer getTransfer() {
+		return this.transfer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void iteration() {
+		this.train.iteration();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] emigrate(final int count) {
+		final List<Genome> genomes = new ArrayList<Genome>();
+		for (final Genome genome : this.train.getPopulation().flatten()) {
+			if (isValidScore(genome.getScore())) {
+				genomes.add(genome);
+			}
+		}
+		Collections.sort(genomes, this.train.getBestComparator());
+
+		try {
+			final ByteArrayOutputStream result = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(result);
+			this.transfer.write(
+					genomes.subList(0, Math.min(count, genomes.size())), out);
+			out.flush();
+			return result.toByteArray();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void immigrate(final byte[] data) {
+		final Population population = this.train.getPopulation();
+		final List<Genome> genomes;
+		try {
+			genomes = this.transfer.read(new DataInputStream(
+					new ByteArrayInputStream(data)), population);
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+
+		for (final Genome genome : genomes) {
+			genome.setPopulation(population);
+			genome.setBirthGeneration(this.train.getIteration());
+			if (population.getRules().isValid(genome)) {
+				this.train.calculateScore(genome);
+				if (replaceWorst(genome) && isBest(genome)) {
+					this.train.setBestGenome(genome);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replace the worst genome of the population, other than the best genome.
+	 * 
+	 * @param genome
+	 *            The genome to add.
+	 * @return True if the genome was added.
+	 */
+	private boolean replaceWorst(final Genome genome) {
+		Species worstSpecies = null;
+		int worstIndex = -1;
+		Genome worst = null;
+
+		for (final Species species : this.train.getPopulation().getSpecies()) {
+			final List<Genome> members = species.getMembers();
+			for (int i = 0; i < members.size(); i++) {
+				final Genome member = members.get(i);
+				if (member == this.train.getBestGenome()
+						|| member == species.getLeader()) {
+					continue;
+				}
+				if (worst == null || isWorse(member, worst)) {
+					worst = member;
+					worstSpecies = species;
+					worstIndex = i;
+				}
+			}
+		}
+
+		if (worstSpecies != null) {
+			worstSpecies.getMembers().set(worstIndex, genome);
+			genome.setSpecies(worstSpecies);
+			// keep the best members first, so a good immigrant is kept as an
+			// elite
+			Collections.sort(worstSpecies.getMembers(),
+					this.train.getSelectionComparator());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Determine if a genome is better than the best genome.
+	 * 
+	 * @param genome
+	 *            The genome.
+	 * @return True if the genome is better.
+	 */
+	private boolean isBest(final Genome genome) {
+		if (!isValidScore(genome.getScore())) {
+			return false;
+		}
+		final Genome best = this.train.getBestGenome();
+		return best == null || !isValidScore(best.getScore())
+				|| this.train.getBestComparator().isBetterThan(genome, best);
+	}
+
+	/**
+	 * Determine if one genome is worse than another. Genomes without a valid
+	 * score are the worst.
+	 * 
+	 * @param genome1
+	 *            The first genome.
+	 * @param genome2
+	 *            The second genome.
+	 * @return True if the first genome is worse.
+	 */
+	private boolean isWorse(final Genome genome1, final Genome genome2) {
+		final boolean valid1 = isValidScore(genome1.getAdjustedScore());
+		final boolean valid2 = isValidScore(genome2.getAdjustedScore());
+		if (valid1 != valid2) {
+			return !valid1;
+		}
+		return valid1
+				&& this.train.getSelectionComparator().isBetterThan(genome2,
+						genome1);
+	}
+
+	/**
+	 * @param score
+	 *            A score.
+	 * @return True if the score is a number.
+	 */
+	private static boolean isValidScore(final double score) {
+		return !Double.isNaN(score) && !Double.isInfinite(score);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getError() {
+		return this.train.getError();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean shouldMinimize() {
+		return this.train.getScoreFunction().shouldMinimize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finishTraining() {
+		this.train.finishTraining();
+	}
+}
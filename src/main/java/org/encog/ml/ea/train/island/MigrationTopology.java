@@ -0,0 +1,41 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+/**
+ * Determines which islands receive the genomes that leave an island.
+ */
+public interface MigrationTopology {
+
+	/**
+	 * Determine where the emigrants of an island go.
+	 * 
+	 * @param island
+	 *            The index of the island the genomes leave.
+	 * @param islandCount
+	 *            The number of islands.
+	 * @return The indexes of the islands that receive the genomes.
+	 */
+	int[] getDestinations(int island, int islandCount);
+}
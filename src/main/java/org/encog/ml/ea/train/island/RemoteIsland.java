@@ -0,0 +1,208 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import org.encog.EncogError;
+
+/**
+ * An island in another process, served by an IslandServer. Each call is sent
+ * over the connection and waits for the response. The error is the one
+ * reported after the last generation.
+ */
+public class RemoteIsland implements Island {
+
+	/**
+	 * The connection to the server.
+	 */
+	private final Socket socket;
+
+	/**
+	 * Reads responses.
+	 */
+	private final DataInputStream in;
+
+	/**
+	 * Writes requests.
+	 */
+	private final DataOutputStream out;
+
+	/**
+	 * True if lower scores are better.
+	 */
+	private final boolean minimize;
+
+	/**
+	 * The last error reported by the server.
+	 */
+	private double error;
+
+	/**
+	 * Connect to an island server.
+	 * 
+	 * @param host
+	 *            The host the server is on.
+	 * @param port
+	 *            The port the server is listening on.
+	 */
+	public RemoteIsland(final String host, final int port) {
+		try {
+			this.socket = new Socket(host, port);
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+
+		try {
+			this.socket.setTcpNoDelay(true);
+			this.in = new DataInputStream(new BufferedInputStream(
+					this.socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(
+					this.socket.getOutputStream()));
+
+			this.out.writeByte(IslandServer.CMD_STATUS);
+			readStatus();
+			this.minimize = this.in.readBoolean();
+			this.error = this.in.readDouble();
+		} catch (final IOException e) {
+			closeSocket();
+			throw new EncogError(e);
+		} catch (final RuntimeException e) {
+			closeSocket();
+			throw e;
+		}
+	}
+
+	/**
+	 * Close the connection, ignoring any error.
+	 */
+	private void closeSocket() {
+		try {
+			this.socket.close();
+		} catch (final IOException e) {
+			// already closing
+		}
+	}
+
+	/**
+	 * Send the request, and read the status of the response.
+	 * 
+	 * @throws IOException
+	 *             If the connection failed.
+	 */
+	private void readStatus() throws IOException {
+		this.out.flush();
+		if (this.in.readByte() != IslandServer.STATUS_OK) {
+			throw new EncogError("Remote island failed: " + this.in.readUTF());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void iteration() {
+		try {
+			this.out.writeByte(IslandServer.CMD_ITERATION);
+			readStatus();
+			this.error = this.in.readDouble();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] emigrate(final int count) {
+		try {
+			this.out.writeByte(IslandServer.CMD_EMIGRATE);
+			this.out.writeInt(count);
+			readStatus();
+			final int length = this.in.readInt();
+			if (length < 0 || length > IslandServer.MAX_MESSAGE_SIZE) {
+				closeSocket();
+				throw new EncogError("Invalid remote island response size: "
+						+ length);
+			}
+			final byte[] result = new byte[length];
+			this.in.readFully(result);
+			return result;
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void immigrate(final byte[] data) {
+		try {
+			this.out.writeByte(IslandServer.CMD_IMMIGRATE);
+			this.out.writeInt(data.length);
+			this.out.write(data);
+			readStatus();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getError() {
+		return this.error;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean shouldMinimize() {
+		return this.minimize;
+	}
+
+	/**
+	 * Finish training on the server, and close the connection.
+	 */
+	@Override
+	public void finishTraining() {
+		try {
+			this.out.writeByte(IslandServer.CMD_CLOSE);
+			readStatus();
+		} catch (final IOException e) {
+			throw new EncogError(e);
+		} finally {
+			closeSocket();
+		}
+	}
+}
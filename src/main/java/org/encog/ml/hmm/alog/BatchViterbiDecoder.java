@@ -0,0 +1,326 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.alog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.MLSequenceSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+
+/**
+ * Decodes all of the sequences of a sequence set with the Viterbi algorithm,
+ * on several threads. Each thread uses its own ViterbiDecoder, sharing the
+ * tables of the first, and the decoders are kept for the next batch.
+ * 
+ * The time taken to decode each sequence is measured, and the latency and
+ * throughput of the last batch are reported, along with the totals since the
+ * decoder was created.
+ */
+public class BatchViterbiDecoder implements MultiThreadable {
+
+	/**
+	 * The fewest sequences that are decoded by a thread.
+	 */
+	public static final int MIN_CHUNK = 16;
+
+	/**
+	 * The decoder that the others share their tables with.
+	 */
+	private final ViterbiDecoder prototype;
+
+	/**
+	 * Decoders that are not in use.
+	 */
+	private final Queue<ViterbiDecoder> decoders = new ConcurrentLinkedQueue<ViterbiDecoder>();
+
+	/**
+	 * The number of threads, 0 for the default.
+	 */
+	private int threadCount;
+
+	/**
+	 * The log probability of each path in the last batch.
+	 */
+	private double[] lnProbabilities;
+
+	/**
+	 * The number of sequences in the last batch.
+	 */
+	private int batchSequences;
+
+	/**
+	 * The number of observations in the last batch.
+	 */
+	private long batchObservations;
+
+	/**
+	 * The time taken by the last batch, in nanoseconds.
+	 */
+	private long batchNanos;
+
+	/**
+	 * The total time spent decoding the sequences of the last batch, in
+	 * nanoseconds.
+	 */
+	private long batchLatencyNanos;
+
+	/**
+	 * The longest time taken to decode one sequence of the last batch, in
+	 * nanoseconds.
+	 */
+	private long batchMaxLatencyNanos;
+
+	/**
+	 * The number of sequences decoded since the decoder was created.
+	 */
+	private long totalSequences;
+
+	/**
+	 * The number of observations decoded since the decoder was created.
+	 */
+	private long totalObservations;
+
+	/**
+	 * The time taken by all batches, in nanoseconds.
+	 */
+	private long totalNanos;
+
+	/**
+	 * Construct a batch decoder for the specified model.
+	 * 
+	 * @param theHMM
+	 *            The model.
+	 */
+	public BatchViterbiDecoder(final HiddenMarkovModel theHMM) {
+		this.prototype = new ViterbiDecoder(theHMM);
+		this.decoders.add(this.prototype);
+	}
+
+	/**
+	 * Decode every sequence of a sequence set.
+	 * 
+	 * @param set
+	 *            The sequences.
+	 * @return The most likely states of each sequence, in the order of the
+	 *         sequence set.
+	 */
+	public int[][] decode(final MLSequenceSet set) {
+		final List<MLDataSet> sequences = new ArrayList<MLDataSet>(
+				set.getSequences());
+		final int count = sequences.size();
+		final int[][] paths = new int[count][];
+		final double[] ln = new double[count];
+		final long[] latency = new long[2];
+		final long[] observations = new long[1];
+
+		final RangeTask task = new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				final ViterbiDecoder decoder = acquire();
+				long sum = 0;
+				long max = 0;
+				long size = 0;
+				try {
+					for (int i = low; i <= high; i++) {
+						final long started = System.nanoTime();
+						final MLDataSet sequence = sequences.get(i);
+						final int[] path = new int[sequence.size()];
+						ln[i] = decoder.decode(sequence, path);
+						paths[i] = path;
+						final long elapsed = System.nanoTime() - started;
+						sum += elapsed;
+						max = Math.max(max, elapsed);
+						size += path.length;
+					}
+				} finally {
+					BatchViterbiDecoder.this.decoders.offer(decoder);
+				}
+				synchronized (latency) {
+					latency[0] += sum;
+					latency[1] = Math.max(latency[1], max);
+					observations[0] += size;
+				}
+			}
+		};
+
+		final long started = System.nanoTime();
+		if (count > 0) {
+			if (this.threadCount == 1) {
+				task.run(0, count - 1);
+			} else if (this.threadCount == 0) {
+				EngineConcurrency.getInstance().processRange(0, count - 1,
+						MIN_CHUNK, task);
+			} else {
+				final EngineConcurrency pool = new EngineConcurrency(
+						this.threadCount);
+				try {
+					pool.processRange(0, count - 1, MIN_CHUNK, task);
+				} finally {
+					pool.shutdown(10000);
+				}
+			}
+		}
+
+		this.lnProbabilities = ln;
+		this.batchNanos = System.nanoTime() - started;
+		this.batchSequences = count;
+		this.batchObservations = observations[0];
+		this.batchLatencyNanos = latency[0];
+		this.batchMaxLatencyNanos = latency[1];
+		this.totalSequences += count;
+		this.totalObservations += observations[0];
+		this.totalNanos += this.batchNanos;
+		return paths;
+	}
+
+	/**
+	 * Take a decoder that is not in use, or create one.
+	 * 
+	 * @return The decoder.
+	 */
+	private ViterbiDecoder acquire() {
+		final ViterbiDecoder result = this.decoders.poll();
+		if (result != null) {
+			return result;
+		}
+		return new ViterbiDecoder(this.prototype);
+	}
+
+	/**
+	 * @return The log probability of each path in the last batch.
+	 */
+	public double[] getLnProbabilities() {
+		return this.lnProbabilities;
+	}
+
+	/**
+	 * @return The number of sequences in the last batch.
+	 */
+	public int getBatchSequences() {
+		return this.batchSequences;
+	}
+
+	/**
+	 * @return The time taken by the last batch, in milliseconds.
+	 */
+	public double getBatchTime() {
+		return this.batchNanos / 1000000.0;
+	}
+
+	/**
+	 * @return The mean time taken to decode one sequence of the last batch,
+	 *         in milliseconds.
+	 */
+	public double getMeanLatency() {
+		if (this.batchSequences == 0) {
+			return 0;
+		}
+		return this.batchLatencyNanos / 1000000.0 / this.batchSequences;
+	}
+
+	/**
+	 * @return The longest time taken to decode one sequence of the last
+	 *         batch, in milliseconds.
+	 */
+	public double getMaxLatency() {
+		return this.batchMaxLatencyNanos / 1000000.0;
+	}
+
+	/**
+	 * @return The number of sequences decoded per second by the last batch.
+	 */
+	public double getSequencesPerSecond() {
+		return perSecond(this.batchSequences, this.batchNanos);
+	}
+
+	/**
+	 * @return The number of observations decoded per second by the last
+	 *         batch.
+	 */
+	public double getObservationsPerSecond() {
+		return perSecond(this.batchObservations, this.batchNanos);
+	}
+
+	/**
+	 * @return The number of sequences decoded since the decoder was created.
+	 */
+	public long getTotalSequences() {
+		return this.totalSequences;
+	}
+
+	/**
+	 * @return The number of observations decoded since the decoder was
+	 *         created.
+	 */
+	public long getTotalObservations() {
+		return this.totalObservations;
+	}
+
+	/**
+	 * @return The number of observations decoded per second, over all
+	 *         batches.
+	 */
+	public double getTotalObservationsPerSecond() {
+		return perSecond(this.totalObservations, this.totalNanos);
+	}
+
+	/**
+	 * Calculate a rate.
+	 * 
+	 * @param amount
+	 *            The amount.
+	 * @param nanos
+	 *            The time taken, in nanoseconds.
+	 * @return The amount per second.
+	 */
+	private static double perSecond(final long amount, final long nanos) {
+		if (nanos <= 0) {
+			return 0;
+		}
+		return amount * 1e9 / nanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm.alog;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.hmm.HiddenMarkovModel;
+import org.encog.ml.hmm.distributions.DiscreteDistribution;
+import org.encog.ml.hmm.distributions.StateDistribution;
+
+/**
+ * A reusable version of ViterbiCalculator, for decoding many sequences with
+ * the same model. The negative log of the initial and transition
+ * probabilities is calculated once, when the decoder is constructed. When
+ * every state has a DiscreteDistribution of the same shape, the negative log
+ * of the emission probabilities is also calculated once, so decoding a
+ * sequence needs no logarithms at all. The buffers are kept from one
+ * sequence to the next, and only grow for a longer sequence.
+ * 
+ * The decoder takes a snapshot of the model, so create a new one after the
+ * model is trained. It finds the same path as ViterbiCalculator. A decoder
+ * is not thread safe, see BatchViterbiDecoder to decode on several threads.
+ */
+public class ViterbiDecoder {
+
+	/**
+	 * The model.
+	 */
+	private final HiddenMarkovModel hmm;
+
+	/**
+	 * The number of states.
+	 */
+	private final int states;
+
+	/**
+	 * The negative log of the initial probability of each state.
+	 */
+	private final double[] piCost;
+
+	/**
+	 * The negative log of the transition probabilities, one row for each
+	 * destination state, so the source states are next to each other.
+	 */
+	private final double[] transitionCost;
+
+	/**
+	 * The negative log of the emission probabilities of each dimension, one
+	 * row of states for each value. Null if the states are not all discrete
+	 * distributions of the same shape.
+	 */
+	private final double[][] emissionCost;
+
+	/**
+	 * The cost of the best path to each state, at the previous observation.
+	 */
+	private final double[] delta;
+
+	/**
+	 * The cost of the best path to each state, at this observation.
+	 */
+	private final double[] next;
+
+	/**
+	 * The cost of emitting the observation from each state.
+	 */
+	private final double[] emission;
+
+	/**
+	 * The best previous state, for each observation and state.
+	 */
+	private int[] psi = new int[0];
+
+	/**
+	 * The log probability of the last path.
+	 */
+	private double lnProbability;
+
+	/**
+	 * Construct a decoder for the specified model.
+	 * 
+	 * @param theHMM
+	 *            The model.
+	 */
+	public ViterbiDecoder(final HiddenMarkovModel theHMM) {
+		this.hmm = theHMM;
+		this.states = theHMM.getStateCount();
+		this.piCost = new double[this.states];
+		this.transitionCost = new double[this.states * this.states];
+
+		for (int i = 0; i < this.states; i++) {
+			this.piCost[i] = -Math.log(theHMM.getPi(i));
+			for (int j = 0; j < this.states; j++) {
+				this.transitionCost[j * this.states + i] = -Math.log(theHMM
+						.getTransitionProbability(i, j));
+			}
+		}
+		this.emissionCost = createEmissionCost(theHMM);
+
+		this.delta = new double[this.states];
+		this.next = new double[this.states];
+		this.emission = new double[this.states];
+	}
+
+	/**
+	 * Construct a decoder that shares the tables of another, with its own
+	 * buffers.
+	 * 
+	 * @param other
+	 *            The other decoder.
+	 */
+	public ViterbiDecoder(final ViterbiDecoder other) {
+		this.hmm = other.hmm;
+		this.states = other.states;
+		this.piCost = other.piCost;
+		this.transitionCost = other.transitionCost;
+		this.emissionCost = other.emissionCost;
+		this.delta = new double[this.states];
+		this.next = new double[this.states];
+		this.emission = new double[this.states];
+	}
+
+	/**
+	 * Create the emission table, if every state is a discrete distribution
+	 * of the same shape.
+	 * 
+	 * @param theHMM
+	 *            The model.
+	 * @return The emission table, or null.
+	 */
+	private static double[][] createEmissionCost(final HiddenMarkovModel theHMM) {
+		final int n = theHMM.getStateCount();
+		double[][] shape = null;
+		for (int j = 0; j < n; j++) {
+			final StateDistribution dist = theHMM.getStateDistribution(j);
+			if (!(dist instanceof DiscreteDistribution)) {
+				return null;
+			}
+			final double[][] p = ((DiscreteDistribution) dist)
+					.getProbabilities();
+			if (shape == null) {
+				shape = p;
+			} else if (shape.length != p.length) {
+				return null;
+			} else {
+				for (int d = 0; d < p.length; d++) {
+					if (shape[d].length != p[d].length) {
+						return null;
+					}
+				}
+			}
+		}
+		if (shape == null) {
+			return null;
+		}
+
+		final double[][] result = new double[shape.length][];
+		for (int d = 0; d < shape.length; d++) {
+			result[d] = new double[shape[d].length * n];
+			for (int j = 0; j < n; j++) {
+				final double[][] p = ((DiscreteDistribution) theHMM
+						.getStateDistribution(j)).getProbabilities();
+				for (int v = 0; v < p[d].length; v++) {
+					result[d][v * n + j] = -Math.log(p[d][v]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decode a sequence.
+	 * 
+	 * @param sequence
+	 *            The observations.
+	 * @return The most likely state of each observation.
+	 */
+	public int[] decode(final MLDataSet sequence) {
+		final int[] result = new int[sequence.size()];
+		decode(sequence, result);
+		return result;
+	}
+
+	/**
+	 * Decode a sequence into an array, without allocating one.
+	 * 
+	 * @param sequence
+	 *            The observations.
+	 * @param path
+	 *            Receives the most likely state of each observation, must be
+	 *            at least as long as the sequence.
+	 * @return The log probability of the path.
+	 */
+	public double decode(final MLDataSet sequence, final int[] path) {
+		final int length = sequence.size();
+		if (length < 1) {
+			throw new IllegalArgumentException("Must not have empty sequence");
+		}
+		if (path.length < length) {
+			throw new IllegalArgumentException("Path array is too short");
+		}
+		final int n = this.states;
+		if (this.psi.length < length * n) {
+			this.psi = new int[length * n];
+		}
+
+		double[] current = this.delta;
+		double[] following = this.next;
+		int t = 0;
+		for (final MLDataPair observation : sequence) {
+			calculateEmission(observation);
+			if (t == 0) {
+				for (int i = 0; i < n; i++) {
+					current[i] = this.piCost[i] + this.emission[i];
+					this.psi[i] = 0;
+				}
+			} else {
+				final int base = t * n;
+				for (int j = 0; j < n; j++) {
+					final int row = j * n;
+					double minDelta = Double.MAX_VALUE;
+					int minPsi = 0;
+					for (int i = 0; i < n; i++) {
+						final double thisDelta = current[i]
+								+ this.transitionCost[row + i];
+						if (minDelta > thisDelta) {
+							minDelta = thisDelta;
+							minPsi = i;
+						}
+					}
+					following[j] = minDelta + this.emission[j];
+					this.psi[base + j] = minPsi;
+				}
+				final double[] swap = current;
+				current = following;
+				following = swap;
+			}
+			t++;
+		}
+
+		// when every final cost is infinite, end in the first state, as
+		// ViterbiCalculator does, rather than in the caller's last value
+		double best = Double.MAX_VALUE;
+		path[length - 1] = 0;
+		for (int i = 0; i < n; i++) {
+			if (best > current[i]) {
+				best = current[i];
+				path[length - 1] = i;
+			}
+		}
+		for (t = length - 2; t >= 0; t--) {
+			path[t] = this.psi[(t + 1) * n + path[t + 1]];
+		}
+
+		this.lnProbability = -best;
+		return this.lnProbability;
+	}
+
+	/**
+	 * Calculate the cost of emitting an observation from each state.
+	 * 
+	 * @param observation
+	 *            The observation.
+	 */
+	private void calculateEmission(final MLDataPair observation) {
+		final int n = this.states;
+		if (this.emissionCost == null) {
+			for (int j = 0; j < n; j++) {
+				this.emission[j] = -Math.log(this.hmm.getStateDistribution(j)
+						.probability(observation));
+			}
+			return;
+		}
+
+		final double[] input = observation.getInputArray();
+		for (int j = 0; j < n; j++) {
+			this.emission[j] = 0;
+		}
+		for (int d = 0; d < this.emissionCost.length; d++) {
+			final double[] table = this.emissionCost[d];
+			final int value = (int) input[d];
+			if (value < 0 || (value + 1) * n > table.length) {
+				throw new IllegalArgumentException("Wrong observation value");
+			}
+			final int base = value * n;
+			for (int j = 0; j < n; j++) {
+				this.emission[j] += table[base + j];
+			}
+		}
+	}
+
+	/**
+	 * @return The model.
+	 */
+	public HiddenMarkovModel getHMM() {
+		return this.hmm;
+	}
+
+	/**
+	 * @return True, if the emission probabilities come from a table.
+	 */
+	public boolean isTabulated() {
+		return this.emissionCost != null;
+	}
+
+	/**
+	 * @return The log probability of the last path.
+	 */
+	public double lnProbability() {
+		return this.lnProbability;
+	}
+}
@@ -23,11 +23,15 @@
  */
 package org.encog.ml.hmm.train.bw;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
+import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.MLSequenceSet;
 import org.encog.ml.hmm.HiddenMarkovModel;
@@ -36,6 +40,9 @@
 import org.encog.ml.train.MLTrain;
 import org.encog.ml.train.strategy.Strategy;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
 
 /**
  * This class provides the base implementation for Baum-Welch learning for
@@ -53,12 +60,92 @@
  * Hidden Markov Models and the Baum-Welch Algorithm, IEEE Information Theory
  * Society Newsletter, Dec. 2003.
  * 
+ * Each iteration estimates the sequences in parallel, in blocks of
+ * SEQUENCE_BLOCK sequences. The forward and backward variables are kept in
+ * buffers that are reused from one sequence to the next, and xi is added to
+ * the transition counts as it is calculated, rather than stored. The counts
+ * of each block are added together in block order, so the result does not
+ * depend on the number of threads.
+ * 
+ * The generateForwardBackwardCalculator, estimateXi and estimateGamma methods
+ * are kept as helpers for estimating a single sequence. Training does not
+ * call them, so overriding them does not change training. The only choice a
+ * subclass makes for training is isScaled.
  */
-public abstract class BaseBaumWelch implements MLTrain {
+public abstract class BaseBaumWelch implements MLTrain, MultiThreadable {
+
+	/**
+	 * The number of sequences estimated together, with their own counts.
+	 */
+	public static final int SEQUENCE_BLOCK = 32;
+
+	/**
+	 * The buffers used to estimate one sequence at a time.
+	 */
+	private static class Workspace {
+		/**
+		 * The probability of each observation in each state.
+		 */
+		private final double[][] emission;
+
+		/**
+		 * The forward variables.
+		 */
+		private final double[][] alpha;
+
+		/**
+		 * The backward variables.
+		 */
+		private final double[][] beta;
+
+		/**
+		 * The scaling factor of each observation.
+		 */
+		private final double[] scale;
+
+		/**
+		 * The gamma of the last observation.
+		 */
+		private final double[] last;
+
+		/**
+		 * Construct the buffers.
+		 * @param length The longest sequence.
+		 * @param states The number of states.
+		 */
+		public Workspace(final int length, final int states) {
+			this.emission = new double[length][states];
+			this.alpha = new double[length][states];
+			this.beta = new double[length][states];
+			this.scale = new double[length];
+			this.last = new double[states];
+		}
+
+		/**
+		 * @param length The longest sequence.
+		 * @param states The number of states.
+		 * @return True, if these buffers are big enough.
+		 */
+		public boolean fits(final int length, final int states) {
+			return this.alpha.length >= length
+					&& this.last.length == states;
+		}
+	}
+
 	private int iterations;
 	private HiddenMarkovModel method;
 	private final MLSequenceSet training;
 
+	/**
+	 * The number of threads, 0 for the default.
+	 */
+	private int threadCount;
+
+	/**
+	 * Buffers that are not in use, kept for the next iteration.
+	 */
+	private final Queue<Workspace> workspaces = new ConcurrentLinkedQueue<Workspace>();
+
 	public BaseBaumWelch(final HiddenMarkovModel hmm,
 			final MLSequenceSet training) {
 		this.method = hmm;
@@ -75,6 +162,16 @@ public boolean canContinue() {
 		return false;
 	}
 
+	/**
+	 * Estimate gamma for a single sequence. This is a helper, and is not
+	 * called by iteration, so overriding it does not change training.
+	 * 
+	 * @param xi
+	 *            The xi of the sequence.
+	 * @param fbc
+	 *            The forward backward calculator of the sequence.
+	 * @return The probability of each state, at each step.
+	 */
 	protected double[][] estimateGamma(final double[][][] xi,
 			final ForwardBackwardCalculator fbc) {
 		final double[][] gamma = new double[xi.length + 1][xi[0].length];
@@ -100,14 +197,37 @@ protected double[][] estimateGamma(final double[][][] xi,
 		return gamma;
 	}
 
+	/**
+	 * Estimate xi for a single sequence. This is a helper, and is not called
+	 * by iteration, so overriding it does not change training.
+	 * 
+	 * @param sequence
+	 *            The sequence.
+	 * @param fbc
+	 *            The forward backward calculator of the sequence.
+	 * @param hmm
+	 *            The model.
+	 * @return The probability of each transition, at each step.
+	 */
 	public abstract double[][][] estimateXi(MLDataSet sequence,
 			ForwardBackwardCalculator fbc, HiddenMarkovModel hmm);
 
 	@Override
 	public void finishTraining() {
-
+		this.workspaces.clear();
 	}
 
+	/**
+	 * Create the forward backward calculator for a single sequence. This is a
+	 * helper, and is not called by iteration, so overriding it does not change
+	 * training.
+	 * 
+	 * @param sequence
+	 *            The sequence.
+	 * @param hmm
+	 *            The model.
+	 * @return The forward backward calculator.
+	 */
 	public abstract ForwardBackwardCalculator generateForwardBackwardCalculator(
 			MLDataSet sequence, HiddenMarkovModel hmm);
 
@@ -146,6 +266,17 @@ public boolean isTrainingDone() {
 		return false;
 	}
 
+	/**
+	 * Determine how the sequences are estimated during training. This is the
+	 * only method that subclasses override to change training.
+	 * 
+	 * @return True, if the forward and backward variables are scaled to avoid
+	 *         underflows.
+	 */
+	protected boolean isScaled() {
+		return true;
+	}
+
 	@Override
 	public void iteration() {
 		HiddenMarkovModel nhmm;
@@ -155,89 +286,302 @@ public void iteration() {
 			throw new InternalError();
 		}
 
-		final double allGamma[][][] = new double[this.training
-				.getSequenceCount()][][];
-		final double aijNum[][] = new double[this.method.getStateCount()][this.method
-				.getStateCount()];
-		final double aijDen[] = new double[this.method.getStateCount()];
-
-		Arrays.fill(aijDen, 0.0);
-		for (int i = 0; i < this.method.getStateCount(); i++) {
-			Arrays.fill(aijNum[i], 0.);
+		final int states = this.method.getStateCount();
+		final List<MLDataSet> sequences = new ArrayList<MLDataSet>(
+				this.training.getSequences());
+		final int sequenceCount = sequences.size();
+		final int[] offsets = new int[sequenceCount + 1];
+		int longest = 0;
+		for (int o = 0; o < sequenceCount; o++) {
+			final int length = sequences.get(o).size();
+			offsets[o + 1] = offsets[o] + length;
+			longest = Math.max(longest, length);
 		}
 
-		int g = 0;
-		for (final MLDataSet obsSeq : this.training.getSequences()) {
-			final ForwardBackwardCalculator fbc = generateForwardBackwardCalculator(
-					obsSeq, this.method);
-
-			final double xi[][][] = estimateXi(obsSeq, fbc, this.method);
-			final double gamma[][] = allGamma[g++] = estimateGamma(xi, fbc);
-
-			for (int i = 0; i < this.method.getStateCount(); i++) {
-				for (int t = 0; t < (obsSeq.size() - 1); t++) {
-					aijDen[i] += gamma[t][i];
+		final double[] transition = new double[states * states];
+		final double[] pi = new double[states];
+		final StateDistribution[] distributions = new StateDistribution[states];
+		for (int i = 0; i < states; i++) {
+			for (int j = 0; j < states; j++) {
+				transition[i * states + j] = this.method
+						.getTransitionProbability(i, j);
+			}
+			pi[i] = this.method.getPi(i);
+			distributions[i] = this.method.getStateDistribution(i);
+		}
 
-					for (int j = 0; j < this.method.getStateCount(); j++) {
-						aijNum[i][j] += xi[t][i][j];
+		// the gamma of every observation, for each state
+		final double[][] gamma = new double[states][offsets[sequenceCount]];
+		final int blockCount = (sequenceCount + SEQUENCE_BLOCK - 1)
+				/ SEQUENCE_BLOCK;
+		final double[][] blockNum = new double[blockCount][states * states];
+		final double[][] blockDen = new double[blockCount][states];
+		final boolean scaled = isScaled();
+		final int maxLength = longest;
+
+		process(blockCount, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				final Workspace work = acquire(maxLength, states);
+				try {
+					for (int b = low; b <= high; b++) {
+						final int last = Math.min(sequenceCount, (b + 1)
+								* SEQUENCE_BLOCK);
+						for (int o = b * SEQUENCE_BLOCK; o < last; o++) {
+							estimate(work, sequences.get(o), offsets[o],
+									transition, pi, distributions, scaled,
+									gamma, blockNum[b], blockDen[b]);
+						}
 					}
+				} finally {
+					BaseBaumWelch.this.workspaces.offer(work);
 				}
 			}
+		});
+
+		final double aijNum[] = new double[states * states];
+		final double aijDen[] = new double[states];
+		for (int b = 0; b < blockCount; b++) {
+			for (int i = 0; i < states * states; i++) {
+				aijNum[i] += blockNum[b][i];
+			}
+			for (int i = 0; i < states; i++) {
+				aijDen[i] += blockDen[b][i];
+			}
 		}
 
-		for (int i = 0; i < this.method.getStateCount(); i++) {
+		for (int i = 0; i < states; i++) {
 			if (aijDen[i] == 0.0) {
-				for (int j = 0; j < this.method.getStateCount(); j++) {
+				for (int j = 0; j < states; j++) {
 					nhmm.setTransitionProbability(i, j,
 							this.method.getTransitionProbability(i, j));
 				}
 			} else {
-				for (int j = 0; j < this.method.getStateCount(); j++) {
-					nhmm.setTransitionProbability(i, j, aijNum[i][j]
+				for (int j = 0; j < states; j++) {
+					nhmm.setTransitionProbability(i, j, aijNum[i * states + j]
 							/ aijDen[i]);
 				}
 			}
 		}
 
 		/* compute pi */
-		for (int i = 0; i < this.method.getStateCount(); i++) {
+		for (int i = 0; i < states; i++) {
 			nhmm.setPi(i, 0.);
 		}
 
-		for (int o = 0; o < this.training.getSequenceCount(); o++) {
-			for (int i = 0; i < this.method.getStateCount(); i++) {
-				nhmm.setPi(
-						i,
-						nhmm.getPi(i)
-								+ (allGamma[o][0][i] / this.training
-										.getSequenceCount()));
+		for (int o = 0; o < sequenceCount; o++) {
+			for (int i = 0; i < states; i++) {
+				nhmm.setPi(i, nhmm.getPi(i)
+						+ (gamma[i][offsets[o]] / sequenceCount));
+			}
+		}
+
+		/* compute pdfs, each state's distribution is fit on its own */
+		final HiddenMarkovModel result = nhmm;
+		process(states, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i <= high; i++) {
+					final double[] weights = gamma[i];
+					double sum = 0.;
+					for (final double weight : weights) {
+						sum += weight;
+					}
+					for (int j = 0; j < weights.length; j++) {
+						weights[j] /= sum;
+					}
+
+					final StateDistribution opdf = result
+							.getStateDistribution(i);
+					opdf.fit(BaseBaumWelch.this.training, weights);
+				}
 			}
+		});
+
+		this.method = nhmm;
+	}
+
+	/**
+	 * Estimate one sequence. The gamma of each observation is stored, and xi
+	 * and gamma are added to the transition counts.
+	 * 
+	 * @param work
+	 *            The buffers to use.
+	 * @param sequence
+	 *            The sequence.
+	 * @param offset
+	 *            The index of the sequence's first observation in the
+	 *            training set.
+	 * @param transition
+	 *            The transition probabilities, one row after another.
+	 * @param pi
+	 *            The initial state probabilities.
+	 * @param distributions
+	 *            The state distributions.
+	 * @param scaled
+	 *            True, if the forward and backward variables are scaled.
+	 * @param gamma
+	 *            The gamma of every observation, for each state.
+	 * @param aijNum
+	 *            The expected transitions from each state to each state.
+	 * @param aijDen
+	 *            The expected transitions from each state.
+	 */
+	private static void estimate(final Workspace work,
+			final MLDataSet sequence, final int offset,
+			final double[] transition, final double[] pi,
+			final StateDistribution[] distributions, final boolean scaled,
+			final double[][] gamma, final double[] aijNum,
+			final double[] aijDen) {
+		final int length = sequence.size();
+		if (length <= 1) {
+			throw new IllegalArgumentException(
+					"Must have more than one observation");
 		}
 
-		/* compute pdfs */
-		for (int i = 0; i < this.method.getStateCount(); i++) {
+		final int states = pi.length;
+		final double[][] emission = work.emission;
+		final double[][] alpha = work.alpha;
+		final double[][] beta = work.beta;
+		final double[] scale = work.scale;
+
+		int t = 0;
+		for (final MLDataPair observation : sequence) {
+			for (int j = 0; j < states; j++) {
+				emission[t][j] = distributions[j].probability(observation);
+			}
+			t++;
+		}
 
-			final double[] weights = new double[this.training.size()];
-			double sum = 0.;
-			int j = 0;
+		for (int i = 0; i < states; i++) {
+			alpha[0][i] = pi[i] * emission[0][i];
+		}
+		if (scaled) {
+			scale(scale, alpha, 0);
+		}
+		for (t = 1; t < length; t++) {
+			for (int j = 0; j < states; j++) {
+				double sum = 0.;
+				for (int i = 0; i < states; i++) {
+					sum += alpha[t - 1][i] * transition[i * states + j];
+				}
+				alpha[t][j] = sum * emission[t][j];
+			}
+			if (scaled) {
+				scale(scale, alpha, t);
+			}
+		}
 
-			int o = 0;
-			for (final MLDataSet obsSeq : this.training.getSequences()) {
-				for (int t = 0; t < obsSeq.size(); t++, j++) {
-					sum += weights[j] = allGamma[o][t][i];
+		final int end = length - 1;
+		for (int i = 0; i < states; i++) {
+			beta[end][i] = scaled ? 1. / scale[end] : 1.;
+		}
+		for (t = end - 1; t >= 0; t--) {
+			for (int i = 0; i < states; i++) {
+				double sum = 0.;
+				for (int j = 0; j < states; j++) {
+					sum += beta[t + 1][j] * transition[i * states + j]
+							* emission[t + 1][j];
 				}
-				o++;
+				beta[t][i] = scaled ? sum / scale[t] : sum;
 			}
+		}
+
+		double probability = 0.;
+		for (int i = 0; i < states; i++) {
+			probability += alpha[end][i];
+		}
 
-			for (j--; j >= 0; j--) {
-				weights[j] /= sum;
+		final double[] last = work.last;
+		Arrays.fill(last, 0.);
+		for (t = 0; t < end; t++) {
+			for (int i = 0; i < states; i++) {
+				double row = 0.;
+				for (int j = 0; j < states; j++) {
+					double xi = alpha[t][i] * transition[i * states + j]
+							* emission[t + 1][j] * beta[t + 1][j];
+					if (!scaled) {
+						xi /= probability;
+					}
+					aijNum[i * states + j] += xi;
+					row += xi;
+					if (t == end - 1) {
+						last[j] += xi;
+					}
+				}
+				gamma[i][offset + t] = row;
+				aijDen[i] += row;
 			}
+		}
+		for (int j = 0; j < states; j++) {
+			gamma[j][offset + end] = last[j];
+		}
+	}
 
-			final StateDistribution opdf = nhmm.getStateDistribution(i);
-			opdf.fit(this.training, weights);
+	/**
+	 * Scale one row of the forward variables to sum to one.
+	 * 
+	 * @param scale
+	 *            The scaling factors.
+	 * @param alpha
+	 *            The forward variables.
+	 * @param t
+	 *            The row.
+	 */
+	private static void scale(final double[] scale, final double[][] alpha,
+			final int t) {
+		final double[] table = alpha[t];
+		double sum = 0.;
+		for (final double element : table) {
+			sum += element;
+		}
+		scale[t] = sum;
+		for (int i = 0; i < table.length; i++) {
+			table[i] /= sum;
 		}
+	}
 
-		this.method = nhmm;
+	/**
+	 * Take a set of buffers that is not in use, or create one.
+	 * 
+	 * @param length
+	 *            The longest sequence.
+	 * @param states
+	 *            The number of states.
+	 * @return The buffers.
+	 */
+	private Workspace acquire(final int length, final int states) {
+		Workspace result;
+		while ((result = this.workspaces.poll()) != null) {
+			if (result.fits(length, states)) {
+				return result;
+			}
+		}
+		return new Workspace(length, states);
+	}
+
+	/**
+	 * Process a range of work on the thread count's pool.
+	 * 
+	 * @param size
+	 *            The amount of work.
+	 * @param task
+	 *            The task.
+	 */
+	private void process(final int size, final RangeTask task) {
+		if (this.threadCount == 1) {
+			task.run(0, size - 1);
+		} else if (this.threadCount == 0) {
+			EngineConcurrency.getInstance().processRange(0, size - 1, task);
+		} else {
+			final EngineConcurrency pool = new EngineConcurrency(
+					this.threadCount);
+			try {
+				pool.processRange(0, size - 1, task);
+			} finally {
+				pool.shutdown(10000);
+			}
+		}
 	}
 
 	@Override
@@ -266,4 +610,20 @@ public void setError(final double error) {
 	public void setIteration(final int iteration) {
 		this.iterations = iteration;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
 }
@@ -55,6 +55,14 @@ public TrainBaumWelch(final HiddenMarkovModel hmm,
 		super(hmm, training);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isScaled() {
+		return false;
+	}
+
 	@Override
 	protected double[][] estimateGamma(final double[][][] xi,
 			final ForwardBackwardCalculator fbc) {
@@ -33,7 +33,7 @@
 import org.encog.ml.data.MLSequenceSet;
 import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.hmm.HiddenMarkovModel;
-import org.encog.ml.hmm.alog.ViterbiCalculator;
+import org.encog.ml.hmm.alog.ViterbiDecoder;
 import org.encog.ml.hmm.distributions.StateDistribution;
 import org.encog.ml.train.MLTrain;
 import org.encog.ml.train.strategy.Strategy;
@@ -222,10 +222,10 @@ private void learnTransition(final HiddenMarkovModel hmm) {
 
 	private boolean optimizeCluster(final HiddenMarkovModel hmm) {
 		boolean modif = false;
+		final ViterbiDecoder decoder = new ViterbiDecoder(hmm);
 
 		for (final MLDataSet obsSeq : this.sequnces.getSequences()) {
-			final ViterbiCalculator vc = new ViterbiCalculator(obsSeq, hmm);
-			final int states[] = vc.stateSequence();
+			final int states[] = decoder.decode(obsSeq);
 
 			for (int i = 0; i < states.length; i++) {
 				final MLDataPair o = obsSeq.get(i);
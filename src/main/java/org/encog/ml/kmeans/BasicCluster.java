@@ -52,6 +52,14 @@ public class BasicCluster implements MLCluster {
 	 */
 	private final List<MLData> data = new ArrayList<MLData>();
 
+	/**
+	 * Construct an empty cluster with the specified centroid.
+	 * @param theCentroid The centroid.
+	 */
+	public BasicCluster(final BasicMLDataPairCentroid theCentroid) {
+		this.centroid = theCentroid;
+	}
+
 	/**
 	 * Construct a cluster from another.
 	 * @param cluster The other cluster.
@@ -0,0 +1,935 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.kmeans;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.encog.EncogError;
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
+import org.encog.mathutil.randomize.factory.RandomFactory;
+import org.encog.ml.MLCluster;
+import org.encog.ml.MLClustering;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPairCentroid;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
+
+/**
+ * K-Means clustering on the input values of a data set, held as flat double
+ * arrays. This does the same job as KMeansClustering, but is meant for large
+ * data sets.
+ * 
+ * The points are assigned to centroids in parallel. By default, Hamerly's
+ * bounds are used to skip most of the distance calculations once the
+ * centroids settle down, see KMeansAlgorithm. Lloyd, Hamerly and Elkan all
+ * give the same clusters. The centroids are always recalculated in point
+ * order, so the result does not depend on the number of threads.
+ * 
+ * The first iteration chooses the starting centroids, by default with
+ * k-means++, and assigns the points to them. Each iteration after that moves
+ * the centroids and assigns the points again.
+ * 
+ * The MiniBatch algorithm does not load the data set into memory. Each
+ * iteration reads a random batch of records from the data set.
+ * 
+ * http://en.wikipedia.org/wiki/K-means%2B%2B
+ */
+public class DenseKMeansClustering implements MLClustering, MultiThreadable {
+
+	/**
+	 * The default number of records in each mini batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	/**
+	 * The fewest points that are assigned by a thread.
+	 */
+	public static final int MIN_CHUNK = 256;
+
+	/**
+	 * The data set to cluster.
+	 */
+	private final MLDataSet dataSet;
+
+	/**
+	 * The number of clusters.
+	 */
+	private final int k;
+
+	/**
+	 * The number of input values in each record.
+	 */
+	private final int dimensions;
+
+	/**
+	 * The number of records in the data set.
+	 */
+	private final long recordCount;
+
+	/**
+	 * The algorithm used to assign points.
+	 */
+	private KMeansAlgorithm algorithm = KMeansAlgorithm.Hamerly;
+
+	/**
+	 * How the starting centroids are chosen.
+	 */
+	private KMeansSeeding seeding = KMeansSeeding.PlusPlus;
+
+	/**
+	 * The number of records in each mini batch.
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The random number factory.
+	 */
+	private RandomFactory randomFactory = new BasicRandomFactory();
+
+	/**
+	 * The number of threads, 0 for the default.
+	 */
+	private int threadCount;
+
+	/**
+	 * The random number generator, created on the first iteration.
+	 */
+	private Random rnd;
+
+	/**
+	 * The pool used for this iteration, or null for the default pool.
+	 */
+	private EngineConcurrency pool;
+
+	/**
+	 * The input values of the points, one row after another. Not used by
+	 * MiniBatch.
+	 */
+	private double[] points;
+
+	/**
+	 * The number of points held in memory.
+	 */
+	private int count;
+
+	/**
+	 * The centroids, one row after another.
+	 */
+	private double[] centroids;
+
+	/**
+	 * The centroid each point is assigned to.
+	 */
+	private int[] assignment;
+
+	/**
+	 * An upper bound on the distance from each point to its centroid.
+	 */
+	private double[] upper;
+
+	/**
+	 * The lower bounds on the distance from each point to the other
+	 * centroids. Hamerly keeps one for each point, Elkan one for each point
+	 * and centroid.
+	 */
+	private double[] lower;
+
+	/**
+	 * How far each centroid moved on the last update.
+	 */
+	private double[] drift;
+
+	/**
+	 * The distances between the centroids, used by Elkan.
+	 */
+	private double[] centerDistance;
+
+	/**
+	 * Half the distance from each centroid to the nearest other centroid.
+	 */
+	private double[] separation;
+
+	/**
+	 * The number of points each centroid has been moved toward, used by
+	 * MiniBatch.
+	 */
+	private long[] seen;
+
+	/**
+	 * The number of points that changed cluster on the last iteration.
+	 */
+	private int changed;
+
+	/**
+	 * The clusters, built when they are first requested.
+	 */
+	private MLCluster[] clusters;
+
+	/**
+	 * Construct the K-Means object.
+	 * 
+	 * @param theK
+	 *            The number of clusters to use.
+	 * @param theSet
+	 *            The data set to cluster.
+	 */
+	public DenseKMeansClustering(final int theK, final MLDataSet theSet) {
+		if (theK < 1) {
+			throw new EncogError("Must have at least one cluster.");
+		}
+		if (theSet.getRecordCount() < theK) {
+			throw new EncogError("Can't create " + theK
+					+ " clusters from only " + theSet.getRecordCount()
+					+ " records.");
+		}
+		this.k = theK;
+		this.dataSet = theSet;
+		this.dimensions = theSet.getInputSize();
+		this.recordCount = theSet.getRecordCount();
+	}
+
+	/**
+	 * Perform a single iteration.
+	 */
+	@Override
+	public final void iteration() {
+		if (this.threadCount > 1) {
+			this.pool = new EngineConcurrency(this.threadCount);
+		}
+		try {
+			if (this.centroids == null) {
+				initialize();
+			} else if (this.algorithm == KMeansAlgorithm.MiniBatch) {
+				miniBatch();
+			} else {
+				updateCentroids();
+				assign(false);
+			}
+			this.clusters = null;
+		} finally {
+			if (this.pool != null) {
+				this.pool.shutdown(10000);
+				this.pool = null;
+			}
+		}
+	}
+
+	/**
+	 * Perform the specified number of iterations.
+	 * 
+	 * @param iterations
+	 *            The number of iterations.
+	 */
+	@Override
+	public final void iteration(final int iterations) {
+		for (int i = 0; i < iterations; i++) {
+			iteration();
+		}
+	}
+
+	/**
+	 * Load the points, choose the starting centroids and make the first
+	 * assignment.
+	 */
+	private void initialize() {
+		this.rnd = this.randomFactory.factor();
+		this.centroids = new double[this.k * this.dimensions];
+		this.drift = new double[this.k];
+		this.separation = new double[this.k];
+
+		if (this.algorithm == KMeansAlgorithm.MiniBatch) {
+			this.seen = new long[this.k];
+			final int size = (int) Math.min(this.recordCount,
+					Math.max(this.batchSize, this.k));
+			final double[] sample = readSample(size);
+			seed(sample, size);
+			moveToward(sample, size);
+			return;
+		}
+
+		if (this.recordCount > Integer.MAX_VALUE / Math.max(1, this.dimensions)) {
+			throw new EncogError("Data set is too large to hold in memory, "
+					+ "use the MiniBatch algorithm.");
+		}
+		this.count = (int) this.recordCount;
+		this.points = new double[this.count * this.dimensions];
+		int offset = 0;
+		for (final MLDataPair pair : this.dataSet) {
+			final double[] input = pair.getInputArray();
+			System.arraycopy(input, 0, this.points, offset, this.dimensions);
+			offset += this.dimensions;
+		}
+
+		this.assignment = new int[this.count];
+		if (this.algorithm == KMeansAlgorithm.Hamerly) {
+			this.upper = new double[this.count];
+			this.lower = new double[this.count];
+		} else if (this.algorithm == KMeansAlgorithm.Elkan) {
+			this.upper = new double[this.count];
+			this.lower = new double[this.count * this.k];
+			this.centerDistance = new double[this.k * this.k];
+		}
+
+		seed(this.points, this.count);
+		assign(true);
+	}
+
+	/**
+	 * Read a random sample of records, with replacement.
+	 * 
+	 * @param size
+	 *            The number of records to read.
+	 * @return The input values of the records, one row after another.
+	 */
+	private double[] readSample(final int size) {
+		final double[] result = new double[size * this.dimensions];
+		final MLDataPair pair = BasicMLDataPair.createPair(
+				this.dataSet.getInputSize(), this.dataSet.getIdealSize());
+		for (int i = 0; i < size; i++) {
+			final long index = (long) (this.rnd.nextDouble() * this.recordCount);
+			this.dataSet.getRecord(Math.min(index, this.recordCount - 1),
+					pair);
+			System.arraycopy(pair.getInputArray(), 0, result, i
+					* this.dimensions, this.dimensions);
+		}
+		return result;
+	}
+
+	/**
+	 * Choose the starting centroids.
+	 * 
+	 * @param source
+	 *            The points to choose from.
+	 * @param size
+	 *            The number of points.
+	 */
+	private void seed(final double[] source, final int size) {
+		if (this.seeding == KMeansSeeding.Random) {
+			final int[] order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			for (int c = 0; c < this.k; c++) {
+				final int j = c + this.rnd.nextInt(size - c);
+				final int t = order[c];
+				order[c] = order[j];
+				order[j] = t;
+				System.arraycopy(source, order[c] * this.dimensions,
+						this.centroids, c * this.dimensions, this.dimensions);
+			}
+			return;
+		}
+
+		final double[] minDist = new double[size];
+		Arrays.fill(minDist, Double.POSITIVE_INFINITY);
+		int chosen = this.rnd.nextInt(size);
+
+		for (int c = 0; c < this.k; c++) {
+			if (c > 0) {
+				double total = 0;
+				for (int i = 0; i < size; i++) {
+					total += minDist[i];
+				}
+				if (total > 0) {
+					double r = this.rnd.nextDouble() * total;
+					chosen = size - 1;
+					for (int i = 0; i < size; i++) {
+						r -= minDist[i];
+						if (r < 0 && minDist[i] > 0) {
+							chosen = i;
+							break;
+						}
+					}
+				} else {
+					chosen = this.rnd.nextInt(size);
+				}
+			}
+
+			final int centroid = c;
+			System.arraycopy(source, chosen * this.dimensions,
+					this.centroids, centroid * this.dimensions,
+					this.dimensions);
+			if (c < this.k - 1) {
+				process(size, new RangeTask() {
+					@Override
+					public void run(final int low, final int high) {
+						for (int i = low; i <= high; i++) {
+							final double d = distanceSquared(source, i,
+									centroid);
+							if (d < minDist[i]) {
+								minDist[i] = d;
+							}
+						}
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Move each centroid to the mean of its points. A centroid with no
+	 * points stays where it is.
+	 */
+	private void updateCentroids() {
+		final int d = this.dimensions;
+		final double[] sums = new double[this.k * d];
+		final int[] counts = new int[this.k];
+		for (int i = 0; i < this.count; i++) {
+			final int c = this.assignment[i];
+			final int from = i * d;
+			final int to = c * d;
+			for (int j = 0; j < d; j++) {
+				sums[to + j] += this.points[from + j];
+			}
+			counts[c]++;
+		}
+
+		for (int c = 0; c < this.k; c++) {
+			final int to = c * d;
+			if (counts[c] == 0) {
+				this.drift[c] = 0;
+				continue;
+			}
+			double moved = 0;
+			for (int j = 0; j < d; j++) {
+				final double v = sums[to + j] / counts[c];
+				final double delta = v - this.centroids[to + j];
+				moved += delta * delta;
+				this.centroids[to + j] = v;
+			}
+			this.drift[c] = Math.sqrt(moved);
+		}
+	}
+
+	/**
+	 * Calculate the distances between the centroids, and how far each
+	 * centroid is from its nearest neighbour.
+	 */
+	private void updateSeparation() {
+		for (int a = 0; a < this.k; a++) {
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int b = 0; b < this.k; b++) {
+				if (a == b) {
+					continue;
+				}
+				final double dist = Math.sqrt(distanceSquared(this.centroids,
+						a, b));
+				if (this.centerDistance != null) {
+					this.centerDistance[a * this.k + b] = dist;
+				}
+				nearest = Math.min(nearest, dist);
+			}
+			this.separation[a] = nearest / 2;
+		}
+	}
+
+	/**
+	 * Assign every point to its nearest centroid.
+	 * 
+	 * @param first
+	 *            True, if there is no assignment yet.
+	 */
+	private void assign(final boolean first) {
+		if (this.algorithm != KMeansAlgorithm.Lloyd) {
+			updateSeparation();
+		}
+
+		// the largest and second largest drift, for the Hamerly lower bound
+		int maxIndex = 0;
+		double maxDrift = 0;
+		double secondDrift = 0;
+		for (int c = 0; c < this.k; c++) {
+			if (this.drift[c] > maxDrift) {
+				secondDrift = maxDrift;
+				maxDrift = this.drift[c];
+				maxIndex = c;
+			} else if (this.drift[c] > secondDrift) {
+				secondDrift = this.drift[c];
+			}
+		}
+		final int largest = maxIndex;
+		final double largestDrift = maxDrift;
+		final double nextDrift = secondDrift;
+		final int[] moved = new int[1];
+
+		process(this.count, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				int local = 0;
+				for (int i = low; i <= high; i++) {
+					final int before = DenseKMeansClustering.this.assignment[i];
+					if (first
+							|| DenseKMeansClustering.this.algorithm == KMeansAlgorithm.Lloyd) {
+						assignFull(i);
+					} else if (DenseKMeansClustering.this.algorithm == KMeansAlgorithm.Hamerly) {
+						assignHamerly(i, before == largest ? nextDrift
+								: largestDrift);
+					} else {
+						assignElkan(i);
+					}
+					if (!first
+							&& DenseKMeansClustering.this.assignment[i] != before) {
+						local++;
+					}
+				}
+				synchronized (moved) {
+					moved[0] += local;
+				}
+			}
+		});
+		this.changed = first ? this.count : moved[0];
+	}
+
+	/**
+	 * Assign a point by calculating its distance to every centroid, and
+	 * reset its bounds.
+	 * 
+	 * @param i
+	 *            The point.
+	 */
+	private void assignFull(final int i) {
+		int best = 0;
+		double bestDist = Double.POSITIVE_INFINITY;
+		double secondDist = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < this.k; c++) {
+			final double dist = distanceSquared(this.points, i, c);
+			if (this.algorithm == KMeansAlgorithm.Elkan) {
+				this.lower[i * this.k + c] = Math.sqrt(dist);
+			}
+			if (dist < bestDist) {
+				secondDist = bestDist;
+				bestDist = dist;
+				best = c;
+			} else if (dist < secondDist) {
+				secondDist = dist;
+			}
+		}
+		this.assignment[i] = best;
+		if (this.upper != null) {
+			this.upper[i] = Math.sqrt(bestDist);
+		}
+		if (this.algorithm == KMeansAlgorithm.Hamerly) {
+			this.lower[i] = Math.sqrt(secondDist);
+		}
+	}
+
+	/**
+	 * Assign a point with Hamerly's bounds.
+	 * 
+	 * @param i
+	 *            The point.
+	 * @param otherDrift
+	 *            The largest drift of the centroids other than the point's.
+	 */
+	private void assignHamerly(final int i, final double otherDrift) {
+		final int a = this.assignment[i];
+		this.upper[i] += this.drift[a];
+		this.lower[i] -= otherDrift;
+
+		final double bound = Math.max(this.separation[a], this.lower[i]);
+		if (this.upper[i] <= bound) {
+			return;
+		}
+		this.upper[i] = Math.sqrt(distanceSquared(this.points, i, a));
+		if (this.upper[i] <= bound) {
+			return;
+		}
+		assignFull(i);
+	}
+
+	/**
+	 * Assign a point with Elkan's bounds.
+	 * 
+	 * @param i
+	 *            The point.
+	 */
+	private void assignElkan(final int i) {
+		final int base = i * this.k;
+		int a = this.assignment[i];
+		for (int c = 0; c < this.k; c++) {
+			this.lower[base + c] = Math.max(0, this.lower[base + c]
+					- this.drift[c]);
+		}
+		double u = this.upper[i] + this.drift[a];
+		if (u <= this.separation[a]) {
+			this.upper[i] = u;
+			return;
+		}
+
+		boolean stale = true;
+		for (int c = 0; c < this.k; c++) {
+			if (c == a || u <= this.lower[base + c]
+					|| u <= this.centerDistance[a * this.k + c] / 2) {
+				continue;
+			}
+			if (stale) {
+				u = Math.sqrt(distanceSquared(this.points, i, a));
+				this.lower[base + a] = u;
+				stale = false;
+				if (u <= this.lower[base + c]
+						|| u <= this.centerDistance[a * this.k + c] / 2) {
+					continue;
+				}
+			}
+			final double dist = Math.sqrt(distanceSquared(this.points, i, c));
+			this.lower[base + c] = dist;
+			if (dist < u || (dist == u && c < a)) {
+				a = c;
+				u = dist;
+			}
+		}
+		this.assignment[i] = a;
+		this.upper[i] = u;
+	}
+
+	/**
+	 * Read a random batch of records and move the centroids toward them.
+	 */
+	private void miniBatch() {
+		final int size = this.batchSize;
+		moveToward(readSample(size), size);
+	}
+
+	/**
+	 * Assign a batch of points to their nearest centroids, then move each
+	 * centroid toward its points with a learning rate of one over the
+	 * number of points it has seen.
+	 * 
+	 * @param batch
+	 *            The points.
+	 * @param size
+	 *            The number of points.
+	 */
+	private void moveToward(final double[] batch, final int size) {
+		final int[] nearest = new int[size];
+		process(size, new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i <= high; i++) {
+					nearest[i] = nearest(batch, i);
+				}
+			}
+		});
+
+		final int d = this.dimensions;
+		for (int i = 0; i < size; i++) {
+			final int c = nearest[i];
+			this.seen[c]++;
+			final double eta = 1.0 / this.seen[c];
+			final int from = i * d;
+			final int to = c * d;
+			for (int j = 0; j < d; j++) {
+				this.centroids[to + j] += eta
+						* (batch[from + j] - this.centroids[to + j]);
+			}
+		}
+		this.changed = size;
+	}
+
+	/**
+	 * Find the nearest centroid to a point, lowest index on a tie.
+	 * 
+	 * @param source
+	 *            The points.
+	 * @param i
+	 *            The point.
+	 * @return The index of the nearest centroid.
+	 */
+	private int nearest(final double[] source, final int i) {
+		int best = 0;
+		double bestDist = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < this.k; c++) {
+			final double dist = distanceSquared(source, i, c);
+			if (dist < bestDist) {
+				bestDist = dist;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Calculate the squared distance from a point to a centroid.
+	 * 
+	 * @param source
+	 *            The points.
+	 * @param i
+	 *            The point.
+	 * @param c
+	 *            The centroid.
+	 * @return The squared distance.
+	 */
+	private double distanceSquared(final double[] source, final int i,
+			final int c) {
+		final int d = this.dimensions;
+		final int from = i * d;
+		final int to = c * d;
+		double sum = 0;
+		for (int j = 0; j < d; j++) {
+			final double delta = source[from + j] - this.centroids[to + j];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	/**
+	 * Process a range of points, on the thread count's pool.
+	 * 
+	 * @param size
+	 *            The number of points.
+	 * @param task
+	 *            The task.
+	 */
+	private void process(final int size, final RangeTask task) {
+		if (this.threadCount == 1) {
+			task.run(0, size - 1);
+		} else if (this.pool != null) {
+			this.pool.processRange(0, size - 1, MIN_CHUNK, task);
+		} else {
+			EngineConcurrency.getInstance().processRange(0, size - 1,
+					MIN_CHUNK, task);
+		}
+	}
+
+	/**
+	 * @return The clusters. The records are read from the data set again to
+	 *         fill them.
+	 */
+	@Override
+	public MLCluster[] getClusters() {
+		if (this.centroids == null) {
+			return null;
+		}
+		if (this.clusters == null) {
+			final BasicCluster[] result = new BasicCluster[this.k];
+			for (int c = 0; c < this.k; c++) {
+				result[c] = new BasicCluster(new BasicMLDataPairCentroid(
+						new BasicMLDataPair(new BasicMLData(getCentroid(c)))));
+			}
+			final double[] row = new double[this.dimensions];
+			int i = 0;
+			for (final MLDataPair pair : this.dataSet) {
+				final int c;
+				if (this.assignment != null) {
+					c = this.assignment[i];
+				} else {
+					System.arraycopy(pair.getInputArray(), 0, row, 0,
+							this.dimensions);
+					c = nearest(row, 0);
+				}
+				result[c].add(pair.getInput());
+				i++;
+			}
+			this.clusters = result;
+		}
+		return this.clusters;
+	}
+
+	/**
+	 * Get one of the centroids.
+	 * 
+	 * @param c
+	 *            The cluster.
+	 * @return A copy of the cluster's centroid.
+	 */
+	public double[] getCentroid(final int c) {
+		final double[] result = new double[this.dimensions];
+		System.arraycopy(this.centroids, c * this.dimensions, result, 0,
+				this.dimensions);
+		return result;
+	}
+
+	/**
+	 * @return A copy of the centroids, or null before the first iteration.
+	 */
+	public double[][] getCentroids() {
+		if (this.centroids == null) {
+			return null;
+		}
+		final double[][] result = new double[this.k][];
+		for (int c = 0; c < this.k; c++) {
+			result[c] = getCentroid(c);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The cluster each point is assigned to, in data set order, or
+	 *         null for MiniBatch.
+	 */
+	public int[] getAssignment() {
+		return this.assignment == null ? null : this.assignment.clone();
+	}
+
+	/**
+	 * @return The number of points that changed cluster on the last
+	 *         iteration. Zero means the clustering has converged. For
+	 *         MiniBatch, the size of the batch.
+	 */
+	public int getChanged() {
+		return this.changed;
+	}
+
+	/**
+	 * Calculate the within cluster sum of squares, the sum of the squared
+	 * distances from each point to its centroid.
+	 * 
+	 * @return The within cluster sum of squares.
+	 */
+	public double getWCSS() {
+		if (this.centroids == null) {
+			return Double.NaN;
+		}
+		double result = 0;
+		if (this.points != null) {
+			for (int i = 0; i < this.count; i++) {
+				result += distanceSquared(this.points, i, this.assignment[i]);
+			}
+		} else {
+			final double[] row = new double[this.dimensions];
+			for (final MLDataPair pair : this.dataSet) {
+				System.arraycopy(pair.getInputArray(), 0, row, 0,
+						this.dimensions);
+				result += distanceSquared(row, 0, nearest(row, 0));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of clusters.
+	 */
+	@Override
+	public int numClusters() {
+		return this.k;
+	}
+
+	/**
+	 * Make sure the clustering has not started.
+	 */
+	private void checkNotStarted() {
+		if (this.centroids != null) {
+			throw new EncogError(
+					"Can't change the clustering after the first iteration.");
+		}
+	}
+
+	/**
+	 * @return The algorithm used to assign points.
+	 */
+	public KMeansAlgorithm getAlgorithm() {
+		return this.algorithm;
+	}
+
+	/**
+	 * Set the algorithm used to assign points. Must be set before the first
+	 * iteration.
+	 * 
+	 * @param theAlgorithm
+	 *            The algorithm.
+	 */
+	public void setAlgorithm(final KMeansAlgorithm theAlgorithm) {
+		checkNotStarted();
+		this.algorithm = theAlgorithm;
+	}
+
+	/**
+	 * @return How the starting centroids are chosen.
+	 */
+	public KMeansSeeding getSeeding() {
+		return this.seeding;
+	}
+
+	/**
+	 * Set how the starting centroids are chosen. Must be set before the
+	 * first iteration.
+	 * 
+	 * @param theSeeding
+	 *            The seeding.
+	 */
+	public void setSeeding(final KMeansSeeding theSeeding) {
+		checkNotStarted();
+		this.seeding = theSeeding;
+	}
+
+	/**
+	 * @return The number of records in each mini batch.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the number of records in each mini batch.
+	 * 
+	 * @param theBatchSize
+	 *            The batch size.
+	 */
+	public void setBatchSize(final int theBatchSize) {
+		if (theBatchSize < 1) {
+			throw new EncogError("Batch size must be at least one.");
+		}
+		this.batchSize = theBatchSize;
+	}
+
+	/**
+	 * @return The random number factory.
+	 */
+	public RandomFactory getRandomFactory() {
+		return this.randomFactory;
+	}
+
+	/**
+	 * Set the random number factory. Must be set before the first
+	 * iteration.
+	 * 
+	 * @param theRandomFactory
+	 *            The random number factory.
+	 */
+	public void setRandomFactory(final RandomFactory theRandomFactory) {
+		checkNotStarted();
+		this.randomFactory = theRandomFactory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.kmeans;
+
+/**
+ * The algorithm that DenseKMeansClustering uses to assign points to
+ * centroids.
+ */
+public enum KMeansAlgorithm {
+	/**
+	 * Compute the distance from every point to every centroid, each
+	 * iteration.
+	 */
+	Lloyd,
+
+	/**
+	 * Keep an upper bound on the distance to the nearest centroid and one
+	 * lower bound on the distance to the others, and skip the points whose
+	 * centroid cannot have changed. Gives the same clusters as Lloyd. Best
+	 * for a small number of clusters.
+	 */
+	Hamerly,
+
+	/**
+	 * Keep a lower bound on the distance to each centroid, and skip the
+	 * distances that cannot be the nearest. Gives the same clusters as
+	 * Lloyd. Best for a large number of clusters, but keeps k bounds for
+	 * each point.
+	 */
+	Elkan,
+
+	/**
+	 * Move the centroids toward a random batch of points each iteration.
+	 * The points are read from the data set as they are needed, rather than
+	 * held in memory, so this can cluster data sets that do not fit. The
+	 * clusters are an approximation.
+	 */
+	MiniBatch
+}
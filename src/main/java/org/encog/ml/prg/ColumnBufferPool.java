@@ -0,0 +1,164 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg;
+
+import java.util.Arrays;
+
+/**
+ * Holds the buffers used to evaluate a compiled program over a block of rows
+ * at a time, see CompiledProgram. There is a set of buffers for each stack
+ * position, each one block long. The buffers are created as needed, and kept
+ * for the next program, so a pool should be reused for every program that a
+ * thread evaluates. A pool must not be shared between threads.
+ */
+public class ColumnBufferPool {
+
+	/**
+	 * The default number of rows in a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	/**
+	 * The number of rows in a block.
+	 */
+	private final int blockSize;
+
+	/**
+	 * The float values, for each stack position.
+	 */
+	private double[][] floats = new double[0][];
+
+	/**
+	 * The int values, for each stack position, created if a program uses
+	 * ints.
+	 */
+	private long[][] ints = new long[0][];
+
+	/**
+	 * The rows that hold ints, for each stack position.
+	 */
+	private boolean[][] intRows = new boolean[0][];
+
+	/**
+	 * True for each stack position that might hold ints.
+	 */
+	private boolean[] anyInt = new boolean[0];
+
+	/**
+	 * Construct a pool with the default block size.
+	 */
+	public ColumnBufferPool() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Construct a pool.
+	 * 
+	 * @param theBlockSize
+	 *            The number of rows in a block.
+	 */
+	public ColumnBufferPool(final int theBlockSize) {
+		this.blockSize = theBlockSize;
+	}
+
+	/**
+	 * @return The number of rows in a block.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Make sure that there are buffers for the specified stack depth.
+	 * 
+	 * @param depth
+	 *            The stack depth.
+	 */
+	void ensureDepth(final int depth) {
+		if (this.floats.length < depth) {
+			final double[][] f = new double[depth][];
+			final long[][] l = new long[depth][];
+			final boolean[][] r = new boolean[depth][];
+			System.arraycopy(this.floats, 0, f, 0, this.floats.length);
+			System.arraycopy(this.ints, 0, l, 0, this.ints.length);
+			System.arraycopy(this.intRows, 0, r, 0, this.intRows.length);
+			for (int i = this.floats.length; i < depth; i++) {
+				f[i] = new double[this.blockSize];
+			}
+			this.floats = f;
+			this.ints = l;
+			this.intRows = r;
+			this.anyInt = new boolean[depth];
+		}
+	}
+
+	/**
+	 * @return The float buffers, one for each stack position.
+	 */
+	double[][] getFloats() {
+		return this.floats;
+	}
+
+	/**
+	 * @return The int buffers, one for each stack position, null until used.
+	 */
+	long[][] getInts() {
+		return this.ints;
+	}
+
+	/**
+	 * @return The buffers that hold which rows are ints, for each stack
+	 *         position, null until used.
+	 */
+	boolean[][] getIntRows() {
+		return this.intRows;
+	}
+
+	/**
+	 * @return True for each stack position that might hold ints.
+	 */
+	boolean[] getAnyInt() {
+		return this.anyInt;
+	}
+
+	/**
+	 * Mark a stack position as holding ints, with no rows holding ints yet.
+	 * The int buffers are created if needed.
+	 * 
+	 * @param slot
+	 *            The stack position.
+	 * @param count
+	 *            The number of rows in use.
+	 */
+	void markInts(final int slot, final int count) {
+		if (this.ints[slot] == null) {
+			this.ints[slot] = new long[this.blockSize];
+			this.intRows[slot] = new boolean[this.blockSize];
+		}
+		if (!this.anyInt[slot]) {
+			Arrays.fill(this.intRows[slot], 0, count, false);
+			this.anyInt[slot] = true;
+		}
+	}
+}
@@ -0,0 +1,1000 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.encog.Encog;
+import org.encog.EncogError;
+import org.encog.ml.prg.expvalue.DivisionByZeroError;
+import org.encog.ml.prg.expvalue.ExpressionValue;
+import org.encog.ml.prg.expvalue.ValueType;
+import org.encog.ml.prg.extension.ConstantPool;
+import org.encog.ml.prg.extension.ProgramExtensionTemplate;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.tree.TreeNode;
+
+/**
+ * An Encog program compiled into a flat array of postfix instructions. The
+ * instructions are run by a small interpreter over a stack of primitive
+ * values, so no ExpressionValue objects are created when the program is run.
+ * 
+ * Only numeric programs are compiled. Every node must be a numeric constant, a
+ * variable, or one of the numeric opcodes from StandardExtensions, and the
+ * program must return a float. The interpreter keeps track of which values are
+ * ints, so that the result is exactly the same as evaluating the tree. If a
+ * program can not be compiled, EncogProgram evaluates the tree as before.
+ * 
+ * A compiled program can also be evaluated over a block of rows at once. Each
+ * instruction then runs as one loop over the block, using buffers from a
+ * ColumnBufferPool. Rows are only checked for ints once an instruction that
+ * can produce them has run, so purely float programs run plain loops.
+ */
+public class CompiledProgram {
+
+	/**
+	 * Push a constant.
+	 */
+	static final int OP_CONST = 0;
+
+	/**
+	 * Push a variable.
+	 */
+	static final int OP_VAR = 1;
+
+	/**
+	 * Unary minus.
+	 */
+	static final int OP_NEG = 2;
+
+	/**
+	 * Add.
+	 */
+	static final int OP_ADD = 3;
+
+	/**
+	 * Subtract.
+	 */
+	static final int OP_SUB = 4;
+
+	/**
+	 * Multiply.
+	 */
+	static final int OP_MUL = 5;
+
+	/**
+	 * Divide, division by zero is an error.
+	 */
+	static final int OP_DIV = 6;
+
+	/**
+	 * Protected divide, division by zero gives 1.
+	 */
+	static final int OP_PDIV = 7;
+
+	/**
+	 * The power operator.
+	 */
+	static final int OP_POW = 8;
+
+	/**
+	 * Round to an int.
+	 */
+	static final int OP_ROUND = 9;
+
+	/**
+	 * The first of the unary functions, that take and return a float.
+	 */
+	static final int OP_ABS = 10;
+	static final int OP_ASIN = 11;
+	static final int OP_ATAN = 12;
+	static final int OP_CEIL = 13;
+	static final int OP_COS = 14;
+	static final int OP_COSH = 15;
+	static final int OP_EXP = 16;
+	static final int OP_FLOOR = 17;
+	static final int OP_LOG = 18;
+	static final int OP_LOG10 = 19;
+	static final int OP_SIN = 20;
+	static final int OP_SINH = 21;
+	static final int OP_SQRT = 22;
+	static final int OP_TAN = 23;
+	static final int OP_TANH = 24;
+	static final int OP_TODEG = 25;
+	static final int OP_TORAD = 26;
+
+	/**
+	 * The first of the binary functions, that take and return floats.
+	 */
+	static final int OP_ATAN2 = 27;
+	static final int OP_MAX = 28;
+	static final int OP_MIN = 29;
+	static final int OP_POWFN = 30;
+
+	/**
+	 * Clamp a value between a min and a max.
+	 */
+	static final int OP_CLAMP = 31;
+
+	/**
+	 * Push a random number.
+	 */
+	static final int OP_RANDOM = 32;
+
+	/**
+	 * The instruction for each opcode that can be compiled.
+	 */
+	private static final Map<ProgramExtensionTemplate, Integer> OPCODES = new IdentityHashMap<ProgramExtensionTemplate, Integer>();
+
+	static {
+		OPCODES.put(StandardExtensions.EXTENSION_VAR_SUPPORT, OP_VAR);
+		OPCODES.put(StandardExtensions.EXTENSION_CONST_SUPPORT, OP_CONST);
+		OPCODES.put(StandardExtensions.EXTENSION_NEG, OP_NEG);
+		OPCODES.put(StandardExtensions.EXTENSION_ADD, OP_ADD);
+		OPCODES.put(StandardExtensions.EXTENSION_SUB, OP_SUB);
+		OPCODES.put(StandardExtensions.EXTENSION_MUL, OP_MUL);
+		OPCODES.put(StandardExtensions.EXTENSION_DIV, OP_DIV);
+		OPCODES.put(StandardExtensions.EXTENSION_PDIV, OP_PDIV);
+		OPCODES.put(StandardExtensions.EXTENSION_POWER, OP_POW);
+		OPCODES.put(StandardExtensions.EXTENSION_ROUND, OP_ROUND);
+		OPCODES.put(StandardExtensions.EXTENSION_ABS, OP_ABS);
+		// acos is evaluated as abs, keep the same result
+		OPCODES.put(StandardExtensions.EXTENSION_ACOS, OP_ABS);
+		OPCODES.put(StandardExtensions.EXTENSION_ASIN, OP_ASIN);
+		OPCODES.put(StandardExtensions.EXTENSION_ATAN, OP_ATAN);
+		OPCODES.put(StandardExtensions.EXTENSION_CEIL, OP_CEIL);
+		OPCODES.put(StandardExtensions.EXTENSION_COS, OP_COS);
+		OPCODES.put(StandardExtensions.EXTENSION_COSH, OP_COSH);
+		OPCODES.put(StandardExtensions.EXTENSION_EXP, OP_EXP);
+		OPCODES.put(StandardExtensions.EXTENSION_FLOOR, OP_FLOOR);
+		OPCODES.put(StandardExtensions.EXTENSION_LOG, OP_LOG);
+		OPCODES.put(StandardExtensions.EXTENSION_LOG10, OP_LOG10);
+		OPCODES.put(StandardExtensions.EXTENSION_SIN, OP_SIN);
+		OPCODES.put(StandardExtensions.EXTENSION_SINH, OP_SINH);
+		OPCODES.put(StandardExtensions.EXTENSION_SQRT, OP_SQRT);
+		OPCODES.put(StandardExtensions.EXTENSION_TAN, OP_TAN);
+		OPCODES.put(StandardExtensions.EXTENSION_TANH, OP_TANH);
+		OPCODES.put(StandardExtensions.EXTENSION_TODEG, OP_TODEG);
+		OPCODES.put(StandardExtensions.EXTENSION_TORAD, OP_TORAD);
+		OPCODES.put(StandardExtensions.EXTENSION_ATAN2, OP_ATAN2);
+		OPCODES.put(StandardExtensions.EXTENSION_MAX, OP_MAX);
+		OPCODES.put(StandardExtensions.EXTENSION_MIN, OP_MIN);
+		OPCODES.put(StandardExtensions.EXTENSION_POWFN, OP_POWFN);
+		OPCODES.put(StandardExtensions.EXTENSION_CLAMP, OP_CLAMP);
+		OPCODES.put(StandardExtensions.EXTENSION_RANDOM, OP_RANDOM);
+	}
+
+	/**
+	 * Compile a program.
+	 * 
+	 * @param program
+	 *            The program to compile.
+	 * @return The compiled program, or null if the program uses opcodes or
+	 *         types that can not be compiled.
+	 */
+	public static CompiledProgram compile(final EncogProgram program) {
+		if (program.getRootNode() == null
+				|| program.getReturnType() != ValueType.floatingType) {
+			return null;
+		}
+		final CompiledProgram result = new CompiledProgram();
+		if (!result.emit(program.getRootNode(), 0)) {
+			return null;
+		}
+		result.finish();
+		return result;
+	}
+
+	/**
+	 * The instructions, built by emit.
+	 */
+	private final List<Integer> opList = new ArrayList<Integer>();
+
+	/**
+	 * The constant, or variable index, of each instruction, built by emit.
+	 */
+	private final List<ExpressionValue> argList = new ArrayList<ExpressionValue>();
+
+	/**
+	 * The instructions.
+	 */
+	private int[] ops;
+
+	/**
+	 * The float argument of each instruction, the constant value or the
+	 * variable index.
+	 */
+	private double[] floatArgs;
+
+	/**
+	 * The int argument of each instruction, for int constants.
+	 */
+	private long[] intArgs;
+
+	/**
+	 * True for each instruction that pushes an int constant.
+	 */
+	private boolean[] intConst;
+
+	/**
+	 * The deepest the stack gets.
+	 */
+	private int maxStack;
+
+	/**
+	 * The float values on the stack.
+	 */
+	private double[] floatStack;
+
+	/**
+	 * The int values on the stack.
+	 */
+	private long[] intStack;
+
+	/**
+	 * True for each value on the stack that is an int.
+	 */
+	private boolean[] isInt;
+
+	/**
+	 * Only created by compile.
+	 */
+	private CompiledProgram() {
+	}
+
+	/**
+	 * Emit the instructions for a node, after those for its children.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @param depth
+	 *            The stack depth before the node is run.
+	 * @return False if the node can not be compiled.
+	 */
+	private boolean emit(final ProgramNode node, final int depth) {
+		final ProgramExtensionTemplate template = node.getTemplate();
+
+		if (template instanceof ConstantPool) {
+			return emitConst(node.evaluate(), depth);
+		}
+
+		final Integer op = OPCODES.get(template);
+		if (op == null) {
+			return false;
+		}
+
+		if (op == OP_CONST) {
+			return emitConst(node.getData()[0], depth);
+		}
+
+		int d = depth;
+		for (final TreeNode child : node.getChildNodes()) {
+			if (!emit((ProgramNode) child, d++)) {
+				return false;
+			}
+		}
+		// leaves, such as variables, push one value
+		this.maxStack = Math.max(this.maxStack, Math.max(d, depth + 1));
+
+		this.opList.add(op);
+		this.argList.add(op == OP_VAR ? node.getData()[0] : null);
+		return true;
+	}
+
+	/**
+	 * Emit a constant.
+	 * 
+	 * @param value
+	 *            The constant.
+	 * @param depth
+	 *            The stack depth before it is pushed.
+	 * @return False if the constant is not numeric.
+	 */
+	private boolean emitConst(final ExpressionValue value, final int depth) {
+		if (!value.isNumeric()) {
+			return false;
+		}
+		this.maxStack = Math.max(this.maxStack, depth + 1);
+		this.opList.add(OP_CONST);
+		this.argList.add(value);
+		return true;
+	}
+
+	/**
+	 * Move the instructions into arrays, and create the stack.
+	 */
+	private void finish() {
+		final int count = this.opList.size();
+		this.ops = new int[count];
+		this.floatArgs = new double[count];
+		this.intArgs = new long[count];
+		this.intConst = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			this.ops[i] = this.opList.get(i);
+			final ExpressionValue arg = this.argList.get(i);
+			if (arg != null) {
+				if (this.ops[i] == OP_VAR) {
+					this.floatArgs[i] = arg.toIntValue();
+				} else if (arg.isInt()) {
+					this.intConst[i] = true;
+					this.intArgs[i] = arg.toIntValue();
+				} else {
+					this.floatArgs[i] = arg.toFloatValue();
+				}
+			}
+		}
+		this.opList.clear();
+		this.argList.clear();
+
+		this.floatStack = new double[this.maxStack];
+		this.intStack = new long[this.maxStack];
+		this.isInt = new boolean[this.maxStack];
+	}
+
+	/**
+	 * @return The number of instructions.
+	 */
+	public int size() {
+		return this.ops.length;
+	}
+
+	/**
+	 * @return The deepest the stack gets.
+	 */
+	public int getMaxStack() {
+		return this.maxStack;
+	}
+
+	/**
+	 * Get a value from the stack, as a float.
+	 * 
+	 * @param i
+	 *            The stack position.
+	 * @return The value.
+	 */
+	private double value(final int i) {
+		return this.isInt[i] ? this.intStack[i] : this.floatStack[i];
+	}
+
+	/**
+	 * Set a float value on the stack.
+	 * 
+	 * @param i
+	 *            The stack position.
+	 * @param v
+	 *            The value.
+	 */
+	private void setFloat(final int i, final double v) {
+		this.floatStack[i] = v;
+		this.isInt[i] = false;
+	}
+
+	/**
+	 * Set an int value on the stack.
+	 * 
+	 * @param i
+	 *            The stack position.
+	 * @param v
+	 *            The value.
+	 */
+	private void setInt(final int i, final long v) {
+		this.intStack[i] = v;
+		this.isInt[i] = true;
+	}
+
+	/**
+	 * Run the program. This is not thread safe, as the stack is shared.
+	 * 
+	 * @param input
+	 *            The value of each variable.
+	 * @return The result of the program.
+	 */
+	public double evaluate(final double[] input) {
+		final int[] ops = this.ops;
+		final boolean[] isInt = this.isInt;
+		final long[] ints = this.intStack;
+		int sp = -1;
+
+		for (int pc = 0; pc < ops.length; pc++) {
+			switch (ops[pc]) {
+			case OP_CONST:
+				sp++;
+				if (this.intConst[pc]) {
+					setInt(sp, this.intArgs[pc]);
+				} else {
+					setFloat(sp, this.floatArgs[pc]);
+				}
+				break;
+			case OP_VAR:
+				setFloat(++sp, input[(int) this.floatArgs[pc]]);
+				break;
+			case OP_NEG:
+				setFloat(sp, -value(sp));
+				break;
+			case OP_ADD:
+				sp--;
+				if (isInt[sp] && isInt[sp + 1]) {
+					ints[sp] += ints[sp + 1];
+				} else {
+					setFloat(sp, value(sp) + value(sp + 1));
+				}
+				break;
+			case OP_SUB:
+				sp--;
+				if (isInt[sp] && isInt[sp + 1]) {
+					ints[sp] -= ints[sp + 1];
+				} else {
+					setFloat(sp, value(sp) - value(sp + 1));
+				}
+				break;
+			case OP_MUL:
+				sp--;
+				if (isInt[sp] && isInt[sp + 1]) {
+					ints[sp] *= ints[sp + 1];
+				} else {
+					setFloat(sp, value(sp) * value(sp + 1));
+				}
+				break;
+			case OP_DIV:
+				sp--;
+				if (isInt[sp] && isInt[sp + 1]) {
+					if (ints[sp + 1] == 0) {
+						throw new DivisionByZeroError();
+					}
+					ints[sp] /= ints[sp + 1];
+				} else {
+					final double denom = value(sp + 1);
+					if (Math.abs(denom) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						throw new DivisionByZeroError();
+					}
+					setFloat(sp, value(sp) / denom);
+				}
+				break;
+			case OP_PDIV:
+				sp--;
+				if (isInt[sp] && isInt[sp + 1]) {
+					if (ints[sp + 1] == 0) {
+						ints[sp] = 1;
+					} else {
+						ints[sp] /= ints[sp + 1];
+					}
+				} else {
+					final double denom = value(sp + 1);
+					if (Math.abs(denom) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						setInt(sp, 1);
+					} else {
+						setFloat(sp, value(sp) / denom);
+					}
+				}
+				break;
+			case OP_POW:
+			case OP_POWFN:
+				sp--;
+				setFloat(sp, Math.pow(value(sp), value(sp + 1)));
+				break;
+			case OP_ROUND:
+				setInt(sp, Math.round(value(sp)));
+				break;
+			case OP_ABS:
+				setFloat(sp, Math.abs(value(sp)));
+				break;
+			case OP_ASIN:
+				setFloat(sp, Math.asin(value(sp)));
+				break;
+			case OP_ATAN:
+				setFloat(sp, Math.atan(value(sp)));
+				break;
+			case OP_CEIL:
+				setFloat(sp, Math.ceil(value(sp)));
+				break;
+			case OP_COS:
+				setFloat(sp, Math.cos(value(sp)));
+				break;
+			case OP_COSH:
+				setFloat(sp, Math.cosh(value(sp)));
+				break;
+			case OP_EXP:
+				setFloat(sp, Math.exp(value(sp)));
+				break;
+			case OP_FLOOR:
+				setFloat(sp, Math.floor(value(sp)));
+				break;
+			case OP_LOG:
+				setFloat(sp, Math.log(value(sp)));
+				break;
+			case OP_LOG10:
+				setFloat(sp, Math.log10(value(sp)));
+				break;
+			case OP_SIN:
+				setFloat(sp, Math.sin(value(sp)));
+				break;
+			case OP_SINH:
+				setFloat(sp, Math.sinh(value(sp)));
+				break;
+			case OP_SQRT:
+				setFloat(sp, Math.sqrt(value(sp)));
+				break;
+			case OP_TAN:
+				setFloat(sp, Math.tan(value(sp)));
+				break;
+			case OP_TANH:
+				setFloat(sp, Math.tanh(value(sp)));
+				break;
+			case OP_TODEG:
+				setFloat(sp, Math.toDegrees(value(sp)));
+				break;
+			case OP_TORAD:
+				setFloat(sp, Math.toRadians(value(sp)));
+				break;
+			case OP_ATAN2:
+				sp--;
+				setFloat(sp, Math.atan2(value(sp), value(sp + 1)));
+				break;
+			case OP_MAX:
+				sp--;
+				setFloat(sp, Math.max(value(sp), value(sp + 1)));
+				break;
+			case OP_MIN:
+				sp--;
+				setFloat(sp, Math.min(value(sp), value(sp + 1)));
+				break;
+			case OP_CLAMP:
+				sp -= 2;
+				final double v = value(sp);
+				final double min = value(sp + 1);
+				final double max = value(sp + 2);
+				if (v < min) {
+					setFloat(sp, min);
+				} else if (v > max) {
+					setFloat(sp, max);
+				} else {
+					setFloat(sp, v);
+				}
+				break;
+			case OP_RANDOM:
+				setFloat(++sp, Math.random());
+				break;
+			default:
+				throw new EncogError("Unknown instruction: " + ops[pc]);
+			}
+		}
+
+		return value(0);
+	}
+
+	/**
+	 * Convert a stack position of a block to floats, if it holds any ints.
+	 * 
+	 * @param pool
+	 *            The buffers.
+	 * @param slot
+	 *            The stack position.
+	 * @param count
+	 *            The number of rows.
+	 * @return The float buffer of the stack position.
+	 */
+	private static double[] toFloat(final ColumnBufferPool pool,
+			final int slot, final int count) {
+		final double[] f = pool.getFloats()[slot];
+		if (pool.getAnyInt()[slot]) {
+			final long[] l = pool.getInts()[slot];
+			final boolean[] rows = pool.getIntRows()[slot];
+			for (int i = 0; i < count; i++) {
+				if (rows[i]) {
+					f[i] = l[i];
+				}
+			}
+			pool.getAnyInt()[slot] = false;
+		}
+		return f;
+	}
+
+	/**
+	 * Evaluate the program for a block of rows. The value of each variable is
+	 * read from its column, starting at the specified row.
+	 * 
+	 * @param columns
+	 *            The value of each variable, one column for each variable.
+	 * @param offset
+	 *            The first row to evaluate.
+	 * @param count
+	 *            The number of rows to evaluate, no more than the block size
+	 *            of the pool.
+	 * @param result
+	 *            Receives the result of each row, starting at index zero.
+	 * @param pool
+	 *            The buffers to evaluate with.
+	 */
+	public void evaluate(final double[][] columns, final int offset,
+			final int count, final double[] result,
+			final ColumnBufferPool pool) {
+		pool.ensureDepth(this.maxStack);
+		final double[][] floats = pool.getFloats();
+		final long[][] ints = pool.getInts();
+		final boolean[][] intRows = pool.getIntRows();
+		final boolean[] anyInt = pool.getAnyInt();
+		Arrays.fill(anyInt, false);
+		int sp = -1;
+
+		for (int pc = 0; pc < this.ops.length; pc++) {
+			final int op = this.ops[pc];
+			switch (op) {
+			case OP_CONST:
+				sp++;
+				if (this.intConst[pc]) {
+					pool.markInts(sp, count);
+					Arrays.fill(ints[sp], 0, count, this.intArgs[pc]);
+					Arrays.fill(intRows[sp], 0, count, true);
+				} else {
+					anyInt[sp] = false;
+					Arrays.fill(floats[sp], 0, count, this.floatArgs[pc]);
+				}
+				break;
+			case OP_VAR:
+				sp++;
+				anyInt[sp] = false;
+				System.arraycopy(columns[(int) this.floatArgs[pc]], offset,
+						floats[sp], 0, count);
+				break;
+			case OP_RANDOM:
+				sp++;
+				anyInt[sp] = false;
+				for (int i = 0; i < count; i++) {
+					floats[sp][i] = Math.random();
+				}
+				break;
+			case OP_ADD:
+			case OP_SUB:
+			case OP_MUL:
+			case OP_DIV:
+			case OP_PDIV:
+				sp--;
+				if (anyInt[sp] || anyInt[sp + 1] || op == OP_PDIV) {
+					blockArithmeticInts(op, pool, sp, count);
+				} else {
+					blockArithmetic(op, floats[sp], floats[sp + 1], count);
+				}
+				break;
+			case OP_ROUND: {
+				final double[] a = toFloat(pool, sp, count);
+				pool.markInts(sp, count);
+				final long[] l = ints[sp];
+				final boolean[] rows = intRows[sp];
+				for (int i = 0; i < count; i++) {
+					l[i] = Math.round(a[i]);
+					rows[i] = true;
+				}
+				break;
+			}
+			case OP_POW:
+			case OP_POWFN:
+			case OP_ATAN2:
+			case OP_MAX:
+			case OP_MIN: {
+				sp--;
+				final double[] a = toFloat(pool, sp, count);
+				final double[] b = toFloat(pool, sp + 1, count);
+				blockFunction2(op, a, b, count);
+				break;
+			}
+			case OP_CLAMP: {
+				sp -= 2;
+				final double[] a = toFloat(pool, sp, count);
+				final double[] min = toFloat(pool, sp + 1, count);
+				final double[] max = toFloat(pool, sp + 2, count);
+				for (int i = 0; i < count; i++) {
+					if (a[i] < min[i]) {
+						a[i] = min[i];
+					} else if (a[i] > max[i]) {
+						a[i] = max[i];
+					}
+				}
+				break;
+			}
+			default:
+				blockFunction(op, toFloat(pool, sp, count), count);
+				break;
+			}
+		}
+
+		final double[] f = toFloat(pool, 0, count);
+		System.arraycopy(f, 0, result, 0, count);
+	}
+
+	/**
+	 * Run a float arithmetic operator over a block, when neither operand
+	 * holds ints.
+	 * 
+	 * @param op
+	 *            The operator.
+	 * @param a
+	 *            The first operand, receives the result.
+	 * @param b
+	 *            The second operand.
+	 * @param count
+	 *            The number of rows.
+	 */
+	private static void blockArithmetic(final int op, final double[] a,
+			final double[] b, final int count) {
+		switch (op) {
+		case OP_ADD:
+			for (int i = 0; i < count; i++) {
+				a[i] += b[i];
+			}
+			break;
+		case OP_SUB:
+			for (int i = 0; i < count; i++) {
+				a[i] -= b[i];
+			}
+			break;
+		case OP_MUL:
+			for (int i = 0; i < count; i++) {
+				a[i] *= b[i];
+			}
+			break;
+		default:
+			for (int i = 0; i < count; i++) {
+				if (Math.abs(b[i]) < Encog.DEFAULT_DOUBLE_EQUAL) {
+					throw new DivisionByZeroError();
+				}
+				a[i] /= b[i];
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Run an arithmetic operator over a block, row by row, following the
+	 * int rules of EvaluateExpr.
+	 * 
+	 * @param op
+	 *            The operator.
+	 * @param pool
+	 *            The buffers.
+	 * @param sp
+	 *            The stack position of the first operand, which receives the
+	 *            result.
+	 * @param count
+	 *            The number of rows.
+	 */
+	private static void blockArithmeticInts(final int op,
+			final ColumnBufferPool pool, final int sp, final int count) {
+		final boolean anyA = pool.getAnyInt()[sp];
+		final boolean anyB = pool.getAnyInt()[sp + 1];
+		pool.markInts(sp, count);
+		final double[] fa = pool.getFloats()[sp];
+		final double[] fb = pool.getFloats()[sp + 1];
+		final long[] la = pool.getInts()[sp];
+		final long[] lb = pool.getInts()[sp + 1];
+		final boolean[] ra = pool.getIntRows()[sp];
+		final boolean[] rb = pool.getIntRows()[sp + 1];
+
+		for (int i = 0; i < count; i++) {
+			final boolean ai = anyA && ra[i];
+			final boolean bi = anyB && rb[i];
+			if (ai && bi) {
+				switch (op) {
+				case OP_ADD:
+					la[i] += lb[i];
+					break;
+				case OP_SUB:
+					la[i] -= lb[i];
+					break;
+				case OP_MUL:
+					la[i] *= lb[i];
+					break;
+				case OP_DIV:
+					if (lb[i] == 0) {
+						throw new DivisionByZeroError();
+					}
+					la[i] /= lb[i];
+					break;
+				default:
+					la[i] = lb[i] == 0 ? 1 : la[i] / lb[i];
+					break;
+				}
+			} else {
+				final double a = ai ? la[i] : fa[i];
+				final double b = bi ? lb[i] : fb[i];
+				ra[i] = false;
+				switch (op) {
+				case OP_ADD:
+					fa[i] = a + b;
+					break;
+				case OP_SUB:
+					fa[i] = a - b;
+					break;
+				case OP_MUL:
+					fa[i] = a * b;
+					break;
+				case OP_DIV:
+					if (Math.abs(b) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						throw new DivisionByZeroError();
+					}
+					fa[i] = a / b;
+					break;
+				default:
+					if (Math.abs(b) < Encog.DEFAULT_DOUBLE_EQUAL) {
+						la[i] = 1;
+						ra[i] = true;
+					} else {
+						fa[i] = a / b;
+					}
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run a unary float function over a block.
+	 * 
+	 * @param op
+	 *            The function.
+	 * @param a
+	 *            The argument, receives the result.
+	 * @param count
+	 *            The number of rows.
+	 */
+	private static void blockFunction(final int op, final double[] a,
+			final int count) {
+		switch (op) {
+		case OP_NEG:
+			for (int i = 0; i < count; i++) {
+				a[i] = -a[i];
+			}
+			break;
+		case OP_ABS:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.abs(a[i]);
+			}
+			break;
+		case OP_ASIN:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.asin(a[i]);
+			}
+			break;
+		case OP_ATAN:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.atan(a[i]);
+			}
+			break;
+		case OP_CEIL:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.ceil(a[i]);
+			}
+			break;
+		case OP_COS:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.cos(a[i]);
+			}
+			break;
+		case OP_COSH:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.cosh(a[i]);
+			}
+			break;
+		case OP_EXP:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.exp(a[i]);
+			}
+			break;
+		case OP_FLOOR:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.floor(a[i]);
+			}
+			break;
+		case OP_LOG:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.log(a[i]);
+			}
+			break;
+		case OP_LOG10:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.log10(a[i]);
+			}
+			break;
+		case OP_SIN:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.sin(a[i]);
+			}
+			break;
+		case OP_SINH:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.sinh(a[i]);
+			}
+			break;
+		case OP_SQRT:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.sqrt(a[i]);
+			}
+			break;
+		case OP_TAN:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.tan(a[i]);
+			}
+			break;
+		case OP_TANH:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.tanh(a[i]);
+			}
+			break;
+		case OP_TODEG:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.toDegrees(a[i]);
+			}
+			break;
+		case OP_TORAD:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.toRadians(a[i]);
+			}
+			break;
+		default:
+			throw new EncogError("Unknown instruction: " + op);
+		}
+	}
+
+	/**
+	 * Run a binary float function over a block.
+	 * 
+	 * @param op
+	 *            The function.
+	 * @param a
+	 *            The first argument, receives the result.
+	 * @param b
+	 *            The second argument.
+	 * @param count
+	 *            The number of rows.
+	 */
+	private static void blockFunction2(final int op, final double[] a,
+			final double[] b, final int count) {
+		switch (op) {
+		case OP_POW:
+		case OP_POWFN:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.pow(a[i], b[i]);
+			}
+			break;
+		case OP_ATAN2:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.atan2(a[i], b[i]);
+			}
+			break;
+		case OP_MAX:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.max(a[i], b[i]);
+			}
+			break;
+		default:
+			for (int i = 0; i < count; i++) {
+				a[i] = Math.min(a[i], b[i]);
+			}
+			break;
+		}
+	}
+}
@@ -38,6 +38,7 @@
 import org.encog.ml.ea.exception.EARuntimeError;
 import org.encog.ml.ea.genome.BasicGenome;
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.genome.StructuralGenome;
 import org.encog.ml.prg.expvalue.ExpressionValue;
 import org.encog.ml.prg.expvalue.ValueType;
 import org.encog.ml.prg.extension.FunctionFactory;
@@ -66,8 +67,14 @@
  * The actual values for the variables are not stored in the context. Rather
  * they are stored in a variable holder. Each program usually has its own
  * variable holder, though it is possible to share.
+ *
+ * Numeric programs are compiled into flat postfix instructions the first time
+ * compute is called, see CompiledProgram. The compiled form is kept until the
+ * tree is changed with setRootNode, replaceNode or one of the compile methods.
+ * If nodes are changed in place, call clearCompiled.
  */
-public class EncogProgram extends BasicGenome implements MLRegression, MLError {
+public class EncogProgram extends BasicGenome implements MLRegression,
+		MLError, StructuralGenome {
 
     /**
      * The serial id.
@@ -151,6 +158,16 @@ public static String parseString(final String str) {
      */
     private Map<String,Object> extraData = new HashMap<String,Object>();
 
+    /**
+     * The compiled program, or null if it has not been compiled, or can not be.
+     */
+    private transient CompiledProgram compiled;
+
+    /**
+     * True, if compiling the current tree has been attempted.
+     */
+    private transient boolean compileAttempted;
+
     /**
      * Construct the Encog program and create a default context and variable
      * holder. Use all available opcodes.
@@ -233,6 +250,7 @@ public double calculateError(final MLDataSet data) {
     public ProgramNode compileEPL(final String code) {
         final ParseEPL parser = new ParseEPL(this);
         this.rootNode = parser.parse(code);
+        clearCompiled();
         return this.rootNode;
     }
 
@@ -246,6 +264,7 @@ public ProgramNode compileEPL(final String code) {
     public ProgramNode compileExpression(final String expression) {
         final ParseCommonExpression parser = new ParseCommonExpression(this);
         this.rootNode = parser.parse(expression);
+        clearCompiled();
         return this.rootNode;
     }
 
@@ -263,6 +282,9 @@ public double compute(double... x) {
      * be mapped to the appropriate types. Enums will use their ordinal number.
      * The result will be a single number MLData.
      *
+     * If the program is compiled, the input is read directly by the compiled
+     * program, and is not copied into the variable holder.
+     *
      * @param input
      *            The input to the program.
      * @return A single numer MLData.
@@ -274,6 +296,13 @@ public MLData compute(final MLData input) {
 			+ getInputCount() + ", but got " + input.size());
         }
 
+        final CompiledProgram program = getCompiled();
+        if (program != null) {
+            final MLData result = new BasicMLData(1);
+            result.setData(0, program.evaluate(input.getData()));
+            return result;
+        }
+
         for (int i = 0; i < input.size(); i++) {
             this.variables.setVariable(i, input.getData(i));
         }
@@ -325,6 +354,29 @@ public MLData compute(final MLData input) {
         return result;
     }
 
+    /**
+     * @return The compiled program, compiled if needed, or null if the program
+     *         can not be compiled, or compiling is disabled by the context.
+     */
+    public CompiledProgram getCompiled() {
+        if (!this.compileAttempted) {
+            if (this.context.isCompileEnabled()) {
+                this.compiled = CompiledProgram.compile(this);
+            }
+            this.compileAttempted = true;
+        }
+        return this.compiled;
+    }
+
+    /**
+     * Discard the compiled program. It is compiled again the next time it is
+     * needed. This must be called if any nodes are changed in place.
+     */
+    public void clearCompiled() {
+        this.compiled = null;
+        this.compileAttempted = false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -371,6 +423,17 @@ public String generateEPL() {
         return render.render(this);
     }
 
+    /**
+     * The structural key of a program is its EPL. Floating point constants
+     * are rendered to Encog.DEFAULT_PRECISION digits.
+     *
+     * @return The EPL for this program.
+     */
+    @Override
+    public String getStructuralKey() {
+        return generateEPL();
+    }
+
     /**
      * @return The program context. The program context may be shared over
      *         multiple programs.
@@ -447,6 +510,7 @@ public void replaceNode(final ProgramNode replaceThisNode,
             TaskReplaceNode
                     .process(this.rootNode, replaceThisNode, replaceWith);
         }
+        clearCompiled();
     }
 
     /**
@@ -486,6 +550,7 @@ public int selectRandomVariable(final Random rnd,
      */
     public void setRootNode(final ProgramNode theRootNode) {
         this.rootNode = theRootNode;
+        clearCompiled();
     }
 
     /**
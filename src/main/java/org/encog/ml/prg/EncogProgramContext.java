@@ -95,6 +95,12 @@ public class EncogProgramContext implements Serializable {
 	private VariableMapping result = new VariableMapping(null,
 			ValueType.floatingType);
 
+	/**
+	 * True, if programs should always evaluate their tree, rather than
+	 * compiling it.
+	 */
+	private boolean compileDisabled;
+
 	/**
 	 * Construct the context with an English number format and an empty function
 	 * factory.
@@ -360,6 +366,25 @@ public int getMaxEnumType() {
 		return r;
 	}
 
+	/**
+	 * @return True, if programs are compiled into postfix instructions when
+	 *         they are run. This is the default.
+	 */
+	public boolean isCompileEnabled() {
+		return !this.compileDisabled;
+	}
+
+	/**
+	 * Determine if programs are compiled into postfix instructions when they
+	 * are run. If disabled, programs always evaluate their tree.
+	 * 
+	 * @param enabled
+	 *            True to compile programs.
+	 */
+	public void setCompileEnabled(final boolean enabled) {
+		this.compileDisabled = !enabled;
+	}
+
 	/**
 	 * @return the result
 	 */
@@ -128,6 +128,7 @@ public void performOperation(final Random rnd, final Genome[] parents,
 		final EncogProgramContext context = program.getContext();
 		final EncogProgram result = context.cloneProgram(program);
 		mutateNode(rnd, result.getRootNode());
+		result.clearCompiled();
 		offspring[0] = result;
 	}
 }
@@ -0,0 +1,84 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg.train;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.Population;
+import org.encog.ml.ea.train.island.GenomeTransfer;
+import org.encog.ml.prg.EncogProgram;
+
+/**
+ * Transfers Encog programs between islands as EPL, the same form that
+ * PersistPrgPopulation uses. The programs are compiled again in the context of
+ * the target population, so the islands must define the same variables and
+ * functions.
+ */
+public class PrgGenomeTransfer implements GenomeTransfer {
+
+	/**
+	 * The character set used to encode EPL.
+	 */
+	private static final String CHARSET = "UTF-8";
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final List<Genome> genomes, final DataOutput out)
+			throws IOException {
+		out.writeInt(genomes.size());
+		for (final Genome genome : genomes) {
+			final byte[] epl = ((EncogProgram) genome).generateEPL().getBytes(
+					CHARSET);
+			out.writeInt(epl.length);
+			out.write(epl);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Genome> read(final DataInput in, final Population target)
+			throws IOException {
+		final int count = in.readInt();
+		final List<Genome> result = new ArrayList<Genome>(count);
+		for (int i = 0; i < count; i++) {
+			final byte[] epl = new byte[in.readInt()];
+			in.readFully(epl);
+			final EncogProgram program = (EncogProgram) target
+					.getGenomeFactory().factor();
+			program.compileEPL(new String(epl, CHARSET));
+			program.setPopulation(target);
+			result.add(program);
+		}
+		return result;
+	}
+}
@@ -23,8 +23,22 @@
  */
 package org.encog.ml.svm.training;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import org.encog.Encog;
 import org.encog.EncogError;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.mathutil.libsvm.svm_node;
+import org.encog.mathutil.libsvm.svm_parameter;
+import org.encog.mathutil.libsvm.svm_problem;
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
 import org.encog.ml.data.MLDataSet;
@@ -32,11 +46,99 @@
 import org.encog.ml.svm.SVM;
 import org.encog.ml.train.BasicTraining;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.RangeTask;
 
 /**
  * Provides training for Support Vector Machine networks.
+ * 
+ * For an RBF kernel, this searches a grid of C and gamma values for the pair
+ * with the lowest error. The error is either the error on the training data,
+ * or, if folds are specified, the cross validation error. Classification
+ * uses the fraction of rows classified wrongly, the same as
+ * SVM.calculateError. Several grid cells are evaluated at once, one per
+ * thread, and each iteration evaluates the next batch of cells. With one
+ * thread, each iteration evaluates one cell. The training data is encoded
+ * once, and every cell uses the same folds.
+ * 
+ * Successive halving can be used to skip most of the work for cells that
+ * are clearly worse. Each iteration then evaluates one more fold for each
+ * remaining cell, and only the better half of the cells, by the error on
+ * the folds so far, go on to the next fold. The best cell is chosen from the
+ * cells that were evaluated on every fold.
  */
-public class SVMSearchTrain extends BasicTraining {
+public class SVMSearchTrain extends BasicTraining implements MultiThreadable {
+
+	/**
+	 * The seed used to assign the rows to folds, so that a search can be
+	 * repeated.
+	 */
+	public static final long FOLD_SEED = 1;
+
+	/**
+	 * A grid cell, a pair of C and gamma values, and its error so far.
+	 */
+	private static class Cell {
+
+		/**
+		 * The C value.
+		 */
+		private final double c;
+
+		/**
+		 * The gamma value.
+		 */
+		private final double gamma;
+
+		/**
+		 * The regression error, over the rows evaluated so far.
+		 */
+		private final ErrorCalculation errorCalculation = new ErrorCalculation();
+
+		/**
+		 * The number of rows evaluated so far.
+		 */
+		private int count;
+
+		/**
+		 * The number of rows classified wrongly so far.
+		 */
+		private int wrong;
+
+		/**
+		 * True, if training failed for this cell.
+		 */
+		private boolean failed;
+
+		/**
+		 * Construct a cell.
+		 * 
+		 * @param theC
+		 *            The C value.
+		 * @param theGamma
+		 *            The gamma value.
+		 */
+		public Cell(final double theC, final double theGamma) {
+			this.c = theC;
+			this.gamma = theGamma;
+		}
+
+		/**
+		 * @param regression
+		 *            True, if this is a regression SVM.
+		 * @return The error over the rows evaluated so far.
+		 */
+		public double getError(final boolean regression) {
+			if (this.failed || this.count == 0) {
+				return Double.NaN;
+			}
+			if (regression) {
+				return this.errorCalculation.calculate();
+			}
+			return (double) this.wrong / this.count;
+		}
+	}
 
 	/**
 	 * The default starting number for C.
@@ -124,14 +226,41 @@ public class SVMSearchTrain extends BasicTraining {
 	private double bestError;
 
 	/**
-	 * The current C.
+	 * The grid cells, gamma major, in the order they are searched.
+	 */
+	private final List<Cell> cells = new ArrayList<Cell>();
+
+	/**
+	 * The cells that are still being evaluated by successive halving.
+	 */
+	private List<Cell> remaining;
+
+	/**
+	 * The index of the next cell to evaluate, or, for successive halving,
+	 * the next fold to evaluate.
 	 */
-	private double currentConst;
+	private int next;
 
 	/**
-	 * The current gamma.
+	 * The problem to train on for each fold, or only the whole problem if
+	 * there are no folds.
 	 */
-	private double currentGamma;
+	private svm_problem[] foldTrain;
+
+	/**
+	 * The rows that each fold is evaluated on.
+	 */
+	private int[][] foldTest;
+
+	/**
+	 * The number of threads, zero for the processor count.
+	 */
+	private int threadCount;
+
+	/**
+	 * True, if successive halving should be used.
+	 */
+	private boolean successiveHalving;
 
 	/**
 	 * Is the network setup.
@@ -179,6 +308,7 @@ public boolean canContinue() {
 	 */
 	@Override
 	public void finishTraining() {
+		this.internalTrain.setThreadCount(this.threadCount);
 		this.internalTrain.setGamma(this.bestGamma);
 		this.internalTrain.setC(this.bestConst);
 		this.internalTrain.iteration();
@@ -263,53 +393,304 @@ public void iteration() {
 
 			preIteration();
 
-			this.internalTrain.setFold(this.fold);
-
 			if (this.network.getKernelType() == KernelType.RadialBasisFunction) {
-
-				this.internalTrain.setGamma(this.currentGamma);
-				this.internalTrain.setC(this.currentConst);
-				
-				double e = 0;
-				
+				if (this.successiveHalving) {
+					halvingIteration();
+				} else {
+					gridIteration();
+				}
+				setError(this.bestError);
+			} else {
+				this.internalTrain.setFold(this.fold);
+				this.internalTrain.setGamma(this.gammaBegin);
+				this.internalTrain.setC(this.constBegin);
 				this.internalTrain.iteration();
-				e = this.internalTrain.getError();
-				
-
-				//System.out.println(this.currentGamma + "," + this.currentConst
-				//		+ "," + e);
-
-				// new best error?
-				if (!Double.isNaN(e)) {
-					if (e < this.bestError) {
-						this.bestConst = this.currentConst;
-						this.bestGamma = this.currentGamma;
-						this.bestError = e;
-					}
+			}
+
+			postIteration();
+		}
+	}
+
+	/**
+	 * Evaluate the next batch of cells on every fold.
+	 */
+	private void gridIteration() {
+		final int threads;
+		if (this.threadCount == 0) {
+			threads = Math.max(1, EngineConcurrency.getInstance()
+					.getParallelism());
+		} else {
+			threads = this.threadCount;
+		}
+		final int batch = Math.min(this.cells.size() - this.next, threads);
+		final List<Cell> list = this.cells.subList(this.next, this.next
+				+ batch);
+		evaluate(list, 0, this.foldTrain.length);
+
+		// in grid order, so that ties go to the first cell, as if the cells
+		// had been evaluated one at a time
+		for (final Cell cell : list) {
+			updateBest(cell);
+		}
+
+		this.next += batch;
+		if (this.next >= this.cells.size()) {
+			this.trainingDone = true;
+		}
+	}
+
+	/**
+	 * Evaluate the next fold for the remaining cells, and keep the better
+	 * half of them.
+	 */
+	private void halvingIteration() {
+		final int foldIndex = this.next++;
+		evaluate(this.remaining, foldIndex, foldIndex + 1);
+
+		final boolean regression = isRegression();
+		final List<Cell> list = new ArrayList<Cell>();
+		for (final Cell cell : this.remaining) {
+			if (!Double.isNaN(cell.getError(regression))) {
+				list.add(cell);
+			}
+		}
+
+		if (this.next >= this.foldTrain.length) {
+			for (final Cell cell : list) {
+				updateBest(cell);
+			}
+			this.trainingDone = true;
+		} else {
+			// a stable sort, ties are kept in grid order
+			Collections.sort(list, new Comparator<Cell>() {
+				@Override
+				public int compare(final Cell a, final Cell b) {
+					return Double.compare(a.getError(regression),
+							b.getError(regression));
 				}
+			});
+			this.remaining = new ArrayList<Cell>(list.subList(0,
+					(list.size() + 1) / 2));
+			if (this.remaining.isEmpty()) {
+				this.trainingDone = true;
+			}
+		}
+	}
 
-				// advance
-				this.currentConst += this.constStep;
-				if (this.currentConst > this.constEnd) {
-					this.currentConst = this.constBegin;
-					this.currentGamma += this.gammaStep;
-					if (this.currentGamma > this.gammaEnd) {
-						this.trainingDone = true;
-					}
+	/**
+	 * Make a cell the best cell, if it has the lowest error so far.
+	 * 
+	 * @param cell
+	 *            The cell.
+	 */
+	private void updateBest(final Cell cell) {
+		final double e = cell.getError(isRegression());
+		if (!Double.isNaN(e) && e < this.bestError) {
+			this.bestConst = cell.c;
+			this.bestGamma = cell.gamma;
+			this.bestError = e;
+		}
+	}
 
+	/**
+	 * @return True, if the SVM is a regression SVM.
+	 */
+	private boolean isRegression() {
+		final int type = this.network.getParams().svm_type;
+		return type == svm_parameter.EPSILON_SVR
+				|| type == svm_parameter.NU_SVR;
+	}
+
+	/**
+	 * Evaluate a list of cells on a range of folds, one cell per thread.
+	 * 
+	 * @param list
+	 *            The cells to evaluate.
+	 * @param firstFold
+	 *            The first fold to evaluate.
+	 * @param lastFold
+	 *            The fold after the last fold to evaluate.
+	 */
+	private void evaluate(final List<Cell> list, final int firstFold,
+			final int lastFold) {
+		final RangeTask task = new RangeTask() {
+			@Override
+			public void run(final int low, final int high) {
+				for (int i = low; i <= high; i++) {
+					for (int f = firstFold; f < lastFold; f++) {
+						evaluate(list.get(i), f);
+					}
 				}
+			}
+		};
+
+		if (this.threadCount == 1) {
+			task.run(0, list.size() - 1);
+		} else if (this.threadCount == 0) {
+			EngineConcurrency.getInstance().processRange(0, list.size() - 1,
+					task);
+		} else {
+			final EngineConcurrency pool = new EngineConcurrency(
+					this.threadCount);
+			try {
+				pool.processRange(0, list.size() - 1, task);
+			} finally {
+				pool.shutdown(10000);
+			}
+		}
+	}
 
-				setError(this.bestError);
-			} else {
-				this.internalTrain.setGamma(this.currentGamma);
-				this.internalTrain.setC(this.currentConst);
-				this.internalTrain.iteration();
+	/**
+	 * Train a cell on one fold, and add the error on the rows of the fold
+	 * that were held out. Without folds, the cell is trained and evaluated
+	 * on the whole problem.
+	 * 
+	 * @param cell
+	 *            The cell.
+	 * @param foldIndex
+	 *            The fold.
+	 */
+	private void evaluate(final Cell cell, final int foldIndex) {
+		if (cell.failed) {
+			return;
+		}
+
+		final svm_parameter params = (svm_parameter) this.network.getParams()
+				.clone();
+		params.C = cell.c;
+		params.gamma = cell.gamma;
+		params.concurrency = null;
+		params.cache_stats = null;
+
+		final svm_problem problem = this.internalTrain.getProblem();
+		final svm_model model;
+		try {
+			model = svm.svm_train(this.foldTrain[foldIndex], params);
+		} catch (final RuntimeException e) {
+			cell.failed = true;
+			return;
+		}
+
+		final boolean regression = isRegression();
+		for (final int row : this.foldTest[foldIndex]) {
+			final double actual = svm.svm_predict(model, problem.x[row]);
+			final double ideal = problem.y[row];
+			if (regression) {
+				cell.errorCalculation.updateError(actual, ideal);
+			} else if ((int) actual != (int) ideal) {
+				cell.wrong++;
 			}
+			cell.count++;
+		}
+	}
 
-			postIteration();
+	/**
+	 * Split the problem into folds. Each row is held out by exactly one
+	 * fold. For classification, the rows of each class are spread evenly
+	 * over the folds.
+	 */
+	private void createFolds() {
+		final svm_problem problem = this.internalTrain.getProblem();
+		final int l = problem.l;
+
+		if (this.fold <= 1) {
+			this.foldTrain = new svm_problem[] { problem };
+			final int[] all = new int[l];
+			for (int i = 0; i < l; i++) {
+				all[i] = i;
+			}
+			this.foldTest = new int[][] { all };
+			return;
+		}
+
+		// group the rows, by class for classification
+		final Map<Double, List<Integer>> groups = new LinkedHashMap<Double, List<Integer>>();
+		for (int i = 0; i < l; i++) {
+			final Double key = isRegression() ? 0.0 : problem.y[i];
+			List<Integer> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				groups.put(key, group);
+			}
+			group.add(i);
+		}
+
+		// shuffle each group, and deal its rows to the folds in turn
+		final Random rnd = new Random(SVMSearchTrain.FOLD_SEED);
+		final int[] assigned = new int[l];
+		int dealt = 0;
+		for (final List<Integer> group : groups.values()) {
+			Collections.shuffle(group, rnd);
+			for (final int row : group) {
+				assigned[row] = dealt++ % this.fold;
+			}
+		}
+
+		this.foldTrain = new svm_problem[this.fold];
+		this.foldTest = new int[this.fold][];
+		for (int f = 0; f < this.fold; f++) {
+			int testCount = 0;
+			for (int i = 0; i < l; i++) {
+				if (assigned[i] == f) {
+					testCount++;
+				}
+			}
+
+			final svm_problem train = new svm_problem();
+			train.l = l - testCount;
+			train.x = new svm_node[train.l][];
+			train.y = new double[train.l];
+			final int[] test = new int[testCount];
+			int t = 0;
+			int k = 0;
+			for (int i = 0; i < l; i++) {
+				if (assigned[i] == f) {
+					test[t++] = i;
+				} else {
+					train.x[k] = problem.x[i];
+					train.y[k] = problem.y[i];
+					k++;
+				}
+			}
+			this.foldTrain[f] = train;
+			this.foldTest[f] = test;
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * @return True, if successive halving is used.
+	 */
+	public boolean isSuccessiveHalving() {
+		return this.successiveHalving;
+	}
+
+	/**
+	 * Set if successive halving should be used. This requires at least two
+	 * folds.
+	 * 
+	 * @param theSuccessiveHalving
+	 *            True, if successive halving should be used.
+	 */
+	public void setSuccessiveHalving(final boolean theSuccessiveHalving) {
+		this.successiveHalving = theSuccessiveHalving;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -387,16 +768,14 @@ public final void setGammaStep(final double theGammaStep) {
 	 */
 	private void setup() {
 
-		this.currentConst = this.constBegin;
-		this.currentGamma = this.gammaBegin;
 		this.bestError = Double.POSITIVE_INFINITY;
 		this.isSetup = true;
 		
-		if( this.currentGamma<=0 || this.currentGamma<Encog.DEFAULT_DOUBLE_EQUAL ) {
+		if( this.gammaBegin<=0 || this.gammaBegin<Encog.DEFAULT_DOUBLE_EQUAL ) {
 			throw new EncogError("SVM search training cannot use a gamma value less than zero.");
 		}
 		
-		if( this.currentConst<=0 || this.currentConst<Encog.DEFAULT_DOUBLE_EQUAL ) {
+		if( this.constBegin<=0 || this.constBegin<Encog.DEFAULT_DOUBLE_EQUAL ) {
 			throw new EncogError("SVM search training cannot use a const value less than zero.");
 		}
 		
@@ -407,6 +786,27 @@ private void setup() {
 		if( this.constStep<0 ) {
 			throw new EncogError("SVM search const step cannot use a const value less than zero.");
 		}
+
+		if( this.successiveHalving && this.fold<2 ) {
+			throw new EncogError("SVM successive halving search requires at least two folds.");
+		}
+
+		// the same values that stepping through the grid would produce,
+		// a step of zero only uses the beginning value
+		this.cells.clear();
+		double gamma = this.gammaBegin;
+		do {
+			double c = this.constBegin;
+			do {
+				this.cells.add(new Cell(c, gamma));
+				c += this.constStep;
+			} while (this.constStep > 0 && c <= this.constEnd);
+			gamma += this.gammaStep;
+		} while (this.gammaStep > 0 && gamma <= this.gammaEnd);
+
+		this.remaining = new ArrayList<Cell>(this.cells);
+		this.next = 0;
+		createFolds();
 	}
 
 	/**
@@ -27,6 +27,7 @@
 import org.encog.EncogError;
 import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_cache_stats;
 import org.encog.mathutil.libsvm.svm_parameter;
 import org.encog.mathutil.libsvm.svm_problem;
 import org.encog.ml.MLMethod;
@@ -36,12 +37,20 @@
 import org.encog.ml.train.BasicTraining;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
 import org.encog.util.Format;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.logging.EncogLogging;
 
 /**
  * Provides training for Support Vector Machine networks.
+ * 
+ * The rows of the kernel matrix are computed by several threads, and are
+ * kept in a cache, so that they do not need to be computed again. The cache
+ * is sized either in megabytes, by the cache_size of the SVM's parameters,
+ * or as a fraction of the maximum heap. The cache hit rate can be used to
+ * choose a size. Training is much faster if the whole kernel matrix fits.
  */
-public class SVMTrain extends BasicTraining {
+public class SVMTrain extends BasicTraining implements MultiThreadable {
 
 
 	/**
@@ -74,6 +83,23 @@ public class SVMTrain extends BasicTraining {
 	 */
 	private double c;
 
+	/**
+	 * The number of threads to compute kernel rows with, zero for the
+	 * processor count.
+	 */
+	private int threadCount;
+
+	/**
+	 * The fraction of the maximum heap to use for the kernel cache, or zero
+	 * to use the cache_size of the SVM's parameters.
+	 */
+	private double cacheHeapFraction;
+
+	/**
+	 * Counts the kernel cache requests.
+	 */
+	private final svm_cache_stats cacheStats = new svm_cache_stats();
+
 	/**
 	 * Construct a trainer for an SVM network.
 	 * 
@@ -192,10 +218,44 @@ public boolean isTrainingDone() {
 	@Override
 	public void iteration() {
 
-		this.network.getParams().C = this.c;
-		this.network.getParams().gamma = this.gamma;
+		final svm_parameter params = this.network.getParams();
+		params.C = this.c;
+		params.gamma = this.gamma;
 		EncogLogging.log(EncogLogging.LEVEL_INFO, "Training with parameters C = " + c + ", gamma = " + gamma);
 
+		// the cache size and threads only apply to this training, and are
+		// not kept with the model
+		final double cacheSize = params.cache_size;
+		if (this.cacheHeapFraction > 0) {
+			params.cache_size = this.cacheHeapFraction
+					* Runtime.getRuntime().maxMemory() / (1 << 20);
+		}
+
+		EngineConcurrency pool = null;
+		if (this.threadCount == 0) {
+			params.concurrency = EngineConcurrency.getInstance();
+		} else if (this.threadCount > 1) {
+			pool = new EngineConcurrency(this.threadCount);
+			params.concurrency = pool;
+		}
+		params.cache_stats = this.cacheStats;
+
+		try {
+			train();
+		} finally {
+			params.cache_size = cacheSize;
+			params.concurrency = null;
+			params.cache_stats = null;
+			if (pool != null) {
+				pool.shutdown(10000);
+			}
+		}
+	}
+
+	/**
+	 * Train or cross validate, with the parameters that iteration has set.
+	 */
+	private void train() {
 		if (this.fold > 1) {
 			// cross validate
 			final double[] target = new double[this.problem.l];
@@ -247,6 +307,60 @@ public void setC(final double theC) {
 		
 	}
 
+	/**
+	 * Set the fraction of the maximum heap to use for the kernel cache. This
+	 * overrides the cache_size of the SVM's parameters during training.
+	 * 
+	 * @param theCacheHeapFraction
+	 *            The fraction, between zero and one, or zero to use the
+	 *            cache_size of the SVM's parameters.
+	 */
+	public void setCacheHeapFraction(final double theCacheHeapFraction) {
+		if (theCacheHeapFraction < 0 || theCacheHeapFraction >= 1) {
+			throw new EncogError(
+					"The SVM cache heap fraction must be at least zero and less than one.");
+		}
+		this.cacheHeapFraction = theCacheHeapFraction;
+	}
+
+	/**
+	 * @return The fraction of the maximum heap to use for the kernel cache,
+	 *         or zero to use the cache_size of the SVM's parameters.
+	 */
+	public double getCacheHeapFraction() {
+		return this.cacheHeapFraction;
+	}
+
+	/**
+	 * @return The kernel cache requests, counted over every iteration.
+	 */
+	public svm_cache_stats getCacheStats() {
+		return this.cacheStats;
+	}
+
+	/**
+	 * @return The fraction of kernel rows that were found in the cache.
+	 */
+	public double getCacheHitRate() {
+		return this.cacheStats.getHitRate();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
 	/**
 	 * Set the number of folds.
 	 * 
@@ -41,8 +41,9 @@ public void calculateError(ActivationFunction af, double[] b, double[] a,
 			double[] ideal, double[] actual, double[] error, double derivShift, 
 			double significance) {
 		
+		af.derivativeFunction(b, a, error, 0, actual.length);
 		for(int i=0;i<actual.length;i++) {
-			double deriv = af.derivativeFunction(b[i],a[i]);// + derivShift;
+			double deriv = error[i];// + derivShift;
 			error[i] = (Math.atan(ideal[i] - actual[i]) *significance) * deriv;
 		}		
 	}
@@ -41,7 +41,9 @@ public interface ErrorFunction {
 	 *            The number "after" an activation function has been applied.
 	 * @param ideal The ideal values.
 	 * @param actual The actual values.
-	 * @param error The resulting error values.
+	 * @param error The resulting error values. Implementations may also use
+	 *            this array to hold the derivatives, so it must not be the
+	 *            same array as b or a.
 	 * @param derivShift The amount to shift af derivativeFunction by
 	 * @param significance Weighting to apply to ideal[i] - actual[i]
 	 */
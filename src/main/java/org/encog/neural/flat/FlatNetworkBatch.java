@@ -0,0 +1,281 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.neural.NeuralNetworkError;
+import org.encog.util.EngineArray;
+
+/**
+ * Computes a flat network over a block of records at once. The records are
+ * held row by row, in one contiguous array per layer. Each layer is then
+ * calculated as a single matrix-matrix product between the weights and the
+ * block, so the weights are streamed through the cache once per block,
+ * rather than once per record.
+ * 
+ * This produces the same outputs as FlatNetwork.compute, other than the
+ * rounding differences that come from summing in a different order. Only
+ * feedforward networks, without context neurons or dropout, are supported.
+ * See isSupported.
+ * 
+ * The layer numbering matches FlatNetwork, layer 0 is the output layer.
+ */
+public class FlatNetworkBatch {
+
+	/**
+	 * The network that is being computed.
+	 */
+	private final FlatNetwork network;
+
+	/**
+	 * The maximum number of records in a block.
+	 */
+	private final int blockSize;
+
+	/**
+	 * The output of each layer, one row per record.
+	 */
+	private final double[][] layerOutput;
+
+	/**
+	 * The sums of each layer, before activation, one row per record.
+	 */
+	private final double[][] layerSums;
+
+	/**
+	 * Determine if a network can be computed in blocks.
+	 * 
+	 * @param network
+	 *            The network to check.
+	 * @return True, if the network is supported.
+	 */
+	public static boolean isSupported(final FlatNetwork network) {
+		if (network.getClass() != FlatNetwork.class
+				|| network.getHasContext()) {
+			return false;
+		}
+
+		for (final double rate : network.getLayerDropoutRates()) {
+			if (rate != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Construct a block computation for the specified network.
+	 * 
+	 * @param theNetwork
+	 *            The network to compute.
+	 * @param theBlockSize
+	 *            The maximum number of records in a block.
+	 */
+	public FlatNetworkBatch(final FlatNetwork theNetwork,
+			final int theBlockSize) {
+		if (!isSupported(theNetwork)) {
+			throw new NeuralNetworkError(
+					"Block computation is only supported for feedforward networks without context or dropout.");
+		}
+
+		this.network = theNetwork;
+		this.blockSize = theBlockSize;
+
+		final int[] layerCounts = theNetwork.getLayerCounts();
+		final int[] layerIndex = theNetwork.getLayerIndex();
+		final double[] flatOutput = theNetwork.getLayerOutput();
+
+		this.layerOutput = new double[layerCounts.length][];
+		this.layerSums = new double[layerCounts.length][];
+
+		for (int i = 0; i < layerCounts.length; i++) {
+			this.layerOutput[i] = new double[theBlockSize * layerCounts[i]];
+			this.layerSums[i] = new double[theBlockSize * layerCounts[i]];
+
+			// the bias neurons never change, so they are set once for each row
+			for (int row = 0; row < theBlockSize; row++) {
+				EngineArray.arrayCopy(flatOutput, layerIndex[i],
+						this.layerOutput[i], row * layerCounts[i],
+						layerCounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Set the input for one record of the block.
+	 * 
+	 * @param row
+	 *            The row of the block.
+	 * @param input
+	 *            The input for the record.
+	 */
+	public void setInput(final int row, final double[] input) {
+		final int inputLayer = this.layerOutput.length - 1;
+		final int count = this.network.getLayerCounts()[inputLayer];
+		EngineArray.arrayCopy(input, 0, this.layerOutput[inputLayer], row
+				* count, this.network.getInputCount());
+	}
+
+	/**
+	 * Copy the output for one record of the block.
+	 * 
+	 * @param row
+	 *            The row of the block.
+	 * @param output
+	 *            The array to hold the output.
+	 */
+	public void getOutput(final int row, final double[] output) {
+		final int count = this.network.getLayerCounts()[0];
+		EngineArray.arrayCopy(this.layerOutput[0], row * count, output, 0,
+				this.network.getOutputCount());
+	}
+
+	/**
+	 * Compute a block of records. The input is held in one contiguous array,
+	 * inputCount values per record. The output is returned the same way,
+	 * outputCount values per record. Blocks larger than the block size are
+	 * processed in several passes.
+	 * 
+	 * @param input
+	 *            The input, count * inputCount values.
+	 * @param output
+	 *            The output, count * outputCount values.
+	 * @param count
+	 *            The number of records.
+	 */
+	public void compute(final double[] input, final double[] output,
+			final int count) {
+		final int inputCount = this.network.getInputCount();
+		final int outputCount = this.network.getOutputCount();
+		final int inputLayer = this.layerOutput.length - 1;
+		final int inputStride = this.network.getLayerCounts()[inputLayer];
+		final int outputStride = this.network.getLayerCounts()[0];
+
+		for (int start = 0; start < count; start += this.blockSize) {
+			final int rows = Math.min(this.blockSize, count - start);
+
+			for (int row = 0; row < rows; row++) {
+				EngineArray.arrayCopy(input, (start + row) * inputCount,
+						this.layerOutput[inputLayer], row * inputStride,
+						inputCount);
+			}
+
+			compute(rows);
+
+			for (int row = 0; row < rows; row++) {
+				EngineArray.arrayCopy(this.layerOutput[0], row * outputStride,
+						output, (start + row) * outputCount, outputCount);
+			}
+		}
+	}
+
+	/**
+	 * Compute the records that have been placed in the block with setInput.
+	 * 
+	 * @param rows
+	 *            The number of rows to compute, starting at row zero.
+	 */
+	public void compute(final int rows) {
+		for (int i = this.layerOutput.length - 1; i > 0; i--) {
+			computeLayer(i, rows);
+		}
+	}
+
+	/**
+	 * Calculate a layer for each row of the block.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param rows
+	 *            The number of rows.
+	 */
+	private void computeLayer(final int currentLayer, final int rows) {
+		final int inputSize = this.network.getLayerCounts()[currentLayer];
+		final int outputStride = this.network.getLayerCounts()[currentLayer - 1];
+		final int outputSize = this.network.getLayerFeedCounts()[currentLayer - 1];
+		final int weightIndex = this.network.getWeightIndex()[currentLayer - 1];
+
+		// array references are made method local to avoid one indirection
+		final double[] weights = this.network.getWeights();
+		final double[] input = this.layerOutput[currentLayer];
+		final double[] output = this.layerOutput[currentLayer - 1];
+		final double[] sums = this.layerSums[currentLayer - 1];
+
+		// each weight row stays in cache while it is applied to every record
+		for (int x = 0; x < outputSize; x++) {
+			final int wi = weightIndex + (x * inputSize);
+			for (int row = 0; row < rows; row++) {
+				final int ii = row * inputSize;
+				double sum = 0;
+				for (int y = 0; y < inputSize; y++) {
+					sum += weights[wi + y] * input[ii + y];
+				}
+				sums[(row * outputStride) + x] = sum;
+				output[(row * outputStride) + x] = sum;
+			}
+		}
+
+		for (int row = 0; row < rows; row++) {
+			this.network.getActivationFunctions()[currentLayer - 1]
+					.activationFunction(output, row * outputStride, outputSize);
+		}
+	}
+
+	/**
+	 * @return The maximum number of records in a block.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Get the output of a layer, one row per record.
+	 * 
+	 * @param layer
+	 *            The layer, 0 is the output layer.
+	 * @return The layer output.
+	 */
+	public double[] getLayerOutput(final int layer) {
+		return this.layerOutput[layer];
+	}
+
+	/**
+	 * Get the sums of a layer, before the activation function, one row per
+	 * record.
+	 * 
+	 * @param layer
+	 *            The layer, 0 is the output layer.
+	 * @return The layer sums.
+	 */
+	public double[] getLayerSums(final int layer) {
+		return this.layerSums[layer];
+	}
+
+	/**
+	 * @return The network being computed.
+	 */
+	public FlatNetwork getNetwork() {
+		return this.network;
+	}
+}
@@ -0,0 +1,425 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import java.io.Serializable;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.BoundMath;
+import org.encog.neural.NeuralNetworkError;
+
+/**
+ * A single-precision copy of a flat network. The weights, layer outputs and
+ * layer sums are held as float arrays, which halves the memory traffic of
+ * computing the network. This is most useful for scoring large amounts of
+ * data, which is usually limited by memory bandwidth rather than by the
+ * processor.
+ * 
+ * The structure of the network is taken from a FlatNetwork, and the weights
+ * can be copied back and forth with setWeights and copyWeightsTo. Only
+ * feedforward networks are supported, context neurons are not.
+ * 
+ * The common activation functions (linear, sigmoid and TANH) are calculated
+ * directly in single precision. Any other activation function is calculated
+ * through its double-precision implementation.
+ */
+public class FlatNetworkFloat implements Serializable {
+
+	/**
+	 * The serial ID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of input neurons.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of output neurons.
+	 */
+	private final int outputCount;
+
+	/**
+	 * The number of neurons in each layer, including bias.
+	 */
+	private final int[] layerCounts;
+
+	/**
+	 * The number of neurons in each layer that are fed by the previous layer.
+	 */
+	private final int[] layerFeedCounts;
+
+	/**
+	 * An index to where each layer begins.
+	 */
+	private final int[] layerIndex;
+
+	/**
+	 * An index to where the weights for each layer begin.
+	 */
+	private final int[] weightIndex;
+
+	/**
+	 * The dropout rates for each layer, may be empty.
+	 */
+	private final double[] layerDropoutRates;
+
+	/**
+	 * The activation functions.
+	 */
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * The weights.
+	 */
+	private final float[] weights;
+
+	/**
+	 * The outputs from each of the neurons.
+	 */
+	private final float[] layerOutput;
+
+	/**
+	 * The sums of each neuron, before the activation function.
+	 */
+	private final float[] layerSums;
+
+	/**
+	 * Used to calculate activation functions that have no single-precision
+	 * implementation.
+	 */
+	private final double[] scratch;
+
+	/**
+	 * Create a single-precision copy of a flat network.
+	 * 
+	 * @param network
+	 *            The network to copy.
+	 */
+	public FlatNetworkFloat(final FlatNetwork network) {
+		if (network.getClass() != FlatNetwork.class || network.getHasContext()) {
+			throw new NeuralNetworkError(
+					"Single precision is only supported for feedforward networks without context.");
+		}
+
+		this.inputCount = network.getInputCount();
+		this.outputCount = network.getOutputCount();
+		this.layerCounts = network.getLayerCounts().clone();
+		this.layerFeedCounts = network.getLayerFeedCounts().clone();
+		this.layerIndex = network.getLayerIndex().clone();
+		this.weightIndex = network.getWeightIndex().clone();
+		this.layerDropoutRates = network.getLayerDropoutRates().clone();
+
+		this.activationFunctions = new ActivationFunction[network
+				.getActivationFunctions().length];
+		for (int i = 0; i < this.activationFunctions.length; i++) {
+			this.activationFunctions[i] = network.getActivationFunctions()[i]
+					.clone();
+		}
+
+		this.weights = new float[network.getWeights().length];
+		setWeights(network.getWeights());
+
+		// the bias neurons are carried over from the double network
+		final double[] output = network.getLayerOutput();
+		this.layerOutput = new float[output.length];
+		for (int i = 0; i < output.length; i++) {
+			this.layerOutput[i] = (float) output[i];
+		}
+		this.layerSums = new float[output.length];
+
+		int max = 0;
+		for (final int count : this.layerCounts) {
+			max = Math.max(max, count);
+		}
+		this.scratch = new double[max];
+	}
+
+	/**
+	 * Calculate the output for the given input.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final float[] input, final float[] output) {
+		final int sourceIndex = this.layerOutput.length
+				- this.layerCounts[this.layerCounts.length - 1];
+
+		System.arraycopy(input, 0, this.layerOutput, sourceIndex,
+				this.inputCount);
+
+		for (int i = this.layerIndex.length - 1; i > 0; i--) {
+			computeLayer(i);
+		}
+
+		System.arraycopy(this.layerOutput, 0, output, 0, this.outputCount);
+	}
+
+	/**
+	 * Calculate the output for the given double-precision input.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		final int sourceIndex = this.layerOutput.length
+				- this.layerCounts[this.layerCounts.length - 1];
+
+		for (int i = 0; i < this.inputCount; i++) {
+			this.layerOutput[sourceIndex + i] = (float) input[i];
+		}
+
+		for (int i = this.layerIndex.length - 1; i > 0; i--) {
+			computeLayer(i);
+		}
+
+		for (int i = 0; i < this.outputCount; i++) {
+			output[i] = this.layerOutput[i];
+		}
+	}
+
+	/**
+	 * Calculate the output for a number of records. The input is held in one
+	 * contiguous array, inputCount values per record, and the output is
+	 * returned the same way, outputCount values per record.
+	 * 
+	 * @param input
+	 *            The input, count * inputCount values.
+	 * @param output
+	 *            The output, count * outputCount values.
+	 * @param count
+	 *            The number of records.
+	 */
+	public void compute(final float[] input, final float[] output,
+			final int count) {
+		final int sourceIndex = this.layerOutput.length
+				- this.layerCounts[this.layerCounts.length - 1];
+
+		for (int row = 0; row < count; row++) {
+			System.arraycopy(input, row * this.inputCount, this.layerOutput,
+					sourceIndex, this.inputCount);
+
+			for (int i = this.layerIndex.length - 1; i > 0; i--) {
+				computeLayer(i);
+			}
+
+			System.arraycopy(this.layerOutput, 0, output, row
+					* this.outputCount, this.outputCount);
+		}
+	}
+
+	/**
+	 * Calculate a layer.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 */
+	private void computeLayer(final int currentLayer) {
+		final int inputIndex = this.layerIndex[currentLayer];
+		final int outputIndex = this.layerIndex[currentLayer - 1];
+		final int inputSize = this.layerCounts[currentLayer];
+		final int outputSize = this.layerFeedCounts[currentLayer - 1];
+		final float scale;
+		if (this.layerDropoutRates.length > currentLayer - 1) {
+			scale = (float) (1 - this.layerDropoutRates[currentLayer - 1]);
+		} else {
+			scale = 1;
+		}
+
+		// array references are made method local to avoid one indirection
+		final float[] weights = this.weights;
+		final float[] layerOutput = this.layerOutput;
+		int index = this.weightIndex[currentLayer - 1];
+
+		final int limitX = outputIndex + outputSize;
+		final int limitY = inputIndex + inputSize;
+
+		for (int x = outputIndex; x < limitX; x++) {
+			float sum = 0;
+			for (int y = inputIndex; y < limitY; y++) {
+				sum += weights[index++] * layerOutput[y];
+			}
+			sum *= scale;
+			this.layerSums[x] = sum;
+			layerOutput[x] = sum;
+		}
+
+		activationFunction(this.activationFunctions[currentLayer - 1],
+				layerOutput, outputIndex, outputSize);
+	}
+
+	/**
+	 * Apply an activation function to a range of single-precision values.
+	 * 
+	 * @param af
+	 *            The activation function.
+	 * @param d
+	 *            The values.
+	 * @param start
+	 *            The first value.
+	 * @param size
+	 *            The number of values.
+	 */
+	private void activationFunction(final ActivationFunction af,
+			final float[] d, final int start, final int size) {
+		final int end = start + size;
+		if (af instanceof ActivationLinear) {
+			return;
+		} else if (af instanceof ActivationSigmoid) {
+			for (int i = start; i < end; i++) {
+				d[i] = (float) (1.0 / (1.0 + BoundMath.exp(-d[i])));
+			}
+		} else if (af instanceof ActivationTANH) {
+			for (int i = start; i < end; i++) {
+				d[i] = (float) Math.tanh(d[i]);
+			}
+		} else {
+			final double[] scratch = this.scratch;
+			for (int i = 0; i < size; i++) {
+				scratch[i] = d[start + i];
+			}
+			af.activationFunction(scratch, 0, size);
+			for (int i = 0; i < size; i++) {
+				d[start + i] = (float) scratch[i];
+			}
+		}
+	}
+
+	/**
+	 * Copy double-precision weights into this network.
+	 * 
+	 * @param source
+	 *            The weights to copy.
+	 */
+	public void setWeights(final double[] source) {
+		if (source.length != this.weights.length) {
+			throw new NeuralNetworkError("Size mismatch, can't copy "
+					+ source.length + " weights into a network with "
+					+ this.weights.length + " weights.");
+		}
+
+		for (int i = 0; i < source.length; i++) {
+			this.weights[i] = (float) source[i];
+		}
+	}
+
+	/**
+	 * Copy the weights of this network into a double-precision network with
+	 * the same structure.
+	 * 
+	 * @param target
+	 *            The network to copy the weights into.
+	 */
+	public void copyWeightsTo(final FlatNetwork target) {
+		final double[] dest = target.getWeights();
+		if (dest.length != this.weights.length) {
+			throw new NeuralNetworkError("Size mismatch, can't copy "
+					+ this.weights.length + " weights into a network with "
+					+ dest.length + " weights.");
+		}
+
+		for (int i = 0; i < dest.length; i++) {
+			dest[i] = this.weights[i];
+		}
+	}
+
+	/**
+	 * @return The activation functions.
+	 */
+	public ActivationFunction[] getActivationFunctions() {
+		return this.activationFunctions;
+	}
+
+	/**
+	 * @return The number of input neurons.
+	 */
+	public int getInputCount() {
+		return this.inputCount;
+	}
+
+	/**
+	 * @return The number of neurons in each layer, including bias.
+	 */
+	public int[] getLayerCounts() {
+		return this.layerCounts;
+	}
+
+	/**
+	 * @return The number of neurons in each layer that are fed by the
+	 *         previous layer.
+	 */
+	public int[] getLayerFeedCounts() {
+		return this.layerFeedCounts;
+	}
+
+	/**
+	 * @return An index to where each layer begins.
+	 */
+	public int[] getLayerIndex() {
+		return this.layerIndex;
+	}
+
+	/**
+	 * @return The outputs from each of the neurons.
+	 */
+	public float[] getLayerOutput() {
+		return this.layerOutput;
+	}
+
+	/**
+	 * @return The sums of each neuron, before the activation function.
+	 */
+	public float[] getLayerSums() {
+		return this.layerSums;
+	}
+
+	/**
+	 * @return The number of output neurons.
+	 */
+	public int getOutputCount() {
+		return this.outputCount;
+	}
+
+	/**
+	 * @return An index to where the weights for each layer begin.
+	 */
+	public int[] getWeightIndex() {
+		return this.weightIndex;
+	}
+
+	/**
+	 * @return The weights.
+	 */
+	public float[] getWeights() {
+		return this.weights;
+	}
+}
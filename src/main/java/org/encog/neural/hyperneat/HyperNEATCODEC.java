@@ -23,15 +23,13 @@
  */
 package org.encog.neural.hyperneat;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
 import org.encog.ml.MLMethod;
-import org.encog.ml.data.MLData;
-import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.ea.codec.GeneticCODEC;
 import org.encog.ml.ea.genome.Genome;
 import org.encog.ml.genetic.GeneticError;
@@ -45,9 +43,134 @@
 
 public class HyperNEATCODEC implements GeneticCODEC {
 
+	/**
+	 * The substrate links, in the form the CPPN is queried with. Built once
+	 * for a substrate and reused for every genome that is decoded against
+	 * it, until the substrate changes.
+	 */
+	private static class SubstrateCoordinates {
+
+		/**
+		 * The substrate that these coordinates were built from.
+		 */
+		private final Substrate substrate;
+
+		/**
+		 * The link count of the substrate, when these were built.
+		 */
+		private final int linkCount;
+
+		/**
+		 * The node count of the substrate, when these were built.
+		 */
+		private final int nodeCount;
+
+		/**
+		 * The CPPN input columns: the source location followed by the target
+		 * location. The substrate links come first, then one row for the
+		 * bias link of each biased node, with a source location of zero.
+		 */
+		private final double[][] columns;
+
+		/**
+		 * The rows in the order of the links of the decoded network, sorted
+		 * by source and then target neuron.
+		 */
+		private final int[] order;
+
+		/**
+		 * The source neuron of each row.
+		 */
+		private final int[] from;
+
+		/**
+		 * The target neuron of each row.
+		 */
+		private final int[] to;
+
+		/**
+		 * Build the coordinates of a substrate.
+		 * 
+		 * @param theSubstrate
+		 *            The substrate.
+		 */
+		public SubstrateCoordinates(final Substrate theSubstrate) {
+			this.substrate = theSubstrate;
+			this.linkCount = theSubstrate.getLinkCount();
+			this.nodeCount = theSubstrate.getNodeCount();
+
+			final int d = theSubstrate.getDimensions();
+			final List<SubstrateNode> biasedNodes = theSubstrate
+					.getBiasedNodes();
+			final int rows = this.linkCount + biasedNodes.size();
+			this.columns = new double[d * 2][rows];
+			this.from = new int[rows];
+			this.to = new int[rows];
+
+			int row = 0;
+			for (final SubstrateLink link : theSubstrate.getLinks()) {
+				final double[] source = link.getSource().getLocation();
+				final double[] target = link.getTarget().getLocation();
+				for (int i = 0; i < d; i++) {
+					this.columns[i][row] = source[i];
+					this.columns[d + i][row] = target[i];
+				}
+				this.from[row] = link.getSource().getId();
+				this.to[row] = link.getTarget().getId();
+				row++;
+			}
+			for (final SubstrateNode target : biasedNodes) {
+				for (int i = 0; i < d; i++) {
+					this.columns[d + i][row] = target.getLocation()[i];
+				}
+				this.to[row] = target.getId();
+				row++;
+			}
+
+			// a stable sort, the same order the links would have if they
+			// were sorted after they were created
+			final Integer[] sorted = new Integer[rows];
+			for (int i = 0; i < rows; i++) {
+				sorted[i] = i;
+			}
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				@Override
+				public int compare(final Integer a, final Integer b) {
+					final int result = SubstrateCoordinates.this.from[a]
+							- SubstrateCoordinates.this.from[b];
+					if (result != 0) {
+						return result;
+					}
+					return SubstrateCoordinates.this.to[a]
+							- SubstrateCoordinates.this.to[b];
+				}
+			});
+			this.order = new int[rows];
+			for (int i = 0; i < rows; i++) {
+				this.order[i] = sorted[i];
+			}
+		}
+
+		/**
+		 * @param theSubstrate
+		 *            A substrate.
+		 * @return True, if these coordinates are current for the substrate.
+		 */
+		public boolean isValid(final Substrate theSubstrate) {
+			return this.substrate == theSubstrate
+					&& this.linkCount == theSubstrate.getLinkCount()
+					&& this.nodeCount == theSubstrate.getNodeCount();
+		}
+	}
+
 	private double minWeight = 0.2;
 	private double maxWeight = 5.0;
 
+	/**
+	 * The coordinates of the last substrate decoded against.
+	 */
+	private transient volatile SubstrateCoordinates coordinates;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -58,77 +181,87 @@ public MLMethod decode(final Genome genome) {
 		return decode(pop, substrate, genome);
 	}
 
+	/**
+	 * Decode a genome against a substrate. The CPPN is computed for every
+	 * link of the substrate in one batch, and the links of the network are
+	 * created directly in their sorted order.
+	 * 
+	 * @param pop
+	 *            The population.
+	 * @param substrate
+	 *            The substrate.
+	 * @param genome
+	 *            The genome, which is the CPPN.
+	 * @return The network, or null if it would have no links.
+	 */
 	public MLMethod decode(final NEATPopulation pop, final Substrate substrate,
 			final Genome genome) {
 		// obtain the CPPN
 		final NEATCODEC neatCodec = new NEATCODEC();
 		final NEATNetwork cppn = (NEATNetwork) neatCodec.decode(genome);
 
-		final List<NEATLink> linkList = new ArrayList<NEATLink>();
-
-		final ActivationFunction[] afs = new ActivationFunction[substrate
-				.getNodeCount()];
-
-		final ActivationFunction af = new ActivationSteepenedSigmoid();
-		// all activation functions are the same
-		for (int i = 0; i < afs.length; i++) {
-			afs[i] = af;
+		SubstrateCoordinates coords = this.coordinates;
+		if (coords == null || !coords.isValid(substrate)) {
+			coords = new SubstrateCoordinates(substrate);
+			this.coordinates = coords;
 		}
 
-		final double c = this.maxWeight / (1.0 - this.minWeight);
-		final MLData input = new BasicMLData(cppn.getInputCount());
+		final int rows = coords.from.length;
+		final double[][] input = new double[cppn.getInputCount()][];
+		for (int i = 0; i < input.length; i++) {
+			input[i] = i < coords.columns.length ? coords.columns[i]
+					: new double[rows];
+		}
 
-		// First create all of the non-bias links.
-		for (final SubstrateLink link : substrate.getLinks()) {
-			final SubstrateNode source = link.getSource();
-			final SubstrateNode target = link.getTarget();
+		// output 0 is the weight of a link, output 1 is the weight of a bias
+		final double[] linkOutput = new double[rows];
+		final double[] biasOutput = new double[rows];
+		final double[][] output = new double[cppn.getOutputCount()][];
+		output[0] = linkOutput;
+		output[1] = biasOutput;
+		cppn.compute(input, output, rows);
 
-			int index = 0;
-			for (final double d : source.getLocation()) {
-				input.setData(index++, d);
-			}
-			for (final double d : target.getLocation()) {
-				input.setData(index++, d);
-			}
-			final MLData output = cppn.compute(input);
-
-			double weight = output.getData(0);
+		final double c = this.maxWeight / (1.0 - this.minWeight);
+		final double[] weights = linkOutput;
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			double weight = row < coords.linkCount ? linkOutput[row]
+					: biasOutput[row];
 			if (Math.abs(weight) > this.minWeight) {
 				weight = (Math.abs(weight) - this.minWeight) * c
 						* Math.signum(weight);
-				linkList.add(new NEATLink(source.getId(), target.getId(),
-						weight));
+				count++;
+			} else {
+				weight = Double.NaN;
 			}
+			weights[row] = weight;
 		}
 
-		// now create biased links
-		input.clear();
-		final int d = substrate.getDimensions();
-		final List<SubstrateNode> biasedNodes = substrate.getBiasedNodes();
-		for (final SubstrateNode target : biasedNodes) {
-			for (int i = 0; i < d; i++) {
-				input.setData(d + i, target.getLocation()[i]);
-			}
-
-			final MLData output = cppn.compute(input);
+		// check for invalid neural network
+		if (count == 0) {
+			return null;
+		}
 
-			double biasWeight = output.getData(1);
-			if (Math.abs(biasWeight) > this.minWeight) {
-				biasWeight = (Math.abs(biasWeight) - this.minWeight) * c
-						* Math.signum(biasWeight);
-				linkList.add(new NEATLink(0, target.getId(), biasWeight));
+		final NEATLink[] links = new NEATLink[count];
+		int index = 0;
+		for (final int row : coords.order) {
+			if (!Double.isNaN(weights[row])) {
+				links[index++] = new NEATLink(coords.from[row],
+						coords.to[row], weights[row]);
 			}
 		}
 
-		// check for invalid neural network
-		if (linkList.size() == 0) {
-			return null;
-		}
+		final ActivationFunction[] afs = new ActivationFunction[substrate
+				.getNodeCount()];
 
-		Collections.sort(linkList);
+		final ActivationFunction af = new ActivationSteepenedSigmoid();
+		// all activation functions are the same
+		for (int i = 0; i < afs.length; i++) {
+			afs[i] = af;
+		}
 
 		final NEATNetwork network = new NEATNetwork(substrate.getInputCount(),
-				substrate.getOutputCount(), linkList, afs);
+				substrate.getOutputCount(), links, afs);
 
 		network.setActivationCycles(substrate.getActivationCycles());
 		return network;
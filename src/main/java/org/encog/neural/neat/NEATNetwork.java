@@ -44,6 +44,13 @@
  * snapshot handles recurrent layers better, as it takes the time to loop
  * through the network multiple times to "flush out" the recurrent links.
  * 
+ * The links are compiled when the network is constructed. They are stored as
+ * parallel arrays, sorted by target neuron. If the network has no recurrent
+ * links, and its longest path is no longer than the number of activation
+ * cycles, the neurons are computed in a single pass in topological order.
+ * This gives exactly the same output as cycling the whole network. Otherwise
+ * the network is cycled activationCycles times, as before.
+ * 
  * NeuroEvolution of Augmenting Topologies (NEAT) is a genetic algorithm for the
  * generation of evolving artificial neural networks. It was developed by Ken
  * Stanley while at The University of Texas at Austin.
@@ -75,6 +82,11 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	private static final long serialVersionUID = 3660295468309926508L;
 
+	/**
+	 * The number of rows computed together by a batch compute.
+	 */
+	public static final int BATCH_BLOCK_SIZE = 256;
+
 	/**
 	 * The neuron links.
 	 */
@@ -127,6 +139,39 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	private double relaxationThreshold;
 
+	/**
+	 * The source neuron of each link, with the links sorted by target neuron.
+	 */
+	private transient int[] linkFrom;
+
+	/**
+	 * The target neuron of each link, with the links sorted by target neuron.
+	 */
+	private transient int[] linkTo;
+
+	/**
+	 * The weight of each link, with the links sorted by target neuron.
+	 */
+	private transient double[] linkWeight;
+
+	/**
+	 * The index of the first incoming link of each neuron, in the sorted
+	 * links. The last element is the number of links.
+	 */
+	private transient int[] linkStart;
+
+	/**
+	 * The neurons after the input neurons, in topological order. Null if the
+	 * network has recurrent links.
+	 */
+	private transient int[] evaluationOrder;
+
+	/**
+	 * The number of links on the longest path from an input neuron, or the
+	 * bias, to any other neuron. Only used if evaluationOrder is not null.
+	 */
+	private transient int depth;
+
 	/**
 	 * Construct a NEAT network. The links that are passed in also define the
 	 * neurons.
@@ -143,10 +188,28 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	public NEATNetwork(final int inputNeuronCount, final int outputNeuronCount,
 			final List<NEATLink> connectionArray,
 			final ActivationFunction[] theActivationFunctions) {
-		this.links = new NEATLink[connectionArray.size()];
-		for (int i = 0; i < connectionArray.size(); i++) {
-			this.links[i] = connectionArray.get(i);
-		}
+		this(inputNeuronCount, outputNeuronCount, connectionArray
+				.toArray(new NEATLink[connectionArray.size()]),
+				theActivationFunctions);
+	}
+
+	/**
+	 * Construct a NEAT network from an array of links, which is used by the
+	 * network as is. The links also define the neurons.
+	 * 
+	 * @param inputNeuronCount
+	 *            The input neuron count.
+	 * @param outputNeuronCount
+	 *            The output neuron count.
+	 * @param theLinks
+	 *            The links.
+	 * @param theActivationFunctions
+	 *            The activation functions.
+	 */
+	public NEATNetwork(final int inputNeuronCount, final int outputNeuronCount,
+			final NEATLink[] theLinks,
+			final ActivationFunction[] theActivationFunctions) {
+		this.links = theLinks;
 
 		this.activationFunctions = theActivationFunctions;
 		final int neuronCount = this.activationFunctions.length;
@@ -160,6 +223,103 @@ public NEATNetwork(final int inputNeuronCount, final int outputNeuronCount,
 
 		// bias
 		this.postActivation[0] = 1.0;
+
+		compile();
+	}
+
+	/**
+	 * Compile the links into the arrays that are used to compute the network.
+	 * This is done when the network is constructed, and must be done again
+	 * if the links are changed after that.
+	 */
+	public void compile() {
+		final int neuronCount = this.preActivation.length;
+		final int linkCount = this.links.length;
+
+		// sort the links by target neuron, keeping the order of the links
+		// into each neuron, so that the sums are the same as before
+		final int[] start = new int[neuronCount + 1];
+		for (final NEATLink link : this.links) {
+			start[link.getToNeuron() + 1]++;
+		}
+		for (int i = 0; i < neuronCount; i++) {
+			start[i + 1] += start[i];
+		}
+
+		final int[] from = new int[linkCount];
+		final int[] to = new int[linkCount];
+		final double[] weight = new double[linkCount];
+		final int[] next = EngineArray.arrayCopy(start);
+		for (final NEATLink link : this.links) {
+			final int index = next[link.getToNeuron()]++;
+			from[index] = link.getFromNeuron();
+			to[index] = link.getToNeuron();
+			weight[index] = link.getWeight();
+		}
+
+		// sort the neurons topologically. Links into the input neurons are
+		// ignored, as they never change the output of the network.
+		final int[] inDegree = new int[neuronCount];
+		for (int i = 0; i < linkCount; i++) {
+			if (from[i] >= this.outputIndex) {
+				inDegree[to[i]]++;
+			}
+		}
+
+		final int[] order = new int[neuronCount - this.outputIndex];
+		int tail = 0;
+		for (int i = this.outputIndex; i < neuronCount; i++) {
+			if (inDegree[i] == 0) {
+				order[tail++] = i;
+			}
+		}
+
+		// the outgoing links are only needed here, so index them by source
+		final int[] outStart = new int[neuronCount + 1];
+		for (int i = 0; i < linkCount; i++) {
+			outStart[from[i] + 1]++;
+		}
+		for (int i = 0; i < neuronCount; i++) {
+			outStart[i + 1] += outStart[i];
+		}
+		final int[] outTarget = new int[linkCount];
+		final int[] outNext = EngineArray.arrayCopy(outStart);
+		for (int i = 0; i < linkCount; i++) {
+			outTarget[outNext[from[i]]++] = to[i];
+		}
+
+		for (int head = 0; head < tail; head++) {
+			final int neuron = order[head];
+			for (int i = outStart[neuron]; i < outStart[neuron + 1]; i++) {
+				final int target = outTarget[i];
+				if (target >= this.outputIndex && --inDegree[target] == 0) {
+					order[tail++] = target;
+				}
+			}
+		}
+
+		this.linkFrom = from;
+		this.linkTo = to;
+		this.linkWeight = weight;
+		this.linkStart = start;
+
+		if (tail == order.length) {
+			final int[] neuronDepth = new int[neuronCount];
+			int maxDepth = 0;
+			for (final int neuron : order) {
+				int d = 0;
+				for (int i = start[neuron]; i < start[neuron + 1]; i++) {
+					d = Math.max(d, neuronDepth[from[i]]);
+				}
+				neuronDepth[neuron] = d + 1;
+				maxDepth = Math.max(maxDepth, d + 1);
+			}
+			this.evaluationOrder = order;
+			this.depth = maxDepth;
+		} else {
+			this.evaluationOrder = null;
+			this.depth = 0;
+		}
 	}
 
 	/**
@@ -184,26 +344,129 @@ public double calculateError(final MLDataSet data) {
 	@Override
 	public MLData compute(final MLData input) {
 		final MLData result = new BasicMLData(this.outputCount);
+		compute(input.getData(), result.getData());
+		return result;
+	}
 
-		// clear from previous
-		EngineArray.fill(this.preActivation, 0.0);
-		EngineArray.fill(this.postActivation, 0.0);
-		this.postActivation[0] = 1.0;
-
-		// copy input
-		EngineArray.arrayCopy(input.getData(), 0, this.postActivation, 1,
-				this.inputCount);
+	/**
+	 * Compute the output of the network, without allocating any objects.
+	 * 
+	 * @param input
+	 *            The input to the network.
+	 * @param output
+	 *            Receives the output of the network.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		if (this.linkFrom == null) {
+			// deserialized, the compiled links are not saved
+			compile();
+		}
 
-		// iterate through the network activationCycles times
-		for (int i = 0; i < this.activationCycles; ++i) {
-			internalCompute();
+		if (isSinglePass()) {
+			// every neuron after the inputs is set by the single pass
+			this.postActivation[0] = 1.0;
+			EngineArray.arrayCopy(input, 0, this.postActivation, 1,
+					this.inputCount);
+			singlePassCompute();
+		} else {
+			// clear from previous
+			EngineArray.fill(this.preActivation, 0.0);
+			EngineArray.fill(this.postActivation, 0.0);
+			this.postActivation[0] = 1.0;
+
+			// copy input
+			EngineArray.arrayCopy(input, 0, this.postActivation, 1,
+					this.inputCount);
+
+			// iterate through the network activationCycles times
+			for (int i = 0; i < this.activationCycles; ++i) {
+				internalCompute();
+			}
 		}
 
 		// copy output
-		EngineArray.arrayCopy(this.postActivation, this.outputIndex,
-				result.getData(), 0, this.outputCount);
+		EngineArray.arrayCopy(this.postActivation, this.outputIndex, output,
+				0, this.outputCount);
+	}
 
-		return result;
+	/**
+	 * Compute the network for many rows at once. The data is held by column,
+	 * one array per input or output neuron, and row i of the batch is
+	 * element i of every column. If the network can be computed in a single
+	 * pass, each link is applied to a block of rows at a time; otherwise the
+	 * rows are computed one by one. Either way the results are the same as
+	 * computing each row on its own.
+	 * 
+	 * @param input
+	 *            The input columns, one for each input neuron.
+	 * @param output
+	 *            The output columns, one for each output neuron. A null
+	 *            column is not copied.
+	 * @param rowCount
+	 *            The number of rows to compute.
+	 */
+	public void compute(final double[][] input, final double[][] output,
+			final int rowCount) {
+		if (this.linkFrom == null) {
+			compile();
+		}
+
+		if (!isSinglePass()) {
+			final double[] rowInput = new double[this.inputCount];
+			final double[] rowOutput = new double[this.outputCount];
+			for (int row = 0; row < rowCount; row++) {
+				for (int i = 0; i < this.inputCount; i++) {
+					rowInput[i] = input[i][row];
+				}
+				compute(rowInput, rowOutput);
+				for (int i = 0; i < this.outputCount; i++) {
+					if (output[i] != null) {
+						output[i][row] = rowOutput[i];
+					}
+				}
+			}
+			return;
+		}
+
+		final int[] from = this.linkFrom;
+		final double[] weight = this.linkWeight;
+		final int[] start = this.linkStart;
+		final int blockSize = Math.min(BATCH_BLOCK_SIZE, rowCount);
+		final double[][] values = new double[this.preActivation.length][blockSize];
+		EngineArray.fill(values[0], 1.0);
+
+		for (int first = 0; first < rowCount; first += blockSize) {
+			final int size = Math.min(blockSize, rowCount - first);
+			for (int i = 0; i < this.inputCount; i++) {
+				EngineArray.arrayCopy(input[i], first, values[i + 1], 0, size);
+			}
+
+			// the same sums as singlePassCompute, for each row of the block
+			for (final int neuron : this.evaluationOrder) {
+				final double[] sum = values[neuron];
+				EngineArray.fill(sum, 0.0);
+				for (int i = start[neuron]; i < start[neuron + 1]; i++) {
+					final double[] source = values[from[i]];
+					final double w = weight[i];
+					for (int row = 0; row < size; row++) {
+						sum[row] += source[row] * w;
+					}
+				}
+				// one row at a time, some activation functions, such as
+				// softmax, would treat a range as a single layer
+				final ActivationFunction af = this.activationFunctions[neuron];
+				for (int row = 0; row < size; row++) {
+					af.activationFunction(sum, row, 1);
+				}
+			}
+
+			for (int i = 0; i < this.outputCount; i++) {
+				if (output[i] != null) {
+					EngineArray.arrayCopy(values[this.outputIndex + i], 0,
+							output[i], first, size);
+				}
+			}
+		}
 	}
 
 	/**
@@ -276,9 +539,12 @@ public double getRelaxationThreshold() {
 	 * Perform one activation cycle.
 	 */
 	private void internalCompute() {
-		for (int j = 0; j < this.links.length; j++) {
-			this.preActivation[this.links[j].getToNeuron()] += this.postActivation[this.links[j]
-					.getFromNeuron()] * this.links[j].getWeight();
+		final int[] from = this.linkFrom;
+		final int[] to = this.linkTo;
+		final double[] weight = this.linkWeight;
+		for (int j = 0; j < from.length; j++) {
+			this.preActivation[to[j]] += this.postActivation[from[j]]
+					* weight[j];
 		}
 
 		for (int j = this.outputIndex; j < this.preActivation.length; j++) {
@@ -289,6 +555,44 @@ private void internalCompute() {
 		}
 	}
 
+	/**
+	 * Compute every neuron once, in topological order. Only used if the
+	 * network has no recurrent links.
+	 */
+	private void singlePassCompute() {
+		final int[] from = this.linkFrom;
+		final double[] weight = this.linkWeight;
+		final int[] start = this.linkStart;
+		for (final int neuron : this.evaluationOrder) {
+			double sum = 0;
+			for (int i = start[neuron]; i < start[neuron + 1]; i++) {
+				sum += this.postActivation[from[i]] * weight[i];
+			}
+			this.postActivation[neuron] = sum;
+			this.activationFunctions[neuron].activationFunction(
+					this.postActivation, neuron, 1);
+		}
+	}
+
+	/**
+	 * @return True, if the network has no recurrent links.
+	 */
+	public boolean isFeedForward() {
+		if (this.linkFrom == null) {
+			compile();
+		}
+		return this.evaluationOrder != null;
+	}
+
+	/**
+	 * @return True, if compute will use a single pass, in topological order.
+	 *         This is the case if the network has no recurrent links, and
+	 *         activationCycles is enough to carry the input to every neuron.
+	 */
+	public boolean isSinglePass() {
+		return isFeedForward() && this.depth <= this.activationCycles;
+	}
+
 	/**
 	 * @return True, if the network has relaxed and values no longer changing.
 	 *         Used when activationCycles is set to zero for auto.
@@ -25,6 +25,7 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +37,7 @@
 import org.encog.mathutil.randomize.RangeRandomizer;
 import org.encog.ml.ea.genome.BasicGenome;
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.genome.StructuralGenome;
 import org.encog.neural.neat.NEATNeuronType;
 import org.encog.neural.neat.NEATPopulation;
 import org.encog.util.Format;
@@ -57,7 +59,8 @@
  * Automatic feature selection in neuroevolution
  * 
  */
-public class NEATGenome extends BasicGenome implements Cloneable, Serializable {
+public class NEATGenome extends BasicGenome implements Cloneable,
+		Serializable, StructuralGenome {
 
 	/**
 	 * Serial id.
@@ -89,6 +92,18 @@ public class NEATGenome extends BasicGenome implements Cloneable, Serializable {
 	 */
 	private int outputCount;
 
+	/**
+	 * The innovation ids of the link genes, in gene order. Built by
+	 * buildInnovationIndex, null if there is no index.
+	 */
+	private transient long[] indexedInnovations;
+
+	/**
+	 * The weights of the link genes, in gene order. Built with the innovation
+	 * ids.
+	 */
+	private transient double[] indexedWeights;
+
 	/**
 	 * Construct a genome by copying another.
 	 * 
@@ -270,6 +285,47 @@ public void setNetworkDepth(final int networkDepth) {
 		this.networkDepth = networkDepth;
 	}
 
+	/**
+	 * Copy the innovation ids and weights of the link genes into arrays, so
+	 * that genomes can be compared without walking the gene objects. The
+	 * index is a snapshot. Code that changes the link genes of a genome that
+	 * has already been speciated must call clearInnovationIndex.
+	 */
+	public void buildInnovationIndex() {
+		final int count = this.linksList.size();
+		final long[] innovations = new long[count];
+		final double[] weights = new double[count];
+		for (int i = 0; i < count; i++) {
+			final NEATLinkGene gene = this.linksList.get(i);
+			innovations[i] = gene.getInnovationId();
+			weights[i] = gene.getWeight();
+		}
+		this.indexedWeights = weights;
+		this.indexedInnovations = innovations;
+	}
+
+	/**
+	 * Discard the innovation index.
+	 */
+	public void clearInnovationIndex() {
+		this.indexedInnovations = null;
+		this.indexedWeights = null;
+	}
+
+	/**
+	 * @return The innovation ids from the last buildInnovationIndex, or null.
+	 */
+	public long[] getIndexedInnovations() {
+		return this.indexedInnovations;
+	}
+
+	/**
+	 * @return The link weights from the last buildInnovationIndex, or null.
+	 */
+	public double[] getIndexedWeights() {
+		return this.indexedWeights;
+	}
+
 	/**
 	 * Sort the genes.
 	 */
@@ -369,6 +425,45 @@ public NEATNeuronGene findNeuron(long nodeID) {
 		return null;
 	}
 
+	/**
+	 * The structural key lists the neurons, with their activation functions,
+	 * and the enabled links, with their exact weights. Disabled links are left
+	 * out, they do not become part of the network.
+	 * 
+	 * @return The structural key for this genome.
+	 */
+	@Override
+	public String getStructuralKey() {
+		final StringBuilder result = new StringBuilder();
+		result.append(this.inputCount);
+		result.append(':');
+		result.append(this.outputCount);
+		for (final NEATNeuronGene gene : this.neuronsList) {
+			result.append("|n");
+			result.append(gene.getId());
+			result.append(':');
+			result.append(gene.getNeuronType().ordinal());
+			final ActivationFunction af = gene.getActivationFunction();
+			if (af != null) {
+				result.append(':');
+				result.append(af.getClass().getName());
+				result.append(Arrays.toString(af.getParams()));
+			}
+		}
+		for (final NEATLinkGene gene : this.linksList) {
+			if (gene.isEnabled()) {
+				result.append("|l");
+				result.append(gene.getFromNeuronID());
+				result.append(':');
+				result.append(gene.getToNeuronID());
+				result.append(':');
+				result.append(Long.toHexString(Double
+						.doubleToLongBits(gene.getWeight())));
+			}
+		}
+		return result.toString();
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder result = new StringBuilder();
@@ -0,0 +1,454 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.neat.training;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.encog.EncogError;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.Population;
+import org.encog.ml.ea.train.island.GenomeTransfer;
+import org.encog.neural.neat.NEATNeuronType;
+import org.encog.neural.neat.NEATPopulation;
+
+/**
+ * Transfers NEAT genomes between islands in a compact binary form. Each
+ * population numbers its own innovations, so the genes are renumbered for the
+ * target population.
+ * 
+ * The bias, input and output neurons, and the links the initial population is
+ * created with, are numbered the same way by every population of the same
+ * shape, so they keep their numbers. A hidden neuron is identified by the link
+ * it was created by splitting, so each hidden neuron is sent along with the
+ * ends of that link, and is looked up, or created, as a split of the same link
+ * in the target population. Other links are then looked up by their ends.
+ * 
+ * Activation functions are sent by their name in the
+ * org.encog.engine.network.activation package, in the same way as they are
+ * persisted, and no other classes are loaded.
+ */
+public class NEATGenomeTransfer implements GenomeTransfer {
+
+	/**
+	 * The prefix of the keys of split innovations.
+	 */
+	private static final String SPLIT_PREFIX = "ns:";
+
+	/**
+	 * The package that activation functions are loaded from.
+	 */
+	private static final String ACTIVATION_PACKAGE = "org.encog.engine.network.activation.";
+
+	/**
+	 * The most genomes, or genes of one genome, that will be read.
+	 */
+	public static final int MAX_COUNT = 1000000;
+
+	/**
+	 * Find the link that each hidden neuron of a population was created by
+	 * splitting.
+	 * 
+	 * @param pop
+	 *            The population.
+	 * @return The from and to neuron of the split link, by hidden neuron id.
+	 */
+	private static Map<Long, long[]> findSplits(final NEATPopulation pop) {
+		final Map<Long, long[]> result = new HashMap<Long, long[]>();
+		final Map<String, NEATInnovation> innovations = pop.getInnovations()
+				.getInnovations();
+		synchronized (innovations) {
+			for (final Map.Entry<String, NEATInnovation> entry : innovations
+					.entrySet()) {
+				final String key = entry.getKey();
+				if (key.startsWith(SPLIT_PREFIX)) {
+					final int split = key.indexOf(':', SPLIT_PREFIX.length());
+					final long from = Long.parseLong(key.substring(
+							SPLIT_PREFIX.length(), split));
+					final long to = Long.parseLong(key.substring(split + 1));
+					result.put(entry.getValue().getNeuronID(), new long[] {
+							from, to });
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Determine how many innovation numbers every population of a shape
+	 * assigns in the same way.
+	 * 
+	 * @param inputCount
+	 *            The input count.
+	 * @param outputCount
+	 *            The output count.
+	 * @return The number of shared innovation numbers.
+	 */
+	private static long sharedInnovations(final int inputCount,
+			final int outputCount) {
+		return (1 + inputCount + outputCount)
+				+ ((long) (inputCount + 1) * outputCount);
+	}
+
+	/**
+	 * Add a hidden neuron, and the neurons it was split from, to the splits
+	 * that must be sent.
+	 * 
+	 * @param id
+	 *            The neuron id.
+	 * @param splits
+	 *            The splits of the source population.
+	 * @param needed
+	 *            The splits to send.
+	 */
+	private static void addSplit(final long id, final Map<Long, long[]> splits,
+			final Map<Long, long[]> needed) {
+		if (needed.containsKey(id)) {
+			return;
+		}
+		final long[] split = splits.get(id);
+		if (split == null) {
+			// not a hidden neuron
+			return;
+		}
+		needed.put(id, split);
+		addSplit(split[0], splits, needed);
+		addSplit(split[1], splits, needed);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final List<Genome> genomes, final DataOutput out)
+			throws IOException {
+		final Map<NEATPopulation, Map<Long, long[]>> splitsByPopulation = new IdentityHashMap<NEATPopulation, Map<Long, long[]>>();
+
+		out.writeInt(genomes.size());
+		for (final Genome g : genomes) {
+			final NEATGenome genome = (NEATGenome) g;
+			final NEATPopulation pop = (NEATPopulation) genome.getPopulation();
+			Map<Long, long[]> splits = splitsByPopulation.get(pop);
+			if (splits == null) {
+				splits = findSplits(pop);
+				splitsByPopulation.put(pop, splits);
+			}
+
+			out.writeInt(genome.getInputCount());
+			out.writeInt(genome.getOutputCount());
+
+			final Map<Long, long[]> needed = new LinkedHashMap<Long, long[]>();
+			out.writeInt(genome.getNeuronsChromosome().size());
+			for (final NEATNeuronGene gene : genome.getNeuronsChromosome()) {
+				out.writeLong(gene.getId());
+				out.writeLong(gene.getInnovationId());
+				out.writeUTF(gene.getNeuronType().name());
+				writeActivationFunction(gene.getActivationFunction(), out);
+				if (gene.getNeuronType() == NEATNeuronType.Hidden) {
+					if (!splits.containsKey(gene.getId())) {
+						throw new EncogError("Hidden neuron " + gene.getId()
+								+ " has no split innovation.");
+					}
+					addSplit(gene.getId(), splits, needed);
+				}
+			}
+
+			out.writeInt(genome.getLinksChromosome().size());
+			for (final NEATLinkGene gene : genome.getLinksChromosome()) {
+				out.writeLong(gene.getFromNeuronID());
+				out.writeLong(gene.getToNeuronID());
+				out.writeLong(gene.getInnovationId());
+				out.writeDouble(gene.getWeight());
+				out.writeBoolean(gene.isEnabled());
+			}
+
+			out.writeInt(needed.size());
+			for (final Map.Entry<Long, long[]> entry : needed.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeLong(entry.getValue()[0]);
+				out.writeLong(entry.getValue()[1]);
+			}
+		}
+	}
+
+	/**
+	 * Map a neuron id of the source population to the target population.
+	 * 
+	 * @param id
+	 *            The neuron id in the source population.
+	 * @param splits
+	 *            The splits that hidden neurons were created by.
+	 * @param target
+	 *            The target population.
+	 * @param ids
+	 *            The ids mapped so far.
+	 * @return The neuron id in the target population.
+	 */
+	private static long mapNeuron(final long id, final Map<Long, long[]> splits,
+			final NEATPopulation target, final Map<Long, NEATInnovation> ids) {
+		final long[] split = splits.get(id);
+		if (split == null) {
+			// the bias, input and output neurons are the same everywhere
+			return id;
+		}
+		NEATInnovation innovation = ids.get(id);
+		if (innovation == null) {
+			final long from = mapNeuron(split[0], splits, target, ids);
+			final long to = mapNeuron(split[1], splits, target, ids);
+			innovation = target.getInnovations().findInnovationSplit(from, to);
+			ids.put(id, innovation);
+		}
+		return innovation.getNeuronID();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Genome> read(final DataInput in, final Population target)
+			throws IOException {
+		final NEATPopulation pop = (NEATPopulation) target;
+		final long shared = sharedInnovations(pop.getInputCount(),
+				pop.getOutputCount());
+
+		final int count = readCount(in);
+		final List<Genome> result = new ArrayList<Genome>(count);
+		for (int i = 0; i < count; i++) {
+			final int inputCount = in.readInt();
+			final int outputCount = in.readInt();
+			if (inputCount != pop.getInputCount()
+					|| outputCount != pop.getOutputCount()) {
+				throw new EncogError("Can't transfer a genome with "
+						+ inputCount + " inputs and " + outputCount
+						+ " outputs to a population with "
+						+ pop.getInputCount() + " inputs and "
+						+ pop.getOutputCount() + " outputs.");
+			}
+
+			final int neuronCount = readCount(in);
+			final long[] neuronIds = new long[neuronCount];
+			final long[] neuronInnovations = new long[neuronCount];
+			final NEATNeuronType[] neuronTypes = new NEATNeuronType[neuronCount];
+			final ActivationFunction[] afs = new ActivationFunction[neuronCount];
+			for (int j = 0; j < neuronCount; j++) {
+				neuronIds[j] = in.readLong();
+				neuronInnovations[j] = in.readLong();
+				neuronTypes[j] = readNeuronType(in);
+				afs[j] = readActivationFunction(in);
+			}
+
+			final int linkCount = readCount(in);
+			final long[] linkFrom = new long[linkCount];
+			final long[] linkTo = new long[linkCount];
+			final long[] linkInnovations = new long[linkCount];
+			final double[] linkWeights = new double[linkCount];
+			final boolean[] linkEnabled = new boolean[linkCount];
+			for (int j = 0; j < linkCount; j++) {
+				linkFrom[j] = in.readLong();
+				linkTo[j] = in.readLong();
+				linkInnovations[j] = in.readLong();
+				linkWeights[j] = in.readDouble();
+				linkEnabled[j] = in.readBoolean();
+			}
+
+			final int splitCount = readCount(in);
+			final Map<Long, long[]> splits = new HashMap<Long, long[]>();
+			for (int j = 0; j < splitCount; j++) {
+				final long id = in.readLong();
+				splits.put(id, new long[] { in.readLong(), in.readLong() });
+			}
+
+			// renumber the genes for the target population
+			final Map<Long, NEATInnovation> ids = new HashMap<Long, NEATInnovation>();
+			final List<NEATNeuronGene> neurons = new ArrayList<NEATNeuronGene>();
+			for (int j = 0; j < neuronCount; j++) {
+				long innovation = neuronInnovations[j];
+				final long id = mapNeuron(neuronIds[j], splits, pop, ids);
+				if (neuronTypes[j] == NEATNeuronType.Hidden) {
+					innovation = ids.get(neuronIds[j]).getInnovationID();
+				}
+				neurons.add(new NEATNeuronGene(neuronTypes[j], afs[j], id,
+						innovation));
+			}
+
+			final List<NEATLinkGene> links = new ArrayList<NEATLinkGene>();
+			for (int j = 0; j < linkCount; j++) {
+				final long from = mapNeuron(linkFrom[j], splits, pop, ids);
+				final long to = mapNeuron(linkTo[j], splits, pop, ids);
+				long innovation = linkInnovations[j];
+				if (innovation >= shared) {
+					innovation = pop.getInnovations().findInnovation(from, to)
+							.getInnovationID();
+				}
+				links.add(new NEATLinkGene(from, to, linkEnabled[j],
+						innovation, linkWeights[j]));
+			}
+
+			final NEATGenome genome = pop.getGenomeFactory().factor(neurons,
+					links, inputCount, outputCount);
+			genome.sortGenes();
+			genome.setPopulation(pop);
+			result.add(genome);
+		}
+		return result;
+	}
+
+	/**
+	 * Read a count, and check that it is in range.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @return The count.
+	 * @throws IOException
+	 *             If the count could not be read, or is out of range.
+	 */
+	private static int readCount(final DataInput in) throws IOException {
+		final int result = in.readInt();
+		if (result < 0 || result > MAX_COUNT) {
+			throw new IOException("Invalid count: " + result);
+		}
+		return result;
+	}
+
+	/**
+	 * Read a neuron type.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @return The neuron type.
+	 * @throws IOException
+	 *             If the type could not be read, or is unknown.
+	 */
+	private static NEATNeuronType readNeuronType(final DataInput in)
+			throws IOException {
+		final String name = in.readUTF();
+		try {
+			return NEATNeuronType.valueOf(name);
+		} catch (final IllegalArgumentException e) {
+			throw new IOException("Unknown neuron type: " + name);
+		}
+	}
+
+	/**
+	 * Write an activation function, by name and parameters.
+	 * 
+	 * @param af
+	 *            The activation function.
+	 * @param out
+	 *            The output.
+	 * @throws IOException
+	 *             If the function could not be written, or is not in the
+	 *             activation package.
+	 */
+	private static void writeActivationFunction(final ActivationFunction af,
+			final DataOutput out) throws IOException {
+		final String name = af.getClass().getName();
+		if (!name.startsWith(ACTIVATION_PACKAGE)
+				|| name.indexOf('.', ACTIVATION_PACKAGE.length()) != -1) {
+			throw new IOException("Can't transfer the activation function "
+					+ name + ", it is not in the package " + ACTIVATION_PACKAGE);
+		}
+		out.writeUTF(name.substring(ACTIVATION_PACKAGE.length()));
+		final double[] params = af.getParams();
+		out.writeInt(params.length);
+		for (final double param : params) {
+			out.writeDouble(param);
+		}
+	}
+
+	/**
+	 * Read an activation function.
+	 * 
+	 * @param in
+	 *            The input.
+	 * @return The activation function.
+	 * @throws IOException
+	 *             If the function could not be read, or is not an activation
+	 *             function.
+	 */
+	private static ActivationFunction readActivationFunction(final DataInput in)
+			throws IOException {
+		final String name = in.readUTF();
+		if (!isSimpleName(name)) {
+			throw new IOException("Invalid activation function: " + name);
+		}
+
+		final ActivationFunction af;
+		try {
+			final Class<?> clazz = Class.forName(ACTIVATION_PACKAGE + name,
+					false, NEATGenomeTransfer.class.getClassLoader());
+			if (!ActivationFunction.class.isAssignableFrom(clazz)) {
+				throw new IOException("Not an activation function: " + name);
+			}
+			af = (ActivationFunction) clazz.getConstructor().newInstance();
+		} catch (final ClassNotFoundException e) {
+			throw new IOException("Unknown activation function: " + name, e);
+		} catch (final InstantiationException e) {
+			throw new IOException(e);
+		} catch (final IllegalAccessException e) {
+			throw new IOException(e);
+		} catch (final NoSuchMethodException e) {
+			throw new IOException(e);
+		} catch (final InvocationTargetException e) {
+			throw new IOException(e);
+		}
+
+		final int count = in.readInt();
+		if (count < 0 || count > af.getParams().length) {
+			throw new IOException("Invalid parameter count for " + name + ": "
+					+ count);
+		}
+		for (int i = 0; i < count; i++) {
+			af.setParam(i, in.readDouble());
+		}
+		return af;
+	}
+
+	/**
+	 * @param name
+	 *            A name.
+	 * @return True if the name is a Java identifier, without a package.
+	 */
+	private static boolean isSimpleName(final String name) {
+		if (name.length() == 0
+				|| !Character.isJavaIdentifierStart(name.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < name.length(); i++) {
+			if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
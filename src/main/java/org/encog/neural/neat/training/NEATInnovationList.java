@@ -23,9 +23,11 @@
  */
 package org.encog.neural.neat.training;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.encog.neural.neat.NEATPopulation;
 
@@ -48,6 +50,10 @@
  * 
  * Automatic feature selection in neuroevolution
  * 
+ * Innovations are looked up without locking, as nearly every lookup made
+ * during training finds an existing innovation. Only the creation of a new
+ * innovation is synchronized, so that each innovation, and the ids it
+ * assigns, is only created once.
  */
 public class NEATInnovationList implements Serializable {
 
@@ -64,7 +70,7 @@ public class NEATInnovationList implements Serializable {
 	/**
 	 * The list of innovations.
 	 */
-	private Map<String, NEATInnovation> list = new HashMap<String, NEATInnovation>();
+	private Map<String, NEATInnovation> list = new ConcurrentHashMap<String, NEATInnovation>();
 
 	/**
 	 * The default constructor, used mainly for persistance.
@@ -158,6 +164,10 @@ public NEATInnovationList(final NEATPopulation population) {
 	 */
 	public NEATInnovation findInnovationSplit(long fromID, long toID) {
 		String key = NEATInnovationList.produceKeyNeuronSplit(fromID, toID);
+		NEATInnovation found = this.list.get(key);
+		if (found != null) {
+			return found;
+		}
 
 		synchronized (this.list) {
 			if (this.list.containsKey(key)) {
@@ -189,6 +199,10 @@ public NEATInnovation findInnovationSplit(long fromID, long toID) {
 	 */
 	public NEATInnovation findInnovation(long neuronID) {
 		String key = NEATInnovationList.produceKeyNeuron(neuronID);
+		NEATInnovation found = this.list.get(key);
+		if (found != null) {
+			return found;
+		}
 
 		synchronized (this.list) {
 			if (this.list.containsKey(key)) {
@@ -214,6 +228,10 @@ public NEATInnovation findInnovation(long neuronID) {
 	 */
 	public NEATInnovation findInnovation(long fromID, long toID) {
 		String key = NEATInnovationList.produceKeyLink(fromID, toID);
+		NEATInnovation found = this.list.get(key);
+		if (found != null) {
+			return found;
+		}
 
 		synchronized (this.list) {
 			if (this.list.containsKey(key)) {
@@ -237,6 +255,25 @@ public void setPopulation(NEATPopulation population) {
 		this.population = population;
 	}
 	
+	/**
+	 * Read the innovation list, the innovations may have been saved in a map
+	 * that does not allow lookups without locking.
+	 * 
+	 * @param in
+	 *            The stream to read from.
+	 * @throws IOException
+	 *             If the innovations could not be read.
+	 * @throws ClassNotFoundException
+	 *             If a saved class could not be found.
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		if (!(this.list instanceof ConcurrentHashMap)) {
+			this.list = new ConcurrentHashMap<String, NEATInnovation>(this.list);
+		}
+	}
+
 	/**
 	 * @return A list of innovations.
 	 */
@@ -25,6 +25,7 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -89,6 +90,108 @@
  */
 public class NEATCrossover implements EvolutionaryOperator, Serializable {
 
+	/**
+	 * The neurons of a parent, indexed by neuron id, and the neurons that
+	 * have been selected for the offspring.
+	 */
+	private static final class NeuronIndex {
+
+		/**
+		 * The neuron ids, sorted.
+		 */
+		private long[] ids = new long[0];
+
+		/**
+		 * The position of each sorted id in the neuron chromosome.
+		 */
+		private int[] positions = new int[0];
+
+		/**
+		 * The neurons selected, by position in the neuron chromosome.
+		 */
+		private boolean[] selected = new boolean[0];
+
+		/**
+		 * The number of neurons.
+		 */
+		private int size;
+
+		/**
+		 * Index the neurons of a genome. The arrays are reused, and only grow
+		 * when a larger genome is indexed.
+		 * 
+		 * @param neurons
+		 *            The neurons.
+		 */
+		public void build(final List<NEATNeuronGene> neurons) {
+			this.size = neurons.size();
+			if (this.ids.length < this.size) {
+				final int capacity = Math.max(this.size, this.ids.length * 2);
+				this.ids = new long[capacity];
+				this.positions = new int[capacity];
+				this.selected = new boolean[capacity];
+			}
+
+			// the neurons are sorted by innovation, which is almost the same
+			// as by id, so an insertion sort does very little work
+			for (int i = 0; i < this.size; i++) {
+				final long id = neurons.get(i).getId();
+				int j = i;
+				while (j > 0 && this.ids[j - 1] > id) {
+					this.ids[j] = this.ids[j - 1];
+					this.positions[j] = this.positions[j - 1];
+					j--;
+				}
+				this.ids[j] = id;
+				this.positions[j] = i;
+				this.selected[i] = false;
+			}
+		}
+
+		/**
+		 * Select a neuron for the offspring.
+		 * 
+		 * @param id
+		 *            The neuron id.
+		 * @return True, if this genome has the neuron.
+		 */
+		public boolean select(final long id) {
+			final int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+			if (index < 0) {
+				return false;
+			}
+			this.selected[this.positions[index]] = true;
+			return true;
+		}
+
+		/**
+		 * Add the selected neurons to a list, in chromosome order.
+		 * 
+		 * @param neurons
+		 *            The neurons that were indexed.
+		 * @param result
+		 *            The list to add to.
+		 */
+		public void collect(final List<NEATNeuronGene> neurons,
+				final List<NEATNeuronGene> result) {
+			for (int i = 0; i < this.size; i++) {
+				if (this.selected[i]) {
+					result.add(neurons.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The neuron indexes of the two parents, reused by each thread.
+	 */
+	private static final ThreadLocal<NeuronIndex[]> INDEXES = new ThreadLocal<NeuronIndex[]>() {
+		@Override
+		protected NeuronIndex[] initialValue() {
+			return new NeuronIndex[] { new NeuronIndex(), new NeuronIndex() };
+		}
+	};
+
 	/**
 	 * The owning object.
 	 */
@@ -226,7 +329,13 @@ public void performOperation(final Random rnd, final Genome[] parents,
 		final NEATGenome notBest = (best != mom) ? mom : dad;
 
 		final List<NEATLinkGene> selectedLinks = new ArrayList<NEATLinkGene>();
-		final List<NEATNeuronGene> selectedNeurons = new ArrayList<NEATNeuronGene>();
+
+		// a neuron present in both parents is taken from the best parent
+		final NeuronIndex[] indexes = INDEXES.get();
+		final NeuronIndex bestIndex = indexes[0];
+		final NeuronIndex notBestIndex = indexes[1];
+		bestIndex.build(best.getNeuronsChromosome());
+		notBestIndex.build(notBest.getNeuronsChromosome());
 
 		int curMom = 0; // current gene index from mom
 		int curDad = 0; // current gene index from dad
@@ -236,7 +345,9 @@ public void performOperation(final Random rnd, final Genome[] parents,
 		final int alwaysCount = ((NEATGenome)parents[0]).getInputCount()
 				+ ((NEATGenome)parents[0]).getOutputCount() + 1;
 		for (int i = 0; i < alwaysCount; i++) {
-			addNeuronID(i, selectedNeurons, best, notBest);
+			if (!bestIndex.select(i)) {
+				notBestIndex.select(i);
+			}
 		}
 
 		while ((curMom < mom.getNumGenes()) || (curDad < dad.getNumGenes())) {
@@ -280,7 +391,7 @@ public void performOperation(final Random rnd, final Genome[] parents,
 				}
 				curDad++;
 			} else if (dadInnovation == momInnovation) {
-				if (Math.random() < 0.5f) {
+				if (rnd.nextDouble() < 0.5f) {
 					selectedGene = momGene;
 				}
 
@@ -305,15 +416,20 @@ public void performOperation(final Random rnd, final Genome[] parents,
 				// Check if we already have the nodes referred to in
 				// SelectedGene.
 				// If not, they need to be added.
-				addNeuronID(selectedGene.getFromNeuronID(), selectedNeurons,
-						best, notBest);
-				addNeuronID(selectedGene.getToNeuronID(), selectedNeurons,
-						best, notBest);
+				if (!bestIndex.select(selectedGene.getFromNeuronID())) {
+					notBestIndex.select(selectedGene.getFromNeuronID());
+				}
+				if (!bestIndex.select(selectedGene.getToNeuronID())) {
+					notBestIndex.select(selectedGene.getToNeuronID());
+				}
 			}
 
 		}
 
 		// now create the required nodes. First sort them into order
+		final List<NEATNeuronGene> selectedNeurons = new ArrayList<NEATNeuronGene>();
+		bestIndex.collect(best.getNeuronsChromosome(), selectedNeurons);
+		notBestIndex.collect(notBest.getNeuronsChromosome(), selectedNeurons);
 		Collections.sort(selectedNeurons);
 
 		// finally, create the genome
@@ -73,8 +73,10 @@ public void performOperation(Random rnd, Genome[] parents, int parentIndex,
 
 		// try to add a link
 		while ((countTrysToAddLink--) > 0) {
-			final NEATNeuronGene neuron1 = chooseRandomNeuron(target, true);
-			final NEATNeuronGene neuron2 = chooseRandomNeuron(target, false);
+			final NEATNeuronGene neuron1 = chooseRandomNeuron(rnd, target,
+					true);
+			final NEATNeuronGene neuron2 = chooseRandomNeuron(rnd, target,
+					false);
 
 			if (neuron1 == null || neuron2 == null) {
 				return;
@@ -86,7 +86,7 @@ public void performOperation(final Random rnd, final Genome[] parents,
 
 		while ((countTrysToFindOldLink--) > 0) {
 			// choose a link, use the square root to prefer the older links
-			final int i = RangeRandomizer.randomInt(0, upperLimit);
+			final int i = RangeRandomizer.randomInt(rnd, 0, upperLimit);
 			final NEATLinkGene link = target.getLinksChromosome().get(i);
 
 			// get the from neuron
@@ -115,7 +115,7 @@ public void performOperation(final Random rnd, final Genome[] parents,
 
 		// add the splitting neuron
 		final ActivationFunction af = ((NEATPopulation)getOwner().getPopulation())
-				.getActivationFunctions().pick(new Random());
+				.getActivationFunctions().pick(rnd);
 
 		target.getNeuronsChromosome().add(
 				new NEATNeuronGene(NEATNeuronType.Hidden, af, innovation
@@ -71,7 +71,7 @@ public void performOperation(final Random rnd, final Genome[] parents,
 		}
 
 		// determine the target and remove
-		final int index = RangeRandomizer.randomInt(0, target
+		final int index = RangeRandomizer.randomInt(rnd, 0, target
 				.getLinksChromosome().size() - 1);
 		final NEATLinkGene targetGene = target.getLinksChromosome().get(index);
 		target.getLinksChromosome().remove(index);
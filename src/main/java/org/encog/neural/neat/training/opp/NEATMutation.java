@@ -35,6 +35,7 @@
 import org.encog.neural.neat.training.NEATNeuronGene;
 
 import java.io.Serializable;
+import java.util.Random;
 
 /**
  * This class represents a NEAT mutation. NEAT supports several different types
@@ -73,6 +74,24 @@ public abstract class NEATMutation implements EvolutionaryOperator, Serializable
 	 */
 	public NEATNeuronGene chooseRandomNeuron(final NEATGenome target,
 			final boolean choosingFrom) {
+		return chooseRandomNeuron(null, target, choosingFrom);
+	}
+
+	/**
+	 * Choose a random neuron, using the specified random number generator.
+	 * 
+	 * @param rnd
+	 *            A random number generator, or null to use Math.random.
+	 * @param target
+	 *            The target genome. Should the input and bias neurons be
+	 *            included.
+	 * @param choosingFrom
+	 *            True if we are chosing from all neurons, false if we exclude
+	 *            the input and bias.
+	 * @return The random neuron.
+	 */
+	public NEATNeuronGene chooseRandomNeuron(final Random rnd,
+			final NEATGenome target, final boolean choosingFrom) {
 		int start;
 
 		if (choosingFrom) {
@@ -98,7 +117,8 @@ public NEATNeuronGene chooseRandomNeuron(final NEATGenome target,
 			return null;
 		}
 
-		final int neuronPos = RangeRandomizer.randomInt(start, end);
+		final int neuronPos = (rnd == null) ? RangeRandomizer.randomInt(start,
+				end) : RangeRandomizer.randomInt(rnd, start, end);
 		final NEATNeuronGene neuronGene = target.getNeuronsChromosome().get(
 				neuronPos);
 		return neuronGene;
@@ -23,9 +23,14 @@
  */
 package org.encog.neural.neat.training.species;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.species.Species;
 import org.encog.ml.ea.species.ThresholdSpeciation;
 import org.encog.neural.neat.training.NEATGenome;
+import org.encog.neural.neat.training.NEATLinkGene;
 
 /**
  * The original NEAT Speciation Strategy. This is currently the only speciation
@@ -80,72 +85,101 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
 
 
 
+	/**
+	 * True while a speciation is in progress, and every genome being
+	 * speciated has a current innovation index. Outside of speciation the
+	 * link genes are compared directly, as they may have been changed.
+	 */
+	private transient boolean indexed;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public double getCompatibilityScore(final Genome gen1,
 			final Genome gen2) {
+		final NEATGenome genome1 = (NEATGenome)gen1;
+		final NEATGenome genome2 = (NEATGenome)gen2;
+
+		if (this.indexed && genome1.getIndexedInnovations() != null
+				&& genome2.getIndexedInnovations() != null) {
+			return getCompatibilityScore(genome1.getIndexedInnovations(),
+					genome1.getIndexedWeights(),
+					genome2.getIndexedInnovations(),
+					genome2.getIndexedWeights());
+		}
+
+		final List<NEATLinkGene> links1 = genome1.getLinksChromosome();
+		final List<NEATLinkGene> links2 = genome2.getLinksChromosome();
+		final long[] ids1 = new long[links1.size()];
+		final double[] weights1 = new double[links1.size()];
+		final long[] ids2 = new long[links2.size()];
+		final double[] weights2 = new double[links2.size()];
+		for (int i = 0; i < ids1.length; i++) {
+			ids1[i] = links1.get(i).getInnovationId();
+			weights1[i] = links1.get(i).getWeight();
+		}
+		for (int i = 0; i < ids2.length; i++) {
+			ids2[i] = links2.get(i).getInnovationId();
+			weights2[i] = links2.get(i).getWeight();
+		}
+		return getCompatibilityScore(ids1, weights1, ids2, weights2);
+	}
+
+	/**
+	 * Determine the compatibility of two genomes, given the innovation ids and
+	 * weights of their link genes. The link genes are merged by innovation id.
+	 * 
+	 * @param ids1
+	 *            The innovation ids of the first genome, sorted.
+	 * @param weights1
+	 *            The weights of the first genome.
+	 * @param ids2
+	 *            The innovation ids of the second genome, sorted.
+	 * @param weights2
+	 *            The weights of the second genome.
+	 * @return The compatability level.
+	 */
+	private double getCompatibilityScore(final long[] ids1,
+			final double[] weights1, final long[] ids2,
+			final double[] weights2) {
 		double numDisjoint = 0;
-		double numExcess = 0;
 		double numMatched = 0;
 		double weightDifference = 0;
 
-		final NEATGenome genome1 = (NEATGenome)gen1;
-		final NEATGenome genome2 = (NEATGenome)gen2;
-		
-		final int genome1Size = genome1.getLinksChromosome().size();
-		final int genome2Size = genome2.getLinksChromosome().size();
+		final int genome1Size = ids1.length;
+		final int genome2Size = ids2.length;
 		final int n = 1;// Math.max(genome1Size, genome2Size);
 
 		int g1 = 0;
 		int g2 = 0;
 
-		while ((g1 < genome1Size) || (g2 < genome2Size)) {
-
-			if (g1 == genome1Size) {
-				g2++;
-				numExcess++;
-				continue;
-			}
-
-			if (g2 == genome2Size) {
-				g1++;
-				numExcess++;
-				continue;
-			}
-
+		while ((g1 < genome1Size) && (g2 < genome2Size)) {
 			// get innovation numbers for each gene at this point
-			final long id1 = genome1.getLinksChromosome().get(g1)
-					.getInnovationId();
-			final long id2 = genome2.getLinksChromosome().get(g2)
-					.getInnovationId();
+			final long id1 = ids1[g1];
+			final long id2 = ids2[g2];
 
-			// innovation numbers are identical so increase the matched score
 			if (id1 == id2) {
-
-				// get the weight difference between these two genes
-				weightDifference += Math.abs(genome1.getLinksChromosome()
-						.get(g1).getWeight()
-						- genome2.getLinksChromosome().get(g2).getWeight());
+				// innovation numbers are identical so increase the matched
+				// score, get the weight difference between these two genes
+				weightDifference += Math.abs(weights1[g1] - weights2[g2]);
 				g1++;
 				g2++;
 				numMatched++;
-			}
-
-			// innovation numbers are different so increment the disjoint score
-			if (id1 < id2) {
+			} else if (id1 < id2) {
+				// innovation numbers are different so increment the disjoint
+				// score
 				numDisjoint++;
 				g1++;
+			} else {
+				numDisjoint++;
+				g2++;
 			}
-
-			if (id1 > id2) {
-				++numDisjoint;
-				++g2;
-			}
-
 		}
 
+		// whatever is left over in either genome is excess
+		final double numExcess = (genome1Size - g1) + (genome2Size - g2);
+
 		final double score = ((this.constExcess * numExcess) / n)
 				+ ((this.constDisjoint * numDisjoint) / n)
 				+ (this.constMatched * (weightDifference / numMatched));
@@ -153,6 +187,43 @@ public double getCompatibilityScore(final Genome gen1,
 		return score;
 	}
 
+	/**
+	 * Make sure each genome, and each species leader, has an innovation index,
+	 * then speciate. The NEAT operators change copies of the parents, so a
+	 * genome's link genes do not change once it has been speciated and its
+	 * index is kept for later generations.
+	 * 
+	 * @param genomeList
+	 *            The genomes to speciate.
+	 */
+	@Override
+	public void performSpeciation(final List<Genome> genomeList) {
+		final List<Genome> indexedGenomes = new ArrayList<Genome>(genomeList);
+		for (final Species species : getOwner().getPopulation().getSpecies()) {
+			if (species.getLeader() != null) {
+				indexedGenomes.add(species.getLeader());
+			}
+		}
+
+		// genomes keep their index between generations, only new genomes
+		// need one built
+		for (final Genome genome : indexedGenomes) {
+			final NEATGenome neatGenome = (NEATGenome) genome;
+			final long[] innovations = neatGenome.getIndexedInnovations();
+			if (innovations == null
+					|| innovations.length != neatGenome.getLinksChromosome()
+							.size()) {
+				neatGenome.buildInnovationIndex();
+			}
+		}
+		this.indexed = true;
+		try {
+			super.performSpeciation(genomeList);
+		} finally {
+			this.indexed = false;
+		}
+	}
+
 	/**
 	 * @return the constDisjoint
 	 */
@@ -23,27 +23,109 @@
  */
 package org.encog.neural.networks.training;
 
-import org.encog.ml.CalculateScore;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.BatchCalculateScore;
+import org.encog.ml.MLContext;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MLRegression;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.ml.prg.ColumnBufferPool;
+import org.encog.ml.prg.CompiledProgram;
+import org.encog.ml.prg.EncogProgram;
 import org.encog.util.error.CalculateRegressionError;
 
 import java.io.Serializable;
+import java.util.Iterator;
 
 /**
  * Calculate a score based on a training set. This class allows simulated
  * annealing or genetic algorithms just as you would any other training set
  * based training method.  The method must support regression (MLRegression).
+ * 
+ * When several methods are scored at once, the training set is read in
+ * blocks, and each block is run through every method before the next block is
+ * read. The training set is then read once for the batch, rather than once for
+ * each method.
+ * 
+ * Encog programs that can be compiled are evaluated a block of rows at a time,
+ * with each instruction running over the whole block, see CompiledProgram. To
+ * do this the training set is copied into memory as columns, the first time a
+ * program is scored. This is not done for a BufferedMLDataSet.
  */
-public class TrainingSetScore implements CalculateScore, Serializable {
+public class TrainingSetScore implements BatchCalculateScore, Serializable {
+
+	/**
+	 * The default number of records in a block, when scoring a batch.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256;
 
 	/**
 	 * The training set.
 	 */
 	private final MLDataSet training;
 
+	/**
+	 * The number of records in a block, when scoring a batch.
+	 */
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * The training set as columns, used to evaluate programs. Null until
+	 * first needed.
+	 */
+	private transient volatile ProgramData programData;
+
+	/**
+	 * The buffers used to evaluate programs, one pool for each thread.
+	 */
+	private transient ThreadLocal<ColumnBufferPool> pools;
+
+	/**
+	 * The training set, stored as columns so that programs can read the value
+	 * of a variable for a block of rows at once.
+	 */
+	private static class ProgramData {
+
+		/**
+		 * The input, one column for each input.
+		 */
+		private final double[][] input;
+
+		/**
+		 * The ideal values of each row.
+		 */
+		private final double[][] ideal;
+
+		/**
+		 * The significance of each row.
+		 */
+		private final double[] significance;
+
+		/**
+		 * Copy a training set into columns.
+		 * @param data The training set.
+		 */
+		ProgramData(final MLDataSet data) {
+			final int rows = (int) data.getRecordCount();
+			this.input = new double[data.getInputSize()][rows];
+			this.ideal = new double[rows][];
+			this.significance = new double[rows];
+			int row = 0;
+			for (final MLDataPair pair : data) {
+				final double[] in = pair.getInputArray();
+				for (int i = 0; i < in.length; i++) {
+					this.input[i][row] = in[i];
+				}
+				this.ideal[row] = pair.getIdealArray().clone();
+				this.significance[row] = pair.getSignificance();
+				row++;
+			}
+		}
+	}
+
 	/**
 	 * Construct a training set score calculation.
 	 * 
@@ -60,9 +142,154 @@ public TrainingSetScore(final MLDataSet training) {
 	 * @return The score.
 	 */
 	public double calculateScore(final MLMethod method) {
+		final CompiledProgram program = findCompiledProgram(method);
+		if (program != null) {
+			return calculateProgramScore(program);
+		}
 		return CalculateRegressionError.calculateError((MLRegression)method, this.training);
 	}
 
+	/**
+	 * Calculate the scores for several networks, reading the training set
+	 * once.
+	 * @param methods The networks to calculate for.
+	 * @param scores The scores.
+	 */
+	@Override
+	public void calculateScores(final MLMethod[] methods, final double[] scores) {
+		final ErrorCalculation[] errors = new ErrorCalculation[methods.length];
+		final MLRegression[] regression = new MLRegression[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			final CompiledProgram program = findCompiledProgram(methods[i]);
+			if (program != null) {
+				// programs read the columns, rather than the blocks below
+				scores[i] = calculateProgramScore(program);
+				continue;
+			}
+			errors[i] = new ErrorCalculation();
+			regression[i] = (MLRegression) methods[i];
+			if (methods[i] instanceof MLContext) {
+				((MLContext) methods[i]).clearContext();
+			}
+		}
+
+		final MLDataPair[] block = new MLDataPair[this.blockSize];
+		final Iterator<MLDataPair> itr = this.training.iterator();
+		while (itr.hasNext()) {
+			int count = 0;
+			while (count < block.length && itr.hasNext()) {
+				block[count++] = itr.next();
+			}
+
+			for (int i = 0; i < methods.length; i++) {
+				final MLRegression method = regression[i];
+				if (method == null) {
+					continue;
+				}
+				final ErrorCalculation error = errors[i];
+				for (int j = 0; j < count; j++) {
+					final MLDataPair pair = block[j];
+					final MLData actual = method.compute(pair.getInput());
+					error.updateError(actual.getData(), pair.getIdeal()
+							.getData(), pair.getSignificance());
+				}
+			}
+		}
+
+		for (int i = 0; i < methods.length; i++) {
+			if (errors[i] != null) {
+				scores[i] = errors[i].calculate();
+			}
+		}
+	}
+
+	/**
+	 * Find the compiled program to score a method with, if the method is an
+	 * Encog program that can be evaluated a block at a time.
+	 * @param method The method.
+	 * @return The compiled program, or null to score the method one row at a
+	 * time.
+	 */
+	private CompiledProgram findCompiledProgram(final MLMethod method) {
+		if (!(method instanceof EncogProgram)
+				|| this.training instanceof BufferedMLDataSet) {
+			return null;
+		}
+		final EncogProgram program = (EncogProgram) method;
+		if (program.getInputCount() != this.training.getInputSize()) {
+			// let compute report the error
+			return null;
+		}
+		return program.getCompiled();
+	}
+
+	/**
+	 * Calculate the score of a compiled program, a block of rows at a time.
+	 * @param program The program.
+	 * @return The score.
+	 */
+	private double calculateProgramScore(final CompiledProgram program) {
+		final ProgramData data = obtainProgramData();
+		final ColumnBufferPool pool = this.pools.get();
+		final int rows = data.significance.length;
+		final double[] block = new double[pool.getBlockSize()];
+		final double[] actual = new double[1];
+		final ErrorCalculation error = new ErrorCalculation();
+
+		for (int offset = 0; offset < rows; offset += block.length) {
+			final int count = Math.min(block.length, rows - offset);
+			program.evaluate(data.input, offset, count, block, pool);
+			for (int i = 0; i < count; i++) {
+				actual[0] = block[i];
+				error.updateError(actual, data.ideal[offset + i],
+						data.significance[offset + i]);
+			}
+		}
+		return error.calculate();
+	}
+
+	/**
+	 * @return The training set as columns, copied if needed.
+	 */
+	private ProgramData obtainProgramData() {
+		ProgramData data = this.programData;
+		if (data == null
+				|| data.significance.length != this.training.getRecordCount()) {
+			synchronized (this) {
+				data = this.programData;
+				if (data == null
+						|| data.significance.length != this.training
+								.getRecordCount()) {
+					data = new ProgramData(this.training);
+					this.pools = new ThreadLocal<ColumnBufferPool>() {
+						@Override
+						protected ColumnBufferPool initialValue() {
+							return new ColumnBufferPool();
+						}
+					};
+					this.programData = data;
+				}
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * @return The number of records in a block, when scoring a batch.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Set the number of records in a block, when scoring a batch. A block
+	 * should fit in the cache, along with the networks being scored.
+	 * @param theBlockSize The number of records in a block.
+	 */
+	public void setBlockSize(final int theBlockSize) {
+		this.blockSize = theBlockSize;
+	}
+
 	/**
 	 * A training set based score should always seek to lower the error,
 	 * as a result, this method always returns true.
@@ -0,0 +1,46 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+/**
+ * Specifies how the gradients calculated by each of the GradientWorker
+ * threads are combined into the gradients that the propagation trainer
+ * uses to update the weights.
+ */
+public enum GradientReduction {
+	/**
+	 * Each worker merges its gradients into the shared gradient array as it
+	 * finishes, while holding a lock on the trainer. This is the classic
+	 * Encog behavior.
+	 */
+	Synchronized,
+
+	/**
+	 * Each worker keeps its own private gradient array. Once all workers have
+	 * finished, the weight range is split into stripes and each stripe is
+	 * summed across the workers by its own task. No locks are taken, which
+	 * allows training to scale to a larger number of threads.
+	 */
+	Striped
+}
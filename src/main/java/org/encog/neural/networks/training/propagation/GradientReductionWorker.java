@@ -0,0 +1,90 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import org.encog.util.concurrency.EngineTask;
+
+/**
+ * Sums one stripe of the weight range across the private gradient arrays of
+ * several GradientWorker objects. Each stripe is disjoint, so any number of
+ * these tasks can run at once without locking. The worker gradients are
+ * cleared as they are summed, so they are ready for the next iteration.
+ */
+public class GradientReductionWorker implements EngineTask {
+
+	/**
+	 * The workers whose gradients are to be summed.
+	 */
+	private final GradientWorker[] workers;
+
+	/**
+	 * The array that the summed gradients are added to.
+	 */
+	private final double[] gradients;
+
+	/**
+	 * The low index of the stripe.
+	 */
+	private final int low;
+
+	/**
+	 * The high index of the stripe, inclusive.
+	 */
+	private final int high;
+
+	/**
+	 * Construct a reduction worker.
+	 * 
+	 * @param theWorkers
+	 *            The workers to reduce.
+	 * @param theGradients
+	 *            The array that the summed gradients are added to.
+	 * @param theLow
+	 *            The low index of the stripe.
+	 * @param theHigh
+	 *            The high index of the stripe, inclusive.
+	 */
+	public GradientReductionWorker(final GradientWorker[] theWorkers,
+			final double[] theGradients, final int theLow, final int theHigh) {
+		this.workers = theWorkers;
+		this.gradients = theGradients;
+		this.low = theLow;
+		this.high = theHigh;
+	}
+
+	/**
+	 * Sum the stripe.
+	 */
+	@Override
+	public void run() {
+		final double[] gradients = this.gradients;
+		for (final GradientWorker worker : this.workers) {
+			final double[] src = worker.getGradients();
+			for (int i = this.low; i <= this.high; i++) {
+				gradients[i] += src[i];
+				src[i] = 0;
+			}
+		}
+	}
+}
@@ -23,6 +23,7 @@
  */
 package org.encog.neural.networks.training.propagation;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.encog.Encog;
@@ -33,14 +34,23 @@
 import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.neural.error.ErrorFunction;
 import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.FlatNetworkBatch;
+import org.encog.neural.flat.FlatNetworkFloat;
 import org.encog.util.EngineArray;
 import org.encog.util.concurrency.EngineTask;
+import org.encog.util.concurrency.WorkloadChunker;
 
 /**
  * Worker class for the mulithreaded training of flat networks.
  */
 public class GradientWorker implements EngineTask {
 
+	/**
+	 * The number of records that are processed together, as one block, when
+	 * the network supports block computation.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
 	/**
 	 * Used to generate randomness for dropout
 	 */
@@ -66,6 +76,11 @@ public class GradientWorker implements EngineTask {
 	 */
 	private final double[] layerDelta;
 
+	/**
+	 * The activation function derivatives for each layer.
+	 */
+	private final double[] layerDerivative;
+
 	/**
 	 * The neuron counts, per layer.
 	 */
@@ -143,6 +158,71 @@ public class GradientWorker implements EngineTask {
 
 	private double[] layerDropoutRates;
 
+	/**
+	 * Should the gradients be kept by this worker after a run, rather than
+	 * reported to the owner. Used when the owner reduces the gradients of
+	 * all workers itself, after they have all finished.
+	 */
+	private boolean retainGradients;
+
+	/**
+	 * Hands out chunks of the training set when the workers are load
+	 * balanced, or null to process the fixed range low to high.
+	 */
+	private WorkloadChunker chunker;
+
+	/**
+	 * Used to compute a block of records at once, or null if the network does
+	 * not support block computation.
+	 */
+	private final FlatNetworkBatch block;
+
+	/**
+	 * The deltas for each layer of the block, one row per record.
+	 */
+	private final double[][] blockDelta;
+
+	/**
+	 * The ideal values of the block, one row per record.
+	 */
+	private final double[] blockIdeal;
+
+	/**
+	 * The significance of each record in the block.
+	 */
+	private final double[] blockSignificance;
+
+	/**
+	 * The activation function derivatives of one layer of the block.
+	 */
+	private final double[] blockDerivative;
+
+	/**
+	 * A single-precision copy of the network, or null if the network is
+	 * computed in double precision.
+	 */
+	private final FlatNetworkFloat floatNetwork;
+
+	/**
+	 * The deltas for each layer, when computing in single precision.
+	 */
+	private final float[] floatDelta;
+
+	/**
+	 * The ideal values for one record.
+	 */
+	private final double[] ideal;
+
+	/**
+	 * The output layer sums for one record.
+	 */
+	private final double[] outputSums;
+
+	/**
+	 * The output layer deltas for one record.
+	 */
+	private final double[] outputDelta;
+
 	/**
 	 * Construct a gradient worker.
 	 * 
@@ -164,6 +244,35 @@ public GradientWorker(final FlatNetwork theNetwork,
 			final MLDataSet theTraining, final int theLow, 
 			final int theHigh, final double[] flatSpot, 
 			ErrorFunction ef) {
+		this(theNetwork, theOwner, theTraining, theLow, theHigh, flatSpot, ef,
+				false);
+	}
+
+	/**
+	 * Construct a gradient worker.
+	 * 
+	 * @param theNetwork
+	 *            The network to train.
+	 * @param theOwner
+	 *            The owner that is doing the training.
+	 * @param theTraining
+	 *            The training data.
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 * @param flatSpot The flatspot additions for each layer
+	 * @param ef Error function
+	 * @param singlePrecision
+	 *            True to compute the network in single precision, using a
+	 *            FlatNetworkFloat. The gradients are still summed in double
+	 *            precision.
+	 */
+	public GradientWorker(final FlatNetwork theNetwork,
+			final GradientWorkerOwner theOwner,
+			final MLDataSet theTraining, final int theLow, 
+			final int theHigh, final double[] flatSpot, 
+			ErrorFunction ef, final boolean singlePrecision) {
 		this.network = theNetwork;
 		this.training = theTraining;
 		this.low = theLow;
@@ -173,6 +282,7 @@ public GradientWorker(final FlatNetwork theNetwork,
 		this.errorFunction = ef;
 
 		this.layerDelta = new double[network.getLayerOutput().length];
+		this.layerDerivative = new double[this.layerDelta.length];
 		this.gradients = new double[network.getWeights().length];
 		this.actual = new double[network.getOutputCount()];
 
@@ -187,6 +297,40 @@ public GradientWorker(final FlatNetwork theNetwork,
 
 		this.pair = BasicMLDataPair.createPair(network.getInputCount(), network
 				.getOutputCount());
+
+		this.ideal = new double[network.getOutputCount()];
+		this.outputSums = new double[network.getOutputCount()];
+		this.outputDelta = new double[network.getOutputCount()];
+
+		if (singlePrecision) {
+			this.floatNetwork = new FlatNetworkFloat(network);
+			this.floatDelta = new float[this.layerDelta.length];
+		} else {
+			this.floatNetwork = null;
+			this.floatDelta = null;
+		}
+
+		if (!singlePrecision && FlatNetworkBatch.isSupported(network)) {
+			this.block = new FlatNetworkBatch(network, DEFAULT_BLOCK_SIZE);
+			this.blockDelta = new double[this.layerCounts.length][];
+			int maxLayerCount = 0;
+			for (int i = 0; i < this.layerCounts.length; i++) {
+				this.blockDelta[i] = new double[DEFAULT_BLOCK_SIZE
+						* this.layerCounts[i]];
+				maxLayerCount = Math.max(maxLayerCount, this.layerCounts[i]);
+			}
+			this.blockDerivative = new double[DEFAULT_BLOCK_SIZE
+					* maxLayerCount];
+			this.blockIdeal = new double[DEFAULT_BLOCK_SIZE
+					* network.getOutputCount()];
+			this.blockSignificance = new double[DEFAULT_BLOCK_SIZE];
+		} else {
+			this.block = null;
+			this.blockDelta = null;
+			this.blockIdeal = null;
+			this.blockSignificance = null;
+			this.blockDerivative = null;
+		}
 	}
 
 	/**
@@ -220,12 +364,9 @@ public void process(final MLDataPair pair) {
 				pair.getSignificance());
 		
 		// Apply regularization, if requested.
-		if( this.owner.getL1()>Encog.DEFAULT_DOUBLE_EQUAL 
-				|| this.owner.getL1()>Encog.DEFAULT_DOUBLE_EQUAL  ) {
-			double[] lp = new double[2];
-			calculateRegularizationPenalty(lp);
+		final double p = this.owner.getRegularizationPenalty();
+		if (p != 0) {
 			for(int i=0;i<this.actual.length;i++) {
-				double p = (lp[0]*this.owner.getL1()) + (lp[1]*this.owner.getL2());
 				this.layerDelta[i]+=p;
 			}
 		}
@@ -237,6 +378,214 @@ public void process(final MLDataPair pair) {
 		}
 	}
 	
+	/**
+	 * Process one training set element in single precision.
+	 * 
+	 * @param pair
+	 *            The training data information.
+	 */
+	private void processFloat(final MLDataPair pair) {
+		final int outputCount = this.actual.length;
+		this.floatNetwork.compute(pair.getInputArray(), this.actual);
+
+		this.errorCalculation.updateError(this.actual, pair.getIdealArray(),
+				pair.getSignificance());
+
+		// Calculate error for the output layer.
+		final float[] sums = this.floatNetwork.getLayerSums();
+		for (int i = 0; i < outputCount; i++) {
+			this.outputSums[i] = sums[i];
+		}
+
+		this.errorFunction.calculateError(
+				this.floatNetwork.getActivationFunctions()[0], this.outputSums,
+				this.actual, pair.getIdealArray(), this.actual,
+				this.outputDelta, this.flatSpot[0], pair.getSignificance());
+
+		// Apply regularization, if requested.
+		final double p = this.owner.getRegularizationPenalty();
+		for (int i = 0; i < outputCount; i++) {
+			this.floatDelta[i] = (float) (this.outputDelta[i] + p);
+		}
+
+		// Propagate backwards (chain rule from calculus).
+		for (int i = this.network.getBeginTraining(); i < this.network
+				.getEndTraining(); i++) {
+			processLevelFloat(i);
+		}
+	}
+
+	/**
+	 * Process one level in single precision. The gradients are still summed
+	 * in double precision.
+	 * 
+	 * @param currentLevel
+	 *            The level.
+	 */
+	private void processLevelFloat(final int currentLevel) {
+		final int fromLayerIndex = this.layerIndex[currentLevel + 1];
+		final int toLayerIndex = this.layerIndex[currentLevel];
+		final int fromLayerSize = this.layerCounts[currentLevel + 1];
+		final int toLayerSize = this.layerFeedCounts[currentLevel];
+		double dropoutRate = 0;
+		if(this.layerDropoutRates.length > currentLevel && this.layerDropoutRates[currentLevel] != 0) {
+			dropoutRate = this.layerDropoutRates[currentLevel];
+		}
+
+		final int index = this.weightIndex[currentLevel];
+		final ActivationFunction activation = this.floatNetwork
+				.getActivationFunctions()[currentLevel + 1];
+		final double currentFlatSpot = this.flatSpot[currentLevel + 1];
+
+		// array references are made method local to avoid one indirection
+		final float[] layerDelta = this.floatDelta;
+		final float[] weights = this.floatNetwork.getWeights();
+		final double[] gradients = this.gradients;
+		final float[] layerOutput = this.floatNetwork.getLayerOutput();
+		final float[] layerSums = this.floatNetwork.getLayerSums();
+		int yi = fromLayerIndex;
+		for (int y = 0; y < fromLayerSize; y++) {
+			final float output = layerOutput[yi];
+			float sum = 0;
+
+			int wi = index + y;
+			final int loopEnd = toLayerIndex+toLayerSize;
+			if(dropoutRate == 0 || dropoutRandomSource.nextDouble() > dropoutRate)
+			{
+				for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
+					gradients[wi] += output * layerDelta[xi];
+					sum += weights[wi] * layerDelta[xi];
+				}
+				layerDelta[yi] = (float) (sum
+						* (activation.derivativeFunction(layerSums[yi], layerOutput[yi])+currentFlatSpot));
+			} else {
+				layerDelta[yi] = 0;
+			}
+			yi++;
+		}
+	}
+
+	/**
+	 * Process a block of training set elements, starting at the specified
+	 * index. This computes the same gradients as calling process for each
+	 * element, but calculates each layer for the entire block at once.
+	 * 
+	 * @param start
+	 *            The index of the first element.
+	 * @param rows
+	 *            The number of elements, no more than the block size.
+	 */
+	private void processBlock(final int start, final int rows) {
+		final int outputCount = this.actual.length;
+
+		for (int row = 0; row < rows; row++) {
+			this.training.getRecord(start + row, this.pair);
+			this.block.setInput(row, this.pair.getInputArray());
+			EngineArray.arrayCopy(this.pair.getIdealArray(), 0,
+					this.blockIdeal, row * outputCount, outputCount);
+			this.blockSignificance[row] = this.pair.getSignificance();
+		}
+
+		this.block.compute(rows);
+
+		final double p = this.owner.getRegularizationPenalty();
+
+		// Calculate error for the output layer, one record at a time.
+		final int outputStride = this.layerCounts[0];
+		final double[] output = this.block.getLayerOutput(0);
+		final double[] sums = this.block.getLayerSums(0);
+		final double[] delta = this.blockDelta[0];
+
+		for (int row = 0; row < rows; row++) {
+			final int oi = row * outputStride;
+			EngineArray.arrayCopy(output, oi, this.actual, 0, outputCount);
+			EngineArray.arrayCopy(sums, oi, this.outputSums, 0, outputCount);
+			EngineArray.arrayCopy(this.blockIdeal, row * outputCount,
+					this.ideal, 0, outputCount);
+
+			this.errorCalculation.updateError(this.actual, this.ideal,
+					this.blockSignificance[row]);
+
+			this.errorFunction.calculateError(
+					this.network.getActivationFunctions()[0], this.outputSums,
+					this.actual, this.ideal, this.actual, this.outputDelta,
+					this.flatSpot[0], this.blockSignificance[row]);
+
+			for (int i = 0; i < outputCount; i++) {
+				delta[oi + i] = this.outputDelta[i] + p;
+			}
+		}
+
+		// Propagate backwards (chain rule from calculus).
+		for (int i = this.network.getBeginTraining(); i < this.network
+				.getEndTraining(); i++) {
+			processLevelBlock(i, rows);
+		}
+	}
+
+	/**
+	 * Process one level for a block of records.
+	 * 
+	 * @param currentLevel
+	 *            The level.
+	 * @param rows
+	 *            The number of records in the block.
+	 */
+	private void processLevelBlock(final int currentLevel, final int rows) {
+		final int fromLayerSize = this.layerCounts[currentLevel + 1];
+		final int toLayerStride = this.layerCounts[currentLevel];
+		final int toLayerSize = this.layerFeedCounts[currentLevel];
+		final int index = this.weightIndex[currentLevel];
+		final ActivationFunction activation = this.network
+				.getActivationFunctions()[currentLevel + 1];
+		final double currentFlatSpot = this.flatSpot[currentLevel + 1];
+
+		// array references are made method local to avoid one indirection
+		final double[] weights = this.weights;
+		final double[] gradients = this.gradients;
+		final double[] fromOutput = this.block.getLayerOutput(currentLevel + 1);
+		final double[] fromSums = this.block.getLayerSums(currentLevel + 1);
+		final double[] fromDelta = this.blockDelta[currentLevel + 1];
+		final double[] toDelta = this.blockDelta[currentLevel];
+
+		// handle gradients, each row of gradients stays in cache for the block
+		for (int x = 0; x < toLayerSize; x++) {
+			final int wi = index + (x * fromLayerSize);
+			for (int row = 0; row < rows; row++) {
+				final double delta = toDelta[(row * toLayerStride) + x];
+				final int oi = row * fromLayerSize;
+				for (int y = 0; y < fromLayerSize; y++) {
+					gradients[wi + y] += delta * fromOutput[oi + y];
+				}
+			}
+		}
+
+		// the deltas of the input layer are never used
+		if (currentLevel + 2 >= this.layerCounts.length) {
+			return;
+		}
+
+		// handle deltas for the from layer, the derivatives of the entire
+		// block are calculated with one call
+		final double[] derivative = this.blockDerivative;
+		activation.derivativeFunction(fromSums, fromOutput, derivative, 0,
+				rows * fromLayerSize);
+		for (int row = 0; row < rows; row++) {
+			final int di = row * fromLayerSize;
+			Arrays.fill(fromDelta, di, di + fromLayerSize, 0);
+			for (int x = 0; x < toLayerSize; x++) {
+				final double delta = toDelta[(row * toLayerStride) + x];
+				final int wi = index + (x * fromLayerSize);
+				for (int y = 0; y < fromLayerSize; y++) {
+					fromDelta[di + y] += weights[wi + y] * delta;
+				}
+			}
+			for (int y = di; y < di + fromLayerSize; y++) {
+				fromDelta[y] *= derivative[y] + currentFlatSpot;
+			}
+		}
+	}
+
 	/**
 	 * Process one level.
 	 * 
@@ -264,7 +613,9 @@ private void processLevel(final int currentLevel) {
 		final double[] weights = this.weights;
 		final double[] gradients = this.gradients;
 		final double[] layerOutput = this.layerOutput;
-		final double[] layerSums = this.layerSums;
+		final double[] layerDerivative = this.layerDerivative;
+		activation.derivativeFunction(this.layerSums, layerOutput,
+				layerDerivative, fromLayerIndex, fromLayerSize);
 		int yi = fromLayerIndex;
 		for (int y = 0; y < fromLayerSize; y++) {
 			final double output = layerOutput[yi];
@@ -279,7 +630,7 @@ private void processLevel(final int currentLevel) {
 					sum += weights[wi] * layerDelta[xi];
 				}
 				layerDelta[yi] = sum
-						* (activation.derivativeFunction(layerSums[yi], layerOutput[yi])+currentFlatSpot);
+						* (layerDerivative[yi] + currentFlatSpot);
 			} else {
 				layerDelta[yi] = 0;
 			}
@@ -293,25 +644,110 @@ private void processLevel(final int currentLevel) {
 	public final void run() {
 		try {
 			this.errorCalculation.reset();
-			for (int i = this.low; i <= this.high; i++) {
-				this.training.getRecord(i, this.pair);
-				process(pair);
+			if (this.floatNetwork != null) {
+				this.floatNetwork.setWeights(this.weights);
+			}
+			if (this.chunker != null) {
+				int start;
+				while ((start = this.chunker.nextChunk()) != -1) {
+					processRange(start, this.chunker.chunkHigh(start));
+				}
+			} else {
+				processRange(this.low, this.high);
+			}
+			if (!this.retainGradients) {
+				final double error = this.errorCalculation.calculate();
+				this.owner.report(this.gradients, error, null);
+				EngineArray.fill(this.gradients, 0);
 			}
-			final double error = this.errorCalculation.calculate();
-			this.owner.report(this.gradients, error, null);
-			EngineArray.fill(this.gradients, 0);
 		} catch (final Throwable ex) {
 			this.owner.report(null, 0, ex);
 		}
 	}
 	
+	/**
+	 * Process a range of the training set.
+	 * 
+	 * @param rangeLow
+	 *            The first record to process.
+	 * @param rangeHigh
+	 *            The last record to process, inclusive.
+	 */
+	private void processRange(final int rangeLow, final int rangeHigh) {
+		if (this.floatNetwork != null) {
+			for (int i = rangeLow; i <= rangeHigh; i++) {
+				this.training.getRecord(i, this.pair);
+				processFloat(this.pair);
+			}
+		} else if (this.block != null) {
+			for (int i = rangeLow; i <= rangeHigh; i += this.block
+					.getBlockSize()) {
+				processBlock(i, Math.min(this.block.getBlockSize(),
+						rangeHigh - i + 1));
+			}
+		} else {
+			for (int i = rangeLow; i <= rangeHigh; i++) {
+				this.training.getRecord(i, this.pair);
+				process(this.pair);
+			}
+		}
+	}
+
 	public final void run(int index) {
 		this.training.getRecord(index, this.pair);
-		process(pair);
+		if (this.floatNetwork != null) {
+			// the weights may have changed since the last record
+			this.floatNetwork.setWeights(this.weights);
+			processFloat(this.pair);
+		} else {
+			process(pair);
+		}
 		this.owner.report(this.gradients, 0, null);
 		EngineArray.fill(this.gradients, 0);
 	}
 
+	/**
+	 * @return True, if the gradients are kept by this worker after a run,
+	 *         rather than reported to the owner.
+	 */
+	public boolean isRetainGradients() {
+		return this.retainGradients;
+	}
+
+	/**
+	 * Determine if the gradients should be kept by this worker after a run,
+	 * rather than reported to the owner. When this is set the owner is
+	 * responsible for reading and clearing the gradients, and for obtaining
+	 * the error from getErrorCalculation().
+	 * 
+	 * @param retainGradients
+	 *            True, if the gradients should be retained.
+	 */
+	public void setRetainGradients(final boolean retainGradients) {
+		this.retainGradients = retainGradients;
+	}
+
+	/**
+	 * @return The chunker that hands out the training set, or null if this
+	 *         worker processes a fixed range.
+	 */
+	public WorkloadChunker getWorkloadChunker() {
+		return this.chunker;
+	}
+
+	/**
+	 * Set a chunker to load balance the training set between the workers.
+	 * All workers that share the chunker request chunks of the training set
+	 * from it, rather than processing their fixed range. The owner must
+	 * reset the chunker before each run.
+	 * 
+	 * @param theChunker
+	 *            The chunker, or null to process the fixed range.
+	 */
+	public void setWorkloadChunker(final WorkloadChunker theChunker) {
+		this.chunker = theChunker;
+	}
+
 	public ErrorCalculation getErrorCalculation() {
 		return errorCalculation;
 	}
@@ -322,23 +758,32 @@ public ErrorCalculation getErrorCalculation() {
 	public double[] getGradients() {
 		return gradients;
 	}
-	
-	public void calculateRegularizationPenalty(double[] l) {
-		for (int i = 0; i < network.getLayerCounts().length - 1; i++) {
-			layerRegularizationPenalty(i, l);
-		}
-	}
-	
-	public void layerRegularizationPenalty(final int fromLayer, final double[] l) {
-		final int fromCount = network.getLayerTotalNeuronCount(fromLayer);
-		final int toCount = network.getLayerNeuronCount(fromLayer + 1);
-
-		for (int fromNeuron = 0; fromNeuron < fromCount; fromNeuron++) {
-			for (int toNeuron = 0; toNeuron < toCount; toNeuron++) {
-				double w = this.network.getWeight(fromLayer, fromNeuron, toNeuron);
-				l[0]+=Math.abs(w);
-				l[1]+=w*w;
+
+	/**
+	 * Calculate the regularization penalty for a set of weights. This is the
+	 * same for every record, so the owner calculates it once per iteration,
+	 * or once per batch, rather than for each record.
+	 * 
+	 * @param weights
+	 *            The weights.
+	 * @param l1
+	 *            How much to apply l1 regularization.
+	 * @param l2
+	 *            How much to apply l2 regularization.
+	 * @return The penalty to add to each output delta, zero for none.
+	 */
+	public static double calculateRegularizationPenalty(
+			final double[] weights, final double l1, final double l2) {
+		if (l1 > Encog.DEFAULT_DOUBLE_EQUAL || l2 > Encog.DEFAULT_DOUBLE_EQUAL) {
+			double sumAbs = 0;
+			double sumSquare = 0;
+			for (int i = 0; i < weights.length; i++) {
+				sumAbs += Math.abs(weights[i]);
+				sumSquare += weights[i] * weights[i];
 			}
+			return (sumAbs * l1) + (sumSquare * l2);
 		}
+		return 0;
 	}
+
 }
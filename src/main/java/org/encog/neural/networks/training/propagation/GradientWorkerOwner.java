@@ -47,4 +47,12 @@ public void report(final double[] gradients, final double error,
 	 */
 	public double getL2();
 
+	/**
+	 * @return The regularization penalty to add to each output delta. This is
+	 *         calculated from the current weights once per iteration, or once
+	 *         per batch, so that the workers do not need to recalculate it for
+	 *         each record. Zero if no regularization is used.
+	 */
+	public double getRegularizationPenalty();
+
 }
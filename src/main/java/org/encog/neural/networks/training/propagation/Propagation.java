@@ -29,6 +29,7 @@
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.mathutil.IntRange;
+import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
 import org.encog.ml.data.MLDataSet;
@@ -45,6 +46,7 @@
 import org.encog.util.concurrency.EngineConcurrency;
 import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.concurrency.TaskGroup;
+import org.encog.util.concurrency.WorkloadChunker;
 import org.encog.util.logging.EncogLogging;
 
 /**
@@ -103,6 +105,43 @@ public abstract class Propagation extends BasicTraining implements Train,
 	 */
 	private GradientWorker[] workers;
 
+	/**
+	 * How the gradients of the workers are combined.
+	 */
+	private GradientReduction gradientReduction = GradientReduction.Synchronized;
+
+	/**
+	 * Should the network be computed in single precision during training.
+	 */
+	private boolean singlePrecision;
+
+	/**
+	 * The tasks that sum the worker gradients, one per stripe of the weights.
+	 * Only used for striped reduction.
+	 */
+	private GradientReductionWorker[] reductionWorkers;
+
+	/**
+	 * The concurrency object that the workers are run on.
+	 */
+	private EngineConcurrency concurrency = EngineConcurrency.getInstance();
+
+	/**
+	 * Should the training set be load balanced between the workers.
+	 */
+	private boolean loadBalancing = true;
+
+	/**
+	 * Hands out chunks of the training set to the workers, or null if each
+	 * worker processes a fixed range.
+	 */
+	private WorkloadChunker chunker;
+
+	/**
+	 * Used to combine the errors of the workers when they are load balanced.
+	 */
+	private final ErrorCalculation combinedError = new ErrorCalculation();
+
 	/**
 	 * The total error. Used to take the average of.
 	 */
@@ -150,6 +189,12 @@ public abstract class Propagation extends BasicTraining implements Train,
 	 */
 	private double l2;
 
+	/**
+	 * The regularization penalty for the current weights. Calculated once per
+	 * iteration, or once per batch, and read by each of the workers.
+	 */
+	private double regularizationPenalty;
+
 	private boolean finalized = false;
 
 	/**
@@ -265,6 +310,8 @@ private void processBatches() {
 
 		this.workers[0].getErrorCalculation().reset();
 
+		calculateRegularizationPenalty();
+
 		int lastLearn = 0;
 
 		for (int i = 0; i < this.getTraining().size(); i++) {
@@ -279,6 +326,7 @@ private void processBatches() {
 					learn();
 					lastLearn = 0;
 				}
+				calculateRegularizationPenalty();
 			}
 		}
 		
@@ -359,6 +407,100 @@ public int getThreadCount() {
 		return this.numThreads;
 	}
 
+	/**
+	 * @return How the gradients of the worker threads are combined.
+	 */
+	public GradientReduction getGradientReduction() {
+		return this.gradientReduction;
+	}
+
+	/**
+	 * Set how the gradients of the worker threads are combined. The default
+	 * is synchronized, where each worker merges its gradients under a lock.
+	 * Striped reduction avoids the lock and is faster with many threads. This
+	 * has no effect if only a single thread is used.
+	 * 
+	 * @param theGradientReduction
+	 *            The gradient reduction mode.
+	 */
+	public void setGradientReduction(
+			final GradientReduction theGradientReduction) {
+		this.gradientReduction = theGradientReduction;
+		if (this.workers != null) {
+			initReduction();
+		}
+	}
+
+	/**
+	 * @return The concurrency object that the workers are run on.
+	 */
+	public EngineConcurrency getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Set the concurrency object that the workers are run on. By default the
+	 * global EngineConcurrency instance is used. Providing a separate
+	 * instance gives this trainer its own thread pool, so that it does not
+	 * compete with other trainers for the global pool.
+	 * 
+	 * @param theConcurrency
+	 *            The concurrency object to use.
+	 */
+	public void setConcurrency(final EngineConcurrency theConcurrency) {
+		this.concurrency = theConcurrency;
+	}
+
+	/**
+	 * @return True, if the training set is load balanced between the
+	 *         workers.
+	 */
+	public boolean isLoadBalancing() {
+		return this.loadBalancing;
+	}
+
+	/**
+	 * Determine if the training set should be load balanced between the
+	 * workers. When true, which is the default, the workers take adaptively
+	 * sized chunks of the training set from a shared WorkloadChunker, rather
+	 * than each processing an equal, fixed range. This keeps all of the
+	 * threads busy when some records are more expensive than others. Networks
+	 * with context neurons always use fixed ranges, as the context must flow
+	 * through the training set in order.
+	 * 
+	 * @param theLoadBalancing
+	 *            True to load balance the workers.
+	 */
+	public void setLoadBalancing(final boolean theLoadBalancing) {
+		this.loadBalancing = theLoadBalancing;
+		if (this.workers != null) {
+			initChunker();
+		}
+	}
+
+	/**
+	 * @return True, if the network is computed in single precision during
+	 *         training.
+	 */
+	public boolean isSinglePrecision() {
+		return this.singlePrecision;
+	}
+
+	/**
+	 * Determine if the network should be computed in single precision during
+	 * training. Each worker then keeps a FlatNetworkFloat copy of the
+	 * weights, which halves the memory traffic of the forward and backward
+	 * passes. The gradients and the weights themselves are still held in
+	 * double precision. Only feedforward networks, without context neurons,
+	 * are supported. This must be set before the first iteration.
+	 * 
+	 * @param singlePrecision
+	 *            True to compute in single precision.
+	 */
+	public void setSinglePrecision(final boolean singlePrecision) {
+		this.singlePrecision = singlePrecision;
+	}
+
 	/**
 	 * Default is true. Call this with false to disable flat spot fix.
 	 * 
@@ -391,22 +533,113 @@ public void calculateGradients() {
 
 		this.totalError = 0;
 
+		calculateRegularizationPenalty();
+
 		if (this.workers.length > 1) {
 
-			final TaskGroup group = EngineConcurrency.getInstance()
-					.createTaskGroup();
+			if (this.chunker != null) {
+				this.chunker.reset();
+			}
+
+			final TaskGroup group = this.concurrency.createTaskGroup();
 
 			for (final GradientWorker worker : this.workers) {
-				EngineConcurrency.getInstance().processTask(worker, group);
+				this.concurrency.processTask(worker, group);
 			}
 
 			group.waitForComplete();
+
+			if (this.reductionWorkers != null) {
+				reduceGradients();
+			}
 		} else {
 			this.workers[0].run();
 		}
 
-		this.setError(this.totalError / this.workers.length);
+		if (this.chunker != null) {
+			// the workers processed different numbers of records
+			this.combinedError.reset();
+			for (final GradientWorker worker : this.workers) {
+				this.combinedError.add(worker.getErrorCalculation());
+			}
+			this.setError(this.combinedError.calculate());
+		} else {
+			this.setError(this.totalError / this.workers.length);
+		}
+
+	}
+
+	/**
+	 * Calculate the regularization penalty for the current weights. This is
+	 * the same for every record, so it is only calculated once per iteration,
+	 * or once per batch, rather than by the workers for each record.
+	 */
+	private void calculateRegularizationPenalty() {
+		this.regularizationPenalty = GradientWorker
+				.calculateRegularizationPenalty(
+						this.currentFlatNetwork.getWeights(), this.l1, this.l2);
+	}
+
+	/**
+	 * Sum the gradients that each worker retained, one stripe of the weights
+	 * per task. Also sums the error of each worker.
+	 */
+	private void reduceGradients() {
+		final TaskGroup group = this.concurrency.createTaskGroup();
+
+		for (final GradientReductionWorker reducer : this.reductionWorkers) {
+			this.concurrency.processTask(reducer, group);
+		}
+
+		group.waitForComplete();
+
+		for (final GradientWorker worker : this.workers) {
+			this.totalError += worker.getErrorCalculation().calculate();
+		}
+	}
+
+	/**
+	 * Setup the workers and stripes for the current gradient reduction mode.
+	 */
+	private void initReduction() {
+		final boolean striped = this.gradientReduction == GradientReduction.Striped
+				&& this.workers.length > 1;
+
+		for (final GradientWorker worker : this.workers) {
+			worker.setRetainGradients(striped);
+		}
 
+		if (striped) {
+			final DetermineWorkload determine = new DetermineWorkload(
+					this.workers.length, this.gradients.length);
+			this.reductionWorkers = new GradientReductionWorker[determine
+					.getThreadCount()];
+			int index = 0;
+			for (final IntRange r : determine.calculateWorkers()) {
+				this.reductionWorkers[index++] = new GradientReductionWorker(
+						this.workers, this.gradients, r.getLow(), r.getHigh());
+			}
+		} else {
+			this.reductionWorkers = null;
+		}
+	}
+
+	/**
+	 * Setup the chunker, if the workers should be load balanced.
+	 */
+	private void initChunker() {
+		if (this.loadBalancing && this.workers.length > 1
+				&& !this.currentFlatNetwork.getHasContext()) {
+			this.chunker = new WorkloadChunker(0,
+					(int) this.indexable.getRecordCount() - 1,
+					this.workers.length);
+		} else {
+			this.chunker = null;
+		}
+
+		for (final GradientWorker worker : this.workers) {
+			worker.setWorkloadChunker(this.chunker);
+		}
 	}
 
 	/**
@@ -479,9 +712,12 @@ private void init() {
 			this.workers[index++] = new GradientWorker(
 					this.currentFlatNetwork.clone(), this,
 					this.indexable.openAdditional(), r.getLow(), r.getHigh(),
-					this.flatSpot, this.ef);
+					this.flatSpot, this.ef, this.singlePrecision);
 		}
 
+		initReduction();
+		initChunker();
+
 		initOthers();
 	}
 
@@ -638,6 +874,14 @@ public double getL2() {
 	public void setL2(double l2) {
 		this.l2 = l2;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getRegularizationPenalty() {
+		return this.regularizationPenalty;
+	}
 	
 	
 	
@@ -290,6 +290,13 @@ public void setCurrentIndex(int currentIndex) {
         this.currentIndex = currentIndex;
     }
 
+    /**
+     * @return The source dataset that the batches are taken from.
+     */
+    public MLDataSet getDataset() {
+        return this.dataset;
+    }
+
     /**
      * @return True, if random batches are being used.
      */
@@ -0,0 +1,221 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation.sgd;
+
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.mathutil.randomize.generate.GenerateRandom;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.training.propagation.GradientWorker;
+import org.encog.neural.networks.training.propagation.GradientWorkerOwner;
+import org.encog.neural.networks.training.propagation.sgd.update.UpdateRule;
+import org.encog.util.EngineArray;
+import org.encog.util.concurrency.EngineTask;
+
+/**
+ * One thread of asynchronous (Hogwild) stochastic gradient descent. The
+ * worker repeatedly takes a mini-batch from its owner, calculates the
+ * gradients of the mini-batch, and applies them to the weights with the
+ * owner's update rule. The weights are shared by all of the workers and are
+ * updated without any locks. Each worker has its own copy of the rest of the
+ * network, so that the forward and backward passes do not interfere. The
+ * gradients are calculated by a GradientWorker on that copy, this class only
+ * claims the mini-batches and applies them.
+ * 
+ * Occasionally an update made by one worker will be overwritten by another.
+ * For the sparse and noisy updates of SGD this has little effect on
+ * convergence, and avoiding the locks allows the threads to run at full
+ * speed.
+ */
+public class SGDWorker implements EngineTask, GradientWorkerOwner {
+
+	/**
+	 * The owner of this worker.
+	 */
+	private final StochasticGradientDescent owner;
+
+	/**
+	 * The network for this worker. The weights are shared with the owner.
+	 */
+	private final FlatNetwork network;
+
+	/**
+	 * The data to train with, opened for this worker.
+	 */
+	private final MLDataSet dataset;
+
+	/**
+	 * Used to choose random mini-batches.
+	 */
+	private final GenerateRandom random;
+
+	/**
+	 * Calculates the gradients of each record, on this worker's network.
+	 */
+	private final GradientWorker gradientWorker;
+
+	/**
+	 * The pair to read records into.
+	 */
+	private final MLDataPair pair;
+
+	/**
+	 * The regularization penalty of the current mini-batch.
+	 */
+	private double regularizationPenalty;
+
+	/**
+	 * The number of records processed by the last run.
+	 */
+	private int recordCount;
+
+	/**
+	 * An error thrown by the last run, or null.
+	 */
+	private Throwable error;
+
+	/**
+	 * Construct the worker.
+	 * 
+	 * @param theOwner
+	 *            The owner of this worker.
+	 * @param theDataset
+	 *            The data to train with, opened for this worker.
+	 * @param theRandom
+	 *            Used to choose random mini-batches.
+	 */
+	public SGDWorker(final StochasticGradientDescent theOwner,
+			final MLDataSet theDataset, final GenerateRandom theRandom) {
+		this.owner = theOwner;
+		this.network = theOwner.getFlat().clone();
+		this.dataset = theDataset;
+		this.random = theRandom;
+		this.gradientWorker = new GradientWorker(this.network, this,
+				theDataset, 0, 0,
+				new double[this.network.getLayerCounts().length],
+				theOwner.getErrorFunction());
+		this.gradientWorker.setRetainGradients(true);
+		this.pair = BasicMLDataPair.createPair(this.network.getInputCount(),
+				this.network.getOutputCount());
+	}
+
+	/**
+	 * Process mini-batches until the owner has no more for this iteration.
+	 */
+	@Override
+	public void run() {
+		this.gradientWorker.getErrorCalculation().reset();
+		this.recordCount = 0;
+		this.error = null;
+		try {
+			final UpdateRule updateRule = this.owner.getUpdateRule();
+			final double[] gradients = this.gradientWorker.getGradients();
+			final int batchSize = this.owner.getBatchSize();
+			final long size = this.dataset.getRecordCount();
+			final boolean randomBatches = this.owner.isRandomBatches();
+
+			while (this.owner.claimBatch()) {
+				this.regularizationPenalty = GradientWorker
+						.calculateRegularizationPenalty(
+								this.network.getWeights(), getL1(), getL2());
+				final long start = randomBatches ? 0 : this.owner
+						.nextBatchStart(batchSize);
+
+				for (int i = 0; i < batchSize; i++) {
+					final long index;
+					if (randomBatches) {
+						index = this.random.nextInt((int) size);
+					} else {
+						index = (start + i) % size;
+					}
+					this.dataset.getRecord(index, this.pair);
+					this.gradientWorker.process(this.pair);
+				}
+
+				// apply the mini-batch to the shared weights, without a lock
+				updateRule.update(gradients, this.network.getWeights());
+				EngineArray.fill(gradients, 0);
+				this.recordCount += batchSize;
+			}
+		} catch (final Throwable t) {
+			this.error = t;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void report(final double[] theGradients, final double theError,
+			final Throwable ex) {
+		// the gradients are retained and applied by run
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getL1() {
+		return this.owner.getL1();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getL2() {
+		return this.owner.getL2();
+	}
+
+	/**
+	 * @return The regularization penalty of the current mini-batch.
+	 */
+	@Override
+	public double getRegularizationPenalty() {
+		return this.regularizationPenalty;
+	}
+
+	/**
+	 * @return The error of the records processed by the last run.
+	 */
+	public ErrorCalculation getErrorCalculation() {
+		return this.gradientWorker.getErrorCalculation();
+	}
+
+	/**
+	 * @return The number of records processed by the last run.
+	 */
+	public int getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * @return An error thrown by the last run, or null.
+	 */
+	public Throwable getError() {
+		return this.error;
+	}
+}
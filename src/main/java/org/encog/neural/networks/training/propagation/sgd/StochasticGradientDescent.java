@@ -23,6 +23,9 @@
  */
 package org.encog.neural.networks.training.propagation.sgd;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.encog.Encog;
 import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationFunction;
@@ -44,9 +47,33 @@
 import org.encog.neural.networks.training.propagation.sgd.update.AdamUpdate;
 import org.encog.neural.networks.training.propagation.sgd.update.UpdateRule;
 import org.encog.util.EngineArray;
-
+import org.encog.util.concurrency.DetermineWorkload;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.concurrency.TaskGroup;
+
+/**
+ * Stochastic gradient descent (SGD), which updates the weights after each
+ * mini-batch, using an UpdateRule such as Adam, Nesterov or momentum.
+ * 
+ * By default training is sequential and each iteration processes a single
+ * mini-batch. If the thread count is set to anything other than one, the
+ * training is asynchronous (Hogwild). Each thread then pulls mini-batches
+ * and applies their updates to the shared weights without locks, and each
+ * iteration processes batchesPerThread mini-batches for every thread. As
+ * each mini-batch is still applied on its own, with the same update rule,
+ * convergence per record is comparable to the sequential mode. The update
+ * rule is also shared by the threads, so rules that keep state, such as
+ * Adam, are updated without locks as well.
+ */
 public class StochasticGradientDescent extends BasicTraining implements Momentum,
-		LearningRate {
+		LearningRate, MultiThreadable {
+
+	/**
+	 * The default number of mini-batches each thread processes per
+	 * asynchronous iteration.
+	 */
+	public static final int DEFAULT_BATCHES_PER_THREAD = 8;
 
 	/**
 	 * The learning rate.
@@ -107,6 +134,48 @@ public class StochasticGradientDescent extends BasicTraining implements Momentum
 
     private MLMethod method;
 
+	/**
+	 * The number of threads, one for sequential training.
+	 */
+	private int threadCount = 1;
+
+	/**
+	 * The number of mini-batches each thread processes per asynchronous
+	 * iteration.
+	 */
+	private int batchesPerThread = DEFAULT_BATCHES_PER_THREAD;
+
+	/**
+	 * The concurrency object the asynchronous workers are run on.
+	 */
+	private EngineConcurrency concurrency = EngineConcurrency.getInstance();
+
+	/**
+	 * The asynchronous workers, or null if they have not been created.
+	 */
+	private SGDWorker[] workers;
+
+	/**
+	 * The number of mini-batches left in the current asynchronous iteration.
+	 */
+	private final AtomicInteger batchesRemaining = new AtomicInteger();
+
+	/**
+	 * The start of the next sequential mini-batch for the asynchronous
+	 * workers.
+	 */
+	private final AtomicLong nextBatch = new AtomicLong();
+
+	/**
+	 * The number of records processed per second by the last iteration.
+	 */
+	private double recordsPerSecond;
+
+	/**
+	 * The total number of records processed.
+	 */
+	private long totalRecords;
+
     public StochasticGradientDescent(final ContainsFlat network,
                                      final MLDataSet training) {
         this(network,training,new MersenneTwisterGenerateRandom());
@@ -228,6 +297,12 @@ private void processLevel(final int currentLevel) {
 
     @Override
 	public void iteration() {
+        if( this.threadCount!=1 ) {
+            iterationAsync();
+            return;
+        }
+
+        final long start = System.nanoTime();
 
         for(int i=0;i<getTraining().size();i++) {
             process(getTraining().get(i));
@@ -245,6 +320,218 @@ public void iteration() {
         if( getTraining() instanceof  BatchDataSet) {
             ((BatchDataSet)getTraining()).advance();
         }
+
+        updateThroughput(getTraining().size(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Perform one asynchronous iteration. The workers process
+	 * batchesPerThread mini-batches each, between them, updating the shared
+	 * weights without locks.
+	 */
+	private void iterationAsync() {
+		if (this.workers == null) {
+			initWorkers();
+		}
+
+		if (getIteration() == 0) {
+			this.updateRule.init(this);
+		}
+
+		preIteration();
+
+		final long start = System.nanoTime();
+		this.batchesRemaining.set(this.workers.length * this.batchesPerThread);
+
+		if (this.workers.length == 1) {
+			this.workers[0].run();
+		} else {
+			final TaskGroup group = this.concurrency.createTaskGroup();
+			for (final SGDWorker worker : this.workers) {
+				this.concurrency.processTask(worker, group);
+			}
+			group.waitForComplete();
+		}
+
+		// the workers processed different numbers of records
+		this.errorCalculation.reset();
+		int records = 0;
+		for (final SGDWorker worker : this.workers) {
+			if (worker.getError() != null) {
+				throw new EncogError(worker.getError());
+			}
+			this.errorCalculation.add(worker.getErrorCalculation());
+			records += worker.getRecordCount();
+		}
+		setError(this.errorCalculation.calculate());
+		updateThroughput(records, System.nanoTime() - start);
+
+		postIteration();
+	}
+
+	/**
+	 * Create the asynchronous workers. Each one reads from its own view of
+	 * the training data.
+	 */
+	private void initWorkers() {
+		final MLDataSet data;
+		if (getTraining() instanceof BatchDataSet) {
+			data = ((BatchDataSet) getTraining()).getDataset();
+		} else {
+			data = getTraining();
+		}
+
+		int threads = this.threadCount;
+		if (threads == 0) {
+			threads = new DetermineWorkload(0, (int) data.getRecordCount(),
+					Math.max(1, getBatchSize())).getThreadCount();
+		}
+
+		this.workers = new SGDWorker[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new SGDWorker(this, data.openAdditional(),
+					new MersenneTwisterGenerateRandom(this.rnd.nextLong()));
+		}
+		this.nextBatch.set(0);
+	}
+
+	/**
+	 * Record the throughput of an iteration.
+	 * 
+	 * @param records
+	 *            The number of records processed.
+	 * @param nanos
+	 *            How long it took to process them, in nanoseconds.
+	 */
+	private void updateThroughput(final long records, final long nanos) {
+		this.totalRecords += records;
+		if (nanos > 0) {
+			this.recordsPerSecond = (records * 1.0e9) / nanos;
+		}
+	}
+
+	/**
+	 * Claim a mini-batch of the current asynchronous iteration. Called by the
+	 * workers.
+	 * 
+	 * @return True if a mini-batch was claimed, false if the iteration is
+	 *         complete.
+	 */
+	boolean claimBatch() {
+		return this.batchesRemaining.getAndDecrement() > 0;
+	}
+
+	/**
+	 * Obtain the start of the next sequential mini-batch. Called by the
+	 * workers.
+	 * 
+	 * @param batchSize
+	 *            The size of the mini-batch.
+	 * @return The index of the first record of the mini-batch.
+	 */
+	long nextBatchStart(final int batchSize) {
+		return this.nextBatch.getAndAdd(batchSize);
+	}
+
+	/**
+	 * @return True, if the mini-batches are randomly sampled.
+	 */
+	public boolean isRandomBatches() {
+		return getTraining() instanceof BatchDataSet
+				&& ((BatchDataSet) getTraining()).isRandomBatches();
+	}
+
+	/**
+	 * @return The number of records processed per second by the last
+	 *         iteration.
+	 */
+	public double getRecordsPerSecond() {
+		return this.recordsPerSecond;
+	}
+
+	/**
+	 * @return The total number of records processed so far.
+	 */
+	public long getTotalRecords() {
+		return this.totalRecords;
+	}
+
+	/**
+	 * @return The number of threads, one for sequential training.
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * Set the number of threads. The default, one, trains sequentially. Any
+	 * other value trains asynchronously, with zero choosing the number of
+	 * threads from the processor count. This must be set before the first
+	 * iteration.
+	 * 
+	 * @param numThreads
+	 *            The number of threads.
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+		this.workers = null;
+	}
+
+	/**
+	 * @return The number of mini-batches each thread processes per
+	 *         asynchronous iteration.
+	 */
+	public int getBatchesPerThread() {
+		return this.batchesPerThread;
+	}
+
+	/**
+	 * Set the number of mini-batches each thread processes per asynchronous
+	 * iteration. Larger values lower the overhead of starting the threads,
+	 * smaller values report the error more often.
+	 * 
+	 * @param theBatchesPerThread
+	 *            The number of mini-batches.
+	 */
+	public void setBatchesPerThread(final int theBatchesPerThread) {
+		this.batchesPerThread = theBatchesPerThread;
+	}
+
+	/**
+	 * @return The concurrency object the asynchronous workers are run on.
+	 */
+	public EngineConcurrency getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Set the concurrency object the asynchronous workers are run on. By
+	 * default the global EngineConcurrency instance is used.
+	 * 
+	 * @param theConcurrency
+	 *            The concurrency object.
+	 */
+	public void setConcurrency(final EngineConcurrency theConcurrency) {
+		this.concurrency = theConcurrency;
+	}
+
+	/**
+	 * @return The error function.
+	 */
+	public ErrorFunction getErrorFunction() {
+		return this.errorFunction;
+	}
+
+	/**
+	 * Set the error function. The default is cross entropy.
+	 * 
+	 * @param theErrorFunction
+	 *            The error function.
+	 */
+	public void setErrorFunction(final ErrorFunction theErrorFunction) {
+		this.errorFunction = theErrorFunction;
 	}
 
 	@Override
@@ -23,6 +23,8 @@
  */
 package org.encog.neural.networks.training.propagation.sgd.update;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.encog.neural.networks.training.propagation.sgd.StochasticGradientDescent;
 
 /**
@@ -36,23 +38,34 @@ public class AdamUpdate implements UpdateRule {
     private double beta2 = 0.999;
     private double eps = 1e-8;
 
+    /**
+     * The number of updates so far, used for the bias correction. This is
+     * counted by the rule, rather than taken from the iteration, because an
+     * asynchronous iteration applies many updates.
+     */
+    private final AtomicInteger step = new AtomicInteger();
+
     @Override
     public void init(StochasticGradientDescent theTraining) {
         this.training = theTraining;
         this.m = new double[theTraining.getFlat().getWeights().length];
         this.v = new double[theTraining.getFlat().getWeights().length];
+        this.step.set(0);
     }
 
     @Override
     public void update(double[] gradients, double[] weights) {
+        final int t = this.step.incrementAndGet();
+        final double correct1 = 1-Math.pow(this.beta1,t);
+        final double correct2 = 1-Math.pow(this.beta2,t);
 
         for(int i=0;i<weights.length;i++) {
 
             m[i] = (this.beta1*m[i])+(1-this.beta1)*gradients[i];
             v[i] = (this.beta2*v[i])+(1-this.beta2)*gradients[i]*gradients[i];
 
-            double mCorrect = m[i]/(1-Math.pow(this.beta1,this.training.getIteration()));
-            double vCorrect = v[i]/(1-Math.pow(this.beta2,this.training.getIteration()));
+            double mCorrect = m[i]/correct1;
+            double vCorrect = v[i]/correct2;
 
             final double delta = (training.getLearningRate()*mCorrect)/(Math.sqrt(vCorrect)+this.eps);
             weights[i] += delta;
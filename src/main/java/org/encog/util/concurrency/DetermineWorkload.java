@@ -44,6 +44,12 @@ public class DetermineWorkload {
 	 */
 	public static final int MIN_WORTHWHILE = 100;
 
+	/**
+	 * The minimum number of workload entries for a thread to be worthwhile,
+	 * for this workload.
+	 */
+	private final int minWorthwhile;
+
 	/**
 	 * How many threads to use.
 	 */
@@ -63,12 +69,31 @@ public class DetermineWorkload {
 	 *            Total workload size.
 	 */
 	public DetermineWorkload(final int threads, final int workloadSize) {
+		this(threads, workloadSize, MIN_WORTHWHILE);
+	}
+
+	/**
+	 * Determine the workload. Workloads where each entry is expensive, such
+	 * as scoring a genome, can use a lower minimum than MIN_WORTHWHILE, which
+	 * is tuned for training set records.
+	 * 
+	 * @param threads
+	 *            Threads to use, or zero to allow Encog to pick.
+	 * @param workloadSize
+	 *            Total workload size.
+	 * @param theMinWorthwhile
+	 *            The minimum number of workload entries for a thread to be
+	 *            worthwhile.
+	 */
+	public DetermineWorkload(final int threads, final int workloadSize,
+			final int theMinWorthwhile) {
 
 		if( workloadSize==0) {
 			throw new EncogError("Workload is of size zero.");
 		}
 		
 		this.workloadSize = workloadSize;
+		this.minWorthwhile = Math.max(1, theMinWorthwhile);
 		if (threads == 0) {
 			int num = Runtime.getRuntime().availableProcessors();
 
@@ -83,14 +108,14 @@ public DetermineWorkload(final int threads, final int workloadSize) {
 			// if there is a single processor, just use one thread
 
 			// Now see how big the training sets are going to be.
-			// We want at least 100 training elements in each.
+			// We want at least minWorthwhile training elements in each.
 			// This method will likely be further "tuned" in future versions.
 
 			final long recordCount = this.workloadSize;
 			final long workPerThread = recordCount / num;
 
-			if (workPerThread < 100) {
-				num = Math.max(1, (int) (recordCount / 100));
+			if (workPerThread < this.minWorthwhile) {
+				num = Math.max(1, (int) (recordCount / this.minWorthwhile));
 			}
 
 			this.threadCount = num;
@@ -127,6 +152,14 @@ public List<IntRange> calculateWorkers() {
 		return result;
 	}
 
+	/**
+	 * @return The minimum number of workload entries for a thread to be
+	 *         worthwhile.
+	 */
+	public int getMinWorthwhile() {
+		return this.minWorthwhile;
+	}
+
 	/**
 	 * @return The thread count.
 	 */
@@ -23,8 +23,8 @@
  */
 package org.encog.util.concurrency;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 
 import org.encog.EncogError;
@@ -34,11 +34,27 @@
  * concurrency. It is used by other classes inside of Encog to allow tasks to be
  * executed efficiently on multicore machines.
  * 
+ * Tasks are executed by a work-stealing ForkJoinPool. Tasks submitted with
+ * processTask are queued on the pool, and ranges submitted with processRange
+ * are split into adaptively sized chunks that idle threads steal from busy
+ * ones, so uneven workloads keep all of the cores busy.
+ * 
+ * Most of Encog uses the global instance, however a trainer can be given its
+ * own instance, and so its own pool, by constructing one with the desired
+ * thread count.
+ * 
  * @author jheaton
  * 
  */
 public class EngineConcurrency implements MultiThreadable {
 
+	/**
+	 * The number of chunks, per thread, that processRange splits a range
+	 * into. More chunks allow better balancing of uneven workloads, at the
+	 * cost of more scheduling overhead.
+	 */
+	public static final int CHUNKS_PER_THREAD = 8;
+
 	/**
 	 * Singleton instance.
 	 */
@@ -69,9 +85,9 @@ public static EngineConcurrency getInstance() {
 	private int currentTaskGroup;
 
 	/**
-	 * The executor service we are using.
+	 * The work-stealing pool we are using.
 	 */
-	private ExecutorService executor;
+	private ForkJoinPool executor;
 
 	/**
 	 * Construct a concurrency object.
@@ -83,7 +99,38 @@ public EngineConcurrency() {
 		// Encog Benchmark. Ca 15% higher performance with exactly 8 threads.
 		// if( threads>1 )
 		// threads++;
-		this.executor = Executors.newFixedThreadPool(threads);
+		this.executor = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Construct a concurrency object with its own pool. This allows a
+	 * trainer to use a pool that is separate from the global instance.
+	 * 
+	 * @param threads
+	 *            The number of threads, or zero to use the processor count.
+	 */
+	public EngineConcurrency(final int threads) {
+		this.threadCount = determineThreads(threads);
+		this.executor = new ForkJoinPool(this.threadCount);
+	}
+
+	/**
+	 * Determine the number of threads to actually create.
+	 * 
+	 * @param t
+	 *            The requested thread count, zero to use the processor count.
+	 * @return The number of threads.
+	 */
+	private static int determineThreads(final int t) {
+		int threads = t;
+
+		if (threads == 0) {
+			Runtime runtime = Runtime.getRuntime();
+			threads = runtime.availableProcessors();
+			if (threads > 1)
+				threads++;
+		}
+		return threads;
 	}
 
 	/**
@@ -92,17 +139,13 @@ public EngineConcurrency() {
 	@Override
 	public void setThreadCount(int t) {
 		if (this.executor != null) {
-			this.executor.shutdown();
-			int threads = t;
-
-			if (threads == 0) {
-				Runtime runtime = Runtime.getRuntime();
-				threads = runtime.availableProcessors();
-				if (threads > 1)
-					threads++;
-			}
+			final int threads = determineThreads(t);
 
-			this.executor = Executors.newFixedThreadPool(threads);
+			// only rebuild the pool if the size actually changes
+			if (threads != this.executor.getParallelism()) {
+				this.executor.shutdown();
+				this.executor = new ForkJoinPool(threads);
+			}
 			this.threadCount = threads;
 		}
 	}
@@ -161,7 +204,7 @@ public void processTask(final EngineTask task, final TaskGroup group) {
 				throw new EncogError(t);
 			}
 
-			final PoolItem item = new PoolItem(task, group);
+			final PoolItem item = new PoolItem(this, task, group);
 			if (group != null) {
 				group.taskStarting();
 			}
@@ -169,6 +212,61 @@ public void processTask(final EngineTask task, final TaskGroup group) {
 		}
 	}
 
+	/**
+	 * Process a range of a workload. The range is split into chunks, and the
+	 * chunks are processed by the pool. Idle threads steal chunks from busy
+	 * threads, so the threads finish at nearly the same time, even when the
+	 * cost of each index differs. The chunk size is chosen so that each
+	 * thread receives about CHUNKS_PER_THREAD chunks. This method returns
+	 * once the entire range has been processed.
+	 * 
+	 * @param low
+	 *            The first index to process.
+	 * @param high
+	 *            The last index to process, inclusive.
+	 * @param task
+	 *            The task to process each chunk with.
+	 */
+	public void processRange(final int low, final int high,
+			final RangeTask task) {
+		processRange(low, high, 1, task);
+	}
+
+	/**
+	 * Process a range of a workload, see processRange(int,int,RangeTask).
+	 * 
+	 * @param low
+	 *            The first index to process.
+	 * @param high
+	 *            The last index to process, inclusive.
+	 * @param minChunk
+	 *            The smallest chunk that is worth processing on its own.
+	 * @param task
+	 *            The task to process each chunk with.
+	 */
+	public void processRange(final int low, final int high,
+			final int minChunk, final RangeTask task) {
+		if (high < low) {
+			return;
+		}
+
+		final ForkJoinPool pool = this.executor;
+		if (pool == null) {
+			task.run(low, high);
+		} else {
+			final int size = high - low + 1;
+			final int chunk = Math.max(Math.max(1, minChunk), size
+					/ (pool.getParallelism() * CHUNKS_PER_THREAD));
+			try {
+				pool.invoke(new RangeAction(task, low, high, chunk));
+			} catch (final EncogError e) {
+				throw e;
+			} catch (final RuntimeException e) {
+				throw new EncogError(e);
+			}
+		}
+	}
+
 	/**
 	 * Allows threads to register errors, these errors will be thrown by the
 	 * main thread.
@@ -208,4 +306,79 @@ public void shutdown(final long timeout) {
 	public int getThreadCount() {
 		return this.threadCount;
 	}
+
+	/**
+	 * @return The number of threads in the pool, or zero if the pool has been
+	 *         shut down and tasks are run by the calling thread.
+	 */
+	public int getParallelism() {
+		final ForkJoinPool pool = this.executor;
+		return pool == null ? 0 : pool.getParallelism();
+	}
+
+	/**
+	 * Splits a range in half until it is no larger than the chunk size.
+	 */
+	private static class RangeAction extends RecursiveAction {
+
+		/**
+		 * Serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The task to run for each chunk.
+		 */
+		private final RangeTask task;
+
+		/**
+		 * The first index of this part of the range.
+		 */
+		private final int low;
+
+		/**
+		 * The last index of this part of the range, inclusive.
+		 */
+		private final int high;
+
+		/**
+		 * The largest range to process without splitting.
+		 */
+		private final int chunk;
+
+		/**
+		 * Construct the action.
+		 * 
+		 * @param theTask
+		 *            The task to run for each chunk.
+		 * @param theLow
+		 *            The first index.
+		 * @param theHigh
+		 *            The last index, inclusive.
+		 * @param theChunk
+		 *            The largest range to process without splitting.
+		 */
+		public RangeAction(final RangeTask theTask, final int theLow,
+				final int theHigh, final int theChunk) {
+			this.task = theTask;
+			this.low = theLow;
+			this.high = theHigh;
+			this.chunk = theChunk;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (this.high - this.low < this.chunk) {
+				this.task.run(this.low, this.high);
+			} else {
+				final int mid = this.low + ((this.high - this.low) / 2);
+				invokeAll(new RangeAction(this.task, this.low, mid, this.chunk),
+						new RangeAction(this.task, mid + 1, this.high,
+								this.chunk));
+			}
+		}
+	}
 }
@@ -28,6 +28,11 @@
  */
 public class PoolItem implements Runnable {
 
+	/**
+	 * The concurrency object that errors are reported to.
+	 */
+	private final EngineConcurrency owner;
+
 	/**
 	 * The task to execute.
 	 */
@@ -47,6 +52,22 @@ public class PoolItem implements Runnable {
 	 *            The group this task belongs to.
 	 */
 	public PoolItem(final EngineTask task, final TaskGroup group) {
+		this(EngineConcurrency.getInstance(), task, group);
+	}
+
+	/**
+	 * Create a pool item.
+	 * 
+	 * @param owner
+	 *            The concurrency object that errors are reported to.
+	 * @param task
+	 *            The task to execute.
+	 * @param group
+	 *            The group this task belongs to.
+	 */
+	public PoolItem(final EngineConcurrency owner, final EngineTask task,
+			final TaskGroup group) {
+		this.owner = owner;
 		this.task = task;
 		this.group = group;
 	}
@@ -58,7 +79,7 @@ public void run() {
 		try {
 			this.task.run();
 		} catch (final Throwable t) {
-			EngineConcurrency.getInstance().registerError(t);
+			this.owner.registerError(t);
 		} finally {
 			if (this.group != null) {
 				this.group.taskStopping();
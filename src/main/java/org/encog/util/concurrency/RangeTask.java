@@ -0,0 +1,43 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.concurrency;
+
+/**
+ * A task that processes a range of a workload, such as a range of training
+ * set records. Range tasks are submitted to EngineConcurrency.processRange,
+ * which splits the range into chunks and processes the chunks on the
+ * work-stealing pool. The same task will be called for many chunks,
+ * possibly at the same time, so it must be thread safe.
+ */
+public interface RangeTask {
+	/**
+	 * Process a range of the workload.
+	 * 
+	 * @param low
+	 *            The first index to process.
+	 * @param high
+	 *            The last index to process, inclusive.
+	 */
+	void run(int low, int high);
+}
@@ -0,0 +1,183 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out chunks of a workload to a group of workers. Rather than giving
+ * each worker an equal, fixed range, workers request the next chunk when they
+ * are done with the last one, so a worker that draws cheap records simply
+ * processes more of them. This balances workloads where the cost of each
+ * record differs, such as sparse data or genomes of very different sizes.
+ * 
+ * Chunks are sized adaptively (guided self-scheduling). Each chunk is a
+ * fraction of the work that remains, so chunks start large, to keep the
+ * synchronization cost low, and become smaller towards the end of the
+ * workload, so that the workers finish at nearly the same time. A chunk is
+ * never smaller than the minimum chunk size.
+ * 
+ * The chunker does not allocate any objects, so it can be used once per
+ * training iteration. The workers call nextChunk to obtain the start of their
+ * next chunk, and chunkHigh to find where it ends.
+ */
+public class WorkloadChunker {
+
+	/**
+	 * The default minimum chunk size.
+	 */
+	public static final int DEFAULT_MIN_CHUNK = 16;
+
+	/**
+	 * The first index of the workload.
+	 */
+	private final int low;
+
+	/**
+	 * The last index of the workload, inclusive.
+	 */
+	private final int high;
+
+	/**
+	 * The divisor applied to the remaining work to find the size of a chunk.
+	 */
+	private final int divisor;
+
+	/**
+	 * The minimum chunk size.
+	 */
+	private final int minChunk;
+
+	/**
+	 * The start of the next chunk to hand out.
+	 */
+	private final AtomicInteger next;
+
+	/**
+	 * Construct a chunker with the default minimum chunk size.
+	 * 
+	 * @param theLow
+	 *            The first index of the workload.
+	 * @param theHigh
+	 *            The last index of the workload, inclusive.
+	 * @param theWorkers
+	 *            The number of workers that will request chunks.
+	 */
+	public WorkloadChunker(final int theLow, final int theHigh,
+			final int theWorkers) {
+		this(theLow, theHigh, theWorkers, DEFAULT_MIN_CHUNK);
+	}
+
+	/**
+	 * Construct a chunker.
+	 * 
+	 * @param theLow
+	 *            The first index of the workload.
+	 * @param theHigh
+	 *            The last index of the workload, inclusive.
+	 * @param theWorkers
+	 *            The number of workers that will request chunks.
+	 * @param theMinChunk
+	 *            The minimum chunk size.
+	 */
+	public WorkloadChunker(final int theLow, final int theHigh,
+			final int theWorkers, final int theMinChunk) {
+		this.low = theLow;
+		this.high = theHigh;
+		this.divisor = 2 * Math.max(1, theWorkers);
+		this.minChunk = Math.max(1, theMinChunk);
+		this.next = new AtomicInteger(theLow);
+	}
+
+	/**
+	 * Calculate the size of the chunk that starts at the specified index.
+	 * 
+	 * @param start
+	 *            The start of the chunk.
+	 * @return The size of the chunk.
+	 */
+	private int chunkSize(final int start) {
+		final int remaining = this.high - start + 1;
+		return Math.max(this.minChunk, remaining / this.divisor);
+	}
+
+	/**
+	 * Obtain the next chunk. This is thread safe.
+	 * 
+	 * @return The first index of the chunk, or -1 if the workload is
+	 *         exhausted.
+	 */
+	public int nextChunk() {
+		for (;;) {
+			final int start = this.next.get();
+			if (start > this.high) {
+				return -1;
+			}
+			final int end = start + chunkSize(start);
+			if (this.next.compareAndSet(start, end)) {
+				return start;
+			}
+		}
+	}
+
+	/**
+	 * Determine the last index of a chunk returned by nextChunk.
+	 * 
+	 * @param start
+	 *            The first index of the chunk.
+	 * @return The last index of the chunk, inclusive.
+	 */
+	public int chunkHigh(final int start) {
+		return Math.min(this.high, start + chunkSize(start) - 1);
+	}
+
+	/**
+	 * Start handing out the workload from the beginning again. This must not
+	 * be called while workers are requesting chunks.
+	 */
+	public void reset() {
+		this.next.set(this.low);
+	}
+
+	/**
+	 * @return The first index of the workload.
+	 */
+	public int getLow() {
+		return this.low;
+	}
+
+	/**
+	 * @return The last index of the workload, inclusive.
+	 */
+	public int getHigh() {
+		return this.high;
+	}
+
+	/**
+	 * @return The minimum chunk size.
+	 */
+	public int getMinChunk() {
+		return this.minChunk;
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFastMath extends TestCase {
+
+	@Test
+	public void testExp() {
+		Random rnd = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			double x = (rnd.nextDouble() * 1400) - 700;
+			double expected = Math.exp(x);
+			Assert.assertEquals(expected, FastMath.exp(x), expected * 2e-7);
+		}
+		Assert.assertEquals(1.0, FastMath.exp(0), 0);
+		Assert.assertEquals(0, FastMath.exp(-1000), 0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, FastMath.exp(1000), 0);
+		Assert.assertTrue(Double.isNaN(FastMath.exp(Double.NaN)));
+	}
+
+	@Test
+	public void testTanh() {
+		Random rnd = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			double x = (rnd.nextDouble() * 50) - 25;
+			Assert.assertEquals(Math.tanh(x), FastMath.tanh(x), 2e-7);
+		}
+		Assert.assertEquals(1.0, FastMath.tanh(100), 0);
+		Assert.assertEquals(-1.0, FastMath.tanh(-100), 0);
+	}
+}
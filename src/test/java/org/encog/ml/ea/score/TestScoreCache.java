@@ -0,0 +1,63 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.score;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestScoreCache {
+
+	@Test
+	public void testHitsAndMisses() {
+		ScoreCache cache = new ScoreCache(10);
+		Assert.assertNull(cache.get("a"));
+		cache.put("a", 1.5);
+		Assert.assertEquals(1.5, cache.get("a"), 0);
+		Assert.assertEquals(1.5, cache.get("a"), 0);
+		Assert.assertEquals(2, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-12);
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(0, cache.getHitRate(), 0);
+	}
+
+	@Test
+	public void testEviction() {
+		ScoreCache cache = new ScoreCache(3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		// touch a, so b is now the least recently used
+		cache.get("a");
+		cache.put("d", 4);
+		Assert.assertEquals(3, cache.size());
+		Assert.assertNull(cache.get("b"));
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertNotNull(cache.get("c"));
+		Assert.assertNotNull(cache.get("d"));
+	}
+}
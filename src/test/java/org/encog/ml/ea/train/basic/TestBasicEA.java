@@ -0,0 +1,97 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
+import org.encog.ml.CalculateScore;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.PrgCODEC;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.generator.RampedHalfAndHalf;
+import org.encog.ml.prg.opp.ConstMutation;
+import org.encog.ml.prg.opp.SubtreeCrossover;
+import org.encog.ml.prg.opp.SubtreeMutation;
+import org.encog.ml.prg.species.PrgSpeciation;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.ml.prg.train.rewrite.RewriteAlgebraic;
+import org.encog.ml.prg.train.rewrite.RewriteConstants;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.encog.util.benchmark.RandomTrainingFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBasicEA {
+
+	private List<String> evolve(int threads) {
+		MLDataSet data = RandomTrainingFactory.generate(1000, 50, 2, 1, -1, 1);
+		CalculateScore score = new TrainingSetScore(data);
+
+		EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		context.defineVariable("y");
+		StandardExtensions.createNumericOperators(context);
+		PrgPopulation pop = new PrgPopulation(context, 100);
+		RampedHalfAndHalf generator = new RampedHalfAndHalf(context, 2, 6);
+		generator.setThreadCount(1);
+		generator.setRandomFactory(new BasicRandomFactory(1000));
+		generator.generate(new Random(1000), pop);
+
+		TrainEA train = new TrainEA(pop, score);
+		pop.getRules().addRewriteRule(new RewriteConstants());
+		pop.getRules().addRewriteRule(new RewriteAlgebraic());
+		train.setCODEC(new PrgCODEC());
+		train.addOperation(0.8, new SubtreeCrossover());
+		train.addOperation(0.1, new SubtreeMutation(context, 4));
+		train.addOperation(0.1, new ConstMutation(context, 0.5, 1.0));
+		train.setSpeciation(new PrgSpeciation());
+		train.setRandomNumberFactory(new BasicRandomFactory(42));
+		train.setThreadCount(threads);
+
+		for (int i = 0; i < 5; i++) {
+			train.iteration();
+		}
+		train.finishTraining();
+
+		List<String> result = new ArrayList<String>();
+		for (Genome genome : pop.flatten()) {
+			result.add(((EncogProgram) genome).generateEPL() + "="
+					+ genome.getScore());
+		}
+		return result;
+	}
+
+	@Test
+	public void testReproducible() {
+		List<String> single = evolve(1);
+		Assert.assertEquals(single, evolve(4));
+		Assert.assertEquals(single, evolve(1));
+	}
+}
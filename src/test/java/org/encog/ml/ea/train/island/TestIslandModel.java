@@ -0,0 +1,340 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.island;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
+import org.encog.ml.CalculateScore;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.PrgCODEC;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.generator.RampedHalfAndHalf;
+import org.encog.ml.prg.opp.ConstMutation;
+import org.encog.ml.prg.opp.SubtreeCrossover;
+import org.encog.ml.prg.opp.SubtreeMutation;
+import org.encog.ml.prg.species.PrgSpeciation;
+import org.encog.ml.prg.train.PrgGenomeTransfer;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.neural.neat.NEATCODEC;
+import org.encog.neural.neat.NEATNetwork;
+import org.encog.neural.neat.NEATPopulation;
+import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.neat.training.NEATGenome;
+import org.encog.neural.neat.training.NEATGenomeTransfer;
+import org.encog.neural.neat.training.opp.NEATMutateAddNode;
+import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.encog.util.benchmark.RandomTrainingFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIslandModel {
+
+	private LocalIsland createPrgIsland(MLDataSet data, long seed) {
+		EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		context.defineVariable("y");
+		StandardExtensions.createNumericOperators(context);
+		PrgPopulation pop = new PrgPopulation(context, 100);
+		RampedHalfAndHalf generator = new RampedHalfAndHalf(context, 2, 5);
+		generator.setThreadCount(1);
+		generator.generate(new Random(seed), pop);
+
+		TrainEA train = new TrainEA(pop, new TrainingSetScore(data));
+		train.setCODEC(new PrgCODEC());
+		train.addOperation(0.8, new SubtreeCrossover());
+		train.addOperation(0.1, new SubtreeMutation(context, 4));
+		train.addOperation(0.1, new ConstMutation(context, 0.5, 1.0));
+		train.setSpeciation(new PrgSpeciation());
+		train.setRandomNumberFactory(new BasicRandomFactory(seed));
+		train.setThreadCount(1);
+		return new LocalIsland(train, new PrgGenomeTransfer());
+	}
+
+	private static boolean containsProgram(LocalIsland island, String epl) {
+		for (Genome genome : island.getTrain().getPopulation().flatten()) {
+			if (((EncogProgram) genome).generateEPL().equals(epl)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testLocalIslands() {
+		MLDataSet data = RandomTrainingFactory.generate(1000, 50, 2, 1, -1, 1);
+		LocalIsland island1 = createPrgIsland(data, 1);
+		LocalIsland island2 = createPrgIsland(data, 2);
+
+		IslandModel model = new IslandModel();
+		model.addIsland(island1);
+		model.addIsland(island2);
+		model.setMigrationInterval(0);
+		model.iteration(2);
+
+		// the best program of the first island moves to the second
+		String best = ((EncogProgram) island1.getTrain().getBestGenome())
+				.generateEPL();
+		int size = island2.getTrain().getPopulation().flatten().size();
+		model.setMigrationSize(1);
+		model.migrate();
+		Assert.assertTrue(containsProgram(island2, best));
+		Assert.assertEquals(size, island2.getTrain().getPopulation().flatten()
+				.size());
+
+		model.setMigrationInterval(2);
+		model.iteration(4);
+		Assert.assertEquals(6, model.getIteration());
+		Assert.assertFalse(Double.isNaN(model.getError()));
+		model.finishTraining();
+	}
+
+	@Test
+	public void testRemoteIsland() throws Exception {
+		MLDataSet data = RandomTrainingFactory.generate(1000, 50, 2, 1, -1, 1);
+		final IslandServer server = new IslandServer(createPrgIsland(data, 3), 0);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				server.serve();
+			}
+		});
+		thread.start();
+
+		LocalIsland local = createPrgIsland(data, 4);
+		RemoteIsland remote = new RemoteIsland("localhost", server.getPort());
+		Assert.assertTrue(remote.shouldMinimize());
+
+		IslandModel model = new IslandModel();
+		model.addIsland(local);
+		model.addIsland(remote);
+		model.setTopology(new FullTopology());
+		model.setMigrationInterval(2);
+		model.iteration(4);
+		Assert.assertFalse(Double.isNaN(remote.getError()));
+
+		// genomes from the remote island can be read locally
+		List<Genome> genomes = new PrgGenomeTransfer().read(
+				new DataInputStream(new ByteArrayInputStream(remote.emigrate(3))),
+				local.getTrain().getPopulation());
+		Assert.assertEquals(3, genomes.size());
+
+		model.finishTraining();
+		thread.join(10000);
+		Assert.assertFalse(thread.isAlive());
+		server.close();
+	}
+
+	@Test
+	public void testServerRejectsInvalidRequests() throws Exception {
+		MLDataSet data = RandomTrainingFactory.generate(1000, 50, 2, 1, -1, 1);
+		final IslandServer server = new IslandServer(createPrgIsland(data, 5), 0);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				server.serve();
+			}
+		});
+		thread.start();
+
+		Socket socket = new Socket("localhost", server.getPort());
+		try {
+			DataOutputStream out = new DataOutputStream(
+					socket.getOutputStream());
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+
+			// an invalid count is rejected, and the connection stays open
+			out.writeByte(IslandServer.CMD_EMIGRATE);
+			out.writeInt(-1);
+			Assert.assertEquals(IslandServer.STATUS_ERROR, in.readByte());
+			in.readUTF();
+
+			// an invalid size is rejected, and the connection is closed
+			out.writeByte(IslandServer.CMD_IMMIGRATE);
+			out.writeInt(Integer.MAX_VALUE);
+			Assert.assertEquals(IslandServer.STATUS_ERROR, in.readByte());
+			in.readUTF();
+			Assert.assertEquals(-1, in.read());
+		} finally {
+			socket.close();
+		}
+
+		thread.join(10000);
+		Assert.assertFalse(thread.isAlive());
+		server.close();
+	}
+
+	@Test
+	public void testImmigrantBecomesBest() throws IOException {
+		// the ideal is exactly x*y+0.5, so that program scores zero
+		Random rnd = new Random(6);
+		BasicMLDataSet data = new BasicMLDataSet();
+		for (int i = 0; i < 50; i++) {
+			double x = rnd.nextDouble() * 2 - 1;
+			double y = rnd.nextDouble() * 2 - 1;
+			data.add(new BasicMLData(new double[] { x, y }), new BasicMLData(
+					new double[] { x * y + 0.5 }));
+		}
+		LocalIsland island = createPrgIsland(data, 7);
+		island.iteration();
+		Assert.assertTrue(island.getError() > 0);
+
+		PrgPopulation pop = (PrgPopulation) island.getTrain().getPopulation();
+		EncogProgram immigrant = new EncogProgram(pop.getContext(), "x*y+0.5");
+		List<Genome> immigrants = new ArrayList<Genome>();
+		immigrants.add(immigrant);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		island.getTransfer().write(immigrants, out);
+		out.flush();
+		island.immigrate(bytes.toByteArray());
+
+		Genome best = island.getTrain().getBestGenome();
+		Assert.assertEquals(immigrant.generateEPL(),
+				((EncogProgram) best).generateEPL());
+		Assert.assertEquals(0, island.getError(), 1e-12);
+		Assert.assertSame(best, pop.getBestGenome());
+		island.finishTraining();
+	}
+
+	@Test
+	public void testNEATTransfer() throws IOException {
+		MLDataSet trainingSet = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		CalculateScore score = new TrainingSetScore(trainingSet);
+
+		NEATPopulation source = new NEATPopulation(2, 1, 200);
+		source.setInitialConnectionDensity(1.0);
+		source.reset();
+		TrainEA train = NEATUtil.constructNEATTrainer(source, score);
+
+		// split links repeatedly, so that hidden neurons are split as well
+		NEATMutateAddNode addNode = new NEATMutateAddNode();
+		addNode.init(train);
+		Random rnd = new Random(1);
+		Genome[] parents = { source.flatten().get(0) };
+		Genome[] offspring = new Genome[1];
+		List<Genome> genomes = new ArrayList<Genome>();
+		for (int i = 0; i < 10; i++) {
+			addNode.performOperation(rnd, parents, 0, offspring, 0);
+			offspring[0].setPopulation(source);
+			genomes.add(offspring[0]);
+			parents[0] = offspring[0];
+		}
+		Assert.assertTrue(((NEATGenome) parents[0]).getNeuronsChromosome()
+				.size() > 8);
+
+		NEATPopulation target = new NEATPopulation(2, 1, 200);
+		target.reset();
+
+		NEATGenomeTransfer transfer = new NEATGenomeTransfer();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		transfer.write(genomes, new DataOutputStream(bytes));
+		List<Genome> copies = transfer.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())), target);
+		Assert.assertEquals(genomes.size(), copies.size());
+
+		// the copies compute the same outputs
+		NEATCODEC codec = new NEATCODEC();
+		for (int i = 0; i < genomes.size(); i++) {
+			NEATNetwork original = (NEATNetwork) codec.decode(genomes.get(i));
+			NEATNetwork copy = (NEATNetwork) codec.decode(copies.get(i));
+			for (MLDataPair pair : trainingSet) {
+				MLData a = original.compute(pair.getInput());
+				MLData b = copy.compute(pair.getInput());
+				Assert.assertEquals(a.getData(0), b.getData(0), 1e-12);
+			}
+		}
+
+		// a second transfer reuses the innovations of the first
+		int innovations = target.getInnovations().getInnovations().size();
+		transfer.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())), target);
+		Assert.assertEquals(innovations, target.getInnovations()
+				.getInnovations().size());
+	}
+
+	private static byte[] createNeuronMessage(String activation)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(1);
+		out.writeInt(2);
+		out.writeInt(1);
+		out.writeInt(1);
+		out.writeLong(0);
+		out.writeLong(1);
+		out.writeUTF("Bias");
+		out.writeUTF(activation);
+		out.writeInt(0);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testNEATTransferRejectsClasses() throws IOException {
+		NEATPopulation target = new NEATPopulation(2, 1, 10);
+		target.reset();
+		NEATGenomeTransfer transfer = new NEATGenomeTransfer();
+
+		String[] names = { "java.lang.Thread", "../ActivationSigmoid",
+				"ActivationFunction", "ActivationMissing", "" };
+		for (String name : names) {
+			try {
+				transfer.read(new DataInputStream(new ByteArrayInputStream(
+						createNeuronMessage(name))), target);
+				Assert.fail("Accepted " + name);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+
+		// a negative count is rejected before anything is allocated
+		byte[] negative = { (byte) 0xff, (byte) 0xff, (byte) 0xff,
+				(byte) 0xff };
+		try {
+			transfer.read(new DataInputStream(new ByteArrayInputStream(
+					negative)), target);
+			Assert.fail("Accepted a negative count");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.MLSequenceSet;
+import org.encog.ml.hmm.alog.ForwardBackwardCalculator;
+import org.encog.ml.hmm.alog.KullbackLeiblerDistanceCalculator;
+import org.encog.ml.hmm.alog.MarkovGenerator;
+import org.encog.ml.hmm.train.bw.BaseBaumWelch;
+import org.encog.ml.hmm.train.bw.TrainBaumWelch;
+import org.encog.ml.hmm.train.bw.TrainBaumWelchScaled;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBaumWelch {
+
+	/**
+	 * The transition probabilities after one iteration, estimated one
+	 * sequence at a time with estimateXi and estimateGamma.
+	 */
+	private double[][] referenceTransitions(BaseBaumWelch train,
+			HiddenMarkovModel hmm, MLSequenceSet training) {
+		int n = hmm.getStateCount();
+		double[][] num = new double[n][n];
+		double[] den = new double[n];
+		for (MLDataSet seq : training.getSequences()) {
+			ForwardBackwardCalculator fbc = train
+					.generateForwardBackwardCalculator(seq, hmm);
+			double[][][] xi = train.estimateXi(seq, fbc, hmm);
+			for (int t = 0; t < xi.length; t++) {
+				for (int i = 0; i < n; i++) {
+					for (int j = 0; j < n; j++) {
+						den[i] += xi[t][i][j];
+						num[i][j] += xi[t][i][j];
+					}
+				}
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				num[i][j] /= den[i];
+			}
+		}
+		return num;
+	}
+
+	private void checkReference(BaseBaumWelch train, HiddenMarkovModel hmm,
+			MLSequenceSet training) {
+		double[][] expected = referenceTransitions(train, hmm, training);
+		train.iteration();
+		HiddenMarkovModel learnt = (HiddenMarkovModel) train.getMethod();
+		for (int i = 0; i < hmm.getStateCount(); i++) {
+			for (int j = 0; j < hmm.getStateCount(); j++) {
+				Assert.assertEquals(expected[i][j],
+						learnt.getTransitionProbability(i, j), 1e-10);
+			}
+		}
+	}
+
+	@Test
+	public void testReference() {
+		HiddenMarkovModel hmm = TestHMM.buildContHMM();
+		MLSequenceSet training = new MarkovGenerator(hmm).generateSequences(
+				100, 50);
+		HiddenMarkovModel init = TestHMM.buildContInitHMM();
+		checkReference(new TrainBaumWelch(init, training), init, training);
+		checkReference(new TrainBaumWelchScaled(init, training), init,
+				training);
+	}
+
+	@Test
+	public void testThreads() {
+		HiddenMarkovModel hmm = TestHMM.buildDiscHMM();
+		MLSequenceSet training = new MarkovGenerator(hmm).generateSequences(
+				300, 40);
+
+		TrainBaumWelchScaled single = new TrainBaumWelchScaled(
+				TestHMM.buildDiscInitHMM(), training);
+		single.setThreadCount(1);
+		single.iteration(3);
+		TrainBaumWelchScaled multi = new TrainBaumWelchScaled(
+				TestHMM.buildDiscInitHMM(), training);
+		multi.setThreadCount(4);
+		multi.iteration(3);
+
+		HiddenMarkovModel a = (HiddenMarkovModel) single.getMethod();
+		HiddenMarkovModel b = (HiddenMarkovModel) multi.getMethod();
+		for (int i = 0; i < a.getStateCount(); i++) {
+			Assert.assertEquals(a.getPi(i), b.getPi(i), 0);
+			for (int j = 0; j < a.getStateCount(); j++) {
+				Assert.assertEquals(a.getTransitionProbability(i, j),
+						b.getTransitionProbability(i, j), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testScaledLongSequences() {
+		HiddenMarkovModel hmm = TestHMM.buildDiscHMM();
+		MLSequenceSet training = new MarkovGenerator(hmm).generateSequences(
+				20, 2000);
+		TrainBaumWelchScaled bwl = new TrainBaumWelchScaled(
+				TestHMM.buildDiscInitHMM(), training);
+		bwl.iteration(5);
+		HiddenMarkovModel learnt = (HiddenMarkovModel) bwl.getMethod();
+		double e = new KullbackLeiblerDistanceCalculator().distance(learnt,
+				hmm);
+		Assert.assertTrue(e < 0.01);
+	}
+}
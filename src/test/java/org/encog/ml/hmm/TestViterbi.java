@@ -0,0 +1,111 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.hmm;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.MLSequenceSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.hmm.distributions.DiscreteDistribution;
+import org.encog.ml.hmm.alog.BatchViterbiDecoder;
+import org.encog.ml.hmm.alog.MarkovGenerator;
+import org.encog.ml.hmm.alog.ViterbiCalculator;
+import org.encog.ml.hmm.alog.ViterbiDecoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestViterbi {
+
+	private void checkSameAsCalculator(HiddenMarkovModel hmm) {
+		MLSequenceSet set = new MarkovGenerator(hmm).generateSequences(50, 30);
+		ViterbiDecoder decoder = new ViterbiDecoder(hmm);
+		for (MLDataSet seq : set.getSequences()) {
+			ViterbiCalculator vc = new ViterbiCalculator(seq, hmm);
+			Assert.assertArrayEquals(vc.stateSequence(), decoder.decode(seq));
+			Assert.assertEquals(vc.lnProbability(), decoder.lnProbability(),
+					1e-9);
+		}
+	}
+
+	@Test
+	public void testDiscrete() {
+		HiddenMarkovModel hmm = TestHMM.buildDiscHMM();
+		Assert.assertTrue(new ViterbiDecoder(hmm).isTabulated());
+		checkSameAsCalculator(hmm);
+	}
+
+	@Test
+	public void testContinuous() {
+		HiddenMarkovModel hmm = TestHMM.buildContHMM();
+		Assert.assertFalse(new ViterbiDecoder(hmm).isTabulated());
+		checkSameAsCalculator(hmm);
+	}
+
+	@Test
+	public void testBatch() {
+		HiddenMarkovModel hmm = TestHMM.buildDiscHMM();
+		MLSequenceSet set = new MarkovGenerator(hmm).generateSequences(200, 25);
+		ViterbiDecoder decoder = new ViterbiDecoder(hmm);
+
+		BatchViterbiDecoder batch = new BatchViterbiDecoder(hmm);
+		batch.setThreadCount(4);
+		int[][] paths = batch.decode(set);
+
+		Assert.assertEquals(set.getSequenceCount(), paths.length);
+		for (int i = 0; i < paths.length; i++) {
+			Assert.assertArrayEquals(decoder.decode(set.getSequence(i)),
+					paths[i]);
+			Assert.assertEquals(decoder.lnProbability(),
+					batch.getLnProbabilities()[i], 0);
+		}
+		Assert.assertEquals(200, batch.getBatchSequences());
+		Assert.assertEquals(200 * 25, batch.getTotalObservations());
+		Assert.assertTrue(batch.getMaxLatency() >= batch.getMeanLatency());
+		Assert.assertTrue(batch.getObservationsPerSecond() > 0);
+	}
+
+	@Test
+	public void testImpossibleSequence() {
+		// no state emits the symbol 2, so every final cost is infinite
+		HiddenMarkovModel hmm = new HiddenMarkovModel(2, 3);
+		hmm.setPi(0, 0.5);
+		hmm.setPi(1, 0.5);
+		hmm.setStateDistribution(0, new DiscreteDistribution(
+				new double[][] { { 0.7, 0.3, 0 } }));
+		hmm.setStateDistribution(1, new DiscreteDistribution(
+				new double[][] { { 0.2, 0.8, 0 } }));
+		hmm.setTransitionProbability(0, 0, 0.5);
+		hmm.setTransitionProbability(0, 1, 0.5);
+		hmm.setTransitionProbability(1, 0, 0.5);
+		hmm.setTransitionProbability(1, 1, 0.5);
+
+		MLDataSet seq = new BasicMLDataSet(new double[][] { { 1 }, { 2 },
+				{ 1 } }, null);
+		int[] expected = new ViterbiCalculator(seq, hmm).stateSequence();
+
+		// a reused buffer must not keep its last state
+		int[] path = { 1, 1, 1 };
+		new ViterbiDecoder(hmm).decode(seq, path);
+		Assert.assertArrayEquals(expected, path);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.kmeans;
+
+import java.util.Random;
+
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
+import org.encog.ml.MLCluster;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDenseKMeans {
+
+	public static final int BLOBS = 5;
+	public static final int PER_BLOB = 400;
+	public static final int DIMENSIONS = 3;
+
+	private BasicMLDataSet createBlobs() {
+		Random rnd = new Random(42);
+		BasicMLDataSet set = new BasicMLDataSet();
+		for (int i = 0; i < PER_BLOB; i++) {
+			for (int b = 0; b < BLOBS; b++) {
+				double[] d = new double[DIMENSIONS];
+				for (int j = 0; j < DIMENSIONS; j++) {
+					d[j] = b * 20 + rnd.nextGaussian();
+				}
+				set.add(new BasicMLData(d));
+			}
+		}
+		return set;
+	}
+
+	private DenseKMeansClustering run(BasicMLDataSet set,
+			KMeansAlgorithm algorithm, int threads, int iterations) {
+		DenseKMeansClustering kmeans = new DenseKMeansClustering(BLOBS, set);
+		kmeans.setRandomFactory(new BasicRandomFactory(7));
+		kmeans.setAlgorithm(algorithm);
+		kmeans.setThreadCount(threads);
+		kmeans.iteration(iterations);
+		return kmeans;
+	}
+
+	private void assertSeparated(DenseKMeansClustering kmeans) {
+		int total = 0;
+		for (MLCluster cluster : kmeans.getClusters()) {
+			double first = cluster.get(0).getData(0);
+			for (MLData data : cluster.getData()) {
+				Assert.assertEquals(first, data.getData(0), 10);
+			}
+			total += cluster.size();
+		}
+		Assert.assertEquals(BLOBS * PER_BLOB, total);
+	}
+
+	@Test
+	public void testSameAsLloyd() {
+		BasicMLDataSet set = createBlobs();
+		DenseKMeansClustering lloyd = run(set, KMeansAlgorithm.Lloyd, 1, 20);
+		for (KMeansAlgorithm algorithm : new KMeansAlgorithm[] {
+				KMeansAlgorithm.Hamerly, KMeansAlgorithm.Elkan }) {
+			DenseKMeansClustering other = run(set, algorithm, 1, 20);
+			Assert.assertArrayEquals(lloyd.getAssignment(),
+					other.getAssignment());
+			for (int c = 0; c < BLOBS; c++) {
+				Assert.assertArrayEquals(lloyd.getCentroid(c),
+						other.getCentroid(c), 0);
+			}
+		}
+		Assert.assertEquals(0, lloyd.getChanged());
+		assertSeparated(lloyd);
+	}
+
+	@Test
+	public void testThreads() {
+		BasicMLDataSet set = createBlobs();
+		DenseKMeansClustering single = run(set, KMeansAlgorithm.Elkan, 1, 5);
+		DenseKMeansClustering multi = run(set, KMeansAlgorithm.Elkan, 4, 5);
+		Assert.assertArrayEquals(single.getAssignment(), multi.getAssignment());
+		Assert.assertEquals(single.getWCSS(), multi.getWCSS(), 0);
+	}
+
+	@Test
+	public void testMiniBatch() {
+		BasicMLDataSet set = createBlobs();
+		DenseKMeansClustering lloyd = run(set, KMeansAlgorithm.Lloyd, 1, 20);
+		DenseKMeansClustering mini = new DenseKMeansClustering(BLOBS, set);
+		mini.setRandomFactory(new BasicRandomFactory(7));
+		mini.setAlgorithm(KMeansAlgorithm.MiniBatch);
+		mini.setBatchSize(200);
+		mini.iteration(20);
+		Assert.assertNull(mini.getAssignment());
+		Assert.assertTrue(mini.getWCSS() < lloyd.getWCSS() * 1.1);
+		assertSeparated(mini);
+	}
+}
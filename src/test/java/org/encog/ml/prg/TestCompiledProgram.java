@@ -0,0 +1,254 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg;
+
+import java.util.Random;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.prg.expvalue.DivisionByZeroError;
+import org.encog.ml.prg.extension.ProgramExtensionTemplate;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.generator.PrgGrowGenerator;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.encog.util.error.CalculateRegressionError;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompiledProgram {
+
+	private EncogProgramContext createContext() {
+		EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		context.defineVariable("y");
+		StandardExtensions.createNumericOperators(context);
+		context.getFunctions().addExtension(StandardExtensions.EXTENSION_PDIV);
+		StandardExtensions.createBasicFunctions(context);
+		StandardExtensions.createTrigFunctions(context);
+		return context;
+	}
+
+	/**
+	 * Compare the compiled program with evaluating the tree.
+	 */
+	private void check(EncogProgram prg, double x, double y) {
+		CompiledProgram compiled = prg.getCompiled();
+		Assert.assertNotNull(compiled);
+
+		prg.getVariables().setVariable(0, x);
+		prg.getVariables().setVariable(1, y);
+		double expected;
+		try {
+			expected = prg.getRootNode().evaluate().toFloatValue();
+		} catch (DivisionByZeroError e) {
+			try {
+				compiled.evaluate(new double[] { x, y });
+				Assert.fail("Expected division by zero: " + prg.dumpAsCommonExpression());
+			} catch (DivisionByZeroError e2) {
+				// expected
+			}
+			return;
+		}
+		double actual = compiled.evaluate(new double[] { x, y });
+		Assert.assertEquals(prg.dumpAsCommonExpression(), expected, actual, 0);
+	}
+
+	@Test
+	public void testExpressions() {
+		EncogProgramContext context = createContext();
+		String[] expressions = { "x+y*2", "-x/(y-1)", "(x/0)+1", "x^y",
+				"round(x)/round(y)", "(x/0)+(y/0)", "((x/0)+(x/0))/((x/0)+(x/0)+(x/0))",
+				"clamp(x*y,-1,1)",
+				"abs(x)-acos(y)", "max(x,y)*min(x,y)", "sin(x)+cos(y)+tanh(x*y)",
+				"pow(abs(x),0.5)", "atan2(x,y)+floor(x)+ceil(y)" };
+		for (String expression : expressions) {
+			EncogProgram prg = new EncogProgram(context, expression);
+			check(prg, 1.5, -2.25);
+			check(prg, 0, 3);
+			check(prg, -7.5, 0);
+
+			// again, with protected division
+			prg.setRootNode(protect(prg, prg.getRootNode()));
+			check(prg, 1.5, -2.25);
+			check(prg, 0, 3);
+			check(prg, -7.5, 0);
+		}
+	}
+
+	/**
+	 * Replace division with protected division.
+	 */
+	private ProgramNode protect(EncogProgram prg, ProgramNode node) {
+		ProgramNode[] args = new ProgramNode[node.getChildNodes().size()];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = protect(prg, node.getChildNode(i));
+		}
+		ProgramExtensionTemplate temp = node.getTemplate();
+		if (temp == StandardExtensions.EXTENSION_DIV) {
+			temp = StandardExtensions.EXTENSION_PDIV;
+		}
+		ProgramNode result = new ProgramNode(prg, temp, args);
+		for (int i = 0; i < node.getData().length; i++) {
+			result.getData()[i] = node.getData()[i];
+		}
+		return result;
+	}
+
+	@Test
+	public void testRandomPrograms() {
+		EncogProgramContext context = createContext();
+		PrgGrowGenerator generator = new PrgGrowGenerator(context, 6);
+		Random rnd = new Random(11);
+		for (int i = 0; i < 200; i++) {
+			EncogProgram prg = generator.generate(rnd);
+			if (prg.dumpAsCommonExpression().contains("rand(")) {
+				// random numbers can't be compared
+				continue;
+			}
+			for (int j = 0; j < 5; j++) {
+				check(prg, rnd.nextDouble() * 10 - 5, rnd.nextDouble() * 10 - 5);
+			}
+		}
+	}
+
+	@Test
+	public void testCompute() {
+		EncogProgramContext context = createContext();
+		EncogProgram prg = new EncogProgram(context, "x*y+1");
+		Assert.assertEquals(7, prg.compute(new BasicMLData(new double[] { 2, 3 })).getData(0), 0);
+
+		// changing the tree discards the compiled program
+		CompiledProgram compiled = prg.getCompiled();
+		prg.compileExpression("x-y");
+		Assert.assertNotSame(compiled, prg.getCompiled());
+		Assert.assertEquals(-1, prg.compute(new BasicMLData(new double[] { 2, 3 })).getData(0), 0);
+
+		// strings can not be compiled, the tree is used
+		StandardExtensions.createStringFunctions(context);
+		EncogProgram str = new EncogProgram(context, "length(\"abc\")+x");
+		Assert.assertNull(str.getCompiled());
+		Assert.assertEquals(5, str.compute(new BasicMLData(new double[] { 2, 3 })).getData(0), 0);
+
+		context.setCompileEnabled(false);
+		prg.clearCompiled();
+		Assert.assertNull(prg.getCompiled());
+	}
+
+	/**
+	 * Compare scoring the columns a block at a time with evaluating the tree
+	 * for each row.
+	 */
+	private void checkColumns(EncogProgram prg, double[][] columns, int rows,
+			ColumnBufferPool pool, double[] block) {
+		CompiledProgram compiled = prg.getCompiled();
+		Assert.assertNotNull(compiled);
+		for (int offset = 0; offset < rows; offset += block.length) {
+			int count = Math.min(block.length, rows - offset);
+			boolean blockFailed = false;
+			try {
+				compiled.evaluate(columns, offset, count, block, pool);
+			} catch (DivisionByZeroError e) {
+				blockFailed = true;
+			}
+			boolean rowFailed = false;
+			for (int i = 0; i < count; i++) {
+				prg.getVariables().setVariable(0, columns[0][offset + i]);
+				prg.getVariables().setVariable(1, columns[1][offset + i]);
+				try {
+					double expected = prg.getRootNode().evaluate()
+							.toFloatValue();
+					if (!blockFailed) {
+						Assert.assertEquals(prg.dumpAsCommonExpression(),
+								expected, block[i], 0);
+					}
+				} catch (DivisionByZeroError e) {
+					rowFailed = true;
+				}
+			}
+			Assert.assertEquals(prg.dumpAsCommonExpression(), rowFailed,
+					blockFailed);
+		}
+	}
+
+	@Test
+	public void testColumns() {
+		EncogProgramContext context = createContext();
+		context.getFunctions().addExtension(StandardExtensions.EXTENSION_PDIV);
+		PrgGrowGenerator generator = new PrgGrowGenerator(context, 6);
+		Random rnd = new Random(5);
+
+		int rows = 50;
+		double[][] columns = new double[2][rows];
+		for (int i = 0; i < rows; i++) {
+			// include some zeros, for division
+			columns[0][i] = (i % 5 == 0) ? 0 : rnd.nextDouble() * 10 - 5;
+			columns[1][i] = (i % 7 == 0) ? 0 : rnd.nextDouble() * 10 - 5;
+		}
+
+		ColumnBufferPool pool = new ColumnBufferPool(16);
+		double[] block = new double[16];
+
+		// int and float operands mixed, int division and powers
+		String[] expressions = { "7/2+x", "x*2+3", "round(x)*y+1",
+				"(2+3)*x-round(y)/2", "round(x)^2+y^3", "-round(x)+5/y",
+				"round(x)/round(y)+x", "max(round(x),y)*min(3,x)",
+				"abs(round(y))+abs(x)-(9/4)" };
+		for (String expression : expressions) {
+			checkColumns(new EncogProgram(context, expression), columns, rows,
+					pool, block);
+		}
+
+		for (int n = 0; n < 300; n++) {
+			EncogProgram prg = generator.generate(rnd);
+			if (prg.dumpAsCommonExpression().contains("rand(")) {
+				continue;
+			}
+			checkColumns(prg, columns, rows, pool, block);
+		}
+	}
+
+	@Test
+	public void testTrainingSetScore() {
+		EncogProgramContext context = createContext();
+		double[][] input = new double[100][2];
+		double[][] ideal = new double[100][1];
+		for (int i = 0; i < input.length; i++) {
+			input[i][0] = i / 10.0;
+			input[i][1] = Math.sin(i);
+			ideal[i][0] = input[i][0] * 2 + input[i][1];
+		}
+		MLDataSet data = new BasicMLDataSet(input, ideal);
+		TrainingSetScore score = new TrainingSetScore(data);
+
+		EncogProgram prg = new EncogProgram(context, "x*1.9+y-0.25");
+		Assert.assertNotNull(prg.getCompiled());
+		double expected = CalculateRegressionError.calculateError(prg, data);
+		Assert.assertEquals(expected, score.calculateScore(prg), 0);
+
+		double[] scores = new double[1];
+		score.calculateScores(new EncogProgram[] { prg }, scores);
+		Assert.assertEquals(expected, scores[0], 0);
+	}
+}
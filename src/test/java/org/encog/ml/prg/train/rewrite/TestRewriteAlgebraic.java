@@ -25,12 +25,19 @@
 
 import org.encog.EncogError;
 import org.encog.ml.CalculateScore;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.rules.BasicRuleHolder;
+import org.encog.ml.ea.rules.RewriteRule;
 import org.encog.ml.ea.score.adjust.ComplexityAdjustedScore;
 import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.ml.prg.CompiledProgram;
 import org.encog.ml.prg.EncogProgram;
 import org.encog.ml.prg.EncogProgramContext;
 import org.encog.ml.prg.PrgCODEC;
+import org.encog.ml.prg.ProgramNode;
 import org.encog.ml.prg.expvalue.DivisionByZeroError;
+import org.encog.ml.prg.expvalue.ExpressionValue;
 import org.encog.ml.prg.extension.FunctionFactory;
 import org.encog.ml.prg.extension.ProgramExtensionTemplate;
 import org.encog.ml.prg.extension.StandardExtensions;
@@ -132,6 +139,55 @@ public void testRequiredExtensions() {
         }
     }
 
+	@Test
+	public void testRewriteCompiled() {
+		EncogProgramContext context = new EncogProgramContext();
+		context.defineVariable("x");
+		StandardExtensions.createNumericOperators(context);
+		BasicRuleHolder rules = new BasicRuleHolder();
+		rules.addRewriteRule(new RewriteConstants());
+		rules.addRewriteRule(new RewriteAlgebraic());
+
+		EncogProgram prg = new EncogProgram(context, "(x-0)*(2+3)+(x*1)");
+		BasicMLData input = new BasicMLData(new double[] { 1.5 });
+		Assert.assertEquals(9, prg.compute(input).getData(0), 0);
+		CompiledProgram compiled = prg.getCompiled();
+		Assert.assertNotNull(compiled);
+
+		rules.rewrite(prg);
+		Assert.assertNotSame(compiled, prg.getCompiled());
+		double computed = prg.compute(input).getData(0);
+		prg.getVariables().setVariable(0, 1.5);
+		Assert.assertEquals(prg.getRootNode().evaluate().toFloatValue(),
+				computed, 0);
+		Assert.assertEquals(prg.size(), prg.getCompiled().size());
+
+		// a rule that changes a constant in place, without replacing nodes
+		BasicRuleHolder inPlace = new BasicRuleHolder();
+		inPlace.addRewriteRule(new RewriteRule() {
+			private boolean applied;
+
+			@Override
+			public boolean rewrite(Genome g) {
+				if (this.applied) {
+					return false;
+				}
+				ProgramNode node = ((EncogProgram) g).getRootNode();
+				while (node.getChildNodes().size() > 0) {
+					node = node.getChildNode(node.getChildNodes().size() - 1);
+				}
+				node.getData()[0] = new ExpressionValue(7);
+				this.applied = true;
+				return true;
+			}
+		});
+		Assert.assertNotNull(prg.getCompiled());
+		inPlace.rewrite(prg);
+		computed = prg.compute(input).getData(0);
+		Assert.assertEquals(prg.getRootNode().evaluate().toFloatValue(),
+				computed, 0);
+	}
+
 	@Test
 	public void testMinusZero() {
 		eval("x-0","x");
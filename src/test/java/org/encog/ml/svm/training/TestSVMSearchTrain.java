@@ -0,0 +1,122 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.svm.training;
+
+import java.util.Random;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.svm.KernelType;
+import org.encog.ml.svm.SVM;
+import org.encog.ml.svm.SVMType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSVMSearchTrain {
+
+	private MLDataSet create() {
+		Random rnd = new Random(7);
+		double[][] input = new double[200][2];
+		double[][] ideal = new double[input.length][1];
+		for (int i = 0; i < input.length; i++) {
+			input[i][0] = rnd.nextDouble() * 2 - 1;
+			input[i][1] = rnd.nextDouble() * 2 - 1;
+			double r = input[i][0] * input[i][0] + input[i][1] * input[i][1];
+			// a circle, with some noise at the edge
+			ideal[i][0] = r + rnd.nextGaussian() * 0.1 < 0.5 ? 1 : 0;
+		}
+		return new BasicMLDataSet(input, ideal);
+	}
+
+	private SVMSearchTrain search(MLDataSet data, int threads, int folds,
+			boolean halving) {
+		SVM svm = new SVM(2, SVMType.SupportVectorClassification,
+				KernelType.RadialBasisFunction);
+		SVMSearchTrain train = new SVMSearchTrain(svm, data);
+		train.setConstBegin(1);
+		train.setConstEnd(7);
+		train.setConstStep(2);
+		train.setGammaBegin(1);
+		train.setGammaEnd(3);
+		train.setGammaStep(1);
+		train.setFold(folds);
+		train.setThreadCount(threads);
+		train.setSuccessiveHalving(halving);
+		return train;
+	}
+
+	private int run(SVMSearchTrain train) {
+		int iterations = 0;
+		while (!train.isTrainingDone()) {
+			train.iteration();
+			iterations++;
+		}
+		return iterations;
+	}
+
+	private void checkThreads(int folds) {
+		MLDataSet data = create();
+		SVMSearchTrain single = search(data, 1, folds, false);
+		Assert.assertEquals(12, run(single));
+		SVMSearchTrain multi = search(data, 4, folds, false);
+		Assert.assertEquals(3, run(multi));
+
+		Assert.assertEquals(single.getBestConst(), multi.getBestConst(), 0);
+		Assert.assertEquals(single.getBestGamma(), multi.getBestGamma(), 0);
+		Assert.assertEquals(single.getError(), multi.getError(), 0);
+		Assert.assertTrue(single.getError() < 0.5);
+	}
+
+	@Test
+	public void testGrid() {
+		checkThreads(0);
+	}
+
+	@Test
+	public void testCrossValidation() {
+		checkThreads(4);
+	}
+
+	@Test
+	public void testSuccessiveHalving() {
+		MLDataSet data = create();
+		SVMSearchTrain grid = search(data, 0, 4, false);
+		run(grid);
+		SVMSearchTrain halving = search(data, 0, 4, true);
+		Assert.assertEquals(4, run(halving));
+		Assert.assertTrue(halving.getError() >= grid.getError());
+
+		// the error of the chosen cell is its full cross validation error
+		SVMSearchTrain one = search(data, 0, 4, false);
+		one.setConstBegin(halving.getBestConst());
+		one.setConstEnd(halving.getBestConst());
+		one.setGammaBegin(halving.getBestGamma());
+		one.setGammaEnd(halving.getBestGamma());
+		Assert.assertEquals(1, run(one));
+		Assert.assertEquals(one.getError(), halving.getError(), 0);
+
+		halving.finishTraining();
+		Assert.assertNotNull(((SVM) halving.getMethod()).getModel());
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.svm.training;
+
+import java.util.Random;
+
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.svm.KernelType;
+import org.encog.ml.svm.SVM;
+import org.encog.ml.svm.SVMType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSVMTrain {
+
+	private MLDataSet create(boolean regression) {
+		Random rnd = new Random(42);
+		double[][] input = new double[1500][3];
+		double[][] ideal = new double[input.length][1];
+		for (int i = 0; i < input.length; i++) {
+			for (int j = 0; j < input[i].length; j++) {
+				input[i][j] = rnd.nextDouble() * 2 - 1;
+			}
+			double v = input[i][0] * input[i][1] + 0.5 * input[i][2];
+			ideal[i][0] = regression ? v : (v > 0 ? 1 : 0);
+		}
+		return new BasicMLDataSet(input, ideal);
+	}
+
+	private SVMTrain train(MLDataSet data, SVMType type, int threads) {
+		SVM svm = new SVM(3, type, KernelType.RadialBasisFunction);
+		// small enough that some kernel rows must be computed again
+		svm.getParams().cache_size = 2;
+		SVMTrain train = new SVMTrain(svm, data);
+		train.setThreadCount(threads);
+		train.iteration();
+		return train;
+	}
+
+	private void check(SVMType type, boolean regression) {
+		MLDataSet data = create(regression);
+		SVMTrain single = train(data, type, 1);
+		SVMTrain multi = train(data, type, 4);
+
+		svm_model a = ((SVM) single.getMethod()).getModel();
+		svm_model b = ((SVM) multi.getMethod()).getModel();
+		Assert.assertEquals(a.l, b.l);
+		Assert.assertArrayEquals(a.rho, b.rho, 0);
+		for (int i = 0; i < a.sv_coef.length; i++) {
+			Assert.assertArrayEquals(a.sv_coef[i], b.sv_coef[i], 0);
+		}
+		Assert.assertEquals(single.getError(), multi.getError(), 0);
+
+		Assert.assertTrue(single.getCacheStats().getMisses() > 0);
+		Assert.assertEquals(single.getCacheStats().getHits(),
+				multi.getCacheStats().getHits());
+		Assert.assertTrue(single.getCacheHitRate() > 0);
+		Assert.assertTrue(single.getCacheHitRate() < 1);
+	}
+
+	@Test
+	public void testClassification() {
+		check(SVMType.SupportVectorClassification, false);
+	}
+
+	@Test
+	public void testRegression() {
+		check(SVMType.EpsilonSupportVectorRegression, true);
+	}
+
+	@Test
+	public void testCacheHeapFraction() {
+		MLDataSet data = create(false);
+		SVM svm = new SVM(3, SVMType.SupportVectorClassification,
+				KernelType.RadialBasisFunction);
+		double cacheSize = svm.getParams().cache_size;
+		SVMTrain train = new SVMTrain(svm, data);
+		train.setCacheHeapFraction(0.25);
+		train.iteration();
+
+		// the whole kernel matrix fits, each row is only computed once
+		Assert.assertTrue(train.getCacheStats().getMisses() <= data
+				.getRecordCount());
+		Assert.assertEquals(cacheSize, svm.getParams().cache_size, 0);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.activation;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationBiPolar;
+import org.encog.engine.network.activation.ActivationBipolarSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationClippedLinear;
+import org.encog.engine.network.activation.ActivationElliott;
+import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationGaussian;
+import org.encog.engine.network.activation.ActivationLOG;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationRamp;
+import org.encog.engine.network.activation.ActivationReLU;
+import org.encog.engine.network.activation.ActivationSIN;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationSoftMax;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationStep;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestActivationBulkDerivative extends TestCase {
+
+	private void checkBulk(ActivationFunction af) {
+		Random rnd = new Random(42);
+		int start = 3;
+		int size = 50;
+		double[] sums = new double[start + size + 2];
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] = (rnd.nextDouble() * 10) - 5;
+		}
+		double[] outputs = sums.clone();
+		af.activationFunction(outputs, 0, outputs.length);
+
+		double[] dest = new double[sums.length];
+		dest[start - 1] = -99;
+		dest[start + size] = -99;
+		af.derivativeFunction(sums, outputs, dest, start, size);
+
+		for (int i = start; i < start + size; i++) {
+			Assert.assertEquals(af.getClass().getSimpleName(),
+					af.derivativeFunction(sums[i], outputs[i]), dest[i], 1e-12);
+		}
+		Assert.assertEquals(-99, dest[start - 1], 0);
+		Assert.assertEquals(-99, dest[start + size], 0);
+	}
+
+	@Test
+	public void testBulkDerivative() {
+		checkBulk(new ActivationBiPolar());
+		checkBulk(new ActivationBipolarSteepenedSigmoid());
+		checkBulk(new ActivationClippedLinear());
+		checkBulk(new ActivationElliott());
+		checkBulk(new ActivationElliottSymmetric());
+		checkBulk(new ActivationGaussian());
+		checkBulk(new ActivationLinear());
+		checkBulk(new ActivationLOG());
+		checkBulk(new ActivationRamp());
+		checkBulk(new ActivationReLU());
+		checkBulk(new ActivationSigmoid());
+		checkBulk(new ActivationSIN());
+		checkBulk(new ActivationSoftMax());
+		checkBulk(new ActivationSteepenedSigmoid());
+		checkBulk(new ActivationStep());
+		checkBulk(new ActivationTANH());
+	}
+
+	private void checkApproximate(ActivationFunction exact,
+			ActivationFunction approx) {
+		double[] a = new double[2001];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = (i - 1000) / 50.0;
+		}
+		double[] b = a.clone();
+		exact.activationFunction(a, 0, a.length);
+		approx.activationFunction(b, 0, b.length);
+		for (int i = 0; i < a.length; i++) {
+			Assert.assertEquals(a[i], b[i], 2e-7);
+		}
+	}
+
+	@Test
+	public void testApproximate() {
+		ActivationSigmoid sigmoid = new ActivationSigmoid();
+		sigmoid.setApproximate(true);
+		Assert.assertTrue(((ActivationSigmoid) sigmoid.clone()).isApproximate());
+		checkApproximate(new ActivationSigmoid(), sigmoid);
+
+		ActivationTANH tanh = new ActivationTANH();
+		tanh.setApproximate(true);
+		Assert.assertTrue(((ActivationTANH) tanh.clone()).isApproximate());
+		checkApproximate(new ActivationTANH(), tanh);
+	}
+}
@@ -27,8 +27,11 @@
 
 import junit.framework.TestCase;
 
+import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.ml.data.buffer.MappedEGBFile;
 import org.encog.neural.networks.XOR;
 
 public class TestBufferedNeuralDataSet extends TestCase {
@@ -50,5 +53,149 @@ public void testBufferData() throws Exception
 		
 		XOR.testXORDataSet(set);
 		
-	}	
+	}
+	
+	private BufferedMLDataSet createLargeSet(File file, int records)
+	{
+		file.delete();
+		BufferedMLDataSet set = new BufferedMLDataSet(file);
+		set.beginLoad(3, 2);
+		for(int i=0;i<records;i++) {
+			double[] input = { i, i + 0.25, i + 0.5 };
+			double[] ideal = { -i, -i - 0.5 };
+			set.add(new BasicMLData(input), new BasicMLData(ideal));
+		}
+		set.endLoad();
+		return set;
+	}
+	
+	public void testMemoryMapped() throws Exception 
+	{
+		File file = new File("mapped.egb");
+		BufferedMLDataSet set = createLargeSet(file, 1000);
+		MLDataPair pair1 = BasicMLDataPair.createPair(3, 2);
+		MLDataPair pair2 = BasicMLDataPair.createPair(3, 2);
+		
+		BufferedMLDataSet mapped = new BufferedMLDataSet(file);
+		mapped.setMemoryMapped(true);
+		assertTrue(mapped.isMemoryMapped());
+		BufferedMLDataSet additional = mapped.openAdditional();
+		assertTrue(additional.isMemoryMapped());
+		
+		for(int i=0;i<1000;i++) {
+			set.getRecord(i, pair1);
+			mapped.getRecord(i, pair2);
+			for(int j=0;j<3;j++) {
+				assertEquals(pair1.getInputArray()[j], pair2.getInputArray()[j], 0);
+			}
+			for(int j=0;j<2;j++) {
+				assertEquals(pair1.getIdealArray()[j], pair2.getIdealArray()[j], 0);
+			}
+			additional.getRecord(999 - i, pair2);
+			assertEquals(999 - i, pair2.getInputArray()[0], 0);
+		}
+		
+		mapped.close();
+		set.close();
+		file.delete();
+	}
+	
+	public void testMappedSegments() throws Exception 
+	{
+		File file = new File("segments.egb");
+		createLargeSet(file, 1000).close();
+		
+		// 6 doubles per record, 10 records per segment
+		final MappedEGBFile mapped = new MappedEGBFile(file, 10 * 6 * 8 + 7);
+		assertEquals(1000, mapped.getNumberOfRecords());
+		assertEquals(10, mapped.getRecordsPerSegment());
+		assertEquals(100, mapped.getSegmentCount());
+		
+		// read concurrently, from several threads
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for(int t=0;t<threads.length;t++) {
+			final int offset = t;
+			threads[t] = new Thread() {
+				public void run() {
+					double[] input = new double[3];
+					double[] ideal = new double[2];
+					for(int i=0;i<1000;i++) {
+						int index = (i * 7 + offset * 250) % 1000;
+						double significance = mapped.read(index, input, ideal);
+						if( input[2]!=index + 0.5 || ideal[1]!=-index - 0.5 || significance!=1.0 ) {
+							failed[0] = true;
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread: threads) {
+			thread.join();
+		}
+		assertFalse(failed[0]);
+		file.delete();
+	}
+	
+	private void readConcurrently(final BufferedMLDataSet set, final boolean sequential) throws Exception 
+	{
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for(int t=0;t<threads.length;t++) {
+			final BufferedMLDataSet worker = set.openAdditional();
+			final int offset = t;
+			threads[t] = new Thread() {
+				public void run() {
+					MLDataPair pair = BasicMLDataPair.createPair(3, 2);
+					for(int pass=0;pass<2;pass++) {
+						for(int i=0;i<1000;i++) {
+							int index = sequential ? i : (i * 7 + offset * 250) % 1000;
+							worker.getRecord(index, pair);
+							if( pair.getInputArray()[2]!=index + 0.5 || pair.getIdealArray()[1]!=-index - 0.5 ) {
+								failed[0] = true;
+							}
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread: threads) {
+			thread.join();
+		}
+		assertFalse(failed[0]);
+	}
+	
+	public void testConcurrentReads() throws Exception 
+	{
+		File file = new File("concurrent.egb");
+		BufferedMLDataSet set = createLargeSet(file, 1000);
+		readConcurrently(set, false);
+		readConcurrently(set, true);
+		set.close();
+		file.delete();
+	}
+	
+	public void testReadAhead() throws Exception 
+	{
+		File file = new File("readahead.egb");
+		BufferedMLDataSet set = createLargeSet(file, 1000);
+		set.setReadAhead(64);
+		assertEquals(64, set.getReadAhead());
+		readConcurrently(set, true);
+		readConcurrently(set, false);
+		
+		// a scan that starts part way, and a jump back to the start
+		MLDataPair pair = BasicMLDataPair.createPair(3, 2);
+		for(int i=990;i<1000;i++) {
+			set.getRecord(i, pair);
+			assertEquals(i, pair.getInputArray()[0], 0);
+		}
+		set.getRecord(0, pair);
+		assertEquals(0, pair.getInputArray()[0], 0);
+		
+		set.close();
+		file.delete();
+	}
 }
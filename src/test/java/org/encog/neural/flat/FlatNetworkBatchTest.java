@@ -0,0 +1,138 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.error.LinearErrorFunction;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.GradientWorker;
+import org.encog.neural.networks.training.propagation.GradientWorkerOwner;
+import org.encog.util.simple.EncogUtility;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatNetworkBatchTest {
+
+    private static final int RECORDS = 150;
+
+    private BasicMLDataSet createData(int input, int output) {
+        BasicMLDataSet result = new BasicMLDataSet();
+        for (int i = 0; i < RECORDS; i++) {
+            double[] x = new double[input];
+            double[] y = new double[output];
+            for (int j = 0; j < input; j++) {
+                x[j] = Math.sin(i * 0.37 + j);
+            }
+            for (int j = 0; j < output; j++) {
+                y[j] = Math.cos(i * 0.11 + j) * 0.8;
+            }
+            result.add(new BasicMLData(x), new BasicMLData(y));
+        }
+        return result;
+    }
+
+    private BasicNetwork createNetwork() {
+        BasicNetwork network = EncogUtility.simpleFeedForward(5, 20, 10, 3, true);
+        (new ConsistentRandomizer(-1, 1)).randomize(network);
+        return network;
+    }
+
+    @Test
+    public void testCompute() {
+        FlatNetwork flat = createNetwork().getFlat();
+        BasicMLDataSet data = createData(5, 3);
+
+        double[] input = new double[RECORDS * 5];
+        for (int i = 0; i < RECORDS; i++) {
+            System.arraycopy(data.get(i).getInputArray(), 0, input, i * 5, 5);
+        }
+
+        double[] output = new double[RECORDS * 3];
+        new FlatNetworkBatch(flat, 64).compute(input, output, RECORDS);
+
+        double[] expected = new double[3];
+        for (int i = 0; i < RECORDS; i++) {
+            flat.compute(data.get(i).getInputArray(), expected);
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals(expected[j], output[i * 3 + j], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testGradients() {
+        FlatNetwork flat = createNetwork().getFlat();
+        BasicMLDataSet data = createData(5, 3);
+        double[] flatSpot = new double[flat.getLayerCounts().length];
+        GradientWorkerOwner owner = new GradientWorkerOwner() {
+            @Override
+            public void report(double[] gradients, double error, Throwable ex) {
+                if (ex != null) {
+                    throw new RuntimeException(ex);
+                }
+            }
+
+            @Override
+            public double getL1() {
+                return 0;
+            }
+
+            @Override
+            public double getL2() {
+                return 0;
+            }
+
+            @Override
+            public double getRegularizationPenalty() {
+                return 0;
+            }
+        };
+
+        GradientWorker blockWorker = new GradientWorker(flat.clone(), owner, data,
+                0, RECORDS - 1, flatSpot, new LinearErrorFunction());
+        blockWorker.setRetainGradients(true);
+        blockWorker.run();
+
+        GradientWorker recordWorker = new GradientWorker(flat.clone(), owner, data,
+                0, RECORDS - 1, flatSpot, new LinearErrorFunction());
+        for (MLDataPair pair : data) {
+            recordWorker.process(pair);
+        }
+
+        Assert.assertArrayEquals(recordWorker.getGradients(), blockWorker.getGradients(), 1e-10);
+        Assert.assertEquals(recordWorker.getErrorCalculation().calculate(),
+                blockWorker.getErrorCalculation().calculate(), 1e-12);
+    }
+
+    @Test
+    public void testSupported() {
+        FlatNetwork flat = createNetwork().getFlat();
+        Assert.assertTrue(FlatNetworkBatch.isSupported(flat));
+        flat.setHasContext(true);
+        Assert.assertFalse(FlatNetworkBatch.isSupported(flat));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.util.simple.EncogUtility;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatNetworkFloatTest {
+
+    private FlatNetwork createNetwork() {
+        BasicNetwork network = EncogUtility.simpleFeedForward(4, 8, 5, 2, true);
+        (new ConsistentRandomizer(-1, 1)).randomize(network);
+        return network.getFlat();
+    }
+
+    @Test
+    public void testCompute() {
+        FlatNetwork flat = createNetwork();
+        FlatNetworkFloat single = new FlatNetworkFloat(flat);
+
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        float[] input = new float[4 * 10];
+        float[] output = new float[2 * 10];
+        for (int i = 0; i < 10; i++) {
+            double[] x = {Math.sin(i), Math.cos(i), i / 10.0, -i / 10.0};
+            for (int j = 0; j < 4; j++) {
+                input[i * 4 + j] = (float) x[j];
+            }
+            flat.compute(x, expected);
+            single.compute(x, actual);
+            Assert.assertArrayEquals(expected, actual, 1e-5);
+        }
+
+        single.compute(input, output, 10);
+        for (int i = 0; i < 10; i++) {
+            double[] x = {input[i * 4], input[i * 4 + 1], input[i * 4 + 2], input[i * 4 + 3]};
+            flat.compute(x, expected);
+            Assert.assertEquals(expected[0], output[i * 2], 1e-5);
+            Assert.assertEquals(expected[1], output[i * 2 + 1], 1e-5);
+        }
+    }
+
+    @Test
+    public void testCopyWeights() {
+        FlatNetwork flat = createNetwork();
+        FlatNetworkFloat single = new FlatNetworkFloat(flat);
+        FlatNetwork copy = flat.clone();
+        copy.setWeights(new double[flat.getWeights().length]);
+
+        single.copyWeightsTo(copy);
+        Assert.assertArrayEquals(flat.getWeights(), copy.getWeights(), 1e-6);
+    }
+}
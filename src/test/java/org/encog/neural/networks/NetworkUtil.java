@@ -90,6 +90,19 @@ public static void testTraining(MLDataSet dataSet, MLTrain train, double require
 				",Improve="+improve+",Needed="+requiredImprove, improve>=requiredImprove);
 	}
 
+	public static void testSameTraining(MLTrain train1, MLTrain train2, int iterations, double tolerance)
+	{
+		for(int i=0;i<iterations;i++) {
+			train1.iteration();
+			train2.iteration();
+			Assert.assertEquals(train1.getError(), train2.getError(), tolerance);
+		}
+		
+		double[] w1 = ((BasicNetwork)train1.getMethod()).getFlat().getWeights();
+		double[] w2 = ((BasicNetwork)train2.getMethod()).getFlat().getWeights();
+		Assert.assertArrayEquals(w1, w2, tolerance);
+	}
+
 	public static FreeformNetwork createXORFreeformNetworkUntrained() {
 		FreeformNetwork network = new FreeformNetwork();
 		FreeformLayer inputLayer = network.createInputLayer(2);
@@ -72,6 +72,17 @@ public static MLDataSet createXORDataSet()
 			return new BasicMLDataSet(XOR.XOR_INPUT,XOR.XOR_IDEAL);
 		}
 		
+		public static BasicMLDataSet createRepeatedXORDataSet(int count)
+		{
+			BasicMLDataSet result = new BasicMLDataSet();
+			for(int i=0;i<count;i++) {
+				for(int j=0;j<XOR.XOR_INPUT.length;j++) {
+					result.add(new BasicMLData(XOR.XOR_INPUT[j]), new BasicMLData(XOR.XOR_IDEAL[j]));
+				}
+			}
+			return result;
+		}
+		
 		public static void testXORDataSet(MLDataSet set)
 		{
 			int row = 0;
@@ -0,0 +1,271 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.neat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.neural.hyperneat.HyperNEATCODEC;
+import org.encog.neural.hyperneat.substrate.Substrate;
+import org.encog.neural.hyperneat.substrate.SubstrateFactory;
+import org.encog.neural.hyperneat.substrate.SubstrateLink;
+import org.encog.neural.hyperneat.substrate.SubstrateNode;
+import org.encog.neural.neat.NEATCODEC;
+import org.encog.neural.neat.NEATLink;
+import org.encog.neural.neat.NEATNetwork;
+import org.encog.neural.neat.NEATPopulation;
+
+public class TestNEATNetwork extends TestCase {
+
+	/**
+	 * The original evaluation, cycling every link activationCycles times.
+	 */
+	private double[] reference(NEATNetwork network, double[] input) {
+		ActivationFunction[] afs = network.getActivationFunctions();
+		double[] pre = new double[afs.length];
+		double[] post = new double[afs.length];
+		post[0] = 1.0;
+		System.arraycopy(input, 0, post, 1, network.getInputCount());
+		for (int cycle = 0; cycle < network.getActivationCycles(); cycle++) {
+			for (NEATLink link : network.getLinks()) {
+				pre[link.getToNeuron()] += post[link.getFromNeuron()] * link.getWeight();
+			}
+			for (int j = network.getOutputIndex(); j < pre.length; j++) {
+				post[j] = pre[j];
+				afs[j].activationFunction(post, j, 1);
+				pre[j] = 0;
+			}
+		}
+		double[] result = new double[network.getOutputCount()];
+		System.arraycopy(post, network.getOutputIndex(), result, 0, result.length);
+		return result;
+	}
+
+	private void checkSame(NEATNetwork network, Random rnd) {
+		for (int i = 0; i < 10; i++) {
+			double[] input = new double[network.getInputCount()];
+			for (int j = 0; j < input.length; j++) {
+				input[j] = rnd.nextDouble() * 2 - 1;
+			}
+			MLData output = network.compute(new BasicMLData(input));
+			double[] expected = reference(network, input);
+			for (int j = 0; j < expected.length; j++) {
+				assertEquals(expected[j], output.getData(j), 0);
+			}
+		}
+	}
+
+	/**
+	 * Create a network with 3 inputs, 2 outputs and 5 hidden neurons. Hidden
+	 * neurons only feed later hidden neurons and the outputs, unless
+	 * recurrent links are requested.
+	 */
+	private NEATNetwork create(Random rnd, boolean recurrent) {
+		int neuronCount = 1 + 3 + 2 + 5;
+		ActivationFunction[] afs = new ActivationFunction[neuronCount];
+		for (int i = 0; i < neuronCount; i++) {
+			afs[i] = (i % 2 == 0) ? new ActivationSteepenedSigmoid()
+					: new ActivationLinear();
+		}
+		List<NEATLink> links = new ArrayList<NEATLink>();
+		for (int to = 4; to < neuronCount; to++) {
+			for (int from = 0; from < neuronCount; from++) {
+				boolean forward = from < 4 || (from >= 6 && to < 6)
+						|| (from >= 6 && from < to);
+				if ((forward || recurrent) && rnd.nextDouble() < 0.5) {
+					links.add(new NEATLink(from, to, rnd.nextDouble() * 4 - 2));
+				}
+			}
+		}
+		Collections.sort(links);
+		return new NEATNetwork(3, 2, links, afs);
+	}
+
+	public void testFeedForward() {
+		Random rnd = new Random(42);
+		for (int i = 0; i < 20; i++) {
+			NEATNetwork network = create(rnd, false);
+			network.setActivationCycles(7);
+			assertTrue(network.isFeedForward());
+			assertTrue(network.isSinglePass());
+			checkSame(network, rnd);
+		}
+	}
+
+	public void testTooFewCycles() {
+		// a chain of hidden neurons, longer than the activation cycles
+		ActivationFunction[] afs = new ActivationFunction[8];
+		for (int i = 0; i < afs.length; i++) {
+			afs[i] = new ActivationSteepenedSigmoid();
+		}
+		List<NEATLink> links = new ArrayList<NEATLink>();
+		links.add(new NEATLink(1, 3, 1.5));
+		for (int i = 3; i < 7; i++) {
+			links.add(new NEATLink(i, i + 1, 0.5));
+		}
+		links.add(new NEATLink(7, 2, 2.0));
+		NEATNetwork network = new NEATNetwork(1, 1, links, afs);
+
+		network.setActivationCycles(4);
+		assertTrue(network.isFeedForward());
+		assertFalse(network.isSinglePass());
+		checkSame(network, new Random(1));
+
+		network.setActivationCycles(6);
+		assertTrue(network.isSinglePass());
+		checkSame(network, new Random(1));
+	}
+
+	public void testRecurrent() {
+		Random rnd = new Random(7);
+		for (int i = 0; i < 20; i++) {
+			NEATNetwork network = create(rnd, true);
+			assertFalse(network.isFeedForward());
+			checkSame(network, rnd);
+		}
+	}
+
+	private void checkBatch(NEATNetwork network, Random rnd) {
+		int rows = NEATNetwork.BATCH_BLOCK_SIZE + 37;
+		double[][] input = new double[network.getInputCount()][rows];
+		for (double[] column : input) {
+			for (int row = 0; row < rows; row++) {
+				column[row] = rnd.nextDouble() * 2 - 1;
+			}
+		}
+		double[][] output = new double[network.getOutputCount()][rows];
+		network.compute(input, output, rows);
+		for (int row = 0; row < rows; row++) {
+			double[] rowInput = new double[input.length];
+			for (int i = 0; i < input.length; i++) {
+				rowInput[i] = input[i][row];
+			}
+			double[] expected = reference(network, rowInput);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], output[i][row], 0);
+			}
+		}
+	}
+
+	public void testBatch() {
+		Random rnd = new Random(11);
+		for (int i = 0; i < 5; i++) {
+			NEATNetwork network = create(rnd, false);
+			network.setActivationCycles(7);
+			checkBatch(network, rnd);
+			network = create(rnd, true);
+			checkBatch(network, rnd);
+		}
+	}
+
+	/**
+	 * The links of the original HyperNEAT decode, one CPPN query per link.
+	 */
+	private List<NEATLink> referenceDecode(Substrate substrate, Genome genome) {
+		NEATNetwork cppn = (NEATNetwork) new NEATCODEC().decode(genome);
+		List<NEATLink> links = new ArrayList<NEATLink>();
+		double c = 5.0 / (1.0 - 0.2);
+		MLData input = new BasicMLData(cppn.getInputCount());
+		for (SubstrateLink link : substrate.getLinks()) {
+			int index = 0;
+			for (double d : link.getSource().getLocation()) {
+				input.setData(index++, d);
+			}
+			for (double d : link.getTarget().getLocation()) {
+				input.setData(index++, d);
+			}
+			double weight = cppn.compute(input).getData(0);
+			if (Math.abs(weight) > 0.2) {
+				weight = (Math.abs(weight) - 0.2) * c * Math.signum(weight);
+				links.add(new NEATLink(link.getSource().getId(), link
+						.getTarget().getId(), weight));
+			}
+		}
+		input.clear();
+		int d = substrate.getDimensions();
+		for (SubstrateNode target : substrate.getBiasedNodes()) {
+			for (int i = 0; i < d; i++) {
+				input.setData(d + i, target.getLocation()[i]);
+			}
+			double weight = cppn.compute(input).getData(1);
+			if (Math.abs(weight) > 0.2) {
+				weight = (Math.abs(weight) - 0.2) * c * Math.signum(weight);
+				links.add(new NEATLink(0, target.getId(), weight));
+			}
+		}
+		Collections.sort(links);
+		return links;
+	}
+
+	public void testHyperNEATDecode() {
+		Substrate substrate = SubstrateFactory.factorSandwichSubstrate(5, 5);
+		NEATPopulation pop = new NEATPopulation(substrate, 20);
+		pop.reset();
+		HyperNEATCODEC codec = new HyperNEATCODEC();
+		for (int pass = 0; pass < 2; pass++) {
+			for (Genome genome : pop.flatten()) {
+				NEATNetwork network = (NEATNetwork) codec.decode(genome);
+				List<NEATLink> expected = referenceDecode(substrate, genome);
+				if (expected.isEmpty()) {
+					assertNull(network);
+					continue;
+				}
+				assertEquals(expected.size(), network.getLinks().length);
+				for (int i = 0; i < expected.size(); i++) {
+					NEATLink a = expected.get(i);
+					NEATLink b = network.getLinks()[i];
+					assertEquals(a.getFromNeuron(), b.getFromNeuron());
+					assertEquals(a.getToNeuron(), b.getToNeuron());
+					assertEquals(a.getWeight(), b.getWeight(), 0);
+				}
+			}
+			// the cached coordinates must follow a changed substrate
+			substrate.createLink(substrate.getInputNodes().get(0), substrate
+					.getInputNodes().get(1));
+		}
+	}
+
+	public void testDecode() {
+		NEATPopulation pop = new NEATPopulation(2, 1, 50);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+		NEATCODEC codec = new NEATCODEC();
+		Random rnd = new Random(3);
+		for (Genome genome : pop.flatten()) {
+			NEATNetwork network = (NEATNetwork) codec.decode(genome);
+			assertTrue(network.isSinglePass());
+			checkSame(network, rnd);
+		}
+	}
+}
@@ -24,18 +24,37 @@
 package org.encog.neural.networks.training;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import org.encog.Encog;
+import org.encog.mathutil.randomize.factory.BasicRandomFactory;
 import org.encog.ml.CalculateScore;
+import org.encog.ml.MLMethod;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.score.AdjustScore;
+import org.encog.ml.ea.score.ScoreCache;
+import org.encog.ml.ea.score.parallel.ParallelScore;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.neural.neat.NEATCODEC;
 import org.encog.neural.neat.NEATNetwork;
 import org.encog.neural.neat.NEATPopulation;
 import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.neat.training.NEATGenome;
+import org.encog.neural.neat.training.NEATLinkGene;
+import org.encog.neural.neat.training.NEATNeuronGene;
+import org.encog.neural.neat.training.opp.NEATCrossover;
+import org.encog.neural.neat.training.opp.NEATMutateAddNode;
+import org.encog.neural.neat.training.species.OriginalNEATSpeciation;
 import org.encog.neural.networks.XOR;
 import org.encog.util.TempDir;
 import org.encog.util.simple.EncogUtility;
@@ -98,4 +117,184 @@ public void testNEAT() {
 		NEATNetwork network = (NEATNetwork)train.getCODEC().decode(train.getBestGenome());
 		Assert.assertTrue(network.calculateError(trainingSet)<0.01);
 	}
+
+	@Test
+	public void testBatchScore() {
+		MLDataSet trainingSet = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		NEATPopulation pop = new NEATPopulation(2,1,100);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+
+		List<Genome> genomes = pop.flatten();
+		MLMethod[] methods = new MLMethod[genomes.size()];
+		NEATCODEC codec = new NEATCODEC();
+		for(int i=0;i<methods.length;i++) {
+			methods[i] = codec.decode(genomes.get(i));
+		}
+
+		// blocks smaller than the training set
+		TrainingSetScore score = new TrainingSetScore(trainingSet);
+		score.setBlockSize(3);
+		double[] scores = new double[methods.length];
+		score.calculateScores(methods, scores);
+
+		for(int i=0;i<methods.length;i++) {
+			Assert.assertEquals(score.calculateScore(methods[i]), scores[i], 0);
+		}
+	}
+
+	@Test
+	public void testParallelScore() {
+		MLDataSet trainingSet = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		NEATPopulation pop = new NEATPopulation(2,1,100);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+
+		TrainingSetScore score = new TrainingSetScore(trainingSet);
+		ParallelScore pscore = new ParallelScore(pop, new NEATCODEC(),
+				new ArrayList<AdjustScore>(), score, 4);
+		pscore.setBatchSize(7);
+
+		List<Genome> genomes = pop.flatten();
+		NEATCODEC codec = new NEATCODEC();
+		for(int pass=0;pass<2;pass++) {
+			for(Genome genome: genomes) {
+				genome.setScore(Double.NaN);
+			}
+			pscore.process();
+			for(Genome genome: genomes) {
+				Assert.assertEquals(score.calculateScore(codec.decode(genome)),
+						genome.getScore(), 0);
+			}
+		}
+		pscore.shutdown();
+	}
+
+	@Test
+	public void testScoreCache() {
+		MLDataSet trainingSet = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+		NEATPopulation pop = new NEATPopulation(2,1,100);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+
+		// a clone has the same structure, a changed weight does not
+		NEATGenome genome = (NEATGenome)pop.flatten().get(0);
+		NEATGenome clone = new NEATGenome(genome);
+		Assert.assertEquals(genome.getStructuralKey(), clone.getStructuralKey());
+		clone.getLinksChromosome().get(0).setWeight(
+				clone.getLinksChromosome().get(0).getWeight() + 0.5);
+		Assert.assertFalse(genome.getStructuralKey().equals(clone.getStructuralKey()));
+
+		CalculateScore score = new TrainingSetScore(trainingSet);
+		TrainEA train = NEATUtil.constructNEATTrainer(pop, score);
+		ScoreCache cache = new ScoreCache(50);
+		train.setScoreCache(cache);
+		for(int i=0;i<5;i++) {
+			train.iteration();
+		}
+		train.finishTraining();
+
+		Assert.assertTrue(cache.getHits() + cache.getMisses() > 0);
+		Assert.assertTrue(cache.size() <= 50);
+		NEATCODEC codec = new NEATCODEC();
+		for(Genome g: pop.flatten()) {
+			Assert.assertEquals(score.calculateScore(codec.decode(g)),
+					g.getScore(), 0);
+		}
+	}
+
+	@Test
+	public void testCrossover() {
+		NEATPopulation pop = new NEATPopulation(3,2,50);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+		TrainEA train = NEATUtil.constructNEATTrainer(pop,
+				new TrainingSetScore(new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL)));
+
+		// grow some hidden neurons, so that the parents differ
+		NEATMutateAddNode addNode = new NEATMutateAddNode();
+		addNode.init(train);
+		Random rnd = new Random(5);
+		List<Genome> parents = new ArrayList<Genome>();
+		Genome[] child = new Genome[1];
+		for(Genome genome: pop.flatten()) {
+			for(int i=0;i<rnd.nextInt(6);i++) {
+				addNode.performOperation(rnd, new Genome[] {genome}, 0, child, 0);
+				genome = child[0];
+			}
+			genome.setScore(rnd.nextDouble());
+			parents.add(genome);
+		}
+
+		NEATCrossover crossover = new NEATCrossover();
+		crossover.init(train);
+		for(int i=0;i+1<parents.size();i+=2) {
+			Genome[] pair = new Genome[] {parents.get(i), parents.get(i+1)};
+			crossover.performOperation(new Random(i), pair, 0, child, 0);
+			NEATGenome baby = (NEATGenome)child[0];
+			crossover.performOperation(new Random(i), pair, 0, child, 0);
+			Assert.assertEquals(baby.getStructuralKey(),
+					((NEATGenome)child[0]).getStructuralKey());
+
+			// exactly the neurons that the links need, each from a parent
+			Set<Long> needed = new HashSet<Long>();
+			for(long id=0;id<1+3+2;id++) {
+				needed.add(id);
+			}
+			for(NEATLinkGene link: baby.getLinksChromosome()) {
+				needed.add(link.getFromNeuronID());
+				needed.add(link.getToNeuronID());
+			}
+			Set<Long> found = new HashSet<Long>();
+			for(NEATNeuronGene neuron: baby.getNeuronsChromosome()) {
+				Assert.assertTrue(found.add(neuron.getId()));
+				Assert.assertTrue(
+						((NEATGenome)pair[0]).getNeuronsChromosome().contains(neuron)
+						|| ((NEATGenome)pair[1]).getNeuronsChromosome().contains(neuron));
+			}
+			Assert.assertEquals(needed, found);
+		}
+	}
+
+	private List<Integer> speciate(int threads, boolean incremental) {
+		NEATPopulation pop = new NEATPopulation(2,1,600);
+		pop.setRandomNumberFactory(new BasicRandomFactory(7));
+		pop.setInitialConnectionDensity(0.5);
+		pop.reset();
+
+		Random rnd = new Random(11);
+		List<Genome> genomes = pop.flatten();
+		for(Genome genome: genomes) {
+			genome.setScore(rnd.nextDouble());
+			genome.setAdjustedScore(genome.getScore());
+			for(NEATLinkGene link: ((NEATGenome)genome).getLinksChromosome()) {
+				link.setWeight(rnd.nextGaussian());
+			}
+		}
+
+		TrainEA train = NEATUtil.constructNEATTrainer(pop,
+				new TrainingSetScore(new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL)));
+		train.setThreadCount(threads);
+		OriginalNEATSpeciation speciation = (OriginalNEATSpeciation)train.getSpeciation();
+		speciation.setCompatibilityThreshold(2.0);
+		speciation.setMaxNumberOfSpecies(0);
+		speciation.setIncremental(incremental);
+		speciation.init(train);
+		speciation.performSpeciation(genomes);
+		speciation.performSpeciation(genomes);
+
+		List<Integer> result = new ArrayList<Integer>();
+		for(Genome genome: genomes) {
+			result.add(pop.getSpecies().indexOf(genome.getSpecies()));
+		}
+		return result;
+	}
+
+	@Test
+	public void testSpeciation() {
+		List<Integer> single = speciate(1, false);
+		Assert.assertTrue(new HashSet<Integer>(single).size() > 1);
+		Assert.assertEquals(single, speciate(4, false));
+		Assert.assertEquals(speciate(1, true), speciate(4, true));
+	}
 }
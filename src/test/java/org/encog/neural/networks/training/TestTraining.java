@@ -25,6 +25,7 @@
 
 import junit.framework.TestCase;
 
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
 import org.encog.ml.CalculateScore;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MethodFactory;
@@ -38,13 +39,18 @@
 import org.encog.neural.networks.training.anneal.NeuralSimulatedAnnealing;
 import org.encog.neural.networks.training.lma.LevenbergMarquardtTraining;
 import org.encog.neural.networks.training.pnn.TrainBasicPNN;
+import org.encog.neural.networks.training.propagation.GradientReduction;
+import org.encog.neural.networks.training.propagation.Propagation;
 import org.encog.neural.networks.training.propagation.back.Backpropagation;
 import org.encog.neural.networks.training.propagation.manhattan.ManhattanPropagation;
 import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
 import org.encog.neural.networks.training.propagation.scg.ScaledConjugateGradient;
+import org.encog.neural.networks.training.propagation.sgd.StochasticGradientDescent;
 import org.encog.neural.pnn.BasicPNN;
 import org.encog.neural.pnn.PNNKernelType;
 import org.encog.neural.pnn.PNNOutputMode;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class TestTraining extends TestCase   {
@@ -60,6 +66,17 @@ public void testRPROP() throws Throwable
 		NetworkUtil.testTraining(trainingData,rprop,0.03);
 	}
 	
+	@Test
+	public void testRPROPSinglePrecision() throws Throwable
+	{
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT,XOR.XOR_IDEAL);
+		
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		ResilientPropagation rprop = new ResilientPropagation(network, trainingData);
+		rprop.setSinglePrecision(true);
+		NetworkUtil.testTraining(trainingData,rprop,0.03);
+	}
+	
 	@Test
 	public void testLMA() throws Throwable
 	{
@@ -101,6 +118,74 @@ public void testSCG() throws Throwable
 		NetworkUtil.testTraining(trainingData,bprop,0.04);
 	}
 	
+	@Test
+	public void testAsyncSGD() throws Throwable
+	{
+		MLDataSet trainingData = XOR.createRepeatedXORDataSet(100);
+		
+		BasicNetwork network1 = NetworkUtil.createXORNetworkUntrained();
+		BasicNetwork network2 = NetworkUtil.createXORNetworkUntrained();
+		double startError = network1.calculateError(trainingData);
+		
+		StochasticGradientDescent train1 = new StochasticGradientDescent(network1, trainingData, new MersenneTwisterGenerateRandom(42));
+		train1.setLearningRate(0.01);
+		StochasticGradientDescent train2 = new StochasticGradientDescent(network2, trainingData, new MersenneTwisterGenerateRandom(42));
+		train2.setLearningRate(0.01);
+		train2.setThreadCount(4);
+		
+		// both process the same number of records
+		for(int i=0;i<320;i++) {
+			train1.iteration();
+		}
+		for(int i=0;i<10;i++) {
+			train2.iteration();
+		}
+		Assert.assertEquals(train1.getTotalRecords(), train2.getTotalRecords());
+		Assert.assertTrue(train2.getRecordsPerSecond() > 0);
+		
+		double error1 = network1.calculateError(trainingData);
+		double error2 = network2.calculateError(trainingData);
+		Assert.assertTrue(error2 < startError);
+		Assert.assertEquals(error1, error2, 0.05);
+	}
+	
+	@Test
+	public void testLoadBalancing() throws Throwable
+	{
+		MLDataSet trainingData = XOR.createRepeatedXORDataSet(100);
+		
+		BasicNetwork network1 = NetworkUtil.createXORNetworkUntrained();
+		BasicNetwork network2 = NetworkUtil.createXORNetworkUntrained();
+		
+		Propagation train1 = new Backpropagation(network1, trainingData, 0.01, 0.0);
+		train1.setThreadCount(4);
+		train1.setLoadBalancing(false);
+		Propagation train2 = new Backpropagation(network2, trainingData, 0.01, 0.0);
+		train2.setThreadCount(4);
+		train2.setConcurrency(new EngineConcurrency(3));
+		Assert.assertTrue(train2.isLoadBalancing());
+		
+		NetworkUtil.testSameTraining(train1, train2, 5, 1e-10);
+		train2.getConcurrency().shutdown(10);
+	}
+	
+	@Test
+	public void testStripedGradientReduction() throws Throwable
+	{
+		MLDataSet trainingData = XOR.createRepeatedXORDataSet(100);
+		
+		BasicNetwork network1 = NetworkUtil.createXORNetworkUntrained();
+		BasicNetwork network2 = NetworkUtil.createXORNetworkUntrained();
+		
+		Propagation train1 = new Backpropagation(network1, trainingData, 0.01, 0.0);
+		train1.setThreadCount(4);
+		Propagation train2 = new Backpropagation(network2, trainingData, 0.01, 0.0);
+		train2.setThreadCount(4);
+		train2.setGradientReduction(GradientReduction.Striped);
+		
+		NetworkUtil.testSameTraining(train1, train2, 5, 1e-10);
+	}
+	
 	@Test
 	public void testAnneal() throws Throwable
 	{
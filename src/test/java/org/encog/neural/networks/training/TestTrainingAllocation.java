@@ -0,0 +1,109 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.Propagation;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.neural.pattern.ElmanPattern;
+import org.encog.util.simple.EncogUtility;
+import org.junit.Test;
+
+/**
+ * Checks that the training loop does not allocate memory for each record,
+ * once it has reached a steady state.
+ */
+public class TestTrainingAllocation extends TestCase {
+
+	public static final int RECORDS = 2000;
+	public static final int WARMUP = 50;
+	public static final int ITERATIONS = 10;
+
+	private BasicMLDataSet createData() {
+		BasicMLDataSet result = new BasicMLDataSet();
+		for (int i = 0; i < RECORDS; i++) {
+			double[] input = { Math.sin(i), Math.cos(i * 0.3) };
+			double[] ideal = { (Math.sin(i * 0.7) + 1) / 2 };
+			result.add(new BasicMLData(input), new BasicMLData(ideal));
+		}
+		return result;
+	}
+
+	private void checkAllocation(BasicNetwork network) {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!bean.isThreadAllocatedMemorySupported()) {
+			return;
+		}
+		bean.setThreadAllocatedMemoryEnabled(true);
+
+		(new ConsistentRandomizer(-1, 1)).randomize(network);
+		Propagation train = new ResilientPropagation(network, createData());
+		train.setThreadCount(1);
+		train.setL1(0.0001);
+		train.setL2(0.0001);
+
+		for (int i = 0; i < WARMUP; i++) {
+			train.iteration();
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = bean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			train.iteration();
+		}
+		long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+
+		// a small, fixed amount per iteration is fine, one byte per record is not
+		assertTrue("Allocated " + allocated + " bytes for " + (RECORDS * ITERATIONS) + " records",
+				allocated < RECORDS * ITERATIONS);
+	}
+
+	@Test
+	public void testFeedforward() {
+		checkAllocation(EncogUtility.simpleFeedForward(2, 10, 0, 1, false));
+	}
+
+	@Test
+	public void testElman() {
+		ElmanPattern pattern = new ElmanPattern();
+		pattern.setActivationFunction(new ActivationSigmoid());
+		pattern.setInputNeurons(2);
+		pattern.addHiddenLayer(10);
+		pattern.setOutputNeurons(1);
+		checkAllocation((BasicNetwork) pattern.generate());
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Encog(tm) Core v3.4 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2017 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.concurrency;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import junit.framework.TestCase;
+
+import org.encog.EncogError;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestEngineConcurrency extends TestCase {
+
+	@Test
+	public void testProcessRange() {
+		EngineConcurrency concurrency = new EngineConcurrency(4);
+		final AtomicIntegerArray counts = new AtomicIntegerArray(1000);
+		concurrency.processRange(0, 999, new RangeTask() {
+			@Override
+			public void run(int low, int high) {
+				for (int i = low; i <= high; i++) {
+					counts.incrementAndGet(i);
+				}
+			}
+		});
+		for (int i = 0; i < counts.length(); i++) {
+			Assert.assertEquals(1, counts.get(i));
+		}
+		Assert.assertEquals(4, concurrency.getParallelism());
+		concurrency.shutdown(10);
+
+		// after shutdown the range is processed by the calling thread
+		Assert.assertEquals(0, concurrency.getParallelism());
+		concurrency.processRange(0, 999, new RangeTask() {
+			@Override
+			public void run(int low, int high) {
+				for (int i = low; i <= high; i++) {
+					counts.incrementAndGet(i);
+				}
+			}
+		});
+		Assert.assertEquals(2, counts.get(500));
+	}
+
+	@Test
+	public void testAutoThreadCount() {
+		EngineConcurrency concurrency = new EngineConcurrency(0);
+		Assert.assertTrue(concurrency.getThreadCount() > 0);
+		Assert.assertEquals(concurrency.getParallelism(),
+				concurrency.getThreadCount());
+		concurrency.shutdown(10);
+	}
+
+	@Test
+	public void testProcessRangeError() {
+		EngineConcurrency concurrency = new EngineConcurrency(2);
+		try {
+			concurrency.processRange(0, 99, new RangeTask() {
+				@Override
+				public void run(int low, int high) {
+					throw new IllegalStateException("failed");
+				}
+			});
+			Assert.fail("Expected an error");
+		} catch (EncogError e) {
+			// expected
+		} finally {
+			concurrency.shutdown(10);
+		}
+	}
+
+	@Test
+	public void testTaskGroup() {
+		EngineConcurrency concurrency = new EngineConcurrency(3);
+		final AtomicIntegerArray counts = new AtomicIntegerArray(10);
+		TaskGroup group = concurrency.createTaskGroup();
+		for (int i = 0; i < counts.length(); i++) {
+			final int index = i;
+			concurrency.processTask(new EngineTask() {
+				@Override
+				public void run() {
+					counts.incrementAndGet(index);
+				}
+			}, group);
+		}
+		group.waitForComplete();
+		for (int i = 0; i < counts.length(); i++) {
+			Assert.assertEquals(1, counts.get(i));
+		}
+		concurrency.shutdown(10);
+	}
+
+	@Test
+	public void testWorkloadChunker() throws InterruptedException {
+		final WorkloadChunker chunker = new WorkloadChunker(10, 5009, 4);
+		final AtomicIntegerArray counts = new AtomicIntegerArray(5010);
+
+		for (int pass = 0; pass < 2; pass++) {
+			chunker.reset();
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread() {
+					@Override
+					public void run() {
+						int start;
+						while ((start = chunker.nextChunk()) != -1) {
+							for (int i = start; i <= chunker.chunkHigh(start); i++) {
+								counts.incrementAndGet(i);
+							}
+						}
+					}
+				};
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+
+		for (int i = 0; i < counts.length(); i++) {
+			Assert.assertEquals(i < 10 ? 0 : 2, counts.get(i));
+		}
+
+		// the first chunk is large, later chunks shrink to the minimum
+		chunker.reset();
+		int first = chunker.nextChunk();
+		Assert.assertEquals(10, first);
+		Assert.assertEquals(10 + (5000 / 8) - 1, chunker.chunkHigh(first));
+	}
+
+	@Test
+	public void testMinWorthwhile() {
+		Assert.assertEquals(1, new DetermineWorkload(0, 150).getThreadCount());
+		DetermineWorkload workload = new DetermineWorkload(0, 150, 1);
+		Assert.assertEquals(Math.min(150, Runtime.getRuntime()
+				.availableProcessors()), workload.getThreadCount());
+	}
+}